@@ -0,0 +1,135 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config;
+
+import de.adorsys.keycloak.config.benchmark.SyntheticRealmGenerator;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the full import against an in-process {@link FakeKeycloak}, which makes throughput and the number of admin API
+ * calls comparable between import modes without a keycloak instance. The latency of the fake simulates a remote keycloak.
+ * <p>
+ * The application context is started once per trial; its startup import doubles as warm-up of the clients and caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class KeycloakConfigRunnerBenchmark {
+    private static final String REALM = "benchmark";
+
+    @Param({"sequential", "parallel"})
+    String mode;
+
+    @Param({"create", "update"})
+    String scenario;
+
+    @Param({"0", "5"})
+    int latencyMillis;
+
+    @Param({"1000"})
+    int entities;
+
+    private FakeKeycloak fakeKeycloak;
+    private ConfigurableApplicationContext context;
+    private KeycloakConfigRunner runner;
+    private File importFile;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Calls {
+        public long httpRequests;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        fakeKeycloak = new FakeKeycloak().withLatency(Duration.ofMillis(latencyMillis));
+
+        importFile = File.createTempFile("benchmark-realm", ".json");
+        importFile.deleteOnExit();
+        SyntheticRealmGenerator.write(new SyntheticRealmGenerator(REALM, entities).generate(), importFile);
+
+        context = new SpringApplicationBuilder(KeycloakConfigApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "keycloak.url=" + fakeKeycloak.getUrl(),
+                        "keycloak.password=admin",
+                        "import.path=" + importFile.getAbsolutePath(),
+                        "import.force=true",
+                        "import.parallel=" + mode.equals("parallel"),
+                        "logging.level.root=WARN"
+                )
+                .run();
+
+        runner = context.getBean(KeycloakConfigRunner.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        if (scenario.equals("create")) {
+            fakeKeycloak.reset();
+        }
+
+        fakeKeycloak.resetCalls();
+    }
+
+    @Benchmark
+    public void run(Calls calls) {
+        runner.run();
+
+        if (runner.getExitCode() != 0) {
+            throw new IllegalStateException("Import failed, see the log for details");
+        }
+
+        calls.httpRequests += fakeKeycloak.getTotalCalls();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        fakeKeycloak.close();
+    }
+}
@@ -0,0 +1,57 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Binds the configuration properties like the application does, with the defaults of application.properties.
+ */
+public class BenchmarkProperties {
+    BenchmarkProperties() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static ImportConfigProperties importConfigProperties(Map<String, String> overrides) {
+        Properties properties;
+
+        try {
+            properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        } catch (IOException e) {
+            throw new ImportProcessingException(e);
+        }
+
+        properties.putAll(overrides);
+
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bind("import", ImportConfigProperties.class)
+                .get();
+    }
+}
@@ -0,0 +1,124 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.ProtocolMapperRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.RolesRepresentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds large, deterministic realms as benchmark inputs.
+ */
+public class SyntheticRealm {
+    SyntheticRealm() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static RealmRepresentation realm(String name, int clients, int protocolMappersPerClient, int roles, int groups) {
+        RealmRepresentation realm = new RealmRepresentation();
+        realm.setRealm(name);
+        realm.setEnabled(true);
+        realm.setDisplayName(name + " realm");
+
+        List<ClientRepresentation> clientList = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            clientList.add(client("client-" + i, protocolMappersPerClient));
+        }
+        realm.setClients(clientList);
+
+        List<RoleRepresentation> realmRoles = new ArrayList<>();
+        for (int i = 0; i < roles; i++) {
+            RoleRepresentation role = new RoleRepresentation();
+            role.setName("role-" + i);
+            role.setDescription("Synthetic role " + i);
+            realmRoles.add(role);
+        }
+        RolesRepresentation rolesRepresentation = new RolesRepresentation();
+        rolesRepresentation.setRealm(realmRoles);
+        realm.setRoles(rolesRepresentation);
+
+        List<GroupRepresentation> groupList = new ArrayList<>();
+        for (int i = 0; i < groups; i++) {
+            GroupRepresentation group = new GroupRepresentation();
+            group.setName("group-" + i);
+            group.setPath("/group-" + i);
+            group.setRealmRoles(Arrays.asList("role-" + (i % Math.max(roles, 1))));
+            group.setAttributes(Collections.singletonMap("index", Collections.singletonList(String.valueOf(i))));
+            groupList.add(group);
+        }
+        realm.setGroups(groupList);
+
+        return realm;
+    }
+
+    public static ClientRepresentation client(String clientId, int protocolMappers) {
+        ClientRepresentation client = new ClientRepresentation();
+        client.setClientId(clientId);
+        client.setName(clientId);
+        client.setEnabled(true);
+        client.setPublicClient(false);
+        client.setRedirectUris(Arrays.asList("https://" + clientId + ".example.com/*", "http://localhost:8080/*"));
+        client.setWebOrigins(Arrays.asList("https://" + clientId + ".example.com"));
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("pkce.code.challenge.method", "S256");
+        attributes.put("access.token.lifespan", "300");
+        client.setAttributes(attributes);
+
+        client.setProtocolMappers(protocolMappers(protocolMappers));
+
+        return client;
+    }
+
+    public static List<ProtocolMapperRepresentation> protocolMappers(int count) {
+        List<ProtocolMapperRepresentation> protocolMappers = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            ProtocolMapperRepresentation protocolMapper = new ProtocolMapperRepresentation();
+            protocolMapper.setName("mapper-" + i);
+            protocolMapper.setProtocol("openid-connect");
+            protocolMapper.setProtocolMapper("oidc-usermodel-attribute-mapper");
+
+            Map<String, String> config = new HashMap<>();
+            config.put("user.attribute", "attribute-" + i);
+            config.put("claim.name", "claim_" + i);
+            config.put("jsonType.label", "String");
+            config.put("id.token.claim", "true");
+            config.put("access.token.claim", "true");
+            config.put("userinfo.token.claim", "true");
+            protocolMapper.setConfig(config);
+
+            protocolMappers.add(protocolMapper);
+        }
+
+        return protocolMappers;
+    }
+}
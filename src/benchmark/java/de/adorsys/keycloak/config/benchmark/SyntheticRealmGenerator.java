@@ -0,0 +1,414 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.keycloak.common.util.MultivaluedHashMap;
+import org.keycloak.representations.idm.AuthenticationExecutionExportRepresentation;
+import org.keycloak.representations.idm.AuthenticationFlowRepresentation;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.ComponentExportRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.IdentityProviderMapperRepresentation;
+import org.keycloak.representations.idm.IdentityProviderRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.RolesRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.keycloak.representations.idm.authorization.PolicyRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceServerRepresentation;
+import org.keycloak.representations.idm.authorization.ScopeRepresentation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates realm imports with a given total number of entities, to measure how the import scales.
+ * <p>
+ * The entities are distributed like in a typical realm: half of them are users with realm role, client role and group
+ * memberships, the rest are nested groups, realm and client roles with composites, clients with protocol mappers and
+ * authorization resources, scopes and policies, authentication flows, key provider components and identity providers
+ * with mappers. The output is deterministic for the same arguments.
+ */
+public class SyntheticRealmGenerator {
+    private static final int GROUP_FAN_OUT = 5;
+    private static final int ROLES_PER_CLIENT = 5;
+    private static final int PROTOCOL_MAPPERS_PER_CLIENT = 3;
+    private static final int AUTHORIZATION_EVERY_NTH_CLIENT = 5;
+
+    private final String name;
+    private final int users;
+    private final int groups;
+    private final int realmRoles;
+    private final int clients;
+    private final int flows;
+    private final int components;
+    private final int identityProviders;
+
+    public SyntheticRealmGenerator(String name, int entities) {
+        this.name = name;
+        this.users = Math.max(1, entities / 2);
+        this.groups = Math.max(1, entities / 10);
+        this.realmRoles = Math.max(1, entities / 20);
+        this.clients = Math.max(1, entities / 50);
+        this.flows = Math.max(1, entities / 500);
+        this.components = Math.max(1, entities / 1000);
+        this.identityProviders = Math.max(1, entities / 1000);
+    }
+
+    /**
+     * Usage: {@code SyntheticRealmGenerator <file.json|file.yaml> <entities> [realm]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: SyntheticRealmGenerator <file.json|file.yaml> <entities> [realm]");
+        }
+
+        File file = new File(args[0]);
+        int entities = Integer.parseInt(args[1]);
+        String realm = args.length > 2 ? args[2] : "synthetic";
+
+        write(new SyntheticRealmGenerator(realm, entities).generate(), file);
+    }
+
+    public static void write(RealmRepresentation realm, File file) throws IOException {
+        ObjectMapper objectMapper = file.getName().endsWith(".json")
+                ? new ObjectMapper()
+                : new ObjectMapper(new YAMLFactory());
+
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(file, realm);
+    }
+
+    public RealmRepresentation generate() {
+        RealmRepresentation realm = new RealmRepresentation();
+        realm.setRealm(name);
+        realm.setEnabled(true);
+        realm.setDisplayName(name + " realm");
+
+        realm.setRoles(roles());
+        realm.setClients(clients());
+        realm.setGroups(groups());
+        realm.setUsers(users());
+        realm.setAuthenticationFlows(authenticationFlows());
+        realm.setComponents(components());
+        realm.setIdentityProviders(identityProviders());
+        realm.setIdentityProviderMappers(identityProviderMappers());
+
+        return realm;
+    }
+
+    private RolesRepresentation roles() {
+        List<RoleRepresentation> roles = new ArrayList<>();
+        for (int i = 0; i < realmRoles; i++) {
+            roles.add(role("role-" + i));
+        }
+
+        // every tenth role is a composite of the following roles and a client role
+        for (int i = 0; i + 2 < realmRoles; i += 10) {
+            RoleRepresentation.Composites composites = new RoleRepresentation.Composites();
+            composites.setRealm(new HashSet<>(Arrays.asList("role-" + (i + 1), "role-" + (i + 2))));
+            composites.setClient(Collections.singletonMap(clientId(i % clients),
+                    Collections.singletonList(clientRole(i % clients, 1))));
+            roles.get(i).setComposite(true);
+            roles.get(i).setComposites(composites);
+        }
+
+        Map<String, List<RoleRepresentation>> clientRoles = new LinkedHashMap<>();
+        for (int client = 0; client < clients; client++) {
+            List<RoleRepresentation> rolesOfClient = new ArrayList<>();
+            for (int i = 0; i < ROLES_PER_CLIENT; i++) {
+                rolesOfClient.add(role(clientRole(client, i)));
+            }
+
+            // the first role of each client is a composite of the others
+            RoleRepresentation.Composites composites = new RoleRepresentation.Composites();
+            List<String> compositeRoles = new ArrayList<>();
+            for (int i = 1; i < ROLES_PER_CLIENT; i++) {
+                compositeRoles.add(clientRole(client, i));
+            }
+            composites.setClient(Collections.singletonMap(clientId(client), compositeRoles));
+            rolesOfClient.get(0).setComposite(true);
+            rolesOfClient.get(0).setComposites(composites);
+
+            clientRoles.put(clientId(client), rolesOfClient);
+        }
+
+        RolesRepresentation rolesRepresentation = new RolesRepresentation();
+        rolesRepresentation.setRealm(roles);
+        rolesRepresentation.setClient(clientRoles);
+        return rolesRepresentation;
+    }
+
+    private List<ClientRepresentation> clients() {
+        List<ClientRepresentation> clientList = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+            ClientRepresentation client = SyntheticRealm.client(clientId(i), PROTOCOL_MAPPERS_PER_CLIENT);
+
+            if (i % AUTHORIZATION_EVERY_NTH_CLIENT == 0) {
+                client.setServiceAccountsEnabled(true);
+                client.setAuthorizationServicesEnabled(true);
+                client.setAuthorizationSettings(authorizationSettings(i));
+            }
+
+            clientList.add(client);
+        }
+
+        return clientList;
+    }
+
+    private ResourceServerRepresentation authorizationSettings(int client) {
+        ResourceServerRepresentation settings = new ResourceServerRepresentation();
+        settings.setAllowRemoteResourceManagement(false);
+
+        List<ScopeRepresentation> scopes = Arrays.asList(new ScopeRepresentation("read"), new ScopeRepresentation("write"));
+        settings.setScopes(scopes);
+
+        List<ResourceRepresentation> resources = new ArrayList<>();
+        List<PolicyRepresentation> policies = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ResourceRepresentation resource = new ResourceRepresentation("resource-" + i, "read", "write");
+            resource.setUris(Collections.singleton("/resource-" + i + "/*"));
+            resources.add(resource);
+
+            PolicyRepresentation policy = new PolicyRepresentation();
+            policy.setName("role-policy-" + i);
+            policy.setType("role");
+            policy.setConfig(Collections.singletonMap("roles",
+                    "[{\"id\":\"" + clientId(client) + "/" + clientRole(client, i) + "\",\"required\":false}]"));
+            policies.add(policy);
+
+            PolicyRepresentation permission = new PolicyRepresentation();
+            permission.setName("resource-permission-" + i);
+            permission.setType("resource");
+            Map<String, String> config = new HashMap<>();
+            config.put("resources", "[\"resource-" + i + "\"]");
+            config.put("applyPolicies", "[\"role-policy-" + i + "\"]");
+            permission.setConfig(config);
+            policies.add(permission);
+        }
+        settings.setResources(resources);
+        settings.setPolicies(policies);
+
+        return settings;
+    }
+
+    /**
+     * A tree with {@link #GROUP_FAN_OUT} sub groups per group, filled breadth-first.
+     */
+    private List<GroupRepresentation> groups() {
+        List<GroupRepresentation> all = new ArrayList<>();
+        List<GroupRepresentation> topLevel = new ArrayList<>();
+
+        for (int i = 0; i < groups; i++) {
+            GroupRepresentation group = new GroupRepresentation();
+            group.setName("group-" + i);
+            group.setRealmRoles(Collections.singletonList("role-" + (i % realmRoles)));
+            group.setClientRoles(Collections.singletonMap(clientId(i % clients),
+                    Collections.singletonList(clientRole(i % clients, i % ROLES_PER_CLIENT))));
+            group.setAttributes(Collections.singletonMap("index", Collections.singletonList(String.valueOf(i))));
+            group.setSubGroups(new ArrayList<>());
+
+            if (i < GROUP_FAN_OUT) {
+                group.setPath("/" + group.getName());
+                topLevel.add(group);
+            } else {
+                GroupRepresentation parent = all.get(i / GROUP_FAN_OUT - 1);
+                group.setPath(parent.getPath() + "/" + group.getName());
+                parent.getSubGroups().add(group);
+            }
+
+            all.add(group);
+        }
+
+        return topLevel;
+    }
+
+    private List<UserRepresentation> users() {
+        List<GroupRepresentation> groupList = flatten(groups());
+        List<UserRepresentation> userList = new ArrayList<>();
+
+        for (int i = 0; i < users; i++) {
+            UserRepresentation user = new UserRepresentation();
+            user.setUsername("user-" + i);
+            user.setEmail("user-" + i + "@example.com");
+            user.setFirstName("User");
+            user.setLastName(String.valueOf(i));
+            user.setEnabled(true);
+            user.setRealmRoles(Collections.singletonList("role-" + (i % realmRoles)));
+            user.setClientRoles(Collections.singletonMap(clientId(i % clients),
+                    Collections.singletonList(clientRole(i % clients, i % ROLES_PER_CLIENT))));
+            user.setGroups(Collections.singletonList(groupList.get(i % groupList.size()).getPath()));
+            userList.add(user);
+        }
+
+        return userList;
+    }
+
+    private List<AuthenticationFlowRepresentation> authenticationFlows() {
+        List<AuthenticationFlowRepresentation> flowList = new ArrayList<>();
+
+        for (int i = 0; i < flows; i++) {
+            String alias = "flow-" + i;
+            String formsAlias = alias + " forms";
+
+            AuthenticationFlowRepresentation flow = flow(alias, true, Arrays.asList(
+                    execution("auth-cookie", null, "ALTERNATIVE", 10),
+                    execution(null, formsAlias, "ALTERNATIVE", 20)
+            ));
+            AuthenticationFlowRepresentation forms = flow(formsAlias, false, Arrays.asList(
+                    execution("auth-username-password-form", null, "REQUIRED", 10),
+                    execution("auth-otp-form", null, "CONDITIONAL", 20)
+            ));
+
+            flowList.add(flow);
+            flowList.add(forms);
+        }
+
+        return flowList;
+    }
+
+    private static AuthenticationFlowRepresentation flow(String alias, boolean topLevel,
+                                                         List<AuthenticationExecutionExportRepresentation> executions) {
+        AuthenticationFlowRepresentation flow = new AuthenticationFlowRepresentation();
+        flow.setAlias(alias);
+        flow.setDescription("Synthetic flow " + alias);
+        flow.setProviderId("basic-flow");
+        flow.setTopLevel(topLevel);
+        flow.setBuiltIn(false);
+        flow.setAuthenticationExecutions(executions);
+        return flow;
+    }
+
+    private static AuthenticationExecutionExportRepresentation execution(String authenticator, String flowAlias,
+                                                                         String requirement, int priority) {
+        AuthenticationExecutionExportRepresentation execution = new AuthenticationExecutionExportRepresentation();
+        execution.setAuthenticator(authenticator);
+        execution.setFlowAlias(flowAlias);
+        execution.setAuthenticatorFlow(flowAlias != null);
+        execution.setRequirement(requirement);
+        execution.setPriority(priority);
+        execution.setUserSetupAllowed(false);
+        return execution;
+    }
+
+    private MultivaluedHashMap<String, ComponentExportRepresentation> components() {
+        List<ComponentExportRepresentation> keyProviders = new ArrayList<>();
+
+        for (int i = 0; i < components; i++) {
+            ComponentExportRepresentation component = new ComponentExportRepresentation();
+            component.setName("hmac-" + i);
+            component.setProviderId("hmac-generated");
+
+            MultivaluedHashMap<String, String> config = new MultivaluedHashMap<>();
+            config.putSingle("priority", String.valueOf(100 + i));
+            config.putSingle("algorithm", "HS256");
+            component.setConfig(config);
+
+            keyProviders.add(component);
+        }
+
+        MultivaluedHashMap<String, ComponentExportRepresentation> componentMap = new MultivaluedHashMap<>();
+        componentMap.put("org.keycloak.keys.KeyProvider", keyProviders);
+        return componentMap;
+    }
+
+    private List<IdentityProviderRepresentation> identityProviders() {
+        List<IdentityProviderRepresentation> identityProviderList = new ArrayList<>();
+
+        for (int i = 0; i < identityProviders; i++) {
+            IdentityProviderRepresentation identityProvider = new IdentityProviderRepresentation();
+            identityProvider.setAlias("idp-" + i);
+            identityProvider.setProviderId("oidc");
+            identityProvider.setEnabled(true);
+
+            Map<String, String> config = new HashMap<>();
+            config.put("clientId", "idp-" + i);
+            config.put("clientSecret", "secret");
+            config.put("authorizationUrl", "https://idp-" + i + ".example.com/auth");
+            config.put("tokenUrl", "https://idp-" + i + ".example.com/token");
+            identityProvider.setConfig(config);
+
+            identityProviderList.add(identityProvider);
+        }
+
+        return identityProviderList;
+    }
+
+    private List<IdentityProviderMapperRepresentation> identityProviderMappers() {
+        List<IdentityProviderMapperRepresentation> mappers = new ArrayList<>();
+
+        for (int i = 0; i < identityProviders; i++) {
+            IdentityProviderMapperRepresentation mapper = new IdentityProviderMapperRepresentation();
+            mapper.setName("idp-" + i + "-attribute");
+            mapper.setIdentityProviderAlias("idp-" + i);
+            mapper.setIdentityProviderMapper("hardcoded-attribute-idp-mapper");
+
+            Map<String, String> config = new HashMap<>();
+            config.put("attribute", "origin");
+            config.put("attribute.value", "idp-" + i);
+            mapper.setConfig(config);
+
+            mappers.add(mapper);
+        }
+
+        return mappers;
+    }
+
+    private static List<GroupRepresentation> flatten(List<GroupRepresentation> groups) {
+        List<GroupRepresentation> all = new ArrayList<>();
+
+        for (GroupRepresentation group : groups) {
+            all.add(group);
+            all.addAll(flatten(group.getSubGroups()));
+        }
+
+        return all;
+    }
+
+    private static RoleRepresentation role(String roleName) {
+        RoleRepresentation role = new RoleRepresentation();
+        role.setName(roleName);
+        role.setDescription("Synthetic role " + roleName);
+        return role;
+    }
+
+    private static String clientId(int client) {
+        return "client-" + client;
+    }
+
+    private static String clientRole(int client, int role) {
+        return clientId(client) + "-role-" + role;
+    }
+}
@@ -0,0 +1,119 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import de.adorsys.keycloak.config.benchmark.BenchmarkProperties;
+import de.adorsys.keycloak.config.model.KeycloakImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads contrib/example-config/benchmark.yaml, or the file of the system property benchmark.config, as YAML and as JSON.
+ * With variable substitution, every {@code enabled} property is a variable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeycloakImportProviderBenchmark {
+    @Param({"yaml", "json"})
+    String format;
+
+    @Param({"false", "true"})
+    boolean varSubstitution;
+
+    private Path directory;
+    private File importFile;
+    private KeycloakImportProvider keycloakImportProvider;
+
+    @Setup
+    public void setup() throws IOException {
+        Path source = Paths.get(System.getProperty("benchmark.config", "contrib/example-config/benchmark.yaml"));
+        String content = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+
+        if (format.equals("json")) {
+            JsonNode tree = new ObjectMapper(new YAMLFactory()).readTree(content);
+            content = new ObjectMapper().writeValueAsString(tree);
+        }
+
+        if (varSubstitution) {
+            System.setProperty("benchmark.enabled", "true");
+            content = content
+                    .replace("enabled: true", "enabled: $(sys:benchmark.enabled)")
+                    .replace("\"enabled\":true", "\"enabled\":$(sys:benchmark.enabled)");
+        }
+
+        directory = Files.createTempDirectory("benchmark");
+        importFile = directory.resolve("benchmark." + format).toFile();
+        Files.write(importFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put("import.path", importFile.getAbsolutePath());
+        properties.put("import.var-substitution", String.valueOf(varSubstitution));
+        ImportConfigProperties importConfigProperties = BenchmarkProperties.importConfigProperties(properties);
+
+        keycloakImportProvider = new KeycloakImportProvider(
+                new DefaultResourceLoader(),
+                Collections.singletonList(new FileResourceExtractor()),
+                importConfigProperties,
+                new ImportManifest(importConfigProperties)
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(importFile.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public KeycloakImport readRealmImportFromFile() {
+        return keycloakImportProvider.readRealmImportFromFile(importFile);
+    }
+}
@@ -0,0 +1,117 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.repository;
+
+import de.adorsys.keycloak.config.benchmark.BenchmarkProperties;
+import de.adorsys.keycloak.config.util.ChecksumUtil;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization, compression, encryption and chunking of the import state into realm attributes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateRepositoryBenchmark {
+    private static final String REALM = "benchmark";
+
+    @Param({"100", "5000"})
+    int entries;
+
+    @Param({"false", "true"})
+    boolean compression;
+
+    @Param({"false", "true"})
+    boolean encryption;
+
+    private StateRepository stateRepository;
+    private List<Object> state;
+
+    @Setup
+    public void setup() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("import.path", "benchmark");
+        properties.put("import.state-compression", String.valueOf(compression));
+        if (encryption) {
+            properties.put("import.state-encryption-key", "benchmark");
+        }
+
+        stateRepository = new StateRepository(new InMemoryStateStore(), BenchmarkProperties.importConfigProperties(properties));
+        stateRepository.loadCustomAttributes(REALM);
+
+        // entity checksums are a typical large state
+        state = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            state.add(ChecksumUtil.checksum("entity-" + i).substring(0, 16));
+        }
+
+        stateRepository.setState("clients", state);
+    }
+
+    @Benchmark
+    public void setState() {
+        stateRepository.setState("roles", state);
+    }
+
+    @Benchmark
+    public List<String> getState() {
+        return stateRepository.getState("clients");
+    }
+
+    private static class InMemoryStateStore implements StateStore {
+        private final Map<String, Map<String, String>> realms = new HashMap<>();
+
+        @Override
+        public Map<String, String> read(String realmName) {
+            return new HashMap<>(realms.getOrDefault(realmName, new HashMap<>()));
+        }
+
+        @Override
+        public void write(String realmName, Map<String, String> stateAttributes) {
+            realms.put(realmName, new HashMap<>(stateAttributes));
+        }
+
+        @Override
+        public void preserve(RealmRepresentation realm, Map<String, String> stateAttributes) {
+            // nothing to preserve in memory
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import de.adorsys.keycloak.config.benchmark.SyntheticRealm;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CloneUtilBenchmark {
+    @Param({"10", "200"})
+    int clients;
+
+    private RealmRepresentation realm;
+    private RealmRepresentation changedRealm;
+
+    @Setup
+    public void setup() {
+        realm = SyntheticRealm.realm("benchmark", clients, 10, clients, clients);
+
+        changedRealm = CloneUtil.deepClone(realm);
+        changedRealm.setDisplayName("changed");
+        changedRealm.getClients().get(clients / 2).setName("changed");
+    }
+
+    @Benchmark
+    public RealmRepresentation deepClone() {
+        return CloneUtil.deepClone(realm, RealmRepresentation.class);
+    }
+
+    @Benchmark
+    public RealmRepresentation patch() {
+        return CloneUtil.patch(realm, changedRealm);
+    }
+
+    @Benchmark
+    public boolean deepEquals() {
+        return CloneUtil.deepEquals(realm, changedRealm);
+    }
+
+    @Benchmark
+    public RealmRepresentation deepDiff() {
+        return CloneUtil.deepDiff(changedRealm, realm);
+    }
+}
@@ -0,0 +1,81 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import de.adorsys.keycloak.config.benchmark.SyntheticRealm;
+import org.keycloak.representations.idm.ProtocolMapperRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolMapperUtilBenchmark {
+    @Param({"10", "100"})
+    int protocolMappers;
+
+    private List<ProtocolMapperRepresentation> existingProtocolMappers;
+    private List<ProtocolMapperRepresentation> importedProtocolMappers;
+
+    @Setup
+    public void setup() {
+        existingProtocolMappers = SyntheticRealm.protocolMappers(protocolMappers);
+
+        // the last mapper is changed, so comparisons have to look at all mappers
+        importedProtocolMappers = SyntheticRealm.protocolMappers(protocolMappers);
+        importedProtocolMappers.get(protocolMappers - 1).getConfig().put("claim.name", "changed");
+    }
+
+    @Benchmark
+    public boolean areProtocolMappersEqual() {
+        return ProtocolMapperUtil.areProtocolMappersEqual(importedProtocolMappers, existingProtocolMappers);
+    }
+
+    @Benchmark
+    public List<ProtocolMapperRepresentation> estimateProtocolMappersToUpdate() {
+        return ProtocolMapperUtil.estimateProtocolMappersToUpdate(importedProtocolMappers, existingProtocolMappers);
+    }
+
+    @Benchmark
+    public List<ProtocolMapperRepresentation> estimateProtocolMappersToAdd() {
+        return ProtocolMapperUtil.estimateProtocolMappersToAdd(importedProtocolMappers, existingProtocolMappers);
+    }
+
+    @Benchmark
+    public List<ProtocolMapperRepresentation> estimateProtocolMappersToRemove() {
+        return ProtocolMapperUtil.estimateProtocolMappersToRemove(importedProtocolMappers, existingProtocolMappers);
+    }
+}
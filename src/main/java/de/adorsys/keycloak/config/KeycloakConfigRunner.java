@@ -22,8 +22,14 @@ package de.adorsys.keycloak.config;
 
 import de.adorsys.keycloak.config.model.KeycloakImport;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.provider.ImportManifest;
 import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
 import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.service.drift.DriftDetectionService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.service.plan.ImportApplyService;
+import de.adorsys.keycloak.config.service.plan.ImportPlanService;
+import de.adorsys.keycloak.config.service.watch.ImportWatchService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,16 +48,34 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
 
     private final KeycloakImportProvider keycloakImportProvider;
     private final RealmImportService realmImportService;
+    private final ImportManifest importManifest;
+    private final ImportWatchService importWatchService;
+    private final DriftDetectionService driftDetectionService;
+    private final ImportInstrumentation importInstrumentation;
+    private final ImportPlanService importPlanService;
+    private final ImportApplyService importApplyService;
 
     private int exitCode = 0;
 
     @Autowired
     public KeycloakConfigRunner(
             KeycloakImportProvider keycloakImportProvider,
-            RealmImportService realmImportService
+            RealmImportService realmImportService,
+            ImportManifest importManifest,
+            ImportWatchService importWatchService,
+            DriftDetectionService driftDetectionService,
+            ImportInstrumentation importInstrumentation,
+            ImportPlanService importPlanService,
+            ImportApplyService importApplyService
     ) {
         this.keycloakImportProvider = keycloakImportProvider;
         this.realmImportService = realmImportService;
+        this.importManifest = importManifest;
+        this.importWatchService = importWatchService;
+        this.driftDetectionService = driftDetectionService;
+        this.importInstrumentation = importInstrumentation;
+        this.importPlanService = importPlanService;
+        this.importApplyService = importApplyService;
     }
 
     @Override
@@ -62,13 +86,26 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
     @Override
     public void run(String... args) {
         try {
+            if (importApplyService.isEnabled()) {
+                applyPlan();
+                return;
+            }
+
             KeycloakImport keycloakImport = keycloakImportProvider.get();
 
-            Map<String, RealmImport> realmImports = keycloakImport.getRealmImports();
+            doImport(keycloakImport);
 
-            for (Map.Entry<String, RealmImport> realmImport : realmImports.entrySet()) {
-                logger.info("Importing file '{}'", realmImport.getKey());
-                realmImportService.doImport(realmImport.getValue());
+            // a plan is a one-off run, it never changes keycloak
+            if (importPlanService.isEnabled()) return;
+
+            if (driftDetectionService.isEnabled()) {
+                driftDetectionService.start();
+            }
+
+            if (importWatchService.isEnabled()) {
+                importWatchService.watch(this::doImport);
+            } else if (driftDetectionService.isEnabled()) {
+                driftDetectionService.awaitTermination();
             }
         } catch (NullPointerException e) {
             throw e;
@@ -86,4 +123,35 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
             logger.info("keycloak-config-cli running in {}.", formattedTime);
         }
     }
+
+    private void applyPlan() {
+        importInstrumentation.run(importApplyService::apply);
+    }
+
+    private void doImport(KeycloakImport keycloakImport) {
+        importInstrumentation.run(() -> importRealms(keycloakImport));
+    }
+
+    private void importRealms(KeycloakImport keycloakImport) {
+        Map<String, RealmImport> realmImports = keycloakImport.getRealmImports();
+
+        try {
+            for (Map.Entry<String, RealmImport> realmImport : realmImports.entrySet()) {
+                logger.info("Importing file '{}'", realmImport.getKey());
+                boolean imported = realmImportService.doImport(realmImport.getValue());
+
+                if (!importPlanService.isEnabled()) {
+                    driftDetectionService.record(realmImport.getValue(), imported);
+                }
+            }
+
+            if (!importPlanService.isEnabled()) {
+                importManifest.save();
+            }
+        } catch (RuntimeException e) {
+            // a failed file must not be skipped by the next import
+            importManifest.discard();
+            throw e;
+        }
+    }
 }
@@ -24,6 +24,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -48,6 +49,42 @@ public class ImportConfigProperties {
     @NotNull
     private final boolean force;
 
+    @NotNull
+    private final boolean skipUnchangedEntities;
+
+    @NotNull
+    private final boolean incremental;
+
+    private final String manifestPath;
+
+    @NotNull
+    private final boolean watch;
+
+    @NotNull
+    private final Duration watchDebounce;
+
+    @NotNull
+    private final boolean driftDetection;
+
+    @NotNull
+    private final Duration driftDetectionInterval;
+
+    private final String driftDetectionPath;
+
+    @NotNull
+    private final boolean plan;
+
+    private final String planPath;
+
+    private final String applyPath;
+
+    private final String reportPath;
+
+    private final String metricsPath;
+
+    @NotNull
+    private final int metricsPort;
+
     @NotBlank
     private final String cacheKey;
 
@@ -59,12 +96,23 @@ public class ImportConfigProperties {
     @Pattern(regexp = "^[A-Fa-f0-9]+$")
     private final String stateEncryptionSalt;
 
+    @NotNull
+    private final boolean stateCompression;
+
+    @NotNull
+    private final StateStoreType stateStore;
+
+    private final String stateStorePath;
+
     @NotNull
     private final ImportFileType fileType;
 
     @NotNull
     private final boolean parallel;
 
+    @NotNull
+    private final int authorizationBulkThreshold;
+
     @NotNull
     private final boolean varSubstitutionInVariables;
 
@@ -93,12 +141,30 @@ public class ImportConfigProperties {
             String path,
             boolean varSubstitution,
             boolean force,
+            boolean skipUnchangedEntities,
+            boolean incremental,
+            String manifestPath,
+            boolean watch,
+            Duration watchDebounce,
+            boolean driftDetection,
+            Duration driftDetectionInterval,
+            String driftDetectionPath,
+            boolean plan,
+            String planPath,
+            String applyPath,
+            String reportPath,
+            String metricsPath,
+            int metricsPort,
             String cacheKey,
             boolean state,
             String stateEncryptionKey,
             String stateEncryptionSalt,
+            boolean stateCompression,
+            StateStoreType stateStore,
+            String stateStorePath,
             ImportFileType fileType,
             boolean parallel,
+            int authorizationBulkThreshold,
             boolean varSubstitutionInVariables,
             boolean varSubstitutionUndefinedThrowsExceptions,
             String varSubstitutionPrefix,
@@ -110,12 +176,30 @@ public class ImportConfigProperties {
         this.path = path;
         this.varSubstitution = varSubstitution;
         this.force = force;
+        this.skipUnchangedEntities = skipUnchangedEntities;
+        this.incremental = incremental;
+        this.manifestPath = manifestPath;
+        this.watch = watch;
+        this.watchDebounce = watchDebounce;
+        this.driftDetection = driftDetection;
+        this.driftDetectionInterval = driftDetectionInterval;
+        this.driftDetectionPath = driftDetectionPath;
+        this.plan = plan;
+        this.planPath = planPath;
+        this.applyPath = applyPath;
+        this.reportPath = reportPath;
+        this.metricsPath = metricsPath;
+        this.metricsPort = metricsPort;
         this.cacheKey = cacheKey;
         this.state = state;
         this.stateEncryptionKey = stateEncryptionKey;
         this.stateEncryptionSalt = stateEncryptionSalt;
+        this.stateCompression = stateCompression;
+        this.stateStore = stateStore;
+        this.stateStorePath = stateStorePath;
         this.fileType = fileType;
         this.parallel = parallel;
+        this.authorizationBulkThreshold = authorizationBulkThreshold;
         this.varSubstitutionInVariables = varSubstitutionInVariables;
         this.varSubstitutionUndefinedThrowsExceptions = varSubstitutionUndefinedThrowsExceptions;
         this.varSubstitutionPrefix = varSubstitutionPrefix;
@@ -134,6 +218,62 @@ public class ImportConfigProperties {
         return force;
     }
 
+    public boolean isSkipUnchangedEntities() {
+        return skipUnchangedEntities;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public String getManifestPath() {
+        return manifestPath;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public Duration getWatchDebounce() {
+        return watchDebounce;
+    }
+
+    public boolean isDriftDetection() {
+        return driftDetection;
+    }
+
+    public Duration getDriftDetectionInterval() {
+        return driftDetectionInterval;
+    }
+
+    public String getDriftDetectionPath() {
+        return driftDetectionPath;
+    }
+
+    public boolean isPlan() {
+        return plan;
+    }
+
+    public String getPlanPath() {
+        return planPath;
+    }
+
+    public String getApplyPath() {
+        return applyPath;
+    }
+
+    public String getReportPath() {
+        return reportPath;
+    }
+
+    public String getMetricsPath() {
+        return metricsPath;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
     public boolean isVarSubstitution() {
         return varSubstitution;
     }
@@ -158,6 +298,18 @@ public class ImportConfigProperties {
         return stateEncryptionSalt;
     }
 
+    public boolean isStateCompression() {
+        return stateCompression;
+    }
+
+    public StateStoreType getStateStore() {
+        return stateStore;
+    }
+
+    public String getStateStorePath() {
+        return stateStorePath;
+    }
+
     public ImportFileType getFileType() {
         return fileType;
     }
@@ -166,6 +318,14 @@ public class ImportConfigProperties {
         return parallel;
     }
 
+    /**
+     * @return the number of created or updated authorization resources, scopes and policies of a client, from which on
+     * they are imported by one request. 0 disables the bulk import.
+     */
+    public int getAuthorizationBulkThreshold() {
+        return authorizationBulkThreshold;
+    }
+
     public boolean isVarSubstitutionInVariables() {
         return varSubstitutionInVariables;
     }
@@ -200,6 +360,11 @@ public class ImportConfigProperties {
         YAML
     }
 
+    public enum StateStoreType {
+        REALM,
+        FILE
+    }
+
     @SuppressWarnings("unused")
     public static class ImportManagedProperties {
         @NotNull
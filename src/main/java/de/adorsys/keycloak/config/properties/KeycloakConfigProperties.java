@@ -65,6 +65,18 @@ public class KeycloakConfigProperties {
     @Valid
     private final KeycloakAvailabilityCheck availabilityCheck;
 
+    @Valid
+    private final KeycloakTokenRefresh tokenRefresh;
+
+    @Valid
+    private final KeycloakHttpClient httpClient;
+
+    @Valid
+    private final KeycloakRetry retry;
+
+    @Valid
+    private final KeycloakConcurrencyLimit concurrencyLimit;
+
     public KeycloakConfigProperties(
             String loginRealm,
             String clientId,
@@ -75,7 +87,11 @@ public class KeycloakConfigProperties {
             String grantType,
             boolean sslVerify,
             URL httpProxy,
-            KeycloakAvailabilityCheck availabilityCheck
+            KeycloakAvailabilityCheck availabilityCheck,
+            KeycloakTokenRefresh tokenRefresh,
+            KeycloakHttpClient httpClient,
+            KeycloakRetry retry,
+            KeycloakConcurrencyLimit concurrencyLimit
     ) {
         this.loginRealm = loginRealm;
         this.clientId = clientId;
@@ -88,6 +104,10 @@ public class KeycloakConfigProperties {
         this.sslVerify = sslVerify;
         this.httpProxy = httpProxy;
         this.availabilityCheck = availabilityCheck;
+        this.tokenRefresh = tokenRefresh;
+        this.httpClient = httpClient;
+        this.retry = retry;
+        this.concurrencyLimit = concurrencyLimit;
     }
 
     public String getLoginRealm() {
@@ -122,6 +142,22 @@ public class KeycloakConfigProperties {
         return availabilityCheck;
     }
 
+    public KeycloakTokenRefresh getTokenRefresh() {
+        return tokenRefresh;
+    }
+
+    public KeycloakHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public KeycloakRetry getRetry() {
+        return retry;
+    }
+
+    public KeycloakConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
     public String getClientSecret() {
         return clientSecret;
     }
@@ -163,4 +199,204 @@ public class KeycloakConfigProperties {
             return retryDelay;
         }
     }
+
+    public static class KeycloakTokenRefresh {
+        @NotNull
+        private final boolean enabled;
+
+        @NotNull
+        private final Duration minValidity;
+
+        @SuppressWarnings("unused")
+        public KeycloakTokenRefresh(boolean enabled, Duration minValidity) {
+            this.enabled = enabled;
+            this.minValidity = minValidity;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Duration getMinValidity() {
+            return minValidity;
+        }
+    }
+
+    public static class KeycloakHttpClient {
+        @NotNull
+        private final int poolSize;
+
+        @NotNull
+        private final int maxPerRoute;
+
+        @NotNull
+        private final Duration connectTimeout;
+
+        @NotNull
+        private final Duration readTimeout;
+
+        @NotNull
+        private final Duration connectionRequestTimeout;
+
+        @NotNull
+        private final Duration keepAlive;
+
+        @NotNull
+        private final Duration connectionTtl;
+
+        @NotNull
+        private final Duration idleTimeout;
+
+        @SuppressWarnings("unused")
+        public KeycloakHttpClient(
+                int poolSize,
+                int maxPerRoute,
+                Duration connectTimeout,
+                Duration readTimeout,
+                Duration connectionRequestTimeout,
+                Duration keepAlive,
+                Duration connectionTtl,
+                Duration idleTimeout
+        ) {
+            this.poolSize = poolSize;
+            this.maxPerRoute = maxPerRoute;
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            this.keepAlive = keepAlive;
+            this.connectionTtl = connectionTtl;
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public Duration getConnectionRequestTimeout() {
+            return connectionRequestTimeout;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public Duration getConnectionTtl() {
+            return connectionTtl;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+    }
+
+    public static class KeycloakRetry {
+        @NotNull
+        private final boolean enabled;
+
+        @NotNull
+        private final int maxRetries;
+
+        @NotNull
+        private final Duration delay;
+
+        @NotNull
+        private final Duration maxDelay;
+
+        @SuppressWarnings("unused")
+        public KeycloakRetry(boolean enabled, int maxRetries, Duration delay, Duration maxDelay) {
+            this.enabled = enabled;
+            this.maxRetries = maxRetries;
+            this.delay = delay;
+            this.maxDelay = maxDelay;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public Duration getDelay() {
+            return delay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+    }
+
+    public static class KeycloakConcurrencyLimit {
+        @NotNull
+        private final boolean enabled;
+
+        @NotNull
+        private final int initialLimit;
+
+        @NotNull
+        private final int minLimit;
+
+        @NotNull
+        private final int maxLimit;
+
+        @NotNull
+        private final double backoffRatio;
+
+        @NotNull
+        private final Duration latencyThreshold;
+
+        @SuppressWarnings("unused")
+        public KeycloakConcurrencyLimit(
+                boolean enabled,
+                int initialLimit,
+                int minLimit,
+                int maxLimit,
+                double backoffRatio,
+                Duration latencyThreshold
+        ) {
+            this.enabled = enabled;
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.backoffRatio = backoffRatio;
+            this.latencyThreshold = latencyThreshold;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+    }
 }
@@ -30,8 +30,9 @@ import org.springframework.util.Assert;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -46,14 +47,17 @@ class DirectoryResourceExtractor implements ResourceExtractor {
         return file.isDirectory() && file.canRead();
     }
 
-    public Collection<File> extract(Resource resource) throws IOException {
+    public Map<String, File> extract(Resource resource) throws IOException {
         logger.debug("Extracting files from DirectoryResource ...");
         Assert.notNull(resource, "The resource to extract files cannot be null!");
 
         File file = resource.getFile();
         File[] files = file.listFiles();
 
-        return Optional.ofNullable(files).map(f -> Arrays.stream(f).filter(File::isFile).collect(Collectors.toList()))
-                .orElse(Collections.emptyList());
+        return Optional.ofNullable(files)
+                .map(f -> Arrays.stream(f).filter(File::isFile).collect(Collectors.toMap(
+                        File::getAbsolutePath, importFile -> importFile, (a, b) -> a, LinkedHashMap::new
+                )))
+                .orElse(Collections.emptyMap());
     }
 }
@@ -29,7 +29,7 @@ import org.springframework.util.Assert;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.util.Map;
 
 @Order(1)
 @Component
@@ -42,11 +42,11 @@ class FileResourceExtractor implements ResourceExtractor {
         return file.isFile() && file.canRead();
     }
 
-    public Collection<File> extract(Resource resource) throws IOException {
+    public Map<String, File> extract(Resource resource) throws IOException {
         logger.debug("Extracting files from FileResource ...");
         Assert.notNull(resource, "The resource to extract files cannot be null!");
 
         File file = resource.getFile();
-        return FileUtils.extractFile(file);
+        return FileUtils.extractFile(file, file.getAbsolutePath());
     }
 }
@@ -31,14 +31,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 final class FileUtils {
+    // like the entries of a jar url
+    static final String ZIP_ENTRY_SEPARATOR = "!/";
+
     FileUtils() {
         throw new IllegalStateException("Utility class");
     }
@@ -46,13 +50,24 @@ final class FileUtils {
     public static Collection<File> extractFile(File src) {
         Assert.notNull(src, "The source file to extract cannot be null!");
 
+        return extractFile(src, src.getAbsolutePath()).values();
+    }
+
+    /**
+     * @param src      the file or zip file to extract, e.g. a temp file of a downloaded file
+     * @param location the source location of the file, e.g. its url
+     * @return the file or the entries of the zip file by their source location, {@code <location>!/<entry name>} for entries
+     */
+    public static Map<String, File> extractFile(File src, String location) {
+        Assert.notNull(src, "The source file to extract cannot be null!");
+
         String fileExt = FilenameUtils.getExtension(src.getName());
 
         if (fileExt.equals("zip")) {
-            return FileUtils.extractZipFile(src);
+            return FileUtils.extractZipFile(src, location);
         }
 
-        return Collections.singletonList(src);
+        return Collections.singletonMap(location, src);
     }
 
     public static File createTempFile(String name, InputStream inputStream) throws IOException {
@@ -71,10 +86,10 @@ final class FileUtils {
         return tempFile;
     }
 
-    private static Collection<File> extractZipFile(File zipFile) {
+    private static Map<String, File> extractZipFile(File zipFile, String location) {
         Assert.notNull(zipFile, "The source zip file to extract cannot be null!");
 
-        Collection<File> result = new ArrayList<>();
+        Map<String, File> result = new LinkedHashMap<>();
         try (ZipFile zip = new ZipFile(zipFile, ZipFile.OPEN_READ)) {
             Enumeration<? extends ZipEntry> entries = zip.entries();
 
@@ -82,7 +97,7 @@ final class FileUtils {
                 ZipEntry entry = entries.nextElement();
                 if (!entry.isDirectory()) {
                     InputStream inputStream = zip.getInputStream(entry);
-                    result.add(createTempFile(entry.getName(), inputStream));
+                    result.put(location + ZIP_ENTRY_SEPARATOR + entry.getName(), createTempFile(entry.getName(), inputStream));
                 }
             }
         } catch (IOException ex) {
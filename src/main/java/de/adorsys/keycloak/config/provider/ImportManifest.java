@@ -0,0 +1,183 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Remembers the checksums of all import files of the last successful run, if {@code import.incremental} is enabled.
+ * Files with an unchanged checksum are not parsed and imported again.
+ */
+@Component
+public class ImportManifest {
+    private static final Logger logger = LoggerFactory.getLogger(ImportManifest.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ImportConfigProperties importConfigProperties;
+
+    private Map<String, String> storedChecksums;
+    private final Map<String, String> checksums = new TreeMap<>();
+
+    @Autowired
+    public ImportManifest(ImportConfigProperties importConfigProperties) {
+        this.importConfigProperties = importConfigProperties;
+    }
+
+    public boolean isEnabled() {
+        return importConfigProperties.isIncremental();
+    }
+
+    /**
+     * @return {@code true}, if the import file is unchanged since the last successful run and can be skipped
+     */
+    public synchronized boolean isUnchanged(String importFile, String checksum) {
+        if (!isEnabled() || importConfigProperties.isForce()) return false;
+
+        return Objects.equals(getStoredChecksums().get(importFile), checksum);
+    }
+
+    /**
+     * Records the checksum of an import file for the next run. The checksum is persisted by {@link #save()} only,
+     * {@link #discard()} drops it if the import fails.
+     */
+    public synchronized void record(String importFile, String checksum) {
+        if (!isEnabled()) return;
+
+        checksums.put(importFile, checksum);
+    }
+
+    /**
+     * Drops the checksums recorded since the last save, so the files of a failed import are imported again.
+     */
+    public synchronized void discard() {
+        checksums.clear();
+    }
+
+    /**
+     * Persists the checksums of all import files seen so far. Must be called after all files were imported successfully.
+     */
+    public synchronized void save() {
+        if (!isEnabled()) return;
+
+        Map<String, String> manifest = new TreeMap<>(getStoredChecksums());
+        manifest.putAll(checksums);
+
+        manifest.keySet().removeIf(importFile -> {
+            if (!isRemoved(importFile)) return false;
+
+            logger.warn("Import file '{}' was removed since the last run. keycloak-config-cli does not delete the realm, "
+                    + "remove it manually if necessary.", importFile);
+            return true;
+        });
+
+        Path manifestFile = getManifestFile();
+        Path tempFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+
+        try {
+            Path parent = manifestFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), manifest);
+            Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot write import manifest '%s'", manifestFile), e);
+        }
+
+        storedChecksums = manifest;
+        checksums.clear();
+    }
+
+    /**
+     * An import file is identified by its location: the path of a local file, the url of a remote file,
+     * or {@code <location of the zip file>!/<entry name>} for an entry of a zip file.
+     */
+    private boolean isRemoved(String importFile) {
+        if (checksums.containsKey(importFile)) return false;
+
+        int separator = importFile.indexOf(FileUtils.ZIP_ENTRY_SEPARATOR);
+        String location = separator < 0 ? importFile : importFile.substring(0, separator);
+
+        // the zip file has been read in this run, but without this entry
+        if (separator >= 0 && isZipFileRead(location)) return true;
+
+        // a missing remote file fails the run, it is not removed silently
+        if (ResourceUtils.isUrl(location)) return false;
+
+        return !Files.exists(Paths.get(location));
+    }
+
+    private boolean isZipFileRead(String location) {
+        String prefix = location + FileUtils.ZIP_ENTRY_SEPARATOR;
+        return checksums.keySet().stream().anyMatch(importFile -> importFile.startsWith(prefix));
+    }
+
+    private Map<String, String> getStoredChecksums() {
+        if (storedChecksums != null) {
+            return storedChecksums;
+        }
+
+        Path manifestFile = getManifestFile();
+
+        if (!Files.exists(manifestFile)) {
+            storedChecksums = new TreeMap<>();
+            return storedChecksums;
+        }
+
+        try {
+            storedChecksums = OBJECT_MAPPER.readValue(manifestFile.toFile(), new TypeReference<TreeMap<String, String>>() {
+            });
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot read import manifest '%s'", manifestFile), e);
+        }
+
+        return storedChecksums;
+    }
+
+    private Path getManifestFile() {
+        String manifestPath = importConfigProperties.getManifestPath();
+
+        if (manifestPath == null || manifestPath.trim().isEmpty()) {
+            throw new ImportProcessingException("import.manifest-path must be set, if import.incremental=true");
+        }
+
+        return Paths.get(manifestPath);
+    }
+}
@@ -31,6 +31,8 @@ import de.adorsys.keycloak.config.util.ChecksumUtil;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.text.StringSubstitutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -41,13 +43,15 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Component
 public class KeycloakImportProvider {
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakImportProvider.class);
+
     private final ResourceLoader resourceLoader;
     private final Collection<ResourceExtractor> resourceExtractors;
     private final ImportConfigProperties importConfigProperties;
+    private final ImportManifest importManifest;
 
     private StringSubstitutor interpolator = null;
 
@@ -60,11 +64,13 @@ public class KeycloakImportProvider {
     public KeycloakImportProvider(
             ResourceLoader resourceLoader,
             Collection<ResourceExtractor> resourceExtractors,
-            ImportConfigProperties importConfigProperties
+            ImportConfigProperties importConfigProperties,
+            ImportManifest importManifest
     ) {
         this.resourceLoader = resourceLoader;
         this.resourceExtractors = resourceExtractors;
         this.importConfigProperties = importConfigProperties;
+        this.importManifest = importManifest;
 
         if (importConfigProperties.isVarSubstitution()) {
             String prefix = importConfigProperties.getVarSubstitutionPrefix();
@@ -115,17 +121,33 @@ public class KeycloakImportProvider {
         }
     }
 
-    private KeycloakImport readRealmImportsFromResource(Collection<File> importResources) {
-        Map<String, RealmImport> realmImports = importResources.stream()
-                // https://stackoverflow.com/a/52130074/8087167
-                .collect(Collectors.toMap(
-                        File::getAbsolutePath,
-                        this::readRealmImport,
-                        (u, v) -> {
-                            throw new IllegalStateException(String.format("Duplicate key %s", u));
-                        },
-                        TreeMap::new
-                ));
+    private KeycloakImport readRealmImportsFromResource(Map<String, File> importResources) {
+        Map<String, RealmImport> realmImports = new TreeMap<>();
+
+        for (Map.Entry<String, File> entry : importResources.entrySet()) {
+            // the file may be a temp file of a zip entry or a download, the location identifies it between runs
+            String location = entry.getKey();
+            File importResource = entry.getValue();
+            String importFile = importResource.getAbsolutePath();
+
+            if (realmImports.containsKey(importFile)) {
+                throw new IllegalStateException(String.format("Duplicate key %s", importFile));
+            }
+
+            String importConfig = readImportConfig(importResource);
+            String checksum = ChecksumUtil.checksum(importConfig.getBytes(StandardCharsets.UTF_8));
+
+            if (importManifest.isUnchanged(location, checksum)) {
+                logger.info("Skip unchanged file '{}'", location);
+                // keep the file in the manifest, it has been seen in this run
+                importManifest.record(location, checksum);
+                continue;
+            }
+
+            realmImports.put(importFile, parseRealmImport(importResource, importConfig, checksum));
+            importManifest.record(location, checksum);
+        }
+
         return new KeycloakImport(realmImports);
     }
 
@@ -139,6 +161,32 @@ public class KeycloakImportProvider {
     }
 
     private RealmImport readRealmImport(File importFile) {
+        String importConfig = readImportConfig(importFile);
+        String checksum = ChecksumUtil.checksum(importConfig.getBytes(StandardCharsets.UTF_8));
+
+        RealmImport realmImport = parseRealmImport(importFile, importConfig, checksum);
+        importManifest.record(importFile.getAbsolutePath(), checksum);
+
+        return realmImport;
+    }
+
+    private String readImportConfig(File importFile) {
+        String importConfig;
+
+        try {
+            importConfig = FileUtils.readFileToString(importFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new InvalidImportException(e);
+        }
+
+        if (importConfigProperties.isVarSubstitution()) {
+            importConfig = interpolator.replace(importConfig);
+        }
+
+        return importConfig;
+    }
+
+    private RealmImport parseRealmImport(File importFile, String importConfig, String checksum) {
         ImportConfigProperties.ImportFileType fileType = importConfigProperties.getFileType();
 
         ObjectMapper objectMapper;
@@ -167,19 +215,6 @@ public class KeycloakImportProvider {
             default:
                 throw new InvalidImportException("Unknown import file type: " + fileType);
         }
-        String importConfig;
-
-        try {
-            importConfig = FileUtils.readFileToString(importFile, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new InvalidImportException(e);
-        }
-
-        if (importConfigProperties.isVarSubstitution()) {
-            importConfig = interpolator.replace(importConfig);
-        }
-
-        String checksum = ChecksumUtil.checksum(importConfig.getBytes(StandardCharsets.UTF_8));
 
         try {
             RealmImport realmImport = objectMapper.readValue(importConfig, RealmImport.class);
@@ -23,22 +23,36 @@ package de.adorsys.keycloak.config.provider;
 import de.adorsys.keycloak.config.exception.KeycloakProviderException;
 import de.adorsys.keycloak.config.properties.KeycloakConfigProperties;
 import de.adorsys.keycloak.config.util.ResteasyUtil;
+import de.adorsys.keycloak.config.util.resteasy.AimdConcurrencyLimiter;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
+import de.adorsys.keycloak.config.util.resteasy.DryRunClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.HttpCallFilter;
+import de.adorsys.keycloak.config.util.resteasy.RetryStatistics;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
+import org.keycloak.admin.client.token.TokenManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.net.URI;
 import java.net.URL;
 import java.text.MessageFormat;
 import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.Form;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 
 /**
  * This class exists cause we need to create a single keycloak instance or to close the keycloak before using a new one
@@ -50,25 +64,60 @@ public class KeycloakProvider implements AutoCloseable {
 
     private final KeycloakConfigProperties properties;
     private final ResteasyClient resteasyClient;
-
-    private Keycloak keycloak;
+    private final TokenRefreshStatistics tokenRefreshStatistics = new TokenRefreshStatistics();
+    private final ConnectionPoolStatistics connectionPoolStatistics = new ConnectionPoolStatistics();
+    private final RetryStatistics retryStatistics = new RetryStatistics();
+    private final HttpCallFilter httpCallFilter = new HttpCallFilter();
+    private final DryRunClientFilter dryRunClientFilter = new DryRunClientFilter(
+            () -> getInstance().tokenManager().getAccessTokenString()
+    );
+    private final AimdConcurrencyLimiter concurrencyLimiter;
+
+    // replaced by importing threads and read by the token refresh thread
+    private volatile Keycloak keycloak;
 
     private String version;
 
+    private ScheduledExecutorService tokenRefreshExecutor;
+    private ScheduledFuture<?> scheduledTokenRefresh;
+    // only accessed by the token refresh thread
+    private int tokenRefreshFailures;
+
     @Autowired
     private KeycloakProvider(KeycloakConfigProperties properties) {
         this.properties = properties;
+        this.concurrencyLimiter = properties.getConcurrencyLimit().isEnabled()
+                ? new AimdConcurrencyLimiter(properties.getConcurrencyLimit())
+                : null;
         this.resteasyClient = ResteasyUtil.getClient(
                 !this.properties.isSslVerify(),
-                this.properties.getHttpProxy()
+                this.properties.getHttpProxy(),
+                this.properties.getHttpClient(),
+                this.properties.getRetry(),
+                this.connectionPoolStatistics,
+                this.retryStatistics,
+                this.concurrencyLimiter
         );
+        this.resteasyClient.register(this.httpCallFilter);
+        this.resteasyClient.register(this.dryRunClientFilter);
     }
 
     public Keycloak getInstance() {
+        Keycloak instance = keycloak;
+
+        if (instance == null || instance.isClosed()) {
+            instance = createInstance();
+        }
+
+        return instance;
+    }
+
+    private synchronized Keycloak createInstance() {
         if (keycloak == null || keycloak.isClosed()) {
             keycloak = createKeycloak();
 
             checkServerVersion();
+            scheduleTokenRefresh(keycloak.tokenManager());
         }
 
         return keycloak;
@@ -83,7 +132,134 @@ public class KeycloakProvider implements AutoCloseable {
     }
 
     public void refreshToken() {
-        getInstance().tokenManager().refreshToken();
+        refreshToken(getInstance().tokenManager());
+    }
+
+    public TokenRefreshStatistics getTokenRefreshStatistics() {
+        return tokenRefreshStatistics;
+    }
+
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        return connectionPoolStatistics;
+    }
+
+    public RetryStatistics getRetryStatistics() {
+        return retryStatistics;
+    }
+
+    public HttpCallFilter getHttpCallFilter() {
+        return httpCallFilter;
+    }
+
+    /**
+     * Builds a request against keycloak, which is not covered by the admin client, e.g. a planned change.
+     *
+     * @param path the path including the context path of keycloak and the query
+     */
+    public Invocation.Builder request(String path) {
+        String accessToken = getInstance().tokenManager().getAccessTokenString();
+
+        return resteasyClient.target(URI.create(properties.getUrl().toString()).resolve(path))
+                .request(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+    }
+
+    /**
+     * @return the filter, which plans writes instead of sending them, if enabled by {@code import.plan}
+     */
+    public DryRunClientFilter getDryRunClientFilter() {
+        return dryRunClientFilter;
+    }
+
+    /**
+     * @return the concurrency limiter, or {@code null} if {@code keycloak.concurrency-limit.enabled} is false
+     */
+    public AimdConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    private void refreshToken(TokenManager tokenManager) {
+        long start = System.currentTimeMillis();
+
+        try {
+            // TokenManager.refreshToken is synchronized, concurrent callers wait for the refresh in flight
+            tokenManager.refreshToken();
+        } catch (RuntimeException e) {
+            tokenRefreshStatistics.recordFailure();
+            throw e;
+        }
+
+        tokenRefreshStatistics.recordRefresh(System.currentTimeMillis() - start);
+
+        scheduleTokenRefresh(tokenManager);
+    }
+
+    /**
+     * Refreshes the access token on a background thread before it expires, so that importing threads don't have to.
+     */
+    private synchronized void scheduleTokenRefresh(TokenManager tokenManager) {
+        KeycloakConfigProperties.KeycloakTokenRefresh tokenRefresh = properties.getTokenRefresh();
+        if (!tokenRefresh.isEnabled() || isClosed()) return;
+
+        long expiresIn = tokenManager.getAccessToken().getExpiresIn();
+        long delay = getTokenRefreshDelay(expiresIn, tokenRefresh.getMinValidity().getSeconds());
+
+        scheduleTokenRefresh(delay, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the delay in seconds until the access token is refreshed, or half of its lifetime if it is shorter than the min validity
+     */
+    static long getTokenRefreshDelay(long expiresIn, long minValidity) {
+        return expiresIn > minValidity ? expiresIn - minValidity : Math.max(expiresIn / 2, 1);
+    }
+
+    /**
+     * @return the delay in milliseconds until a failed refresh is retried, doubled after every consecutive failure up to the max delay
+     */
+    static long getTokenRefreshRetryDelay(long retryDelay, long maxDelay, int failures) {
+        long delay = retryDelay << Math.min(Math.max(failures - 1, 0), 20);
+
+        return Math.min(delay, Math.max(maxDelay, retryDelay));
+    }
+
+    private synchronized void scheduleTokenRefresh(long delay, TimeUnit unit) {
+        if (tokenRefreshExecutor == null || tokenRefreshExecutor.isShutdown()) {
+            tokenRefreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "token-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        if (scheduledTokenRefresh != null) {
+            scheduledTokenRefresh.cancel(false);
+        }
+
+        scheduledTokenRefresh = tokenRefreshExecutor.schedule(this::refreshTokenInBackground, delay, unit);
+    }
+
+    private void refreshTokenInBackground() {
+        Keycloak instance = keycloak;
+        if (instance == null || instance.isClosed()) return;
+
+        try {
+            refreshToken(instance.tokenManager());
+            tokenRefreshFailures = 0;
+            logger.debug("Refreshed access token: {}", tokenRefreshStatistics);
+        } catch (RuntimeException e) {
+            tokenRefreshFailures++;
+
+            // the admin client refreshes the token on demand in the meantime
+            long retryDelay = getTokenRefreshRetryDelay(
+                    properties.getAvailabilityCheck().getRetryDelay().toMillis(),
+                    properties.getTokenRefresh().getMinValidity().toMillis(),
+                    tokenRefreshFailures
+            );
+            logger.warn("Could not refresh access token, retry in {}ms: {}", retryDelay, e.getMessage());
+
+            scheduleTokenRefresh(retryDelay, TimeUnit.MILLISECONDS);
+        }
     }
 
     private Keycloak createKeycloak() {
@@ -160,6 +336,19 @@ public class KeycloakProvider implements AutoCloseable {
 
     @Override
     public void close() {
+        synchronized (this) {
+            if (tokenRefreshExecutor != null) {
+                tokenRefreshExecutor.shutdownNow();
+            }
+        }
+
+        logger.debug("HTTP connection pool statistics: {}", connectionPoolStatistics);
+        logger.debug("HTTP retry statistics: {}", retryStatistics);
+
+        if (concurrencyLimiter != null) {
+            logger.debug("HTTP concurrency limit: {}", concurrencyLimiter);
+        }
+
         if (!isClosed()) {
             logout();
             keycloak.close();
@@ -24,11 +24,15 @@ import org.springframework.core.io.Resource;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
+import java.util.Map;
 
 interface ResourceExtractor {
 
     boolean canHandleResource(Resource resource) throws IOException;
 
-    Collection<File> extract(Resource resource) throws IOException;
+    /**
+     * @return the import files by their source location, which identifies a file between runs unlike a temp file,
+     * e.g. the path of a local file or the url of a zip file with the name of the entry
+     */
+    Map<String, File> extract(Resource resource) throws IOException;
 }
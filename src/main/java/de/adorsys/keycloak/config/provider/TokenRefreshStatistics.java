@@ -0,0 +1,65 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the access token refreshes of the {@link KeycloakProvider}.
+ */
+public class TokenRefreshStatistics {
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    void recordRefresh(long latencyMillis) {
+        refreshes.incrementAndGet();
+        totalLatencyMillis.addAndGet(latencyMillis);
+        maxLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+    }
+
+    void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getTotalLatencyMillis() {
+        return totalLatencyMillis.get();
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("refreshes=%d, failures=%d, totalLatency=%dms, maxLatency=%dms",
+                getRefreshes(), getFailures(), getTotalLatencyMillis(), getMaxLatencyMillis());
+    }
+}
@@ -36,7 +36,7 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
-import java.util.Collection;
+import java.util.Map;
 
 @Order(3)
 @Component
@@ -50,7 +50,7 @@ class UrlResourceExtractor implements ResourceExtractor {
     }
 
     @Override
-    public Collection<File> extract(Resource resource) throws IOException {
+    public Map<String, File> extract(Resource resource) throws IOException {
         logger.debug("Extracting files from UrlResource ...");
         Assert.notNull(resource, "The resource to extract files must be not null!");
 
@@ -64,7 +64,7 @@ class UrlResourceExtractor implements ResourceExtractor {
             File tempFile = FileUtils.createTempFile(resource.getFilename(), inputStream);
             Assert.notNull(tempFile, "The temp file to extract resource must be not null!");
 
-            return FileUtils.extractFile(tempFile);
+            return FileUtils.extractFile(tempFile, getLocation(url));
         } finally {
             if (urlConnection instanceof HttpURLConnection) {
                 ((HttpURLConnection) urlConnection).disconnect();
@@ -72,6 +72,12 @@ class UrlResourceExtractor implements ResourceExtractor {
         }
     }
 
+    // the location is stored in the import manifest, credentials must not be part of it
+    private static String getLocation(URL url) {
+        String userInfo = url.getUserInfo();
+        return userInfo == null ? url.toString() : url.toString().replace(userInfo + "@", "");
+    }
+
     private void setupBasicAuth(URLConnection urlConnection, URL url) {
         String userInfo = url.getUserInfo();
         if (userInfo != null) {
@@ -22,7 +22,10 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ResponseUtil;
+import de.adorsys.keycloak.config.util.SingleFlight;
+import de.adorsys.keycloak.config.util.resteasy.RetryingClientHttpEngine;
 import org.keycloak.admin.client.resource.ClientResource;
 import org.keycloak.admin.client.resource.ClientsResource;
 import org.keycloak.representations.idm.ClientRepresentation;
@@ -35,6 +38,7 @@ import org.keycloak.representations.idm.authorization.ScopeRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -48,13 +52,30 @@ public class ClientRepository {
 
     private final RealmRepository realmRepository;
 
+    private final SingleFlight<List<String>, Optional<ClientRepresentation>> searchByClientIdFlight = new SingleFlight<>(
+            client -> client.map(CloneUtil::deepClone)
+    );
+
     @Autowired
     public ClientRepository(RealmRepository realmRepository) {
         this.realmRepository = realmRepository;
     }
 
+    public SingleFlight<?, ?> getSearchByClientIdFlight() {
+        return searchByClientIdFlight;
+    }
+
     public Optional<ClientRepresentation> searchByClientId(String realmName, String clientId) {
-        List<ClientRepresentation> foundClients = getResource(realmName).findByClientId(Objects.requireNonNull(clientId));
+        Objects.requireNonNull(clientId);
+
+        return searchByClientIdFlight.execute(
+                Arrays.asList(realmName, clientId),
+                () -> findByClientId(realmName, clientId)
+        );
+    }
+
+    private Optional<ClientRepresentation> findByClientId(String realmName, String clientId) {
+        List<ClientRepresentation> foundClients = getResource(realmName).findByClientId(clientId);
 
         Optional<ClientRepresentation> client;
         if (foundClients.isEmpty()) {
@@ -110,10 +131,20 @@ public class ClientRepository {
         return clientResource.getSecret().getValue();
     }
 
-    public void create(String realmName, ClientRepresentation client) {
+    public ClientRepresentation getById(String realmName, String id) {
+        return getResourceById(realmName, id).toRepresentation();
+    }
+
+    /**
+     * @return the id of the created client, or null if it is unknown, e.g. because a retried create request got a conflict
+     */
+    public String create(String realmName, ClientRepresentation client) {
         try {
-            Response response = getResource(realmName).create(client);
-            ResponseUtil.validate(response);
+            Response response = RetryingClientHttpEngine.retryCreate(() -> getResource(realmName).create(client));
+            String path = response.getLocation() != null ? response.getLocation().getPath() : null;
+            ResponseUtil.validate(response, () -> searchByClientId(realmName, client.getClientId()).isPresent());
+
+            return path != null ? path.substring(path.lastIndexOf('/') + 1) : null;
         } catch (WebApplicationException error) {
             String errorMessage = ResponseUtil.getErrorMessage(error);
 
@@ -170,6 +201,14 @@ public class ClientRepository {
         clientResource.authorization().update(authorizationSettings);
     }
 
+    /**
+     * Creates or updates the settings, resources, scopes and policies by name. Entities missing in the import are kept.
+     */
+    public void importAuthorizationSettings(String realmName, String id, ResourceServerRepresentation authorizationSettings) {
+        ClientResource clientResource = getResourceById(realmName, id);
+        clientResource.authorization().importSettings(authorizationSettings);
+    }
+
     public void createAuthorizationResource(String realmName, String id, ResourceRepresentation resource) {
         ClientResource clientResource = getResourceById(realmName, id);
 
@@ -22,6 +22,7 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.util.ResponseUtil;
+import de.adorsys.keycloak.config.util.resteasy.RetryingClientHttpEngine;
 import org.keycloak.admin.client.resource.ClientScopeResource;
 import org.keycloak.admin.client.resource.ClientScopesResource;
 import org.keycloak.admin.client.resource.ProtocolMappersResource;
@@ -77,8 +78,8 @@ public class ClientScopeRepository {
     }
 
     public void create(String realmName, ClientScopeRepresentation clientScope) {
-        Response response = realmRepository.getResource(realmName).clientScopes().create(clientScope);
-        ResponseUtil.validate(response);
+        Response response = RetryingClientHttpEngine.retryCreate(() -> realmRepository.getResource(realmName).clientScopes().create(clientScope));
+        ResponseUtil.validate(response, () -> searchByName(realmName, clientScope.getName()).isPresent());
     }
 
     public void delete(String realmName, String id) {
@@ -0,0 +1,107 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stores the state of each realm in a JSON file below {@code import.state-store-path}, e.g. on a mounted volume.
+ * Reading and writing the state does not require any request against Keycloak.
+ */
+@Component
+@ConditionalOnProperty(prefix = "import", name = "state-store", havingValue = "file")
+public class FileStateStore implements StateStore {
+    private static final Logger logger = LoggerFactory.getLogger(FileStateStore.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path stateStorePath;
+
+    @Autowired
+    public FileStateStore(ImportConfigProperties importConfigProperties) {
+        String path = importConfigProperties.getStateStorePath();
+
+        if (path == null || path.trim().isEmpty()) {
+            throw new ImportProcessingException("import.state-store-path must be set, if import.state-store=file");
+        }
+
+        this.stateStorePath = Paths.get(path);
+    }
+
+    @Override
+    public Map<String, String> read(String realmName) {
+        Path stateFile = getStateFile(realmName);
+
+        if (!Files.exists(stateFile)) {
+            return new HashMap<>();
+        }
+
+        try {
+            return OBJECT_MAPPER.readValue(stateFile.toFile(), new TypeReference<HashMap<String, String>>() {
+            });
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot read state file '%s'", stateFile), e);
+        }
+    }
+
+    @Override
+    public void write(String realmName, Map<String, String> stateAttributes) {
+        Path stateFile = getStateFile(realmName);
+        Path tempFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(stateStorePath);
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), new TreeMap<>(stateAttributes));
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot write state file '%s'", stateFile), e);
+        }
+
+        logger.debug("Wrote state of realm '{}' to '{}'", realmName, stateFile);
+    }
+
+    @Override
+    public void preserve(RealmRepresentation realm, Map<String, String> stateAttributes) {
+        // The state is not part of the realm, a realm update can not erase it.
+    }
+
+    private Path getStateFile(String realmName) {
+        return stateStorePath.resolve(realmName + ".json");
+    }
+}
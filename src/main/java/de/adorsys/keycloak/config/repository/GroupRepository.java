@@ -21,7 +21,10 @@
 package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ResponseUtil;
+import de.adorsys.keycloak.config.util.SingleFlight;
+import de.adorsys.keycloak.config.util.resteasy.RetryingClientHttpEngine;
 import org.keycloak.admin.client.resource.*;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
@@ -30,6 +33,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -44,6 +48,10 @@ public class GroupRepository {
     private final ClientRepository clientRepository;
     private final UserRepository userRepository;
 
+    private final SingleFlight<List<String>, Optional<GroupRepresentation>> searchByNameFlight = new SingleFlight<>(
+            group -> group.map(CloneUtil::deepClone)
+    );
+
     @Autowired
     public GroupRepository(
             RealmRepository realmRepository,
@@ -56,6 +64,10 @@ public class GroupRepository {
         this.userRepository = userRepository;
     }
 
+    public SingleFlight<?, ?> getSearchByNameFlight() {
+        return searchByNameFlight;
+    }
+
     public List<GroupRepresentation> getAll(String realmName) {
         GroupsResource groupsResource = realmRepository.getResource(realmName)
                 .groups();
@@ -72,7 +84,7 @@ public class GroupRepository {
                 groups.add(group);
             } catch (Exception e) {
                 throw new ImportProcessingException(
-                        String.format("Could not find group '%s' in realm '%s'!", groupPath, realmName)
+                        String.format("Could not find group '%s' in realm '%s'!", groupPath, realmName), e
                 );
             }
         }
@@ -81,21 +93,23 @@ public class GroupRepository {
     }
 
     public Optional<GroupRepresentation> searchByName(String realmName, String groupName) {
-        GroupsResource groupsResource = realmRepository.getResource(realmName)
-                .groups();
+        return searchByNameFlight.execute(Arrays.asList(realmName, groupName), () -> {
+            GroupsResource groupsResource = realmRepository.getResource(realmName)
+                    .groups();
 
-        return groupsResource.groups()
-                .stream()
-                .filter(g -> Objects.equals(g.getName(), groupName))
-                .findFirst();
+            return groupsResource.groups()
+                    .stream()
+                    .filter(g -> Objects.equals(g.getName(), groupName))
+                    .findFirst();
+        });
     }
 
     public void createGroup(String realmName, GroupRepresentation group) {
-        Response response = realmRepository.getResource(realmName)
+        Response response = RetryingClientHttpEngine.retryCreate(() -> realmRepository.getResource(realmName)
                 .groups()
-                .add(group);
+                .add(group));
 
-        ResponseUtil.validate(response);
+        ResponseUtil.validate(response, () -> searchByName(realmName, group.getName()).isPresent());
     }
 
     public void addSubGroup(String realmName, String parentGroupId, GroupRepresentation subGroup) {
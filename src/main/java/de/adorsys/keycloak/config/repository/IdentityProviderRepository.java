@@ -21,6 +21,7 @@
 package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.util.ResponseUtil;
+import de.adorsys.keycloak.config.util.resteasy.RetryingClientHttpEngine;
 import org.keycloak.admin.client.resource.IdentityProviderResource;
 import org.keycloak.admin.client.resource.IdentityProvidersResource;
 import org.keycloak.representations.idm.IdentityProviderRepresentation;
@@ -70,8 +71,8 @@ public class IdentityProviderRepository {
 
     public void create(String realmName, IdentityProviderRepresentation identityProvider) {
         IdentityProvidersResource identityProvidersResource = realmRepository.getResource(realmName).identityProviders();
-        Response response = identityProvidersResource.create(identityProvider);
-        ResponseUtil.validate(response);
+        Response response = RetryingClientHttpEngine.retryCreate(() -> identityProvidersResource.create(identityProvider));
+        ResponseUtil.validate(response, () -> search(realmName, identityProvider.getAlias()).isPresent());
     }
 
     public void update(String realmName, IdentityProviderRepresentation identityProviderToUpdate) {
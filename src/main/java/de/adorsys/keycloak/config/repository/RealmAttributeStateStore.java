@@ -0,0 +1,94 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.repository;
+
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the state inside the attributes of the realm itself.
+ */
+@Component
+@ConditionalOnProperty(prefix = "import", name = "state-store", havingValue = "realm", matchIfMissing = true)
+public class RealmAttributeStateStore implements StateStore {
+    private final RealmRepository realmRepository;
+
+    @Autowired
+    public RealmAttributeStateStore(RealmRepository realmRepository) {
+        this.realmRepository = realmRepository;
+    }
+
+    @Override
+    public Map<String, String> read(String realmName) {
+        Map<String, String> stateAttributes = new HashMap<>();
+
+        Map<String, String> realmAttributes = realmRepository.get(realmName).getAttributes();
+        if (realmAttributes == null) {
+            return stateAttributes;
+        }
+
+        realmAttributes.entrySet()
+                .stream()
+                .filter(attribute -> isStateAttribute(attribute.getKey()))
+                .forEach(attribute -> stateAttributes.put(attribute.getKey(), attribute.getValue()));
+
+        return stateAttributes;
+    }
+
+    @Override
+    public void write(String realmName, Map<String, String> stateAttributes) {
+        RealmRepresentation existingRealm = realmRepository.get(realmName);
+
+        Map<String, String> realmAttributes = existingRealm.getAttributes();
+        if (realmAttributes == null) {
+            realmAttributes = new HashMap<>();
+            existingRealm.setAttributes(realmAttributes);
+        }
+
+        // drop outdated state attributes, e.g. chunks of a state which became shorter
+        realmAttributes.keySet().removeIf(this::isStateAttribute);
+        realmAttributes.putAll(stateAttributes);
+
+        realmRepository.update(existingRealm);
+    }
+
+    @Override
+    public void preserve(RealmRepresentation realm, Map<String, String> stateAttributes) {
+        Map<String, String> realmAttributes = realm.getAttributes();
+
+        if (realmAttributes == null) {
+            // There is no need to fill the state in, since it will not be overwritten
+            return;
+        }
+
+        realmAttributes.putAll(stateAttributes);
+    }
+
+    private boolean isStateAttribute(String key) {
+        return key.startsWith(ImportConfigProperties.REALM_STATE_ATTRIBUTE_COMMON_PREFIX);
+    }
+}
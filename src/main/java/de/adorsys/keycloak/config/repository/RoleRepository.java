@@ -23,6 +23,8 @@ package de.adorsys.keycloak.config.repository;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.util.CloneUtil;
+import de.adorsys.keycloak.config.util.SingleFlight;
 import de.adorsys.keycloak.config.util.VersionUtil;
 import org.keycloak.admin.client.resource.*;
 import org.keycloak.representations.idm.ClientRepresentation;
@@ -44,6 +46,13 @@ public class RoleRepository {
     private final ClientRepository clientRepository;
     private final UserRepository userRepository;
 
+    private final SingleFlight<List<String>, Optional<RoleRepresentation>> searchRealmRoleFlight = new SingleFlight<>(
+            role -> role.map(CloneUtil::deepClone)
+    );
+    private final SingleFlight<List<String>, List<RoleRepresentation>> listClientRolesFlight = new SingleFlight<>(
+            roles -> roles.stream().map(CloneUtil::deepClone).collect(Collectors.toList())
+    );
+
     @Autowired
     public RoleRepository(
             KeycloakProvider keycloakProvider, RealmRepository realmRepository,
@@ -56,7 +65,19 @@ public class RoleRepository {
         this.userRepository = userRepository;
     }
 
+    public SingleFlight<?, ?> getSearchRealmRoleFlight() {
+        return searchRealmRoleFlight;
+    }
+
+    public SingleFlight<?, ?> getListClientRolesFlight() {
+        return listClientRolesFlight;
+    }
+
     public Optional<RoleRepresentation> searchRealmRole(String realmName, String name) {
+        return searchRealmRoleFlight.execute(Arrays.asList(realmName, name), () -> findRealmRole(realmName, name));
+    }
+
+    private Optional<RoleRepresentation> findRealmRole(String realmName, String name) {
         Optional<RoleRepresentation> maybeRole;
 
         RolesResource rolesResource = realmRepository.getResource(realmName).roles();
@@ -119,10 +140,13 @@ public class RoleRepository {
         ClientRepresentation client = clientRepository.getByClientId(realmName, clientId);
         RealmResource realmResource = realmRepository.getResource(realmName);
 
-        List<RoleRepresentation> clientRoles = realmResource.clients()
-                .get(client.getId())
-                .roles()
-                .list();
+        List<RoleRepresentation> clientRoles = listClientRolesFlight.execute(
+                Arrays.asList(realmName, client.getId()),
+                () -> realmResource.clients()
+                        .get(client.getId())
+                        .roles()
+                        .list()
+        );
 
         return clientRoles.stream()
                 .filter(r -> Objects.equals(r.getName(), roleName))
@@ -152,7 +176,8 @@ public class RoleRepository {
                         String.format(
                                 "Cannot find client role '%s' for client '%s' within realm '%s'",
                                 roleName, clientId, realmName
-                        )
+                        ),
+                        e
                 );
             }
         }
@@ -194,7 +219,7 @@ public class RoleRepository {
                 roles.add(role);
             } catch (javax.ws.rs.NotFoundException e) {
                 throw new ImportProcessingException(
-                        String.format("Could not find role '%s' in realm '%s'!", roleName, realmName)
+                        String.format("Could not find role '%s' in realm '%s'!", roleName, realmName), e
                 );
             }
         }
@@ -20,17 +20,25 @@
 
 package de.adorsys.keycloak.config.repository;
 
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.util.CompressionUtil;
 import de.adorsys.keycloak.config.util.CryptoUtil;
+import org.apache.commons.lang3.StringUtils;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.springframework.stereotype.Component;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import static de.adorsys.keycloak.config.util.JsonUtil.fromJson;
 import static de.adorsys.keycloak.config.util.JsonUtil.toJson;
@@ -39,13 +47,22 @@ import static de.adorsys.keycloak.config.util.JsonUtil.toJson;
 public class StateRepository {
     private static final int MAX_ATTRIBUTE_LENGTH = 250;
 
-    private final RealmRepository realmRepository;
+    // Format marker of the compressed state. States without a marker are plain JSON.
+    private static final String STATE_FORMAT_DEFLATE_V1 = "deflate-v1:";
+
+    // Suffix of the attribute with the number of chunks of a state, next to the numbered chunk attributes.
+    private static final String STATE_CHUNK_COUNT = "count";
+
+    private final StateStore stateStore;
     private final ImportConfigProperties importConfigProperties;
 
     private Map<String, String> customAttributes;
+    private Map<String, String> storedCustomAttributes;
+    private Map<String, SortedMap<Integer, String>> stateIndex;
+    private Map<String, Integer> stateChunkCounts;
 
-    public StateRepository(RealmRepository realmRepository, ImportConfigProperties importConfigProperties) {
-        this.realmRepository = realmRepository;
+    public StateRepository(StateStore stateStore, ImportConfigProperties importConfigProperties) {
+        this.stateStore = stateStore;
         this.importConfigProperties = importConfigProperties;
     }
 
@@ -65,7 +82,28 @@ public class StateRepository {
     }
 
     public void loadCustomAttributes(String realmName) {
-        customAttributes = retrieveCustomAttributes(realmName);
+        customAttributes = stateStore.read(realmName);
+        storedCustomAttributes = new HashMap<>(customAttributes);
+        stateIndex = new HashMap<>();
+        stateChunkCounts = new HashMap<>();
+        buildStateIndex(customAttributes);
+    }
+
+    /**
+     * Starts with an empty state, but keeps the stored attributes to replace them by the next {@link #update(RealmImport)}.
+     * A store which outlives the realm, like a state file, may still contain the state of a deleted realm with the same name.
+     *
+     * @return {@code true}, if a stored state has been discarded
+     */
+    public boolean resetCustomAttributes(String realmName) {
+        loadCustomAttributes(realmName);
+
+        boolean hasStoredState = !customAttributes.isEmpty();
+        customAttributes.clear();
+        stateIndex.clear();
+        stateChunkCounts.clear();
+
+        return hasStoredState;
     }
 
     /**
@@ -78,47 +116,17 @@ public class StateRepository {
     public void loadCustomAttributes(RealmRepresentation realmForUpdating) {
         loadCustomAttributes(realmForUpdating.getRealm());
 
-        Map<String, String> attributes = realmForUpdating.getAttributes();
-
-        if (attributes == null) {
-            // There is no need to fill the state in, since it will not be overwritten
-            return;
-        }
-
-        // preserve custom attributes which do not contain realm state
-        attributes.entrySet()
-                .stream()
-                .filter(e -> !isStateAttribute(e))
-                .forEach(e -> customAttributes.put(e.getKey(), e.getValue()));
-
-        customAttributes.entrySet()
-                .stream()
-                .filter(this::isStateAttribute)
-                .forEach(e -> attributes.put(e.getKey(), e.getValue()));
-    }
-
-    private boolean isStateAttribute(Map.Entry<String, String> e) {
-        return e.getKey().startsWith(ImportConfigProperties.REALM_STATE_ATTRIBUTE_COMMON_PREFIX);
+        stateStore.preserve(realmForUpdating, customAttributes);
     }
 
     public List<String> getState(String entity) {
-        List<String> stateValues = new ArrayList<>();
+        SortedMap<Integer, String> stateValues = stateIndex.get(entity);
 
-        long attributeCount = customAttributes
-                .entrySet()
-                .stream()
-                .filter(attribute -> attribute.getKey().matches(String.format("^%s-\\d+$", getCustomAttributeKey(entity))))
-                .count();
-
-        for (int index = 0; index < attributeCount; index++) {
-            stateValues.add(customAttributes.get(getCustomAttributeKey(entity) + "-" + index));
-        }
-
-        if (stateValues.isEmpty()) {
+        if (stateValues == null || stateValues.isEmpty()) {
             return Collections.emptyList();
         }
 
-        String state = String.join("", stateValues);
+        String state = joinChunks(entity, stateValues);
 
         if (this.importConfigProperties.getStateEncryptionKey() != null) {
             state = CryptoUtil.decrypt(
@@ -128,15 +136,50 @@ public class StateRepository {
             );
         }
 
+        if (state.startsWith(STATE_FORMAT_DEFLATE_V1)) {
+            state = CompressionUtil.decompress(state.substring(STATE_FORMAT_DEFLATE_V1.length()));
+        }
+
         return fromJson(state);
     }
 
-    public void update(RealmImport realmImport) {
-        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
-        Map<String, String> realmAttributes = existingRealm.getAttributes();
-        realmAttributes.putAll(customAttributes);
+    /**
+     * @return the entities with a stored or changed state, e.g. {@code clients}
+     */
+    public Set<String> getStateEntities() {
+        return new HashSet<>(stateIndex.keySet());
+    }
 
-        realmRepository.update(existingRealm);
+    public void removeState(String entity) {
+        String customAttributeKey = getCustomAttributeKey(entity);
+
+        SortedMap<Integer, String> previousValues = stateIndex.remove(entity);
+        if (previousValues != null) {
+            previousValues.keySet().forEach(chunkIndex -> customAttributes.remove(customAttributeKey + "-" + chunkIndex));
+        }
+
+        customAttributes.remove(customAttributeKey + "-" + STATE_CHUNK_COUNT);
+        stateChunkCounts.remove(entity);
+    }
+
+    public void setCustomAttribute(String key, String value) {
+        customAttributes.put(key, value);
+    }
+
+    /**
+     * Writes all collected state and checksum attributes at once.
+     *
+     * @return {@code false}, if nothing has been changed since the attributes were loaded and the write was skipped
+     */
+    public boolean update(RealmImport realmImport) {
+        if (customAttributes.equals(storedCustomAttributes)) {
+            return false;
+        }
+
+        stateStore.write(realmImport.getRealm(), customAttributes);
+        storedCustomAttributes = new HashMap<>(customAttributes);
+
+        return true;
     }
 
     private String getCustomAttributeKey(String entity) {
@@ -147,14 +190,69 @@ public class StateRepository {
         );
     }
 
-    private Map<String, String> retrieveCustomAttributes(String realmName) {
-        RealmRepresentation existingRealm = realmRepository.get(realmName);
-        return existingRealm.getAttributes();
+    /**
+     * Joins the chunks 0 to count - 1 of a state. Chunks above the count are left overs of a longer state, which have not
+     * been removed from the store. States written without a count are read up to the first missing chunk.
+     */
+    private String joinChunks(String entity, SortedMap<Integer, String> stateValues) {
+        Integer chunkCount = stateChunkCounts.get(entity);
+
+        StringBuilder state = new StringBuilder();
+        for (int index = 0; chunkCount == null || index < chunkCount; index++) {
+            String chunk = stateValues.get(index);
+            if (chunk == null) {
+                if (chunkCount == null) break;
+
+                throw new ImportProcessingException(String.format(
+                        "State of '%s' is incomplete: chunk %d of %d is missing", entity, index, chunkCount
+                ));
+            }
+
+            state.append(chunk);
+        }
+
+        return state.toString();
+    }
+
+    /**
+     * Groups the state attributes of the current cache key by entity once, so that
+     * {@link #getState(String)} and {@link #setState(String, List)} do not have to scan all realm attributes.
+     * A state attribute key has the format {@code <prefix>-<entity>-<chunk index>}, the number of chunks is stored
+     * as {@code <prefix>-<entity>-count}.
+     */
+    private void buildStateIndex(Map<String, String> attributes) {
+        String prefix = getCustomAttributeKey("");
+
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            String key = attribute.getKey();
+            if (!key.startsWith(prefix)) continue;
+
+            String entityWithChunk = key.substring(prefix.length());
+            int separator = entityWithChunk.lastIndexOf('-');
+            if (separator <= 0) continue;
+
+            String chunk = entityWithChunk.substring(separator + 1);
+            String entity = entityWithChunk.substring(0, separator);
+
+            if (chunk.equals(STATE_CHUNK_COUNT) && isChunkIndex(attribute.getValue())) {
+                stateChunkCounts.put(entity, Integer.parseInt(attribute.getValue()));
+            } else if (isChunkIndex(chunk)) {
+                stateIndex.computeIfAbsent(entity, k -> new TreeMap<>()).put(Integer.parseInt(chunk), attribute.getValue());
+            }
+        }
+    }
+
+    private static boolean isChunkIndex(String value) {
+        return StringUtils.isNumeric(value) && value.length() <= 9;
     }
 
     public void setState(String entity, List<Object> values) {
         String valuesAsString = toJson(values);
 
+        if (this.importConfigProperties.isStateCompression()) {
+            valuesAsString = STATE_FORMAT_DEFLATE_V1 + CompressionUtil.compress(valuesAsString);
+        }
+
         if (this.importConfigProperties.getStateEncryptionKey() != null) {
             valuesAsString = CryptoUtil.encrypt(
                     valuesAsString,
@@ -165,14 +263,22 @@ public class StateRepository {
 
         List<String> valueList = splitEqually(valuesAsString);
 
-        customAttributes.entrySet()
-                .removeIf(attribute -> attribute.getKey().startsWith(getCustomAttributeKey(entity) + "-"));
+        String customAttributeKey = getCustomAttributeKey(entity);
+
+        removeState(entity);
 
         // split value into multiple attributes to avoid max length limit
+        SortedMap<Integer, String> stateValues = new TreeMap<>();
         int index = 0;
         for (String value : valueList) {
-            customAttributes.put(getCustomAttributeKey(entity) + "-" + index, value);
+            customAttributes.put(customAttributeKey + "-" + index, value);
+            stateValues.put(index, value);
             index++;
         }
+
+        customAttributes.put(customAttributeKey + "-" + STATE_CHUNK_COUNT, String.valueOf(stateValues.size()));
+
+        stateIndex.put(entity, stateValues);
+        stateChunkCounts.put(entity, stateValues.size());
     }
 }
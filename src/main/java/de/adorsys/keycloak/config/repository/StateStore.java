@@ -0,0 +1,53 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.repository;
+
+import org.keycloak.representations.idm.RealmRepresentation;
+
+import java.util.Map;
+
+/**
+ * Storage backend for the import state and the import checksums of keycloak-config-cli.
+ * The state attributes are identified by the prefix {@link de.adorsys.keycloak.config.properties.ImportConfigProperties#REALM_STATE_ATTRIBUTE_COMMON_PREFIX}.
+ */
+public interface StateStore {
+    /**
+     * @param realmName the name of the realm
+     * @return a modifiable map of all state attributes of the realm
+     */
+    Map<String, String> read(String realmName);
+
+    /**
+     * Replaces all state attributes of the realm by the given attributes.
+     *
+     * @param realmName       the name of the realm
+     * @param stateAttributes all state attributes of the realm
+     */
+    void write(String realmName, Map<String, String> stateAttributes);
+
+    /**
+     * Takes care that a realm update with the given {@link RealmRepresentation} does not erase the stored state.
+     *
+     * @param realm           the {@link RealmRepresentation} instance which will be synchronized with the Keycloak
+     * @param stateAttributes all state attributes of the realm
+     */
+    void preserve(RealmRepresentation realm, Map<String, String> stateAttributes);
+}
@@ -22,6 +22,7 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
 import de.adorsys.keycloak.config.util.ResponseUtil;
+import de.adorsys.keycloak.config.util.resteasy.RetryingClientHttpEngine;
 import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.admin.client.resource.UsersResource;
@@ -75,8 +76,8 @@ public class UserRepository {
         RealmResource realmResource = realmRepository.getResource(realmName);
         UsersResource usersResource = realmResource.users();
 
-        Response response = usersResource.create(userToCreate);
-        ResponseUtil.validate(response);
+        Response response = RetryingClientHttpEngine.retryCreate(() -> usersResource.create(userToCreate));
+        ResponseUtil.validate(response, () -> search(realmName, userToCreate.getUsername()).isPresent());
     }
 
     public void updateUser(String realmName, UserRepresentation user) {
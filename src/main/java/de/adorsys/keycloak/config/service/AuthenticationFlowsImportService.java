@@ -27,6 +27,7 @@ import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
 import de.adorsys.keycloak.config.repository.AuthenticationFlowRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
 import de.adorsys.keycloak.config.util.AuthenticationFlowUtil;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.AuthenticationExecutionInfoRepresentation;
@@ -37,6 +38,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -61,6 +63,7 @@ public class AuthenticationFlowsImportService {
     private final UsedAuthenticationFlowWorkaroundFactory workaroundFactory;
 
     private final ImportConfigProperties importConfigProperties;
+    private final EntityChecksumService entityChecksumService;
 
     @Autowired
     public AuthenticationFlowsImportService(
@@ -68,7 +71,8 @@ public class AuthenticationFlowsImportService {
             AuthenticationFlowRepository authenticationFlowRepository,
             ExecutionFlowsImportService executionFlowsImportService,
             AuthenticatorConfigImportService authenticatorConfigImportService, UsedAuthenticationFlowWorkaroundFactory workaroundFactory,
-            ImportConfigProperties importConfigProperties
+            ImportConfigProperties importConfigProperties,
+            EntityChecksumService entityChecksumService
     ) {
         this.realmRepository = realmRepository;
         this.authenticationFlowRepository = authenticationFlowRepository;
@@ -76,6 +80,7 @@ public class AuthenticationFlowsImportService {
         this.authenticatorConfigImportService = authenticatorConfigImportService;
         this.workaroundFactory = workaroundFactory;
         this.importConfigProperties = importConfigProperties;
+        this.entityChecksumService = entityChecksumService;
     }
 
     /**
@@ -91,8 +96,16 @@ public class AuthenticationFlowsImportService {
         if (authenticationFlows == null) return;
 
         List<AuthenticationFlowRepresentation> topLevelFlowsToImport = AuthenticationFlowUtil.getTopLevelFlows(realmImport);
-        createOrUpdateTopLevelFlows(realmImport, topLevelFlowsToImport);
-        updateBuiltInFlows(realmImport, authenticationFlows);
+
+        // top-level flows reference their sub-flows, the checksum covers all flows at once
+        boolean flowsChanged = !entityChecksumService.filterChanged(
+                realmImport.getRealm(), "authentication-flows", Collections.singletonList(authenticationFlows)
+        ).isEmpty();
+
+        if (flowsChanged) {
+            createOrUpdateTopLevelFlows(realmImport, topLevelFlowsToImport);
+            updateBuiltInFlows(realmImport, authenticationFlows);
+        }
         setupFlowsInRealm(realmImport);
 
         if (importConfigProperties.getManaged().getAuthenticationFlow() == ImportManagedPropertiesValues.FULL) {
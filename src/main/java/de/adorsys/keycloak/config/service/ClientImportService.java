@@ -26,6 +26,8 @@ import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.AuthenticationFlowRepository;
 import de.adorsys.keycloak.config.repository.ClientRepository;
 import de.adorsys.keycloak.config.repository.ClientScopeRepository;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
 import de.adorsys.keycloak.config.service.state.StateService;
 import de.adorsys.keycloak.config.util.*;
 import org.keycloak.representations.idm.ClientRepresentation;
@@ -40,7 +42,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.WebApplicationException;
@@ -63,6 +68,8 @@ public class ClientImportService {
     private final AuthenticationFlowRepository authenticationFlowRepository;
     private final ImportConfigProperties importConfigProperties;
     private final StateService stateService;
+    private final EntityChecksumService entityChecksumService;
+    private final ImportInstrumentation importInstrumentation;
 
     @Autowired
     public ClientImportService(
@@ -70,41 +77,129 @@ public class ClientImportService {
             ClientScopeRepository clientScopeRepository,
             AuthenticationFlowRepository authenticationFlowRepository,
             ImportConfigProperties importConfigProperties,
-            StateService stateService) {
+            StateService stateService,
+            EntityChecksumService entityChecksumService,
+            ImportInstrumentation importInstrumentation) {
         this.clientRepository = clientRepository;
         this.clientScopeRepository = clientScopeRepository;
         this.authenticationFlowRepository = authenticationFlowRepository;
         this.importConfigProperties = importConfigProperties;
         this.stateService = stateService;
+        this.entityChecksumService = entityChecksumService;
+        this.importInstrumentation = importInstrumentation;
     }
 
-    public void doImport(RealmImport realmImport) {
+    /**
+     * @return the ids of the created and updated clients by client id or name, to be passed to {@link #doImportDependencies}
+     */
+    public Map<String, String> doImport(RealmImport realmImport) {
         List<ClientRepresentation> clients = realmImport.getClients();
         if (clients == null) {
-            return;
+            return Collections.emptyMap();
         }
 
         if (importConfigProperties.getManaged().getClient() == FULL) {
             deleteClientsMissingInImport(realmImport, clients);
         }
-        createOrUpdateClients(realmImport, clients);
+
+        List<ClientRepresentation> changedClients = entityChecksumService.filterChanged(realmImport.getRealm(), "clients", clients);
+
+        Map<String, String> clientIds = new ConcurrentHashMap<>();
+        createOrUpdateClients(realmImport, changedClients, clientIds);
+
+        return clientIds;
     }
 
-    public void doImportDependencies(RealmImport realmImport) {
+    /**
+     * @param clientIds the ids returned by {@link #doImport} of the same import. Other clients are looked up by client id or name.
+     */
+    public void doImportDependencies(RealmImport realmImport, Map<String, String> clientIds) {
         List<ClientRepresentation> clients = realmImport.getClients();
         if (clients == null) {
             return;
         }
 
-        updateClientAuthorizationSettings(realmImport, clients);
-        updateClientAuthenticationFlowBindingOverrides(realmImport, clients);
+        String realmName = realmImport.getRealm();
+
+        // flow binding overrides are always updated, since authentication flows are recreated on change
+        Set<ClientRepresentation> changedClients = Collections.newSetFromMap(new IdentityHashMap<>());
+        changedClients.addAll(entityChecksumService.getChanged(realmName, "clients", clients));
+
+        // one request for all clients instead of one per client
+        List<ClientRepresentation> existingClients = clientRepository.getAll(realmName);
+        Map<String, ClientRepresentation> existingClientsById = existingClients.stream()
+                .collect(Collectors.toMap(ClientRepresentation::getId, client -> client));
+        Map<String, ClientRepresentation> existingClientsByClientId = existingClients.stream()
+                .collect(Collectors.toMap(ClientRepresentation::getClientId, client -> client));
+
+        Consumer<ClientRepresentation> loop = client -> importInstrumentation.entity(
+                "clients", client.getClientId(), () -> importClientDependencies(realmName, client, changedClients.contains(client),
+                        getExistingClient(realmName, client, clientIds, existingClientsById, existingClientsByClientId))
+        );
+
+        if (importConfigProperties.isParallel()) {
+            clients.parallelStream().forEach(loop);
+        } else {
+            clients.forEach(loop);
+        }
+    }
+
+    private void importClientDependencies(
+            String realmName,
+            ClientRepresentation client,
+            boolean isChanged,
+            ClientRepresentation existingClient
+    ) {
+        if (isChanged && client.getAuthorizationSettings() != null) {
+            updateAuthorization(realmName, existingClient, client.getAuthorizationSettings());
+        }
+
+        updateAuthenticationFlowBindingOverrides(
+                realmName, existingClient, client.getAuthenticationFlowBindingOverrides()
+        );
+    }
+
+    private ClientRepresentation getExistingClient(
+            String realmName,
+            ClientRepresentation client,
+            Map<String, String> clientIds,
+            Map<String, ClientRepresentation> existingClientsById,
+            Map<String, ClientRepresentation> existingClientsByClientId
+    ) {
+        String id = clientIds.get(getClientIdentifier(client));
+        if (id != null) {
+            // a client missing in the fetched clients, e.g. created by a plan only, is still looked up by id
+            ClientRepresentation existingClient = existingClientsById.get(id);
+            return existingClient != null ? existingClient : clientRepository.getById(realmName, id);
+        }
+
+        if (client.getClientId() != null && existingClientsByClientId.containsKey(client.getClientId())) {
+            return existingClientsByClientId.get(client.getClientId());
+        }
+
+        if (client.getClientId() != null) {
+            return clientRepository.getByClientId(realmName, client.getClientId());
+        } else if (client.getName() != null) {
+            return clientRepository.getByName(realmName, client.getName());
+        } else {
+            throw new ImportProcessingException("clients require client id or name.");
+        }
+    }
+
+    private void rememberClientId(Map<String, String> clientIds, ClientRepresentation client, String id) {
+        if (id != null) {
+            clientIds.put(getClientIdentifier(client), id);
+        }
     }
 
     private void createOrUpdateClients(
             RealmImport realmImport,
-            List<ClientRepresentation> clients
+            List<ClientRepresentation> clients,
+            Map<String, String> clientIds
     ) {
-        Consumer<ClientRepresentation> loop = client -> createOrUpdateClient(realmImport, client);
+        Consumer<ClientRepresentation> loop = client -> importInstrumentation.entity(
+                "clients", client.getClientId(), () -> createOrUpdateClient(realmImport, client, clientIds)
+        );
         if (importConfigProperties.isParallel()) {
             clients.parallelStream().forEach(loop);
         } else {
@@ -141,7 +236,8 @@ public class ClientImportService {
 
     private void createOrUpdateClient(
             RealmImport realmImport,
-            ClientRepresentation client
+            ClientRepresentation client,
+            Map<String, String> clientIds
     ) {
         String realmName = realmImport.getRealm();
 
@@ -173,10 +269,11 @@ public class ClientImportService {
         }
 
         if (existingClient.isPresent()) {
+            rememberClientId(clientIds, client, existingClient.get().getId());
             updateClientIfNeeded(realmName, client, existingClient.get());
         } else {
             logger.debug("Create client '{}' in realm '{}'", getClientIdentifier(client), realmName);
-            createClient(realmName, client);
+            rememberClientId(clientIds, client, createClient(realmName, client));
         }
     }
 
@@ -197,11 +294,11 @@ public class ClientImportService {
         }
     }
 
-    private void createClient(String realmName, ClientRepresentation client) {
+    private String createClient(String realmName, ClientRepresentation client) {
         ClientRepresentation clientToImport = CloneUtil.deepClone(
                 client, ClientRepresentation.class, propertiesWithDependencies
         );
-        clientRepository.create(realmName, clientToImport);
+        return clientRepository.create(realmName, clientToImport);
     }
 
     private boolean isClientEqual(
@@ -252,22 +349,6 @@ public class ClientImportService {
         }
     }
 
-    private void updateClientAuthorizationSettings(
-            RealmImport realmImport,
-            List<ClientRepresentation> clients
-    ) {
-        String realmName = realmImport.getRealm();
-
-        List<ClientRepresentation> clientsWithAuthorization = clients.stream()
-                .filter(client -> client.getAuthorizationSettings() != null)
-                .collect(Collectors.toList());
-
-        for (ClientRepresentation client : clientsWithAuthorization) {
-            ClientRepresentation existingClient = clientRepository.getByClientId(realmName, client.getClientId());
-            updateAuthorization(realmName, existingClient, client.getAuthorizationSettings());
-        }
-    }
-
     private void updateAuthorization(
             String realmName,
             ClientRepresentation client,
@@ -285,6 +366,11 @@ public class ClientImportService {
                 realmName, client.getId()
         );
 
+        if (isBulkAuthorizationImport(existingAuthorization, authorizationSettingsToImport)) {
+            importAuthorization(realmName, client, existingAuthorization, authorizationSettingsToImport);
+            return;
+        }
+
         handleAuthorizationSettings(realmName, client, existingAuthorization, authorizationSettingsToImport);
 
         createOrUpdateAuthorizationResources(realmName, client,
@@ -303,6 +389,108 @@ public class ClientImportService {
                 existingAuthorization.getPolicies(), authorizationSettingsToImport.getPolicies());
     }
 
+    private boolean isBulkAuthorizationImport(
+            ResourceServerRepresentation existingAuthorization,
+            ResourceServerRepresentation authorizationSettingsToImport
+    ) {
+        int threshold = importConfigProperties.getAuthorizationBulkThreshold();
+        if (threshold <= 0) return false;
+
+        // the import endpoint matches entities by name, which is ambiguous for resources of different owners
+        boolean uniqueNames = hasUniqueNames(existingAuthorization.getResources(), ResourceRepresentation::getName)
+                && hasUniqueNames(authorizationSettingsToImport.getResources(), ResourceRepresentation::getName)
+                && hasUniqueNames(existingAuthorization.getScopes(), ScopeRepresentation::getName)
+                && hasUniqueNames(authorizationSettingsToImport.getScopes(), ScopeRepresentation::getName)
+                && hasUniqueNames(existingAuthorization.getPolicies(), PolicyRepresentation::getName)
+                && hasUniqueNames(authorizationSettingsToImport.getPolicies(), PolicyRepresentation::getName);
+        if (!uniqueNames) {
+            logger.debug("Import authorization entities one by one, because their names are not unique");
+            return false;
+        }
+
+        long changes = countChanged(existingAuthorization.getResources(), authorizationSettingsToImport.getResources(),
+                ResourceRepresentation::getName, "id", "_id")
+                + countChanged(existingAuthorization.getScopes(), authorizationSettingsToImport.getScopes(),
+                ScopeRepresentation::getName, "id")
+                + countChanged(existingAuthorization.getPolicies(), authorizationSettingsToImport.getPolicies(),
+                PolicyRepresentation::getName, "id");
+
+        return changes >= threshold;
+    }
+
+    private static <T> boolean hasUniqueNames(List<T> entities, Function<T, String> getName) {
+        return entities.stream().map(getName).distinct().count() == entities.size();
+    }
+
+    private <T> long countChanged(
+            List<T> existingEntities,
+            List<T> entitiesToImport,
+            Function<T, String> getName,
+            String... ignoredProperties
+    ) {
+        Map<String, T> existingEntitiesMap = existingEntities.stream()
+                .collect(Collectors.toMap(getName, entity -> entity));
+
+        return entitiesToImport.stream()
+                .filter(entity -> {
+                    T existingEntity = existingEntitiesMap.get(getName.apply(entity));
+                    return existingEntity == null || !CloneUtil.deepEquals(entity, existingEntity, ignoredProperties);
+                })
+                .count();
+    }
+
+    /**
+     * Creates and updates the settings, resources, scopes and policies of a client by one request to the import endpoint
+     * of keycloak, which matches them by name. Entities missing in the import are kept by keycloak and removed afterwards.
+     */
+    private void importAuthorization(
+            String realmName,
+            ClientRepresentation client,
+            ResourceServerRepresentation existingAuthorization,
+            ResourceServerRepresentation authorizationSettingsToImport
+    ) {
+        String[] entityProperties = new String[]{"policies", "resources", "permissions", "scopes"};
+
+        ResourceServerRepresentation authorizationSettings = CloneUtil
+                .deepPatch(existingAuthorization, authorizationSettingsToImport, entityProperties);
+        ResourceServerRepresentation entitiesToImport = CloneUtil.deepClone(authorizationSettingsToImport);
+
+        // ids of another keycloak, e.g. of an export, would be created as new entities
+        authorizationSettings.setResources(withExistingIds(entitiesToImport.getResources(), existingAuthorization.getResources(),
+                ResourceRepresentation::getName, ResourceRepresentation::getId, ResourceRepresentation::setId));
+        authorizationSettings.setScopes(withExistingIds(entitiesToImport.getScopes(), existingAuthorization.getScopes(),
+                ScopeRepresentation::getName, ScopeRepresentation::getId, ScopeRepresentation::setId));
+        authorizationSettings.setPolicies(withExistingIds(entitiesToImport.getPolicies(), existingAuthorization.getPolicies(),
+                PolicyRepresentation::getName, PolicyRepresentation::getId, PolicyRepresentation::setId));
+
+        logger.debug("Import authorization settings for client '{}' in realm '{}'", getClientIdentifier(client), realmName);
+        clientRepository.importAuthorizationSettings(realmName, client.getId(), authorizationSettings);
+
+        removeAuthorizationResources(realmName, client,
+                existingAuthorization.getResources(), authorizationSettingsToImport.getResources());
+        removeAuthorizationScopes(realmName, client,
+                existingAuthorization.getScopes(), authorizationSettingsToImport.getScopes());
+        removeAuthorizationPolicies(realmName, client,
+                existingAuthorization.getPolicies(), authorizationSettingsToImport.getPolicies());
+    }
+
+    private <T> List<T> withExistingIds(
+            List<T> entitiesToImport,
+            List<T> existingEntities,
+            Function<T, String> getName,
+            Function<T, String> getId,
+            BiConsumer<T, String> setId
+    ) {
+        Map<String, String> existingIds = existingEntities.stream()
+                .collect(Collectors.toMap(getName, getId));
+
+        for (T entity : entitiesToImport) {
+            setId.accept(entity, existingIds.get(getName.apply(entity)));
+        }
+
+        return entitiesToImport;
+    }
+
     private void handleAuthorizationSettings(
             String realmName,
             ClientRepresentation client,
@@ -333,7 +521,8 @@ public class ClientImportService {
         Map<String, ResourceRepresentation> existingClientAuthorizationResourcesMap =
                 existingClientAuthorizationResources
                         .stream()
-                        .collect(Collectors.toMap(ResourceRepresentation::getName, resource -> resource));
+                        .collect(Collectors.toMap(ResourceRepresentation::getName, resource -> resource,
+                                ClientImportService::preferResourceServerResource));
 
         for (ResourceRepresentation authorizationResourceToImport : authorizationResourcesToImport) {
             createOrUpdateAuthorizationResource(
@@ -342,6 +531,13 @@ public class ClientImportService {
         }
     }
 
+    /**
+     * Resource names are unique per owner only. Resources owned by the resource server are exported without owner.
+     */
+    private static ResourceRepresentation preferResourceServerResource(ResourceRepresentation first, ResourceRepresentation second) {
+        return second.getOwner() == null ? second : first;
+    }
+
     private void createOrUpdateAuthorizationResource(
             String realmName,
             ClientRepresentation client,
@@ -593,28 +789,6 @@ public class ClientImportService {
         }
     }
 
-    private void updateClientAuthenticationFlowBindingOverrides(
-            RealmImport realmImport,
-            List<ClientRepresentation> clients
-    ) {
-        String realmName = realmImport.getRealm();
-
-        for (ClientRepresentation client : clients) {
-            ClientRepresentation existingClient;
-            if (client.getClientId() != null) {
-                existingClient = clientRepository.getByClientId(realmName, client.getClientId());
-            } else if (client.getName() != null) {
-                existingClient = clientRepository.getByName(realmName, client.getName());
-            } else {
-                throw new ImportProcessingException("clients require client id or name.");
-            }
-
-            updateAuthenticationFlowBindingOverrides(
-                    realmName, existingClient, client.getAuthenticationFlowBindingOverrides()
-            );
-        }
-    }
-
     private void updateAuthenticationFlowBindingOverrides(
             String realmName,
             ClientRepresentation existingClient,
@@ -25,6 +25,7 @@ import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.ClientScopeRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ProtocolMapperUtil;
 import org.keycloak.representations.idm.ClientScopeRepresentation;
@@ -47,14 +48,17 @@ public class ClientScopeImportService {
     private final ClientScopeRepository clientScopeRepository;
     private final ImportConfigProperties importConfigProperties;
     private final RealmRepository realmRepository;
+    private final ImportInstrumentation importInstrumentation;
 
     public ClientScopeImportService(
             ClientScopeRepository clientScopeRepository,
             ImportConfigProperties importConfigProperties,
-            RealmRepository realmRepository) {
+            RealmRepository realmRepository,
+            ImportInstrumentation importInstrumentation) {
         this.clientScopeRepository = clientScopeRepository;
         this.importConfigProperties = importConfigProperties;
         this.realmRepository = realmRepository;
+        this.importInstrumentation = importInstrumentation;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -169,7 +173,9 @@ public class ClientScopeImportService {
             String realmName,
             List<ClientScopeRepresentation> clientScopes
     ) {
-        Consumer<ClientScopeRepresentation> loop = clientScope -> createOrUpdateClientScope(realmName, clientScope);
+        Consumer<ClientScopeRepresentation> loop = clientScope -> importInstrumentation.entity(
+                "client-scopes", clientScope.getName(), () -> createOrUpdateClientScope(realmName, clientScope)
+        );
         if (importConfigProperties.isParallel()) {
             clientScopes.parallelStream().forEach(loop);
         } else {
@@ -25,6 +25,7 @@ import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
 import de.adorsys.keycloak.config.repository.ComponentRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
 import de.adorsys.keycloak.config.service.state.StateService;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.admin.client.resource.RealmResource;
@@ -46,17 +47,20 @@ public class ComponentImportService {
     private final ImportConfigProperties importConfigProperties;
     private final StateService stateService;
     private final RealmRepository realmRepository;
+    private final EntityChecksumService entityChecksumService;
 
     @Autowired
     public ComponentImportService(
             ComponentRepository componentRepository,
             ImportConfigProperties importConfigProperties,
             StateService stateService,
-            RealmRepository realmRepository) {
+            RealmRepository realmRepository,
+            EntityChecksumService entityChecksumService) {
         this.componentRepository = componentRepository;
         this.importConfigProperties = importConfigProperties;
         this.stateService = stateService;
         this.realmRepository = realmRepository;
+        this.entityChecksumService = entityChecksumService;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -78,7 +82,11 @@ public class ComponentImportService {
 
     private void importComponents(String realmName, Map<String, List<ComponentExportRepresentation>> componentsToImport) {
         for (Map.Entry<String, List<ComponentExportRepresentation>> entry : componentsToImport.entrySet()) {
-            createOrUpdateComponents(realmName, entry.getKey(), entry.getValue());
+            List<ComponentExportRepresentation> changedComponents = entityChecksumService.filterChanged(
+                    realmName, "components", entry.getKey(), entry.getValue()
+            );
+
+            createOrUpdateComponents(realmName, entry.getKey(), changedComponents);
         }
     }
 
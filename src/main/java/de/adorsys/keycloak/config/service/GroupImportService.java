@@ -24,6 +24,8 @@ import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
 import de.adorsys.keycloak.config.repository.GroupRepository;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.slf4j.Logger;
@@ -40,10 +42,18 @@ public class GroupImportService {
 
     private final GroupRepository groupRepository;
     private final ImportConfigProperties importConfigProperties;
-
-    public GroupImportService(GroupRepository groupRepository, ImportConfigProperties importConfigProperties) {
+    private final EntityChecksumService entityChecksumService;
+    private final ImportInstrumentation importInstrumentation;
+
+    public GroupImportService(
+            GroupRepository groupRepository,
+            ImportConfigProperties importConfigProperties,
+            EntityChecksumService entityChecksumService,
+            ImportInstrumentation importInstrumentation) {
         this.groupRepository = groupRepository;
         this.importConfigProperties = importConfigProperties;
+        this.entityChecksumService = entityChecksumService;
+        this.importInstrumentation = importInstrumentation;
     }
 
     public void importGroups(RealmImport realmImport) {
@@ -56,7 +66,7 @@ public class GroupImportService {
 
         List<GroupRepresentation> existingGroups = groupRepository.getAll(realmName);
 
-        createOrUpdateGroups(groups, realmName);
+        createOrUpdateGroups(entityChecksumService.filterChanged(realmName, "groups", groups), realmName);
 
         if (importConfigProperties.getManaged().getGroup() == ImportManagedPropertiesValues.FULL) {
             deleteGroupsMissingInImport(realmName, groups, existingGroups);
@@ -64,7 +74,9 @@ public class GroupImportService {
     }
 
     public void createOrUpdateGroups(List<GroupRepresentation> groups, String realmName) {
-        Consumer<GroupRepresentation> loop = group -> createOrUpdateRealmGroup(realmName, group);
+        Consumer<GroupRepresentation> loop = group -> importInstrumentation.entity(
+                "groups", group.getName(), () -> createOrUpdateRealmGroup(realmName, group)
+        );
         if (importConfigProperties.isParallel()) {
             groups.parallelStream().forEach(loop);
         } else {
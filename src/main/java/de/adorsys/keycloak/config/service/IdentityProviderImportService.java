@@ -24,6 +24,7 @@ import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.IdentityProviderMapperRepository;
 import de.adorsys.keycloak.config.repository.IdentityProviderRepository;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.IdentityProviderMapperRepresentation;
 import org.keycloak.representations.idm.IdentityProviderRepresentation;
@@ -45,16 +46,19 @@ public class IdentityProviderImportService {
     private final IdentityProviderRepository identityProviderRepository;
     private final IdentityProviderMapperRepository identityProviderMapperRepository;
     private final ImportConfigProperties importConfigProperties;
+    private final EntityChecksumService entityChecksumService;
 
     @Autowired
     public IdentityProviderImportService(
             IdentityProviderRepository identityProviderRepository,
             IdentityProviderMapperRepository identityProviderMapperRepository,
-            ImportConfigProperties importConfigProperties
+            ImportConfigProperties importConfigProperties,
+            EntityChecksumService entityChecksumService
     ) {
         this.identityProviderRepository = identityProviderRepository;
         this.identityProviderMapperRepository = identityProviderMapperRepository;
         this.importConfigProperties = importConfigProperties;
+        this.entityChecksumService = entityChecksumService;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -73,7 +77,11 @@ public class IdentityProviderImportService {
             deleteIdentityProvidersMissingInImport(realmName, identityProviders, existingIdentityProviders);
         }
 
-        for (IdentityProviderRepresentation identityProvider : identityProviders) {
+        List<IdentityProviderRepresentation> changedIdentityProviders = entityChecksumService.filterChanged(
+                realmName, "identity-providers", identityProviders
+        );
+
+        for (IdentityProviderRepresentation identityProvider : changedIdentityProviders) {
             createOrUpdateIdentityProvider(realmImport, identityProvider);
         }
     }
@@ -25,14 +25,23 @@ import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
 import de.adorsys.keycloak.config.repository.RealmRepository;
 import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
+import de.adorsys.keycloak.config.service.drift.RealmSection;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.service.plan.ImportPlanService;
 import de.adorsys.keycloak.config.service.state.StateService;
 import de.adorsys.keycloak.config.util.CloneUtil;
+import de.adorsys.keycloak.config.util.resteasy.DryRunClientFilter;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class RealmImportService {
     static final String[] ignoredPropertiesForRealmImport = new String[]{
@@ -89,7 +98,10 @@ public class RealmImportService {
     private final ImportConfigProperties importProperties;
 
     private final ChecksumService checksumService;
+    private final EntityChecksumService entityChecksumService;
     private final StateService stateService;
+    private final ImportInstrumentation importInstrumentation;
+    private final ImportPlanService importPlanService;
 
     @Autowired
     public RealmImportService(
@@ -111,7 +123,10 @@ public class RealmImportService {
             ClientScopeMappingImportService clientScopeMappingImportService,
             IdentityProviderImportService identityProviderImportService,
             ChecksumService checksumService,
-            StateService stateService) {
+            EntityChecksumService entityChecksumService,
+            StateService stateService,
+            ImportInstrumentation importInstrumentation,
+            ImportPlanService importPlanService) {
         this.importProperties = importProperties;
         this.keycloakProvider = keycloakProvider;
         this.realmRepository = realmRepository;
@@ -130,87 +145,204 @@ public class RealmImportService {
         this.clientScopeMappingImportService = clientScopeMappingImportService;
         this.identityProviderImportService = identityProviderImportService;
         this.checksumService = checksumService;
+        this.entityChecksumService = entityChecksumService;
         this.stateService = stateService;
+        this.importInstrumentation = importInstrumentation;
+        this.importPlanService = importPlanService;
+    }
+
+    /**
+     * @return {@code false}, if the import has been skipped, because the realm is unchanged since the last import
+     */
+    public synchronized boolean doImport(RealmImport realmImport) {
+        return importInstrumentation.realm(realmImport.getRealm(), () -> importRealm(realmImport));
     }
 
-    public void doImport(RealmImport realmImport) {
+    private boolean importRealm(RealmImport realmImport) {
         boolean realmExists = realmRepository.exists(realmImport.getRealm());
 
         if (realmExists) {
-            updateRealmIfNecessary(realmImport);
-        } else {
-            createRealm(realmImport);
+            return updateRealmIfNecessary(realmImport);
         }
+
+        createRealm(realmImport);
+        return true;
     }
 
-    private void updateRealmIfNecessary(RealmImport realmImport) {
+    private boolean updateRealmIfNecessary(RealmImport realmImport) {
         if (importProperties.isForce() || checksumService.hasToBeUpdated(realmImport)) {
-            setEventsEnabledWorkaround(realmImport);
             updateRealm(realmImport);
-        } else {
-            logger.debug(
-                    "No need to update realm '{}', import checksum same: '{}'",
-                    realmImport.getRealm(),
-                    realmImport.getChecksum()
-            );
+            return true;
         }
+
+        logger.debug(
+                "No need to update realm '{}', import checksum same: '{}'",
+                realmImport.getRealm(),
+                realmImport.getChecksum()
+        );
+        return false;
     }
 
-    private void setEventsEnabledWorkaround(RealmImport realmImport) {
+    private void setEventsEnabledWorkaround(RealmImport realmImport, RealmRepresentation existingRealm) {
         // https://github.com/adorsys/keycloak-config-cli/issues/338
         if (realmImport.isEventsEnabled() != null) return;
 
-        Boolean existingEventsEnabled = realmRepository.get(realmImport.getRealm()).isEventsEnabled();
-        realmImport.setEventsEnabled(existingEventsEnabled);
+        realmImport.setEventsEnabled(existingRealm.isEventsEnabled());
     }
 
     private void createRealm(RealmImport realmImport) {
         logger.debug("Creating realm '{}' ...", realmImport.getRealm());
 
+        if (importPlanService.isEnabled()) {
+            // the stages cannot read a realm, which does not exist. Plan the creation of the realm with all its entities instead.
+            RealmRepresentation realm = CloneUtil.deepClone(realmImport, RealmRepresentation.class);
+            stage("realm", () -> realmRepository.create(realm));
+            return;
+        }
+
         RealmRepresentation realm = CloneUtil.deepClone(realmImport, RealmRepresentation.class, ignoredPropertiesForRealmImport);
-        realmRepository.create(realm);
+        stage("realm", () -> realmRepository.create(realm));
 
         // refresh the access token to update the scopes. See: https://github.com/adorsys/keycloak-config-cli/issues/339
         keycloakProvider.refreshToken();
 
-        stateService.loadState(realmImport);
+        // a state store which outlives the realm, like a state file, may contain the state of a deleted realm
+        stateService.resetState(realmImport);
         configureRealm(realmImport, realm);
     }
 
+    /**
+     * Imports only the given sections of an existing realm, e.g. after an out-of-band change has been detected.
+     */
+    public synchronized void reconcile(RealmImport realmImport, Set<RealmSection> sections) {
+        importInstrumentation.realm(realmImport.getRealm(), () -> reconcileRealm(realmImport, sections));
+    }
+
+    private void reconcileRealm(RealmImport realmImport, Set<RealmSection> sections) {
+        logger.debug("Reconciling sections {} of realm '{}'...", sections, realmImport.getRealm());
+
+        RealmRepresentation realm = updateRealmProperties(realmImport);
+
+        // entities are unchanged in the import, but they may have been changed in keycloak
+        entityChecksumService.reconcileState();
+
+        if (sections.contains(RealmSection.CLIENT_SCOPES)) {
+            stage("client-scopes", () -> clientScopeImportService.doImport(realmImport));
+            stage("default-client-scopes", () -> clientScopeImportService.updateDefaultClientScopes(realmImport, realm));
+        }
+        // ids of the clients imported by this reconciliation, passed to the client dependencies
+        Map<String, String> clientIds = new HashMap<>();
+
+        if (sections.contains(RealmSection.CLIENTS)) stage("clients", () -> clientIds.putAll(clientImportService.doImport(realmImport)));
+        if (sections.contains(RealmSection.ROLES)) stage("roles", () -> roleImportService.doImport(realmImport));
+        if (sections.contains(RealmSection.GROUPS)) {
+            stage("groups", () -> groupImportService.importGroups(realmImport));
+            stage("default-groups", () -> defaultGroupsImportService.doImport(realmImport));
+        }
+        if (sections.contains(RealmSection.COMPONENTS)) stage("components", () -> componentImportService.doImport(realmImport));
+        if (sections.contains(RealmSection.REQUIRED_ACTIONS)) stage("required-actions", () -> requiredActionsImportService.doImport(realmImport));
+        if (sections.contains(RealmSection.AUTHENTICATION_FLOWS)) {
+            stage("authentication-flows", () -> authenticationFlowsImportService.doImport(realmImport));
+            stage("authenticator-configs", () -> authenticatorConfigImportService.doImport(realmImport));
+        }
+        if (sections.contains(RealmSection.CLIENTS)) {
+            stage("client-dependencies", () -> clientImportService.doImportDependencies(realmImport, clientIds));
+        }
+        if (sections.contains(RealmSection.IDENTITY_PROVIDERS)) {
+            stage("identity-providers", () -> identityProviderImportService.doImport(realmImport));
+        }
+        if (sections.contains(RealmSection.SCOPE_MAPPINGS)) stage("scope-mappings", () -> scopeMappingImportService.doImport(realmImport));
+        if (sections.contains(RealmSection.CLIENT_SCOPE_MAPPINGS)) {
+            stage("client-scope-mappings", () -> clientScopeMappingImportService.doImport(realmImport));
+        }
+        if (sections.contains(RealmSection.CLIENT_SCOPES)) stage("client-scope-orphans", () -> clientScopeImportService.doRemoveOrphan(realmImport));
+
+        commitState(realmImport);
+    }
+
     private void updateRealm(RealmImport realmImport) {
         logger.debug("Updating realm '{}'...", realmImport.getRealm());
 
+        RealmRepresentation realm = updateRealmProperties(realmImport);
+
+        configureRealm(realmImport, realm);
+    }
+
+    private RealmRepresentation updateRealmProperties(RealmImport realmImport) {
+        return importInstrumentation.stage("realm", () -> doUpdateRealmProperties(realmImport));
+    }
+
+    private RealmRepresentation doUpdateRealmProperties(RealmImport realmImport) {
+        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
+        setEventsEnabledWorkaround(realmImport, existingRealm);
+
         RealmRepresentation realm = CloneUtil.deepClone(realmImport, RealmRepresentation.class, ignoredPropertiesForRealmImport);
 
         // The state must be loaded before we update realm to prevent
         // the state erasure by custom attributes from configuration
         stateService.loadState(realm);
 
-        realmRepository.update(realm);
+        // Every realm update invalidates the realm cache of Keycloak, send only changed properties
+        RealmRepresentation changedRealm = CloneUtil.deepDiff(realm, existingRealm, ignoredPropertiesForRealmImport);
 
-        configureRealm(realmImport, realm);
+        if (changedRealm != null) {
+            changedRealm.setRealm(realm.getRealm());
+            changedRealm.setEventsEnabled(realm.isEventsEnabled());
+
+            realmRepository.update(changedRealm);
+        } else {
+            logger.debug("No need to update realm '{}', realm properties unchanged", realmImport.getRealm());
+        }
+
+        return realm;
     }
 
     private void configureRealm(RealmImport realmImport, RealmRepresentation existingRealm) {
-        clientScopeImportService.doImport(realmImport);
-        clientScopeImportService.updateDefaultClientScopes(realmImport, existingRealm);
-        clientImportService.doImport(realmImport);
-        roleImportService.doImport(realmImport);
-        groupImportService.importGroups(realmImport);
-        defaultGroupsImportService.doImport(realmImport);
-        componentImportService.doImport(realmImport);
-        userImportService.doImport(realmImport);
-        requiredActionsImportService.doImport(realmImport);
-        authenticationFlowsImportService.doImport(realmImport);
-        authenticatorConfigImportService.doImport(realmImport);
-        clientImportService.doImportDependencies(realmImport);
-        identityProviderImportService.doImport(realmImport);
-        scopeMappingImportService.doImport(realmImport);
-        clientScopeMappingImportService.doImport(realmImport);
-        customImportService.doImport(realmImport);
-        clientScopeImportService.doRemoveOrphan(realmImport);
-
-        stateService.doImport(realmImport);
-        checksumService.doImport(realmImport);
+        entityChecksumService.loadState();
+
+        stage("client-scopes", () -> clientScopeImportService.doImport(realmImport));
+        stage("default-client-scopes", () -> clientScopeImportService.updateDefaultClientScopes(realmImport, existingRealm));
+        // ids of the clients imported by this import, passed to the client dependencies
+        Map<String, String> clientIds = new HashMap<>();
+
+        stage("clients", () -> clientIds.putAll(clientImportService.doImport(realmImport)));
+        stage("roles", () -> roleImportService.doImport(realmImport));
+        stage("groups", () -> groupImportService.importGroups(realmImport));
+        stage("default-groups", () -> defaultGroupsImportService.doImport(realmImport));
+        stage("components", () -> componentImportService.doImport(realmImport));
+        stage("users", () -> userImportService.doImport(realmImport));
+        stage("required-actions", () -> requiredActionsImportService.doImport(realmImport));
+        stage("authentication-flows", () -> authenticationFlowsImportService.doImport(realmImport));
+        stage("authenticator-configs", () -> authenticatorConfigImportService.doImport(realmImport));
+        stage("client-dependencies", () -> clientImportService.doImportDependencies(realmImport, clientIds));
+        stage("identity-providers", () -> identityProviderImportService.doImport(realmImport));
+        stage("scope-mappings", () -> scopeMappingImportService.doImport(realmImport));
+        stage("client-scope-mappings", () -> clientScopeMappingImportService.doImport(realmImport));
+        stage("custom", () -> customImportService.doImport(realmImport));
+        stage("client-scope-orphans", () -> clientScopeImportService.doRemoveOrphan(realmImport));
+
+        commitState(realmImport);
+    }
+
+    private void commitState(RealmImport realmImport) {
+        if (importPlanService.isEnabled()) return;
+
+        stage("state", () -> {
+            stateService.doImport(realmImport);
+            checksumService.doImport(realmImport);
+            entityChecksumService.doImport(realmImport);
+            stateService.commit(realmImport);
+        });
+    }
+
+    private void stage(String stage, Runnable runnable) {
+        try {
+            importInstrumentation.stage(stage, runnable);
+        } catch (RuntimeException e) {
+            // only a lookup of an entity, which would be created by a previous stage, is expected to fail in a plan
+            if (!importPlanService.isEnabled() || !DryRunClientFilter.isPlannedEntityNotFound(e)) throw e;
+
+            importPlanService.addNote(importInstrumentation.getCurrentRealm(), stage, e.getMessage());
+        }
     }
 }
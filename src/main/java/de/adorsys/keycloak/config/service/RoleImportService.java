@@ -23,7 +23,10 @@ package de.adorsys.keycloak.config.service;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.repository.ClientRepository;
 import de.adorsys.keycloak.config.repository.RoleRepository;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
 import de.adorsys.keycloak.config.service.rolecomposites.client.ClientRoleCompositeImportService;
 import de.adorsys.keycloak.config.service.rolecomposites.realm.RealmRoleCompositeImportService;
 import de.adorsys.keycloak.config.service.state.StateService;
@@ -36,6 +39,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -51,20 +55,29 @@ public class RoleImportService {
     private final ClientRoleCompositeImportService clientRoleCompositeImport;
 
     private final RoleRepository roleRepository;
+    private final ClientRepository clientRepository;
     private final ImportConfigProperties importConfigProperties;
     private final StateService stateService;
+    private final EntityChecksumService entityChecksumService;
+    private final ImportInstrumentation importInstrumentation;
 
     @Autowired
     public RoleImportService(
             RealmRoleCompositeImportService realmRoleCompositeImportService,
             ClientRoleCompositeImportService clientRoleCompositeImportService,
             RoleRepository roleRepository,
-            ImportConfigProperties importConfigProperties, StateService stateService) {
+            ClientRepository clientRepository,
+            ImportConfigProperties importConfigProperties, StateService stateService,
+            EntityChecksumService entityChecksumService,
+            ImportInstrumentation importInstrumentation) {
         this.realmRoleCompositeImport = realmRoleCompositeImportService;
         this.clientRoleCompositeImport = clientRoleCompositeImportService;
         this.roleRepository = roleRepository;
+        this.clientRepository = clientRepository;
         this.importConfigProperties = importConfigProperties;
         this.stateService = stateService;
+        this.entityChecksumService = entityChecksumService;
+        this.importInstrumentation = importInstrumentation;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -96,28 +109,60 @@ public class RoleImportService {
         }
 
 
+        List<RoleRepresentation> changedRealmRoles = null;
+        Map<String, List<RoleRepresentation>> changedClientRoles = null;
+
         if (realmRoleInImport) {
-            createOrUpdateRealmRoles(realmName, roles.getRealm(), existingRealmRoles);
+            changedRealmRoles = entityChecksumService.filterChanged(realmName, "roles-realm", roles.getRealm());
         }
         if (clientRoleInImport) {
-            createOrUpdateClientRoles(realmName, roles.getClient(), existingClientRoles);
+            changedClientRoles = filterChangedClientRoles(realmName, roles.getClient());
         }
 
 
         if (realmRoleInImport) {
-            realmRoleCompositeImport.update(realmName, roles.getRealm());
+            createOrUpdateRealmRoles(realmName, changedRealmRoles, existingRealmRoles);
         }
         if (clientRoleInImport) {
-            clientRoleCompositeImport.update(realmName, roles.getClient());
+            createOrUpdateClientRoles(realmName, changedClientRoles, existingClientRoles);
+        }
+
+
+        if (realmRoleInImport) {
+            realmRoleCompositeImport.update(realmName, changedRealmRoles);
+        }
+        if (clientRoleInImport) {
+            clientRoleCompositeImport.update(realmName, changedClientRoles);
         }
     }
 
+    private Map<String, List<RoleRepresentation>> filterChangedClientRoles(
+            String realmName,
+            Map<String, List<RoleRepresentation>> clientRoles
+    ) {
+        Map<String, List<RoleRepresentation>> changedClientRoles = new HashMap<>();
+
+        for (Map.Entry<String, List<RoleRepresentation>> client : clientRoles.entrySet()) {
+            List<RoleRepresentation> changedRoles = entityChecksumService.filterChanged(
+                    realmName, "roles-client", client.getKey(), client.getValue()
+            );
+
+            if (!changedRoles.isEmpty()) {
+                changedClientRoles.put(client.getKey(), changedRoles);
+            }
+        }
+
+        return changedClientRoles;
+    }
+
     private void createOrUpdateRealmRoles(
             String realmName,
             List<RoleRepresentation> rolesToImport,
             List<RoleRepresentation> existingRealmRoles
     ) {
-        Consumer<RoleRepresentation> loop = role -> createOrUpdateRealmRole(realmName, role, existingRealmRoles);
+        Consumer<RoleRepresentation> loop = role -> importInstrumentation.entity(
+                "roles-realm", role.getName(), () -> createOrUpdateRealmRole(realmName, role, existingRealmRoles)
+        );
         if (importConfigProperties.isParallel()) {
             rolesToImport.parallelStream().forEach(loop);
         } else {
@@ -168,6 +213,9 @@ public class RoleImportService {
         String roleName = roleToImport.getName();
 
         if (!existingRoles.containsKey(clientId)) {
+            // in a plan, the lookup of a client created by the plan only fails as planned entity instead
+            clientRepository.searchByClientId(realmName, clientId);
+
             throw new ImportProcessingException(String.format(
                     "Can't create role '%s' for non existing client '%s' in realm '%s'!",
                     roleName, clientId, realmName
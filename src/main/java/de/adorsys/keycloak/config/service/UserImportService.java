@@ -28,6 +28,8 @@ import de.adorsys.keycloak.config.repository.GroupRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
 import de.adorsys.keycloak.config.repository.RoleRepository;
 import de.adorsys.keycloak.config.repository.UserRepository;
+import de.adorsys.keycloak.config.service.checksum.EntityChecksumService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.KeycloakUtil;
 import org.keycloak.representations.idm.ClientRepresentation;
@@ -59,13 +61,17 @@ public class UserImportService {
     private final ClientRepository clientRepository;
 
     private final ImportConfigProperties importConfigProperties;
+    private final EntityChecksumService entityChecksumService;
+    private final ImportInstrumentation importInstrumentation;
 
     @Autowired
     public UserImportService(
             RealmRepository realmRepository, UserRepository userRepository,
             RoleRepository roleRepository,
             GroupRepository groupRepository,
-            ClientRepository clientRepository, ImportConfigProperties importConfigProperties
+            ClientRepository clientRepository, ImportConfigProperties importConfigProperties,
+            EntityChecksumService entityChecksumService,
+            ImportInstrumentation importInstrumentation
     ) {
         this.realmRepository = realmRepository;
         this.userRepository = userRepository;
@@ -73,6 +79,8 @@ public class UserImportService {
         this.groupRepository = groupRepository;
         this.clientRepository = clientRepository;
         this.importConfigProperties = importConfigProperties;
+        this.entityChecksumService = entityChecksumService;
+        this.importInstrumentation = importInstrumentation;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -87,11 +95,15 @@ public class UserImportService {
             return;
         }
 
-        Consumer<UserRepresentation> loop = user -> importUser(realmImport.getRealm(), user);
+        List<UserRepresentation> changedUsers = entityChecksumService.filterChanged(realmImport.getRealm(), "users", users);
+
+        Consumer<UserRepresentation> loop = user -> importInstrumentation.entity(
+                "users", user.getUsername(), () -> importUser(realmImport.getRealm(), user)
+        );
         if (importConfigProperties.isParallel()) {
-            users.parallelStream().forEach(loop);
+            changedUsers.parallelStream().forEach(loop);
         } else {
-            users.forEach(loop);
+            changedUsers.forEach(loop);
         }
     }
 
@@ -22,8 +22,8 @@ package de.adorsys.keycloak.config.service.checksum;
 
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
-import de.adorsys.keycloak.config.repository.RealmRepository;
-import org.keycloak.representations.idm.RealmRepresentation;
+import de.adorsys.keycloak.config.repository.StateRepository;
+import de.adorsys.keycloak.config.repository.StateStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,29 +37,31 @@ import java.util.Objects;
 public class ChecksumService {
     private static final Logger logger = LoggerFactory.getLogger(ChecksumService.class);
 
-    private final RealmRepository realmRepository;
+    private final StateStore stateStore;
+    private final StateRepository stateRepository;
     private final ImportConfigProperties importConfigProperties;
 
     @Autowired
-    public ChecksumService(RealmRepository realmRepository, ImportConfigProperties importConfigProperties) {
-        this.realmRepository = realmRepository;
+    public ChecksumService(StateStore stateStore, StateRepository stateRepository, ImportConfigProperties importConfigProperties) {
+        this.stateStore = stateStore;
+        this.stateRepository = stateRepository;
         this.importConfigProperties = importConfigProperties;
     }
 
+    /**
+     * Sets the import checksum of the realm. It will be persisted together with the state by {@link de.adorsys.keycloak.config.service.state.StateService#commit(RealmImport)}.
+     *
+     * @param realmImport the imported realm
+     */
     public void doImport(RealmImport realmImport) {
-        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
-        Map<String, String> customAttributes = existingRealm.getAttributes();
-
         String importChecksum = realmImport.getChecksum();
-        customAttributes.put(getCustomAttributeKey(), importChecksum);
-        realmRepository.update(existingRealm);
+        stateRepository.setCustomAttribute(getCustomAttributeKey(), importChecksum);
 
-        logger.debug("Updated import checksum of realm '{}' to '{}'", realmImport.getRealm(), importChecksum);
+        logger.debug("Set import checksum of realm '{}' to '{}'", realmImport.getRealm(), importChecksum);
     }
 
     public boolean hasToBeUpdated(RealmImport realmImport) {
-        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
-        Map<String, String> customAttributes = existingRealm.getAttributes();
+        Map<String, String> customAttributes = stateStore.read(realmImport.getRealm());
 
         String readChecksum = customAttributes.get(getCustomAttributeKey());
 
@@ -0,0 +1,187 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.checksum;
+
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.repository.StateRepository;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.util.ChecksumUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.adorsys.keycloak.config.util.JsonUtil.toJson;
+
+/**
+ * Keeps a checksum of every imported entity inside the import state. If {@code import.skip-unchanged-entities} is enabled,
+ * entities which are unchanged since the last successful import are skipped without any request against Keycloak.
+ */
+@Service
+public class EntityChecksumService {
+    private static final Logger logger = LoggerFactory.getLogger(EntityChecksumService.class);
+
+    private static final String STATE_ENTITY_PREFIX = "checksums-";
+
+    // 64 bits are enough to detect a change of a single entity and keep the state small
+    private static final int CHECKSUM_LENGTH = 16;
+
+    private final StateRepository stateRepository;
+    private final ImportConfigProperties importConfigProperties;
+    private final ImportInstrumentation importInstrumentation;
+
+    private final Map<String, Set<String>> storedChecksums = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> importedChecksums = new ConcurrentHashMap<>();
+
+    // set by the drift detection thread, read by the import stages
+    private volatile boolean reconciling = false;
+
+    @Autowired
+    public EntityChecksumService(
+            StateRepository stateRepository,
+            ImportConfigProperties importConfigProperties,
+            ImportInstrumentation importInstrumentation
+    ) {
+        this.stateRepository = stateRepository;
+        this.importConfigProperties = importConfigProperties;
+        this.importInstrumentation = importInstrumentation;
+    }
+
+    /**
+     * Forgets the checksums of a previous realm import. Must be called after the state of the realm has been loaded.
+     */
+    public void loadState() {
+        storedChecksums.clear();
+        importedChecksums.clear();
+        reconciling = false;
+    }
+
+    /**
+     * Like {@link #loadState()}, but no entity is skipped, since entities may have been changed inside keycloak.
+     */
+    public void reconcileState() {
+        loadState();
+        reconciling = true;
+    }
+
+    public <T> List<T> filterChanged(String realmName, String type, List<T> entities) {
+        return filterChanged(realmName, type, "", entities);
+    }
+
+    /**
+     * Like {@link #filterChanged(String, String, List)}, but the entities are not counted again, e.g. for a later stage
+     * which imports the dependencies of the same entities.
+     */
+    public <T> List<T> getChanged(String realmName, String type, List<T> entities) {
+        if (!importConfigProperties.isSkipUnchangedEntities()) {
+            return entities;
+        }
+
+        return selectChanged(type, "", entities);
+    }
+
+    /**
+     * @param realmName the name of the realm
+     * @param type      the type of the entities, e.g. clients
+     * @param scope     the scope of the entities inside the type, e.g. the client id of client roles
+     * @param entities  the entities from the import
+     * @return the entities which have been changed since the last successful import
+     */
+    public <T> List<T> filterChanged(String realmName, String type, String scope, List<T> entities) {
+        if (!importConfigProperties.isSkipUnchangedEntities()) {
+            importInstrumentation.entities(realmName, type, entities.size(), 0);
+            return entities;
+        }
+
+        List<T> changedEntities = selectChanged(type, scope, entities);
+
+        if (changedEntities.size() < entities.size()) {
+            logger.debug("Skip {} unchanged {} in realm '{}'", entities.size() - changedEntities.size(), type, realmName);
+        }
+
+        importInstrumentation.entities(realmName, type, entities.size(), entities.size() - changedEntities.size());
+
+        return changedEntities;
+    }
+
+    private <T> List<T> selectChanged(String type, String scope, List<T> entities) {
+        Set<String> stored = storedChecksums.computeIfAbsent(type, k -> new HashSet<>(stateRepository.getState(STATE_ENTITY_PREFIX + k)));
+        Set<String> imported = importedChecksums.computeIfAbsent(type, k -> ConcurrentHashMap.newKeySet());
+
+        List<T> changedEntities = new ArrayList<>();
+        for (T entity : entities) {
+            String checksum = checksum(scope, entity);
+            imported.add(checksum);
+
+            if (reconciling || importConfigProperties.isForce() || !stored.contains(checksum)) {
+                changedEntities.add(entity);
+            }
+        }
+
+        return changedEntities;
+    }
+
+    public void doImport(RealmImport realmImport) {
+        if (!importConfigProperties.isSkipUnchangedEntities()) {
+            return;
+        }
+
+        for (Map.Entry<String, Set<String>> checksums : importedChecksums.entrySet()) {
+            List<Object> state = new ArrayList<>(new TreeSet<>(checksums.getValue()));
+            stateRepository.setState(STATE_ENTITY_PREFIX + checksums.getKey(), state);
+        }
+
+        // a reconcile imports only some sections, the checksums of the other sections are still valid
+        if (!reconciling) {
+            removeChecksumsOfRemovedSections();
+        }
+
+        logger.debug("Updated entity checksums of realm '{}'", realmImport.getRealm());
+    }
+
+    /**
+     * A section which has been removed from the import is not filtered at all. Its checksums must not survive,
+     * otherwise the entities would be skipped as unchanged once the section is added again.
+     */
+    private void removeChecksumsOfRemovedSections() {
+        for (String entity : stateRepository.getStateEntities()) {
+            if (!entity.startsWith(STATE_ENTITY_PREFIX)) continue;
+
+            String type = entity.substring(STATE_ENTITY_PREFIX.length());
+            if (!importedChecksums.containsKey(type)) {
+                stateRepository.removeState(entity);
+            }
+        }
+    }
+
+    private String checksum(String scope, Object entity) {
+        return ChecksumUtil.checksum(scope + ":" + toJson(entity)).substring(0, CHECKSUM_LENGTH);
+    }
+}
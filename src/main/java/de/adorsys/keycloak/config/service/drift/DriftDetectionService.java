@@ -0,0 +1,282 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.drift;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.util.ChecksumUtil;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically compares a fingerprint of every realm section with the fingerprint taken after the last import, if
+ * {@code import.drift-detection} is enabled. Only drifted sections are imported again.
+ */
+@Service
+public class DriftDetectionService implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(DriftDetectionService.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private final RealmRepository realmRepository;
+    private final RealmImportService realmImportService;
+    private final ImportConfigProperties importConfigProperties;
+    private final ImportInstrumentation importInstrumentation;
+
+    private final Map<String, RealmImport> realmImports = new HashMap<>();
+    private Map<String, Map<RealmSection, String>> fingerprints;
+
+    private ScheduledExecutorService executor;
+
+    @Autowired
+    public DriftDetectionService(
+            RealmRepository realmRepository,
+            RealmImportService realmImportService,
+            ImportConfigProperties importConfigProperties,
+            ImportInstrumentation importInstrumentation
+    ) {
+        this.realmRepository = realmRepository;
+        this.realmImportService = realmImportService;
+        this.importConfigProperties = importConfigProperties;
+        this.importInstrumentation = importInstrumentation;
+    }
+
+    public boolean isEnabled() {
+        return importConfigProperties.isDriftDetection();
+    }
+
+    /**
+     * Takes the fingerprints of an imported realm, which are compared by the next drift detection.
+     *
+     * @param imported {@code false}, if the import of the realm has been skipped, because it is unchanged
+     */
+    public synchronized void record(RealmImport realmImport, boolean imported) {
+        if (!isEnabled()) return;
+
+        String realmName = realmImport.getRealm();
+        realmImports.put(realmName, realmImport);
+
+        // a drift since the last import, e.g. while keycloak-config-cli was not running, must not become the new baseline
+        if (!imported && getFingerprints().containsKey(realmName)) {
+            logger.debug("Keep the fingerprints of the unchanged realm '{}'", realmName);
+            return;
+        }
+
+        saveFingerprints(realmName);
+    }
+
+    public synchronized void start() {
+        if (executor != null) return;
+
+        long interval = importConfigProperties.getDriftDetectionInterval().toMillis();
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "drift-detection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::detect, interval, interval, TimeUnit.MILLISECONDS);
+
+        logger.info("Check realms for drift every {} seconds, users are not checked ...", TimeUnit.MILLISECONDS.toSeconds(interval));
+    }
+
+    /**
+     * Blocks until the thread is interrupted.
+     */
+    public void awaitTermination() {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs serialised with the imports of {@code import.watch}, since the running realm and stage of the instrumentation are global.
+     */
+    void detect() {
+        importInstrumentation.run(this::detectDrift);
+    }
+
+    private synchronized void detectDrift() {
+        for (RealmImport realmImport : realmImports.values()) {
+            String realmName = realmImport.getRealm();
+
+            try {
+                Map<RealmSection, String> current = fingerprint(realmName);
+                Map<RealmSection, String> recorded = getFingerprints().getOrDefault(realmName, Collections.emptyMap());
+
+                Set<RealmSection> driftedSections = EnumSet.noneOf(RealmSection.class);
+                for (RealmSection section : RealmSection.values()) {
+                    if (!current.get(section).equals(recorded.get(section))) {
+                        driftedSections.add(section);
+                    }
+                }
+
+                if (driftedSections.isEmpty()) {
+                    logger.debug("No drift detected in realm '{}'", realmName);
+                    continue;
+                }
+
+                logger.info("Drift detected in realm '{}', sections: {}", realmName, driftedSections);
+
+                realmImportService.reconcile(realmImport, driftedSections);
+                saveFingerprints(realmName);
+            } catch (RuntimeException e) {
+                // keep the schedule alive, the next run will try again
+                logger.error("Drift detection of realm '{}' failed: {}", realmName, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void saveFingerprints(String realmName) {
+        getFingerprints().put(realmName, fingerprint(realmName));
+
+        Path fingerprintFile = getFingerprintFile();
+        if (fingerprintFile == null) return;
+
+        Path tempFile = fingerprintFile.resolveSibling(fingerprintFile.getFileName() + ".tmp");
+
+        try {
+            Path parent = fingerprintFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), fingerprints);
+            Files.move(tempFile, fingerprintFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot write drift detection fingerprints '%s'", fingerprintFile), e);
+        }
+    }
+
+    private Map<String, Map<RealmSection, String>> getFingerprints() {
+        if (fingerprints != null) {
+            return fingerprints;
+        }
+
+        Path fingerprintFile = getFingerprintFile();
+
+        if (fingerprintFile == null || !Files.exists(fingerprintFile)) {
+            fingerprints = new TreeMap<>();
+            return fingerprints;
+        }
+
+        try {
+            fingerprints = OBJECT_MAPPER.readValue(fingerprintFile.toFile(), new TypeReference<TreeMap<String, Map<RealmSection, String>>>() {
+            });
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot read drift detection fingerprints '%s'", fingerprintFile), e);
+        }
+
+        return fingerprints;
+    }
+
+    private Path getFingerprintFile() {
+        String driftDetectionPath = importConfigProperties.getDriftDetectionPath();
+
+        if (driftDetectionPath == null || driftDetectionPath.trim().isEmpty()) {
+            return null;
+        }
+
+        return Paths.get(driftDetectionPath);
+    }
+
+    private Map<RealmSection, String> fingerprint(String realmName) {
+        RealmRepresentation export = realmRepository.partialExport(realmName, true, true);
+        Map<String, Object> properties = OBJECT_MAPPER.convertValue(export, new TypeReference<Map<String, Object>>() {
+        });
+
+        Map<RealmSection, String> result = new EnumMap<>(RealmSection.class);
+        for (RealmSection section : RealmSection.values()) {
+            if (section == RealmSection.REALM) continue;
+
+            List<String> checksums = new ArrayList<>();
+            for (String property : section.getProperties()) {
+                checksums.add(property + "=" + fingerprint(properties.remove(property)));
+            }
+
+            result.put(section, ChecksumUtil.checksum(String.join(",", checksums)));
+        }
+
+        result.put(RealmSection.REALM, fingerprint(properties));
+
+        return result;
+    }
+
+    private String fingerprint(Object value) {
+        if (value instanceof Collection) {
+            // the order of exported entities is not guaranteed
+            List<String> checksums = new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                checksums.add(fingerprint(element));
+            }
+            Collections.sort(checksums);
+
+            return ChecksumUtil.checksum(String.join(",", checksums));
+        }
+
+        try {
+            return ChecksumUtil.checksum(OBJECT_MAPPER.writeValueAsString(value));
+        } catch (JsonProcessingException e) {
+            throw new ImportProcessingException(e);
+        }
+    }
+}
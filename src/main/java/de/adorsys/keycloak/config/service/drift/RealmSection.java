@@ -0,0 +1,53 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.drift;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sections of a realm which can be compared and imported independently of each other.
+ */
+public enum RealmSection {
+    CLIENT_SCOPES("clientScopes", "defaultDefaultClientScopes", "defaultOptionalClientScopes"),
+    CLIENTS("clients"),
+    ROLES("roles"),
+    GROUPS("groups", "defaultGroups"),
+    COMPONENTS("components"),
+    REQUIRED_ACTIONS("requiredActions"),
+    AUTHENTICATION_FLOWS("authenticationFlows", "authenticatorConfig"),
+    IDENTITY_PROVIDERS("identityProviders", "identityProviderMappers"),
+    SCOPE_MAPPINGS("scopeMappings"),
+    CLIENT_SCOPE_MAPPINGS("clientScopeMappings"),
+    // all remaining realm properties
+    REALM;
+
+    private final List<String> properties;
+
+    RealmSection(String... properties) {
+        this.properties = Collections.unmodifiableList(Arrays.asList(properties));
+    }
+
+    public List<String> getProperties() {
+        return properties;
+    }
+}
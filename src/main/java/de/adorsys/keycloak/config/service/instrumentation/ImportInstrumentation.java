@@ -0,0 +1,172 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.util.resteasy.HttpCall;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Measures realm imports and their stages and attributes every HTTP call to the running stage.
+ * Realms are imported one after another, so the running realm and stage are global. The runs of the watch and the drift
+ * detection threads are serialised by {@link #run(Runnable)}.
+ */
+@Service
+public class ImportInstrumentation {
+    public static final String NO_STAGE = "none";
+
+    private final List<ImportListener> listeners;
+
+    private volatile String currentRealm;
+    private volatile String currentStage = NO_STAGE;
+
+    @Autowired
+    public ImportInstrumentation(KeycloakProvider keycloakProvider, List<ImportListener> listeners) {
+        this.listeners = listeners;
+
+        keycloakProvider.getHttpCallFilter().addListener(this::onHttpCall);
+    }
+
+    public void realm(String realm, Runnable runnable) {
+        realm(realm, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public <T> T realm(String realm, Supplier<T> supplier) {
+        currentRealm = realm;
+        listeners.forEach(listener -> listener.onRealmStart(realm));
+
+        long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            T result = supplier.get();
+            success = true;
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+            currentRealm = null;
+
+            for (ImportListener listener : listeners) {
+                listener.onRealmEnd(realm, duration, success);
+            }
+        }
+    }
+
+    /**
+     * @return the realm being imported, or {@code null} outside of an import
+     */
+    public String getCurrentRealm() {
+        return currentRealm;
+    }
+
+    public void stage(String stage, Runnable runnable) {
+        stage(stage, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a stage. A nested stage is attributed to its own name and the outer stage is restored afterwards.
+     */
+    public <T> T stage(String stage, Supplier<T> supplier) {
+        String realm = currentRealm;
+        String outerStage = currentStage;
+        currentStage = stage;
+        listeners.forEach(listener -> listener.onStageStart(realm, stage));
+
+        long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            T result = supplier.get();
+            success = true;
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+            currentStage = outerStage;
+
+            for (ImportListener listener : listeners) {
+                listener.onStageEnd(realm, stage, duration, success);
+            }
+        }
+    }
+
+    /**
+     * Measures the import of a single entity of the running stage. Entities may be imported in parallel.
+     */
+    public void entity(String type, String name, Runnable runnable) {
+        String realm = currentRealm;
+        String stage = currentStage;
+
+        long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            runnable.run();
+            success = true;
+        } finally {
+            long duration = System.nanoTime() - start;
+
+            for (ImportListener listener : listeners) {
+                listener.onEntityEnd(realm, stage, type, name, duration, success);
+            }
+        }
+    }
+
+    public void entities(String realm, String type, int processed, int skipped) {
+        String stage = currentStage;
+
+        for (ImportListener listener : listeners) {
+            listener.onEntities(realm, stage, type, processed, skipped);
+        }
+    }
+
+    /**
+     * Runs the imports of one run, waits for a concurrent run and notifies the listeners about the end of the run.
+     */
+    public synchronized void run(Runnable runnable) {
+        try {
+            runnable.run();
+        } finally {
+            finishRun();
+        }
+    }
+
+    public void finishRun() {
+        listeners.forEach(ImportListener::onRunEnd);
+    }
+
+    private void onHttpCall(HttpCall call) {
+        call.setStage(currentStage);
+
+        for (ImportListener listener : listeners) {
+            listener.onHttpCall(call);
+        }
+    }
+}
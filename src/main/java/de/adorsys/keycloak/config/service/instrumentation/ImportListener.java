@@ -0,0 +1,59 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import de.adorsys.keycloak.config.util.resteasy.HttpCall;
+
+/**
+ * Receives the timings of an import. Every bean implementing this interface is notified by {@link ImportInstrumentation}.
+ */
+public interface ImportListener {
+    default void onRealmStart(String realm) {
+    }
+
+    default void onRealmEnd(String realm, long durationNanos, boolean success) {
+    }
+
+    default void onStageStart(String realm, String stage) {
+    }
+
+    default void onStageEnd(String realm, String stage, long durationNanos, boolean success) {
+    }
+
+    default void onHttpCall(HttpCall call) {
+    }
+
+    default void onEntityEnd(String realm, String stage, String type, String name, long durationNanos, boolean success) {
+    }
+
+    /**
+     * @param processed the number of entities of the given type in the import
+     * @param skipped   the number of entities skipped, because they are unchanged since the last import
+     */
+    default void onEntities(String realm, String stage, String type, int processed, int skipped) {
+    }
+
+    /**
+     * Called after an import run or a drift detection run has been finished.
+     */
+    default void onRunEnd() {
+    }
+}
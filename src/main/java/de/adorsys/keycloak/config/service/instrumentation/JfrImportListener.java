@@ -0,0 +1,96 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import de.adorsys.keycloak.config.util.resteasy.HttpCall;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Service;
+
+/**
+ * Emits Java Flight Recorder events for realm imports, their stages and every HTTP request against keycloak.
+ * Realm and stage events span the import, so CPU, allocation and wait samples of a recording can be attributed to them.
+ */
+@Service
+@ConditionalOnClass(name = "jdk.jfr.Event")
+public class JfrImportListener implements ImportListener {
+    // realms and their stages are imported one after another
+    private volatile RealmImportEvent realmEvent;
+    private volatile ImportStageEvent stageEvent;
+
+    @Override
+    public void onRealmStart(String realm) {
+        RealmImportEvent event = new RealmImportEvent();
+        event.realm = realm;
+        event.begin();
+
+        realmEvent = event;
+    }
+
+    @Override
+    public void onRealmEnd(String realm, long durationNanos, boolean success) {
+        RealmImportEvent event = realmEvent;
+        if (event == null) return;
+
+        event.success = success;
+        event.commit();
+
+        realmEvent = null;
+    }
+
+    @Override
+    public void onStageStart(String realm, String stage) {
+        ImportStageEvent event = new ImportStageEvent();
+        event.realm = realm;
+        event.stage = stage;
+        event.begin();
+
+        stageEvent = event;
+    }
+
+    @Override
+    public void onStageEnd(String realm, String stage, long durationNanos, boolean success) {
+        ImportStageEvent event = stageEvent;
+        if (event == null) return;
+
+        event.success = success;
+        event.commit();
+
+        stageEvent = null;
+    }
+
+    @Override
+    public void onHttpCall(HttpCall call) {
+        KeycloakRequestEvent event = new KeycloakRequestEvent();
+        if (!event.isEnabled()) return;
+
+        event.method = call.getMethod();
+        event.endpoint = call.getEndpoint();
+        event.uri = call.getUri();
+        event.realm = call.getRealm();
+        event.stage = call.getStage();
+        event.status = call.getStatus();
+        event.operation = call.getOperation();
+        event.type = call.getType();
+        event.latency = call.getDurationNanos();
+        event.bytesSent = call.getBytesSent();
+        event.commit();
+    }
+}
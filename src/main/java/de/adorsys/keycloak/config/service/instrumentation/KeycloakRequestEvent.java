@@ -0,0 +1,70 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("de.adorsys.keycloak.config.KeycloakRequest")
+@Label("Keycloak Request")
+@Category({"keycloak-config-cli"})
+@Description("HTTP request against keycloak, including entity creates, updates and deletes")
+@StackTrace(false)
+class KeycloakRequestEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Realm")
+    String realm;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Status")
+    int status;
+
+    @Label("Operation")
+    @Description("created, updated or deleted for a successful write")
+    String operation;
+
+    @Label("Entity Type")
+    String type;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    long bytesSent;
+}
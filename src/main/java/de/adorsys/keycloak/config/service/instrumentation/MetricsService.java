@@ -0,0 +1,290 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.provider.TokenRefreshStatistics;
+import de.adorsys.keycloak.config.repository.ClientRepository;
+import de.adorsys.keycloak.config.repository.GroupRepository;
+import de.adorsys.keycloak.config.repository.RoleRepository;
+import de.adorsys.keycloak.config.util.SingleFlight;
+import de.adorsys.keycloak.config.util.resteasy.AimdConcurrencyLimiter;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
+import de.adorsys.keycloak.config.util.resteasy.HttpCall;
+import de.adorsys.keycloak.config.util.resteasy.RetryStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records import, HTTP, retry, connection pool and lookup metrics. They are written in Prometheus text format to
+ * {@code import.metrics-path} after each run and served on {@code import.metrics-port} in watch and drift detection mode.
+ */
+@Service
+public class MetricsService implements ImportListener, InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsService.class);
+
+    static final String PREFIX = "keycloak.config.cli.";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ImportConfigProperties importConfigProperties;
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    private HttpServer server;
+
+    @Autowired
+    public MetricsService(
+            ImportConfigProperties importConfigProperties,
+            KeycloakProvider keycloakProvider,
+            ClientRepository clientRepository,
+            RoleRepository roleRepository,
+            GroupRepository groupRepository
+    ) {
+        this.importConfigProperties = importConfigProperties;
+
+        bindTokenRefresh(keycloakProvider.getTokenRefreshStatistics());
+        bindConnectionPool(keycloakProvider.getConnectionPoolStatistics());
+        bindRetry(keycloakProvider.getRetryStatistics());
+        bindConcurrencyLimit(keycloakProvider.getConcurrencyLimiter());
+
+        bindLookups("client", clientRepository.getSearchByClientIdFlight());
+        bindLookups("realm-role", roleRepository.getSearchRealmRoleFlight());
+        bindLookups("client-roles", roleRepository.getListClientRolesFlight());
+        bindLookups("group", groupRepository.getSearchByNameFlight());
+    }
+
+    public PrometheusMeterRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        int port = importConfigProperties.getMetricsPort();
+        boolean longRunning = importConfigProperties.isWatch() || importConfigProperties.isDriftDetection();
+
+        if (port == 0 || !longRunning) return;
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", this::handleScrape);
+        server.start();
+
+        logger.info("Serving metrics on port {}", server.getAddress().getPort());
+    }
+
+    @Override
+    public void destroy() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Override
+    public void onRealmEnd(String realm, long durationNanos, boolean success) {
+        Timer.builder(PREFIX + "realm")
+                .description("Duration of realm imports")
+                .tag("realm", realm)
+                .tag("outcome", outcome(success))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onStageEnd(String realm, String stage, long durationNanos, boolean success) {
+        Timer.builder(PREFIX + "stage")
+                .description("Duration of import stages")
+                .tag("realm", Objects.toString(realm, ""))
+                .tag("stage", stage)
+                .tag("outcome", outcome(success))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onHttpCall(HttpCall call) {
+        String realm = Objects.toString(call.getRealm(), "");
+
+        Timer.builder(PREFIX + "http.requests")
+                .description("Latency of HTTP requests against keycloak until the response headers are received")
+                .tag("method", call.getMethod())
+                .tag("endpoint", call.getEndpoint())
+                .tag("realm", realm)
+                .tag("stage", call.getStage())
+                .tag("status", String.valueOf(call.getStatus()))
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry)
+                .record(call.getDurationNanos(), TimeUnit.NANOSECONDS);
+
+        Counter.builder(PREFIX + "http.request.bytes")
+                .description("Bytes of HTTP request bodies sent to keycloak")
+                .baseUnit("bytes")
+                .tag("method", call.getMethod())
+                .tag("endpoint", call.getEndpoint())
+                .register(registry)
+                .increment(call.getBytesSent());
+
+        String operation = call.getOperation();
+        if (operation != null) {
+            countEntities(realm, call.getStage(), call.getType(), operation, 1);
+        }
+    }
+
+    @Override
+    public void onEntities(String realm, String stage, String type, int processed, int skipped) {
+        countEntities(realm, stage, type, "processed", processed);
+        countEntities(realm, stage, type, "skipped", skipped);
+    }
+
+    @Override
+    public void onRunEnd() {
+        String metricsPath = importConfigProperties.getMetricsPath();
+        if (metricsPath == null || metricsPath.trim().isEmpty()) return;
+
+        Path path = Paths.get(metricsPath);
+
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            Path tempFile = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            Files.write(tempFile, registry.scrape().getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to write metrics to '{}': {}", path, e.getMessage());
+        }
+    }
+
+    private void countEntities(String realm, String stage, String type, String operation, int count) {
+        Counter.builder(PREFIX + "entities")
+                .description("Entities processed, skipped as unchanged, created, updated and deleted")
+                .tag("realm", Objects.toString(realm, ""))
+                .tag("stage", stage)
+                .tag("type", type)
+                .tag("operation", operation)
+                .register(registry)
+                .increment(count);
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private void bindTokenRefresh(TokenRefreshStatistics statistics) {
+        FunctionCounter.builder(PREFIX + "token.refreshes", statistics, TokenRefreshStatistics::getRefreshes)
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "token.refresh.failures", statistics, TokenRefreshStatistics::getFailures)
+                .register(registry);
+        FunctionTimer.builder(PREFIX + "token.refresh", statistics,
+                        TokenRefreshStatistics::getRefreshes, TokenRefreshStatistics::getTotalLatencyMillis, TimeUnit.MILLISECONDS)
+                .description("Latency of successful access token refreshes")
+                .register(registry);
+        Gauge.builder(PREFIX + "token.refresh.max", statistics, s -> s.getMaxLatencyMillis() / 1000.0)
+                .description("Maximum latency of successful access token refreshes")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private void bindConnectionPool(ConnectionPoolStatistics statistics) {
+        FunctionCounter.builder(PREFIX + "http.pool.leases", statistics, ConnectionPoolStatistics::getLeases)
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "http.pool.lease.failures", statistics, ConnectionPoolStatistics::getLeaseFailures)
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "http.pool.wait", statistics, s -> s.getTotalWaitMillis() / 1000.0)
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder(PREFIX + "http.pool.leased", statistics, s -> s.getPoolStats().getLeased())
+                .register(registry);
+        Gauge.builder(PREFIX + "http.pool.pending", statistics, s -> s.getPoolStats().getPending())
+                .register(registry);
+        Gauge.builder(PREFIX + "http.pool.available", statistics, s -> s.getPoolStats().getAvailable())
+                .register(registry);
+    }
+
+    private void bindRetry(RetryStatistics statistics) {
+        FunctionCounter.builder(PREFIX + "http.retries", statistics, RetryStatistics::getRetries)
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "http.retries.recovered", statistics, RetryStatistics::getRecovered)
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "http.retries.exhausted", statistics, RetryStatistics::getExhausted)
+                .register(registry);
+    }
+
+    private void bindConcurrencyLimit(AimdConcurrencyLimiter limiter) {
+        if (limiter == null) return;
+
+        Gauge.builder(PREFIX + "http.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                .register(registry);
+        Gauge.builder(PREFIX + "http.concurrency.in.flight", limiter, AimdConcurrencyLimiter::getInFlight)
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "http.concurrency.throttled", limiter, AimdConcurrencyLimiter::getThrottled)
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "http.concurrency.decreases", limiter, AimdConcurrencyLimiter::getDecreases)
+                .register(registry);
+    }
+
+    // the hit ratio of a lookup is shared / (executed + shared)
+    private void bindLookups(String lookup, SingleFlight<?, ?> singleFlight) {
+        FunctionCounter.builder(PREFIX + "lookups", singleFlight, SingleFlight::getExecuted)
+                .description("Lookups, which have been executed or shared with a concurrent identical lookup")
+                .tag("lookup", lookup)
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder(PREFIX + "lookups", singleFlight, SingleFlight::getShared)
+                .description("Lookups, which have been executed or shared with a concurrent identical lookup")
+                .tag("lookup", lookup)
+                .tag("result", "shared")
+                .register(registry);
+    }
+
+    private static String outcome(boolean success) {
+        return success ? "success" : "failure";
+    }
+}
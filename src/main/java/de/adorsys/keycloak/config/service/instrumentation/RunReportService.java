@@ -0,0 +1,235 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.util.resteasy.HttpCall;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Collects stage timings, entity timings and HTTP calls of an import and writes them as JSON to {@code import.report-path}.
+ */
+@Service
+public class RunReportService implements ImportListener {
+    private static final Logger logger = LoggerFactory.getLogger(RunReportService.class);
+
+    private static final int SLOWEST_ENTITIES = 20;
+
+    private final ImportConfigProperties importConfigProperties;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Queue<Map<String, Object>> stages = new ConcurrentLinkedQueue<>();
+    private final Queue<Map<String, Object>> entities = new ConcurrentLinkedQueue<>();
+    private final Queue<HttpCall> calls = new ConcurrentLinkedQueue<>();
+
+    private Instant startTime = Instant.now();
+
+    @Autowired
+    public RunReportService(ImportConfigProperties importConfigProperties) {
+        this.importConfigProperties = importConfigProperties;
+    }
+
+    public boolean isEnabled() {
+        String reportPath = importConfigProperties.getReportPath();
+        return reportPath != null && !reportPath.trim().isEmpty();
+    }
+
+    @Override
+    public void onStageEnd(String realm, String stage, long durationNanos, boolean success) {
+        if (!isEnabled()) return;
+
+        Map<String, Object> timing = new LinkedHashMap<>();
+        timing.put("realm", realm);
+        timing.put("stage", stage);
+        timing.put("durationMillis", toMillis(durationNanos));
+        timing.put("success", success);
+
+        stages.add(timing);
+    }
+
+    @Override
+    public void onEntityEnd(String realm, String stage, String type, String name, long durationNanos, boolean success) {
+        if (!isEnabled()) return;
+
+        Map<String, Object> timing = new LinkedHashMap<>();
+        timing.put("realm", realm);
+        timing.put("stage", stage);
+        timing.put("type", type);
+        timing.put("name", name);
+        timing.put("durationMillis", toMillis(durationNanos));
+        timing.put("success", success);
+
+        entities.add(timing);
+    }
+
+    @Override
+    public void onHttpCall(HttpCall call) {
+        if (!isEnabled()) return;
+
+        calls.add(call);
+    }
+
+    /**
+     * Writes the report of everything collected since the last report and starts a new one.
+     * The report is diagnostic only, a failure is logged and does not fail the import.
+     */
+    @Override
+    public synchronized void onRunEnd() {
+        if (!isEnabled()) return;
+
+        Path reportPath = Paths.get(importConfigProperties.getReportPath());
+        Map<String, Object> report = createReport();
+
+        try {
+            Path parent = reportPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            Path tempFile = Files.createTempFile(parent, reportPath.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), report);
+            Files.move(tempFile, reportPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.info("Wrote run report to '{}'", reportPath);
+        } catch (IOException e) {
+            logger.warn("Unable to write run report to '{}': {}", reportPath, e.getMessage());
+        }
+    }
+
+    private Map<String, Object> createReport() {
+        Instant endTime = Instant.now();
+
+        List<Map<String, Object>> stageTimings = drain(stages);
+        List<Map<String, Object>> entityTimings = drain(entities);
+        List<HttpCall> httpCalls = drain(calls);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startTime", startTime.toString());
+        report.put("endTime", endTime.toString());
+        report.put("durationMillis", endTime.toEpochMilli() - startTime.toEpochMilli());
+        report.put("totals", summarize(httpCalls, new LinkedHashMap<>()));
+        report.put("stages", stageTimings);
+        report.put("endpoints", summarizeEndpoints(httpCalls));
+        report.put("slowestEntities", slowestEntities(entityTimings));
+
+        startTime = endTime;
+
+        return report;
+    }
+
+    private List<Map<String, Object>> summarizeEndpoints(List<HttpCall> httpCalls) {
+        Map<List<String>, List<HttpCall>> callsByEndpoint = httpCalls.stream()
+                .collect(Collectors.groupingBy(
+                        call -> Arrays.asList(call.getMethod(), call.getEndpoint(), call.getRealm(), call.getStage()),
+                        LinkedHashMap::new,
+                        Collectors.toList()
+                ));
+
+        List<Map.Entry<List<String>, List<HttpCall>>> entries = new ArrayList<>(callsByEndpoint.entrySet());
+
+        // most expensive endpoints first
+        entries.sort(Comparator.comparingLong(
+                (Map.Entry<List<String>, List<HttpCall>> entry) -> entry.getValue().stream().mapToLong(HttpCall::getDurationNanos).sum()
+        ).reversed());
+
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+
+        for (Map.Entry<List<String>, List<HttpCall>> entry : entries) {
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("method", entry.getKey().get(0));
+            endpoint.put("endpoint", entry.getKey().get(1));
+            endpoint.put("realm", entry.getKey().get(2));
+            endpoint.put("stage", entry.getKey().get(3));
+
+            endpoints.add(summarize(entry.getValue(), endpoint));
+        }
+
+        return endpoints;
+    }
+
+    private Map<String, Object> summarize(List<HttpCall> httpCalls, Map<String, Object> summary) {
+        long[] latencies = httpCalls.stream().mapToLong(HttpCall::getDurationNanos).sorted().toArray();
+
+        summary.put("calls", httpCalls.size());
+        summary.put("errors", httpCalls.stream().filter(call -> call.getStatus() >= 400).count());
+        summary.put("bytesSent", httpCalls.stream().mapToLong(HttpCall::getBytesSent).sum());
+        summary.put("bytesReceived", httpCalls.stream().mapToLong(HttpCall::getBytesReceived).sum());
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("total", toMillis(Arrays.stream(latencies).sum()));
+        latency.put("p50", toMillis(percentile(latencies, 50)));
+        latency.put("p90", toMillis(percentile(latencies, 90)));
+        latency.put("p99", toMillis(percentile(latencies, 99)));
+        latency.put("max", toMillis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+        summary.put("latencyMillis", latency);
+
+        return summary;
+    }
+
+    private List<Map<String, Object>> slowestEntities(List<Map<String, Object>> entityTimings) {
+        return entityTimings.stream()
+                .sorted(Comparator.comparingDouble((Map<String, Object> timing) -> (double) timing.get("durationMillis")).reversed())
+                .limit(SLOWEST_ENTITIES)
+                .collect(Collectors.toList());
+    }
+
+    // nearest-rank percentile of sorted values
+    static long percentile(long[] sortedValues, int percentile) {
+        if (sortedValues.length == 0) return 0;
+
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(rank, 1) - 1];
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private static <T> List<T> drain(Queue<T> queue) {
+        List<T> elements = new ArrayList<>();
+
+        T element;
+        while ((element = queue.poll()) != null) {
+            elements.add(element);
+        }
+
+        return elements;
+    }
+}
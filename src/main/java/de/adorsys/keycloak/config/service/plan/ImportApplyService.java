@@ -0,0 +1,441 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.plan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.util.resteasy.DryRunClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.PlannedChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+/**
+ * Applies a plan written by {@link ImportPlanService} without computing the changes again. Before the first write,
+ * every updated or deleted entity is compared with its checksum at planning time and every created entity is looked up.
+ * The plan is rejected as stale, if one of them has been changed or created in the meantime.
+ * <p>
+ * A plan is not applied atomically. If a change fails, the error names the changes, which have been applied before.
+ * <p>
+ * Changes are applied in the order of the plan. With {@code import.parallel}, consecutive changes of the same endpoint are
+ * applied in parallel, unless they refer to an entity created by one of them or change the same entity.
+ */
+@Service
+public class ImportApplyService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportApplyService.class);
+
+    // lookups by name of collections, which are paged or large otherwise
+    private static final Map<String, String> NAME_QUERIES = createNameQueries();
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private final ImportConfigProperties importConfigProperties;
+    private final KeycloakProvider keycloakProvider;
+    private final ImportInstrumentation importInstrumentation;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public ImportApplyService(
+            ImportConfigProperties importConfigProperties,
+            KeycloakProvider keycloakProvider,
+            ImportInstrumentation importInstrumentation
+    ) {
+        this.importConfigProperties = importConfigProperties;
+        this.keycloakProvider = keycloakProvider;
+        this.importInstrumentation = importInstrumentation;
+    }
+
+    public boolean isEnabled() {
+        String applyPath = importConfigProperties.getApplyPath();
+        return applyPath != null && !applyPath.trim().isEmpty();
+    }
+
+    public void apply() {
+        apply(Paths.get(importConfigProperties.getApplyPath()));
+    }
+
+    public void apply(Path planPath) {
+        if (keycloakProvider.getDryRunClientFilter().isEnabled()) {
+            throw new ImportProcessingException("Cannot apply a plan, if import.plan is enabled");
+        }
+
+        ImportPlan plan = read(planPath);
+
+        for (ImportPlan.Note note : plan.getNotes()) {
+            logger.warn("Stage '{}' of realm '{}' is not part of the plan: {}", note.getStage(), note.getRealm(), note.getMessage());
+        }
+
+        List<PlannedChange> changes = plan.getChanges();
+
+        checkStaleness(changes);
+        checkAbsence(changes);
+
+        // ids returned by the plan run for created entities, mapped to the ids of the entities created now
+        Map<String, String> createdIds = new ConcurrentHashMap<>();
+        Set<String> referencedIds = changes.stream()
+                .flatMap(change -> referencedIds(change).stream())
+                .collect(Collectors.toSet());
+
+        Map<PlannedChange, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            positions.put(changes.get(i), i + 1);
+        }
+        Set<Integer> applied = ConcurrentHashMap.newKeySet();
+
+        try {
+            for (List<PlannedChange> realmChanges : groupConsecutive(changes, PlannedChange::getRealm)) {
+                importInstrumentation.realm(realmChanges.get(0).getRealm(), () -> {
+                    for (List<PlannedChange> stageChanges : groupConsecutive(realmChanges, PlannedChange::getStage)) {
+                        importInstrumentation.stage(stageChanges.get(0).getStage(), () -> {
+                            for (List<PlannedChange> batch : toBatches(stageChanges)) {
+                                apply(batch, change -> {
+                                    URI location = apply(change, createdIds);
+                                    applied.add(positions.get(change));
+                                    recordCreatedId(change, location, createdIds, referencedIds);
+                                });
+                            }
+                        });
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            throw new ImportProcessingException(describePartialApply(planPath, changes.size(), applied) + e.getMessage(), e);
+        }
+
+        logger.info(
+                "Applied plan '{}': {} created, {} updated, {} deleted",
+                planPath,
+                plan.count("create"),
+                plan.count("update"),
+                plan.count("delete")
+        );
+    }
+
+    private ImportPlan read(Path planPath) {
+        try {
+            return objectMapper.readValue(planPath.toFile(), ImportPlan.class);
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot read plan '%s'", planPath), e);
+        }
+    }
+
+    private void checkStaleness(List<PlannedChange> changes) {
+        // an entity may be changed several times by a plan, it has not been changed at planning time in between
+        Map<String, PlannedChange> touchedEntities = new LinkedHashMap<>();
+        for (PlannedChange change : changes) {
+            if (change.getChecksum() != null) touchedEntities.putIfAbsent(change.getUri(), change);
+        }
+
+        Stream<PlannedChange> touched = importConfigProperties.isParallel()
+                ? touchedEntities.values().parallelStream()
+                : touchedEntities.values().stream();
+
+        List<String> staleEntities = touched
+                .filter(this::isStale)
+                .map(PlannedChange::getUri)
+                .collect(Collectors.toList());
+
+        if (!staleEntities.isEmpty()) {
+            throw new ImportProcessingException(String.format(
+                    "Plan is stale, %d entities have been changed since planning: %s",
+                    staleEntities.size(),
+                    staleEntities
+            ));
+        }
+    }
+
+    private boolean isStale(PlannedChange change) {
+        JsonNode current = DryRunClientFilter.readEntity(keycloakProvider.request(change.getUri()).get(), change.getUri());
+
+        return !change.getChecksum().equals(DryRunClientFilter.checksum(current));
+    }
+
+    private void checkAbsence(List<PlannedChange> changes) {
+        Set<String> plannedIds = changes.stream()
+                .map(PlannedChange::getCreatedId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        // entities deleted by the plan may be created again, e.g. a changed authentication flow
+        Set<List<String>> deleted = new HashSet<>();
+        List<PlannedChange> creates = new ArrayList<>();
+
+        for (PlannedChange change : changes) {
+            List<String> key = Arrays.asList(change.getRealm(), change.getType(), change.getName());
+
+            if (change.getOperation().equals("delete")) {
+                deleted.add(key);
+            } else if (change.getOperation().equals("create") && change.getName() != null && !deleted.contains(key)
+                    && referencedIds(change).stream().noneMatch(plannedIds::contains)) {
+                // entities below a planned entity cannot exist
+                creates.add(change);
+            }
+        }
+
+        Stream<PlannedChange> created = importConfigProperties.isParallel() ? creates.parallelStream() : creates.stream();
+
+        List<String> existingEntities = created
+                .filter(this::exists)
+                .map(change -> change.getType() + " '" + change.getName() + "'")
+                .collect(Collectors.toList());
+
+        if (!existingEntities.isEmpty()) {
+            throw new ImportProcessingException(String.format(
+                    "Plan is stale, %d planned entities have been created since planning: %s",
+                    existingEntities.size(),
+                    existingEntities
+            ));
+        }
+    }
+
+    /**
+     * Looks up the entity of a planned create by its name in the collection it is created in.
+     */
+    private boolean exists(PlannedChange change) {
+        String collection = change.getUri().split("\\?")[0];
+
+        if (change.getEndpoint().endsWith("/admin/realms")) {
+            String realm = collection + "/" + change.getName();
+            return DryRunClientFilter.readEntity(keycloakProvider.request(realm).get(), realm) != null;
+        }
+
+        String nameQuery = NAME_QUERIES.get(change.getEndpoint().substring(change.getEndpoint().indexOf("/realms/") + 1));
+        String lookup = nameQuery != null ? collection + "?" + nameQuery + "=" + encode(change.getName()) : collection;
+
+        JsonNode entities = DryRunClientFilter.readEntity(keycloakProvider.request(lookup).get(), lookup);
+        if (entities == null || !entities.isArray()) return false;
+
+        for (JsonNode entity : entities) {
+            if (change.getName().equals(DryRunClientFilter.toName(entity, URI.create(collection)))) return true;
+        }
+
+        return false;
+    }
+
+    private void apply(List<PlannedChange> batch, Consumer<PlannedChange> apply) {
+        if (importConfigProperties.isParallel() && batch.size() > 1) {
+            batch.parallelStream().forEach(apply);
+        } else {
+            batch.forEach(apply);
+        }
+    }
+
+    /**
+     * @return the location of a created entity, if returned by keycloak
+     */
+    private URI apply(PlannedChange change, Map<String, String> createdIds) {
+        String uri = replaceCreatedIds(change.getUri(), createdIds);
+        Invocation.Builder request = keycloakProvider.request(uri);
+
+        Response response = change.getBody() == null
+                ? request.method(change.getMethod())
+                : request.method(change.getMethod(), Entity.json(replaceCreatedIds(change.getBody().toString(), createdIds)));
+
+        try {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw new ImportProcessingException(String.format(
+                        "Cannot %s %s '%s' in realm '%s': %s %s",
+                        change.getOperation(),
+                        change.getType(),
+                        change.getName() != null ? change.getName() : uri,
+                        change.getRealm(),
+                        response.getStatus(),
+                        response.readEntity(String.class)
+                ));
+            }
+
+            return response.getLocation();
+        } finally {
+            response.close();
+        }
+    }
+
+    private static void recordCreatedId(PlannedChange change, URI location, Map<String, String> createdIds, Set<String> referencedIds) {
+        // creates of mappings and composites return no id, no later change refers to them
+        if (change.getCreatedId() == null || !referencedIds.contains(change.getCreatedId())) return;
+
+        if (location == null) {
+            throw new ImportProcessingException(String.format(
+                    "Cannot %s %s '%s' in realm '%s': keycloak returned no location of the created entity, but later changes refer to it",
+                    change.getOperation(),
+                    change.getType(),
+                    change.getName() != null ? change.getName() : change.getUri(),
+                    change.getRealm()
+            ));
+        }
+
+        String path = location.getPath();
+        createdIds.put(change.getCreatedId(), path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    /**
+     * Changes of a batch may be applied in parallel, so changes after the first failed one may have been applied as well.
+     */
+    static String describePartialApply(Path planPath, int changes, Set<Integer> applied) {
+        int lastInOrder = 0;
+        while (applied.contains(lastInOrder + 1)) {
+            lastInOrder++;
+        }
+
+        int finalLastInOrder = lastInOrder;
+        List<Integer> outOfOrder = applied.stream()
+                .filter(position -> position > finalLastInOrder)
+                .sorted()
+                .collect(Collectors.toList());
+
+        return String.format(
+                "Plan '%s' has been applied partially, changes 1 to %d of %d have been applied%s: ",
+                planPath,
+                lastInOrder,
+                changes,
+                outOfOrder.isEmpty() ? "" : " and changes " + outOfOrder
+        );
+    }
+
+    /**
+     * Splits consecutive changes into batches, whose changes do not depend on each other. Authentication flows depend on
+     * the order of their executions and are never batched.
+     */
+    static List<List<PlannedChange>> toBatches(List<PlannedChange> changes) {
+        List<List<PlannedChange>> batches = new ArrayList<>();
+        List<PlannedChange> batch = new ArrayList<>();
+
+        Set<String> uris = new HashSet<>();
+        Set<String> createdIds = new HashSet<>();
+
+        for (PlannedChange change : changes) {
+            if (!batch.isEmpty() && !isIndependent(batch.get(0), change, uris, createdIds)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                uris.clear();
+                createdIds.clear();
+            }
+
+            batch.add(change);
+            uris.add(change.getUri());
+            if (change.getCreatedId() != null) createdIds.add(change.getCreatedId());
+        }
+
+        if (!batch.isEmpty()) batches.add(batch);
+
+        return batches;
+    }
+
+    private static boolean isIndependent(PlannedChange first, PlannedChange change, Set<String> uris, Set<String> createdIds) {
+        if (!first.getMethod().equals(change.getMethod()) || !first.getEndpoint().equals(change.getEndpoint())) return false;
+        if (change.getEndpoint().contains("/authentication/")) return false;
+
+        // creates share the uri of their collection
+        if (!change.getMethod().equals("POST") && uris.contains(change.getUri())) return false;
+
+        return referencedIds(change).stream().noneMatch(createdIds::contains);
+    }
+
+    private static Set<String> referencedIds(PlannedChange change) {
+        Set<String> ids = new HashSet<>();
+
+        Matcher matcher = ID_PATTERN.matcher(change.getBody() != null ? change.getUri() + change.getBody() : change.getUri());
+        while (matcher.find()) {
+            ids.add(matcher.group());
+        }
+
+        return ids;
+    }
+
+    static String replaceCreatedIds(String text, Map<String, String> createdIds) {
+        if (createdIds.isEmpty()) return text;
+
+        Matcher matcher = ID_PATTERN.matcher(text);
+        StringBuffer result = new StringBuffer();
+
+        while (matcher.find()) {
+            matcher.appendReplacement(result, createdIds.getOrDefault(matcher.group(), matcher.group()));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+
+    private static Map<String, String> createNameQueries() {
+        Map<String, String> nameQueries = new HashMap<>();
+        nameQueries.put("realms/{realm}/clients", "clientId");
+        nameQueries.put("realms/{realm}/users", "exact=true&username");
+        nameQueries.put("realms/{realm}/groups", "search");
+
+        return Collections.unmodifiableMap(nameQueries);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <K> List<List<PlannedChange>> groupConsecutive(List<PlannedChange> changes, Function<PlannedChange, K> key) {
+        List<List<PlannedChange>> groups = new ArrayList<>();
+
+        for (PlannedChange change : changes) {
+            if (groups.isEmpty() || !Objects.equals(key.apply(groups.get(groups.size() - 1).get(0)), key.apply(change))) {
+                groups.add(new ArrayList<>());
+            }
+
+            groups.get(groups.size() - 1).add(change);
+        }
+
+        return groups;
+    }
+}
@@ -0,0 +1,92 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.plan;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.adorsys.keycloak.config.util.resteasy.PlannedChange;
+
+import java.util.List;
+
+/**
+ * The changes an import would apply to keycloak, in the order of the import. Written to {@code import.plan-path} and
+ * read by {@link ImportApplyService}.
+ */
+public class ImportPlan {
+    private final List<PlannedChange> changes;
+    private final List<Note> notes;
+
+    @JsonCreator
+    public ImportPlan(@JsonProperty("changes") List<PlannedChange> changes, @JsonProperty("notes") List<Note> notes) {
+        this.changes = changes;
+        this.notes = notes;
+    }
+
+    public List<PlannedChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return stages, which could not be planned completely, e.g. because they depend on entities created before
+     */
+    public List<Note> getNotes() {
+        return notes;
+    }
+
+    public long count(String operation) {
+        return changes.stream().filter(change -> change.getOperation().equals(operation)).count();
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public static class Note {
+        private final String realm;
+        private final String stage;
+        private final String message;
+
+        @JsonCreator
+        public Note(
+                @JsonProperty("realm") String realm,
+                @JsonProperty("stage") String stage,
+                @JsonProperty("message") String message
+        ) {
+            this.realm = realm;
+            this.stage = stage;
+            this.message = message;
+        }
+
+        public String getRealm() {
+            return realm;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
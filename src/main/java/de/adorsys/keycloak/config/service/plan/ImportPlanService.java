@@ -0,0 +1,193 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.plan;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.service.instrumentation.ImportListener;
+import de.adorsys.keycloak.config.util.resteasy.DryRunClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.PlannedChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the writes planned by {@link DryRunClientFilter}, if {@code import.plan} is enabled, and logs them as plan
+ * after each run. If {@code import.plan-path} is set, the plan is also written to it to be applied later.
+ * Realms are imported one after another, so the running stage is global.
+ */
+@Service
+public class ImportPlanService implements ImportListener {
+    private static final Logger logger = LoggerFactory.getLogger(ImportPlanService.class);
+
+    private final ImportConfigProperties importConfigProperties;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Queue<PlannedChange> changes = new ConcurrentLinkedQueue<>();
+    private final Queue<ImportPlan.Note> notes = new ConcurrentLinkedQueue<>();
+
+    private volatile String currentStage = ImportInstrumentation.NO_STAGE;
+    private volatile ImportPlan lastPlan;
+
+    @Autowired
+    public ImportPlanService(ImportConfigProperties importConfigProperties, KeycloakProvider keycloakProvider) {
+        this.importConfigProperties = importConfigProperties;
+
+        DryRunClientFilter dryRunClientFilter = keycloakProvider.getDryRunClientFilter();
+        dryRunClientFilter.addListener(this::onPlannedChange);
+        dryRunClientFilter.setEnabled(importConfigProperties.isPlan());
+    }
+
+    public boolean isEnabled() {
+        return importConfigProperties.isPlan();
+    }
+
+    /**
+     * Records a stage, which could not be planned completely.
+     */
+    public void addNote(String realm, String stage, String message) {
+        notes.add(new ImportPlan.Note(realm, stage, message));
+    }
+
+    /**
+     * @return the plan of the last run, or {@code null} before the first run
+     */
+    public ImportPlan getLastPlan() {
+        return lastPlan;
+    }
+
+    @Override
+    public void onStageStart(String realm, String stage) {
+        currentStage = stage;
+    }
+
+    @Override
+    public void onStageEnd(String realm, String stage, long durationNanos, boolean success) {
+        currentStage = ImportInstrumentation.NO_STAGE;
+    }
+
+    @Override
+    public synchronized void onRunEnd() {
+        if (!isEnabled()) return;
+
+        ImportPlan plan = new ImportPlan(drain(changes), drain(notes));
+        log(plan);
+
+        lastPlan = plan;
+
+        String planPath = importConfigProperties.getPlanPath();
+        if (planPath != null && !planPath.trim().isEmpty()) {
+            write(plan, Paths.get(planPath));
+        }
+    }
+
+    /**
+     * The plan file is the artifact of a plan run, unlike the run report a failed write fails the run.
+     */
+    private void write(ImportPlan plan, Path planPath) {
+        try {
+            Path parent = planPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            Path tempFile = Files.createTempFile(parent, planPath.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), plan);
+            Files.move(tempFile, planPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.info("Wrote plan to '{}'", planPath);
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot write plan '%s'", planPath), e);
+        }
+    }
+
+    private void onPlannedChange(PlannedChange change) {
+        change.setStage(currentStage);
+        changes.add(change);
+    }
+
+    private void log(ImportPlan plan) {
+        logger.info(
+                "Plan: {} to create, {} to update, {} to delete",
+                plan.count("create"),
+                plan.count("update"),
+                plan.count("delete")
+        );
+
+        for (PlannedChange change : plan.getChanges()) {
+            logger.info(
+                    "{} {} {} '{}' in realm '{}' (stage {})",
+                    symbol(change.getOperation()),
+                    change.getOperation(),
+                    change.getType(),
+                    change.getName() != null ? change.getName() : change.getUri(),
+                    change.getRealm(),
+                    change.getStage()
+            );
+
+            // created entities are logged by name only, all their fields are new
+            if (!change.getOperation().equals("update")) continue;
+
+            for (PlannedChange.FieldChange fieldChange : change.getFieldChanges()) {
+                logger.info("      {}", fieldChange);
+            }
+        }
+
+        for (ImportPlan.Note note : plan.getNotes()) {
+            logger.warn("Plan of stage '{}' in realm '{}' is incomplete: {}", note.getStage(), note.getRealm(), note.getMessage());
+        }
+    }
+
+    private static String symbol(String operation) {
+        switch (operation) {
+            case "create":
+                return "+";
+            case "delete":
+                return "-";
+            default:
+                return "~";
+        }
+    }
+
+    private static <T> List<T> drain(Queue<T> queue) {
+        List<T> items = new ArrayList<>();
+
+        T item;
+        while ((item = queue.poll()) != null) {
+            items.add(item);
+        }
+
+        return items;
+    }
+}
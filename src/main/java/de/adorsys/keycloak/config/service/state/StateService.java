@@ -52,6 +52,17 @@ public class StateService {
         stateRepository.loadCustomAttributes(realmImport.getRealm());
     }
 
+    /**
+     * Starts with an empty state for a created realm. A stored state belongs to a deleted realm with the same name.
+     *
+     * @param realmImport the created realm
+     */
+    public void resetState(RealmImport realmImport) {
+        if (stateRepository.resetCustomAttributes(realmImport.getRealm())) {
+            logger.info("Discard stored state of realm '{}', since the realm has been created", realmImport.getRealm());
+        }
+    }
+
     /**
      * Loads the realm states and preserves it into the realm representation object
      * to prevent state erasure during realm update
@@ -72,9 +83,19 @@ public class StateService {
         setClients(realmImport);
         setRequiredActions(realmImport);
         setComponents(realmImport);
+    }
 
-        stateRepository.update(realmImport);
-        logger.debug("Updated states of realm '{}'", realmImport.getRealm());
+    /**
+     * Persists the collected states and the import checksum with a single update.
+     *
+     * @param realmImport the imported realm
+     */
+    public void commit(RealmImport realmImport) {
+        if (stateRepository.update(realmImport)) {
+            logger.debug("Updated states of realm '{}'", realmImport.getRealm());
+        } else {
+            logger.debug("States of realm '{}' are unchanged", realmImport.getRealm());
+        }
     }
 
     public List<String> getRealmRoles() {
@@ -0,0 +1,215 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.watch;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.model.KeycloakImport;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.ImportManifest;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Keeps keycloak-config-cli running after the first import, if {@code import.watch} is enabled, and imports the files below
+ * {@code import.path} again as soon as they change.
+ */
+@Service
+public class ImportWatchService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportWatchService.class);
+
+    private final KeycloakImportProvider keycloakImportProvider;
+    private final ImportManifest importManifest;
+    private final ImportConfigProperties importConfigProperties;
+
+    // the file a single import file resolves to, only accessed by the watching thread
+    private Path importRealPath;
+
+    @Autowired
+    public ImportWatchService(
+            KeycloakImportProvider keycloakImportProvider,
+            ImportManifest importManifest,
+            ImportConfigProperties importConfigProperties
+    ) {
+        this.keycloakImportProvider = keycloakImportProvider;
+        this.importManifest = importManifest;
+        this.importConfigProperties = importConfigProperties;
+    }
+
+    public boolean isEnabled() {
+        return importConfigProperties.isWatch();
+    }
+
+    /**
+     * Blocks until the thread is interrupted and passes the realm imports of all changed files to the given consumer.
+     */
+    public void watch(Consumer<KeycloakImport> importer) {
+        Path importPath = getImportPath();
+        Path watchDirectory = Files.isDirectory(importPath) ? importPath : importPath.getParent();
+        importRealPath = toRealPath(importPath);
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            watchDirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+            logger.info("Watching '{}' for changes ...", watchDirectory);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changedFiles = awaitChanges(watchService, watchDirectory);
+
+                try {
+                    reconcile(importPath, changedFiles, importer);
+                } catch (RuntimeException e) {
+                    // the files read before the failure were not imported, keep watching, the next change may fix the import files
+                    importManifest.discard();
+                    logger.error(e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new ImportProcessingException(String.format("Cannot watch import path '%s'", importPath), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Path getImportPath() {
+        String path = importConfigProperties.getPath();
+
+        if (ResourceUtils.isUrl(path) && !path.startsWith(ResourceUtils.FILE_URL_PREFIX)) {
+            throw new ImportProcessingException(String.format("import.watch requires a local import.path, got '%s'", path));
+        }
+
+        return Paths.get(path.replaceFirst("^" + ResourceUtils.FILE_URL_PREFIX, "")).toAbsolutePath();
+    }
+
+    /**
+     * Waits for the first change and collects further changes until no change occurred for {@code import.watch-debounce}.
+     */
+    private Set<Path> awaitChanges(WatchService watchService, Path watchDirectory) throws InterruptedException {
+        Set<Path> changedFiles = new TreeSet<>();
+        long debounce = importConfigProperties.getWatchDebounce().toMillis();
+
+        WatchKey watchKey = watchService.take();
+
+        while (watchKey != null) {
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    changedFiles.add(watchDirectory);
+                } else {
+                    changedFiles.add(watchDirectory.resolve((Path) event.context()));
+                }
+            }
+
+            if (!watchKey.reset()) {
+                throw new ImportProcessingException(String.format("Watched directory '%s' is not accessible anymore", watchDirectory));
+            }
+
+            watchKey = watchService.poll(debounce, TimeUnit.MILLISECONDS);
+        }
+
+        return changedFiles;
+    }
+
+    private void reconcile(Path importPath, Set<Path> changedFiles, Consumer<KeycloakImport> importer) {
+        if (!Files.isDirectory(importPath)) {
+            // a kubernetes ConfigMap update swaps the ..data symlink, the mounted file itself does not change
+            Path realPath = toRealPath(importPath);
+            boolean isReplaced = !Objects.equals(realPath, importRealPath);
+            importRealPath = realPath;
+
+            if (isReplaced || changedFiles.contains(importPath) || changedFiles.contains(importPath.getParent())
+                    || changedFiles.stream().anyMatch(ImportWatchService::isConfigMapUpdate)) {
+                logger.debug("Change of '{}' detected", importPath);
+                importer.accept(keycloakImportProvider.get());
+            }
+            return;
+        }
+
+        Map<String, RealmImport> realmImports = new TreeMap<>();
+
+        for (Path changedFile : changedFiles) {
+            String fileName = String.valueOf(changedFile.getFileName());
+
+            // a directory or a kubernetes ConfigMap update (..data symlink swap) may touch every file
+            if (Files.isDirectory(changedFile) || isConfigMapUpdate(changedFile)) {
+                logger.debug("Change of '{}' detected, reading all files of '{}'", changedFile, importPath);
+                importer.accept(keycloakImportProvider.get());
+                return;
+            }
+
+            // hidden files, e.g. editor swap files
+            if (fileName.startsWith(".")) continue;
+
+            if (!Files.exists(changedFile)) {
+                logger.warn("Import file '{}' was removed. keycloak-config-cli does not delete the realm, remove it manually if necessary.",
+                        changedFile);
+                continue;
+            }
+
+            File importFile = changedFile.toFile();
+            realmImports.putAll(keycloakImportProvider.readRealmImportFromFile(importFile).getRealmImports());
+        }
+
+        if (!realmImports.isEmpty()) {
+            importer.accept(new KeycloakImport(realmImports));
+        }
+    }
+
+    private static boolean isConfigMapUpdate(Path changedFile) {
+        return String.valueOf(changedFile.getFileName()).startsWith("..");
+    }
+
+    /**
+     * @return the file the path resolves to after following all symlinks, or {@code null} if it does not exist
+     */
+    private static Path toRealPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
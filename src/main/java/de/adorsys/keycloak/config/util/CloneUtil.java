@@ -123,6 +123,32 @@ public class CloneUtil {
         return ret;
     }
 
+    /**
+     * Creates a copy of origin which contains only the top-level properties which are set in origin and differ from other.
+     *
+     * @return the copy or {@code null}, if there is no such property
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T> S deepDiff(S origin, T other, String... ignoredProperties) {
+        if (origin == null) return null;
+
+        Map<String, Object> originAsMap = toMap(origin, ignoredProperties);
+        Map<String, Object> otherAsMap = toMap(other, ignoredProperties);
+
+        Map<String, Object> diffAsMap = new HashMap<>();
+        for (Map.Entry<String, Object> property : originAsMap.entrySet()) {
+            if (!Objects.equals(property.getValue(), otherAsMap.get(property.getKey()))) {
+                diffAsMap.put(property.getKey(), property.getValue());
+            }
+        }
+
+        logger.trace("objects.deepDiff: diff: {} | ignoredProperties: {}", diffAsMap.keySet(), ignoredProperties);
+
+        if (diffAsMap.isEmpty()) return null;
+
+        return (S) fromMap(diffAsMap, origin.getClass());
+    }
+
     private static <S> Map<String, Object> toMap(S object, String... ignoredProperties) {
         JsonNode objectAsNode = toJsonNode(object, ignoredProperties);
 
@@ -0,0 +1,83 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class CompressionUtil {
+    private static final int BUFFER_SIZE = 1024;
+
+    CompressionUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static String compress(String data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            deflater.setInput(data.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, count);
+            }
+
+            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+        } catch (IOException e) {
+            throw new ImportProcessingException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decompress(String data) {
+        Inflater inflater = new Inflater();
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            inflater.setInput(Base64.getDecoder().decode(data));
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ImportProcessingException("Unable to decompress data: unexpected end of input");
+                }
+                outputStream.write(buffer, 0, count);
+            }
+
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException | DataFormatException | IllegalArgumentException e) {
+            throw new ImportProcessingException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -20,10 +20,17 @@
 
 package de.adorsys.keycloak.config.util;
 
+import de.adorsys.keycloak.config.util.resteasy.RetryingClientHttpEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.BooleanSupplier;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 
 public class ResponseUtil {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseUtil.class);
+
     ResponseUtil() {
         throw new IllegalStateException("Utility class");
     }
@@ -39,6 +46,23 @@ public class ResponseUtil {
         response.close();
     }
 
+    /**
+     * Like {@link #validate(Response)}, but accepts a conflict, if the create request has been retried and the entity exists.
+     * In that case, a previous attempt has created the entity, but the response got lost. Create requests are retried only,
+     * if they are sent by {@link RetryingClientHttpEngine#retryCreate(java.util.function.Supplier)}.
+     */
+    public static void validate(Response response, BooleanSupplier exists) {
+        if (response.getStatus() == Response.Status.CONFLICT.getStatusCode()
+                && RetryingClientHttpEngine.isRetried()
+                && exists.getAsBoolean()) {
+            logger.debug("Create method returned status Conflict (409) after retry, entity exists");
+            response.close();
+            return;
+        }
+
+        validate(response);
+    }
+
     public static String getErrorMessage(WebApplicationException error) {
         return error.getMessage() + ": " + error.getResponse().readEntity(String.class).trim();
     }
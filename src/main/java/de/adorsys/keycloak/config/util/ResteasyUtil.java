@@ -20,12 +20,38 @@
 
 package de.adorsys.keycloak.config.util;
 
+import de.adorsys.keycloak.config.exception.KeycloakProviderException;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpClient;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakRetry;
+import de.adorsys.keycloak.config.util.resteasy.AimdConcurrencyLimiter;
+import de.adorsys.keycloak.config.util.resteasy.ConcurrencyLimitingClientHttpEngine;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
 import de.adorsys.keycloak.config.util.resteasy.CookieClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.InstrumentedConnectionManager;
+import de.adorsys.keycloak.config.util.resteasy.RetryStatistics;
+import de.adorsys.keycloak.config.util.resteasy.RetryingClientHttpEngine;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.TrustAllStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.ssl.SSLContexts;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
 import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
 
 import java.net.URL;
+import java.security.GeneralSecurityException;
 import java.util.concurrent.TimeUnit;
 
 public class ResteasyUtil {
@@ -33,34 +59,106 @@ public class ResteasyUtil {
         throw new IllegalStateException("Utility class");
     }
 
-    public static ResteasyClient getClient(boolean sslVerification, URL httpProxy) {
+    /**
+     * @param concurrencyLimiter limits the concurrent requests, if not {@code null}
+     */
+    @SuppressWarnings({"java:S107"})
+    public static ResteasyClient getClient(
+            boolean sslVerification,
+            URL httpProxy,
+            KeycloakHttpClient httpClientProperties,
+            KeycloakRetry retryProperties,
+            ConnectionPoolStatistics connectionPoolStatistics,
+            RetryStatistics retryStatistics,
+            AimdConcurrencyLimiter concurrencyLimiter
+    ) {
+        // the http client is built by ourselves to configure and observe the connection pool
+        CloseableHttpClient httpClient = getHttpClient(sslVerification, httpProxy, httpClientProperties, connectionPoolStatistics);
+
+        ClientHttpEngine httpEngine = new ApacheHttpClient43Engine(httpClient, true);
+
+        // every attempt of a retried request needs a permit, but the backoff between the attempts doesn't hold one
+        if (concurrencyLimiter != null) {
+            httpEngine = new ConcurrencyLimitingClientHttpEngine(httpEngine, concurrencyLimiter);
+        }
+
+        if (retryProperties.isEnabled()) {
+            httpEngine = new RetryingClientHttpEngine(httpEngine, retryProperties, retryStatistics);
+        }
+
         ResteasyClientBuilder clientBuilder = new ResteasyClientBuilderImpl();
-        clientBuilder
-                .connectionPoolSize(10)
-                .connectTimeout(10, TimeUnit.SECONDS)
-                .readTimeout(10, TimeUnit.SECONDS);
+        clientBuilder.httpEngine(httpEngine);
+        clientBuilder.register(new CookieClientFilter());
+
+        return clientBuilder.build();
+    }
+
+    private static CloseableHttpClient getHttpClient(
+            boolean sslVerification,
+            URL httpProxy,
+            KeycloakHttpClient httpClientProperties,
+            ConnectionPoolStatistics connectionPoolStatistics
+    ) {
+        SSLConnectionSocketFactory sslSocketFactory;
 
         if (sslVerification) {
-            clientBuilder
-                    .disableTrustManager()
-                    .hostnameVerification(ResteasyClientBuilder.HostnameVerificationPolicy.ANY);
+            try {
+                sslSocketFactory = new SSLConnectionSocketFactory(
+                        SSLContexts.custom().loadTrustMaterial(TrustAllStrategy.INSTANCE).build(),
+                        NoopHostnameVerifier.INSTANCE
+                );
+            } catch (GeneralSecurityException e) {
+                throw new KeycloakProviderException("Unable to disable ssl verification: " + e.getMessage());
+            }
+        } else {
+            sslSocketFactory = SSLConnectionSocketFactory.getSocketFactory();
         }
 
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory)
+                .build();
+
+        long connectionTtl = httpClientProperties.getConnectionTtl().toMillis();
+        InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager(
+                socketFactoryRegistry,
+                connectionTtl > 0 ? connectionTtl : -1,
+                connectionPoolStatistics
+        );
+        connectionManager.setMaxTotal(httpClientProperties.getPoolSize());
+        connectionManager.setDefaultMaxPerRoute(httpClientProperties.getMaxPerRoute());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) httpClientProperties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) httpClientProperties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) httpClientProperties.getConnectionRequestTimeout().toMillis())
+                .build();
+
+        long keepAlive = httpClientProperties.getKeepAlive().toMillis();
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            // prefer the keep-alive header of the server
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : keepAlive;
+        };
+
+        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(httpClientProperties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                // cookies are handled by CookieClientFilter
+                .disableCookieManagement();
+
         if (httpProxy != null) {
-            clientBuilder.defaultProxy(
-                    httpProxy.getHost(),
-                    httpProxy.getPort(),
-                    httpProxy.getProtocol()
-            );
-        } else {
-            clientBuilder.defaultProxy(
+            httpClientBuilder.setProxy(new HttpHost(httpProxy.getHost(), httpProxy.getPort(), httpProxy.getProtocol()));
+        } else if (System.getProperty("http.proxyHost") != null) {
+            httpClientBuilder.setProxy(new HttpHost(
                     System.getProperty("http.proxyHost"),
-                    Integer.parseInt(System.getProperty("http.proxyPort", "0"))
-            );
+                    Integer.parseInt(System.getProperty("http.proxyPort", "-1"))
+            ));
         }
 
-        clientBuilder.register(new CookieClientFilter());
-
-        return clientBuilder.build();
+        return httpClientBuilder.build();
     }
 }
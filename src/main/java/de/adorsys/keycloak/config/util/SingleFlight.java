@@ -0,0 +1,110 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls with the same key into one call. Callers, which arrive while a call for their key is in flight,
+ * wait for it and receive a copy of its result, since keycloak representations are mutable.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copier;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    public SingleFlight(UnaryOperator<V> copier) {
+        this.copier = copier;
+    }
+
+    public V execute(K key, Supplier<V> supplier) {
+        Flight<V> created = new Flight<>();
+        Flight<V> flight = flights.compute(key, (k, existing) -> {
+            if (existing == null) return created;
+
+            existing.followers++;
+            return existing;
+        });
+
+        if (flight != created) {
+            shared.increment();
+            return copier.apply(await(flight.result));
+        }
+
+        executed.increment();
+
+        V value;
+        try {
+            value = supplier.get();
+        } catch (RuntimeException e) {
+            flights.remove(key, created);
+            created.result.completeExceptionally(e);
+            throw e;
+        }
+
+        // followers are only registered inside compute, which can't happen after the removal
+        flights.remove(key, created);
+
+        // the caller may modify its value, followers copy from an untouched one
+        created.result.complete(created.followers > 0 ? copier.apply(value) : value);
+
+        return value;
+    }
+
+    /**
+     * @return the number of calls, which have executed their supplier
+     */
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    /**
+     * @return the number of calls, which have received the result of a concurrent identical call
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    private V await(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    private static class Flight<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private int followers;
+    }
+}
@@ -0,0 +1,160 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakConcurrencyLimit;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of concurrent requests against keycloak. The limit grows additively while keycloak answers fast and
+ * shrinks multiplicatively on overload signals (status 429 or 5xx, connection errors or a latency above the threshold).
+ * A burst of overloaded responses shrinks the limit once: only a request, which has been sent after the last decrease,
+ * decreases the limit again.
+ */
+public class AimdConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long throttled;
+    private long decreases;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    public AimdConcurrencyLimiter(KeycloakConcurrencyLimit properties) {
+        this(properties, System::nanoTime);
+    }
+
+    AimdConcurrencyLimiter(KeycloakConcurrencyLimit properties, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.backoffRatio = properties.getBackoffRatio();
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        this.limit = Math.min(maxLimit, Math.max(minLimit, properties.getInitialLimit()));
+    }
+
+    /**
+     * Blocks until the number of requests in flight is below the current limit.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight >= getLimit()) {
+                throttled++;
+
+                while (inFlight >= getLimit()) {
+                    permitAvailable.await();
+                }
+            }
+
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param latencyNanos the duration of the request
+     * @param overloaded   {@code true}, if keycloak signaled an overload
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            boolean utilized = inFlight * 2 >= getLimit();
+            inFlight--;
+
+            if (overloaded || latencyNanos > latencyThresholdNanos) {
+                long now = nanoClock.getAsLong();
+
+                // the requests in flight during the last decrease saw the same overload
+                if (now - latencyNanos >= lastDecreaseNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    decreases++;
+                    lastDecreaseNanos = now;
+                }
+            } else if (utilized) {
+                // grows by about one per round trip of all requests in flight
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests, which had to wait for a permit
+     */
+    public long getThrottled() {
+        lock.lock();
+        try {
+            return throttled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of times the limit has been decreased
+     */
+    public long getDecreases() {
+        lock.lock();
+        try {
+            return decreases;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("limit=%d, inFlight=%d, throttled=%d, decreases=%d", getLimit(), getInFlight(), getThrottled(), getDecreases());
+    }
+}
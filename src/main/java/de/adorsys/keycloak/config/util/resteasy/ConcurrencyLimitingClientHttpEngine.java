@@ -0,0 +1,86 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+
+import java.io.IOException;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+/**
+ * Sends a request only, if the {@link AimdConcurrencyLimiter} grants a permit, and reports its latency and outcome back.
+ */
+public class ConcurrencyLimitingClientHttpEngine implements ClientHttpEngine {
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ClientHttpEngine delegate;
+    private final AimdConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitingClientHttpEngine(ClientHttpEngine delegate, AimdConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Response invoke(Invocation request) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException(e);
+        }
+
+        long start = System.nanoTime();
+        boolean overloaded = false;
+
+        try {
+            Response response = delegate.invoke(request);
+            overloaded = response.getStatus() == TOO_MANY_REQUESTS
+                    || response.getStatusInfo().getFamily() == Response.Status.Family.SERVER_ERROR;
+
+            return response;
+        } catch (ProcessingException e) {
+            overloaded = e.getCause() instanceof IOException;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, overloaded);
+        }
+    }
+
+    @Override
+    public SSLContext getSslContext() {
+        return delegate.getSslContext();
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return delegate.getHostnameVerifier();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,89 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.pool.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often and how long requests waited for a connection of the HTTP connection pool.
+ */
+public class ConnectionPoolStatistics {
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong leaseFailures = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private InstrumentedConnectionManager connectionManager;
+
+    void setConnectionManager(InstrumentedConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    void recordLease(long waitNanos, boolean success) {
+        if (success) {
+            leases.incrementAndGet();
+        } else {
+            leaseFailures.incrementAndGet();
+        }
+
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    public long getLeases() {
+        return leases.get();
+    }
+
+    public long getLeaseFailures() {
+        return leaseFailures.get();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * @return the current number of leased, pending and available connections
+     */
+    public PoolStats getPoolStats() {
+        if (connectionManager == null) {
+            return new PoolStats(0, 0, 0, 0);
+        }
+
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public String toString() {
+        PoolStats poolStats = getPoolStats();
+
+        return String.format("leases=%d, leaseFailures=%d, totalWait=%dms, maxWait=%dms, leased=%d, pending=%d, available=%d, max=%d",
+                getLeases(), getLeaseFailures(), getTotalWaitMillis(), getMaxWaitMillis(),
+                poolStats.getLeased(), poolStats.getPending(), poolStats.getAvailable(), poolStats.getMax());
+    }
+}
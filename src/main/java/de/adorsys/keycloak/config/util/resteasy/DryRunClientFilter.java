@@ -0,0 +1,379 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.util.ChecksumUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.Priority;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * If enabled, answers every write against the admin API itself and passes it as {@link PlannedChange} to the registered
+ * listeners. Reads are sent to keycloak, so the import services compute their changes against the live realm.
+ * Creates are answered with a random id. Requests addressing such an id, and reads looking up the name of a planned
+ * create, e.g. {@code roles/{name}}, {@code clients?clientId=} or {@code group-by-path/{name}}, are answered with 404 and
+ * the header {@link #PLANNED_ENTITY_HEADER}, so a failed lookup of a planned entity can be told apart by
+ * {@link #isPlannedEntityNotFound}.
+ * <p>
+ * Runs before {@link HttpCallFilter}, so planned writes are not measured as HTTP calls.
+ */
+@Priority(Priorities.USER - 100)
+public class DryRunClientFilter implements ClientRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(DryRunClientFilter.class);
+
+    public static final String PLANNED_ENTITY_HEADER = "X-Planned-Entity";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // POST requests, which do not change anything
+    private static final List<String> READ_ONLY_ACTIONS = Collections.unmodifiableList(Arrays.asList(
+            "/partial-export", "/evaluate", "/testLDAPConnection", "/testSMTPConnection"
+    ));
+
+    private static final List<String> NAME_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "clientId", "username", "alias", "name", "realm", "providerId"
+    ));
+
+    private final Supplier<String> accessToken;
+    private final List<Consumer<PlannedChange>> listeners = new CopyOnWriteArrayList<>();
+    private final Set<String> createdIds = ConcurrentHashMap.newKeySet();
+    // collection path and name of each planned create
+    private final Set<List<String>> createdNames = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean enabled;
+
+    /**
+     * @param accessToken supplies the token to read the current state of updated and deleted entities
+     */
+    public DryRunClientFilter(Supplier<String> accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enabling the filter starts a new plan, which forgets the entities created by a former plan.
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled) {
+            createdIds.clear();
+            createdNames.clear();
+        }
+
+        this.enabled = enabled;
+    }
+
+    public void addListener(Consumer<PlannedChange> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<PlannedChange> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        if (!enabled) return;
+
+        URI uri = requestContext.getUri();
+        String method = requestContext.getMethod();
+
+        String plannedId = findCreatedId(uri.getPath());
+        if (plannedId != null && !method.equals("POST") && !method.equals("PUT")) {
+            // the entity exists in the plan only. Planned updates of it are recorded below, like any other write.
+            requestContext.abortWith(Response.status(Response.Status.NOT_FOUND).header(PLANNED_ENTITY_HEADER, plannedId).build());
+            return;
+        }
+
+        String plannedName = method.equals("GET") ? findCreatedName(uri) : null;
+        if (plannedName != null) {
+            // a lookup by name would find nothing in keycloak and fail like a lookup of a planned id
+            requestContext.abortWith(Response.status(Response.Status.NOT_FOUND).header(PLANNED_ENTITY_HEADER, plannedName).build());
+            return;
+        }
+
+        if (!isWrite(method, uri.getPath())) return;
+
+        JsonNode body = requestContext.hasEntity() ? OBJECT_MAPPER.valueToTree(requestContext.getEntity()) : null;
+
+        PlannedChange change;
+        Response response;
+
+        switch (method) {
+            case "POST":
+                String createdId = UUID.randomUUID().toString();
+                createdIds.add(createdId);
+                String createdName = toName(body, uri);
+                if (createdName != null) createdNames.add(Arrays.asList(stripTrailingSlash(uri.getPath()), createdName));
+                change = createChange("create", method, uri, body, diff(null, body), createdName, createdId, null);
+                response = Response.created(URI.create(stripTrailingSlash(uri.toString()) + "/" + createdId)).build();
+                break;
+            case "PUT":
+                JsonNode current = readCurrent(requestContext);
+                change = createChange("update", method, uri, body, diff(current, body), toName(body != null ? body : current, uri),
+                        null, checksum(current));
+                response = Response.noContent().build();
+                break;
+            default:
+                JsonNode deleted = readCurrent(requestContext);
+                change = createChange("delete", method, uri, body, Collections.emptyList(), toName(deleted, uri),
+                        null, checksum(deleted));
+                response = Response.noContent().build();
+                break;
+        }
+
+        for (Consumer<PlannedChange> listener : listeners) {
+            listener.accept(change);
+        }
+
+        requestContext.abortWith(response);
+    }
+
+    /**
+     * @return whether the exception or one of its causes is the 404 of an entity created by the plan only
+     */
+    public static boolean isPlannedEntityNotFound(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (!(cause instanceof NotFoundException)) continue;
+
+            if (((NotFoundException) cause).getResponse().getHeaderString(PLANNED_ENTITY_HEADER) != null) return true;
+        }
+
+        return false;
+    }
+
+    private String findCreatedId(String path) {
+        if (createdIds.isEmpty()) return null;
+
+        for (String segment : path.split("/")) {
+            if (createdIds.contains(segment)) return segment;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the name of a planned create, if the request reads it by its path, a query parameter or its group path
+     */
+    private String findCreatedName(URI uri) {
+        if (createdNames.isEmpty()) return null;
+
+        String path = stripTrailingSlash(uri.getPath());
+        int lastSlash = path.lastIndexOf('/');
+        String name = path.substring(lastSlash + 1);
+        if (createdNames.contains(Arrays.asList(path.substring(0, lastSlash), name))) return name;
+
+        int groupPath = path.indexOf("/group-by-path/");
+        if (groupPath >= 0) {
+            // group paths start with a slash. Subgroups of a planned group are planned, too.
+            String topLevelGroup = path.substring(groupPath + "/group-by-path/".length()).replaceFirst("^/+", "").split("/")[0];
+            if (createdNames.contains(Arrays.asList(path.substring(0, groupPath) + "/groups", topLevelGroup))) return topLevelGroup;
+        }
+
+        if (uri.getRawQuery() == null) return null;
+
+        for (String parameter : uri.getRawQuery().split("&")) {
+            String value = decode(parameter.substring(parameter.indexOf('=') + 1));
+            if (createdNames.contains(Arrays.asList(path, value))) return value;
+        }
+
+        return null;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static boolean isWrite(String method, String path) {
+        if (!path.contains("/admin/realms")) return false;
+
+        switch (method) {
+            case "PUT":
+            case "DELETE":
+                return true;
+            case "POST":
+                return READ_ONLY_ACTIONS.stream().noneMatch(path::endsWith);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Compares the fields of the changed entity with the current one. Fields missing in the changed entity are not
+     * compared, because keycloak keeps them on most updates. Arrays are compared regardless of their order.
+     */
+    static List<PlannedChange.FieldChange> diff(JsonNode current, JsonNode changed) {
+        List<PlannedChange.FieldChange> fieldChanges = new ArrayList<>();
+        diff("", current, changed, fieldChanges);
+
+        return fieldChanges;
+    }
+
+    private static void diff(String path, JsonNode current, JsonNode changed, List<PlannedChange.FieldChange> fieldChanges) {
+        if (changed == null) return;
+
+        if (changed.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = changed.fields();
+
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode currentValue = current != null && current.isObject() ? current.get(field.getKey()) : null;
+
+                diff(path.isEmpty() ? field.getKey() : path + "." + field.getKey(), currentValue, field.getValue(), fieldChanges);
+            }
+        } else if (!isEqual(current, changed)) {
+            fieldChanges.add(new PlannedChange.FieldChange(path, current, changed));
+        }
+    }
+
+    private static boolean isEqual(JsonNode current, JsonNode changed) {
+        if (current == null || current.isNull()) return changed.isNull();
+
+        if (current.isArray() && changed.isArray()) {
+            return current.size() == changed.size() && sortedElements(current).equals(sortedElements(changed));
+        }
+
+        return current.equals(changed);
+    }
+
+    private static List<String> sortedElements(JsonNode array) {
+        List<String> elements = new ArrayList<>();
+        array.forEach(element -> elements.add(element.toString()));
+        Collections.sort(elements);
+
+        return elements;
+    }
+
+    /**
+     * @return the name, client id, username or alias of the entity, or the last segment of a named resource
+     */
+    public static String toName(JsonNode entity, URI uri) {
+        if (entity != null && entity.isObject()) {
+            for (String field : NAME_FIELDS) {
+                JsonNode value = entity.get(field);
+                if (value != null && value.isTextual()) return value.asText();
+            }
+        }
+
+        String endpoint = HttpCallFilter.toEndpoint(uri.getPath());
+        return endpoint.endsWith("/{name}") ? uri.getPath().substring(uri.getPath().lastIndexOf('/') + 1) : null;
+    }
+
+    private PlannedChange createChange(
+            String operation,
+            String method,
+            URI uri,
+            JsonNode body,
+            List<PlannedChange.FieldChange> fieldChanges,
+            String name,
+            String createdId,
+            String checksum
+    ) {
+        String path = uri.getRawPath();
+
+        return new PlannedChange(
+                operation,
+                method,
+                uri.getRawQuery() != null ? path + "?" + uri.getRawQuery() : path,
+                HttpCallFilter.toEndpoint(path),
+                HttpCallFilter.toRealm(path) != null ? HttpCallFilter.toRealm(path) : name,
+                name,
+                body,
+                fieldChanges,
+                createdId,
+                checksum
+        );
+    }
+
+    /**
+     * @return the checksum of an entity read from keycloak, compared before a planned change is applied
+     */
+    public static String checksum(JsonNode entity) {
+        return entity != null ? ChecksumUtil.checksum(entity.toString()) : null;
+    }
+
+    /**
+     * @return the entity addressed by the request, or {@code null} if the resource cannot be read, e.g. a role mapping
+     */
+    private JsonNode readCurrent(ClientRequestContext requestContext) {
+        Response response = requestContext.getClient()
+                .target(requestContext.getUri())
+                .request(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.get())
+                .get();
+
+        return readEntity(response, requestContext.getUri().toString());
+    }
+
+    /**
+     * Reads the entity of a GET response and closes it.
+     *
+     * @return the entity, or {@code null} if the resource cannot be read
+     */
+    public static JsonNode readEntity(Response response, String uri) {
+        try {
+            if (response.getStatus() != Response.Status.OK.getStatusCode()) return null;
+
+            return OBJECT_MAPPER.readTree(response.readEntity(String.class));
+        } catch (Exception e) {
+            logger.debug("Unable to read '{}': {}", uri, e.getMessage());
+            return null;
+        } finally {
+            response.close();
+        }
+    }
+
+    private static String stripTrailingSlash(String uri) {
+        return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+    }
+}
@@ -0,0 +1,127 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A finished HTTP call against keycloak.
+ */
+public class HttpCall {
+    private final String method;
+    private final String uri;
+    private final String endpoint;
+    private final String realm;
+    private final int status;
+    private final long durationNanos;
+    private final long bytesSent;
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    private String stage;
+
+    public HttpCall(String method, String uri, String endpoint, String realm, int status, long durationNanos, long bytesSent) {
+        this.method = method;
+        this.uri = uri;
+        this.endpoint = endpoint;
+        this.realm = realm;
+        this.status = status;
+        this.durationNanos = durationNanos;
+        this.bytesSent = bytesSent;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the path of the call with realm names, ids and entity names replaced by placeholders
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getRealm() {
+        return realm;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the time until the response headers have been received
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return the bytes of the response body read so far
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    void addBytesReceived(long bytes) {
+        bytesReceived.addAndGet(bytes);
+    }
+
+    /**
+     * @return created, updated or deleted for a successful write against the admin API, otherwise {@code null}
+     */
+    public String getOperation() {
+        if (status >= 400 || !endpoint.contains("/admin/")) return null;
+
+        switch (method) {
+            case "POST":
+                return "created";
+            case "PUT":
+                return "updated";
+            case "DELETE":
+                return "deleted";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the last segment of the endpoint, which is not a placeholder, e.g. clients of /admin/realms/{realm}/clients/{id}
+     */
+    public String getType() {
+        return HttpCallFilter.toType(endpoint);
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+}
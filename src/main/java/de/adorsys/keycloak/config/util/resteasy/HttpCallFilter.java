@@ -0,0 +1,161 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+/**
+ * Measures every HTTP call against keycloak and passes it to the registered listeners.
+ */
+public class HttpCallFilter implements ClientRequestFilter, ClientResponseFilter {
+    private static final String START_PROPERTY = HttpCallFilter.class.getName() + ".start";
+    private static final String BYTES_SENT_PROPERTY = HttpCallFilter.class.getName() + ".bytesSent";
+
+    private static final Pattern ID_PATTERN = Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+
+    // collections, which address their entities by name instead of id
+    private static final Set<String> NAMED_COLLECTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "roles", "instances", "flows", "required-actions"
+    )));
+
+    private final List<Consumer<HttpCall>> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Consumer<HttpCall> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<HttpCall> listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+
+        if (requestContext.hasEntity()) {
+            CountingOutputStream entityStream = new CountingOutputStream(requestContext.getEntityStream());
+            requestContext.setEntityStream(entityStream);
+            requestContext.setProperty(BYTES_SENT_PROPERTY, entityStream);
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (!(start instanceof Long) || listeners.isEmpty()) return;
+
+        Object entityStream = requestContext.getProperty(BYTES_SENT_PROPERTY);
+        long bytesSent = entityStream instanceof CountingOutputStream ? ((CountingOutputStream) entityStream).getByteCount() : 0;
+
+        URI uri = requestContext.getUri();
+        HttpCall call = new HttpCall(
+                requestContext.getMethod(),
+                uri.getPath(),
+                toEndpoint(uri.getPath()),
+                toRealm(uri.getPath()),
+                responseContext.getStatus(),
+                System.nanoTime() - (Long) start,
+                bytesSent
+        );
+
+        if (responseContext.hasEntity()) {
+            responseContext.setEntityStream(new CountingInputStream(responseContext.getEntityStream(), call));
+        }
+
+        for (Consumer<HttpCall> listener : listeners) {
+            listener.accept(call);
+        }
+    }
+
+    static String toEndpoint(String path) {
+        String[] segments = path.split("/");
+
+        for (int i = 1; i < segments.length; i++) {
+            String previous = segments[i - 1];
+
+            if (previous.equals("realms")) {
+                segments[i] = "{realm}";
+            } else if (ID_PATTERN.matcher(segments[i]).matches()) {
+                segments[i] = "{id}";
+            } else if (NAMED_COLLECTIONS.contains(previous) && !segments[i].isEmpty()) {
+                segments[i] = "{name}";
+            }
+        }
+
+        return String.join("/", segments);
+    }
+
+    static String toType(String endpoint) {
+        String[] segments = endpoint.split("/");
+
+        for (int i = segments.length - 1; i >= 0; i--) {
+            if (!segments[i].isEmpty() && !segments[i].startsWith("{")) {
+                return segments[i];
+            }
+        }
+
+        return "";
+    }
+
+    static String toRealm(String path) {
+        String[] segments = path.split("/");
+
+        for (int i = 1; i < segments.length; i++) {
+            if (segments[i - 1].equals("realms")) {
+                return segments[i];
+            }
+        }
+
+        return null;
+    }
+
+    private static class CountingInputStream extends ProxyInputStream {
+        private final HttpCall call;
+
+        CountingInputStream(InputStream proxy, HttpCall call) {
+            super(proxy);
+            this.call = call;
+        }
+
+        @Override
+        protected void afterRead(int n) {
+            if (n > 0) {
+                call.addBytesReceived(n);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time a request waits for a pooled connection.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+    private final ConnectionPoolStatistics statistics;
+
+    public InstrumentedConnectionManager(
+            Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            long connectionTtlMillis,
+            ConnectionPoolStatistics statistics
+    ) {
+        super(socketFactoryRegistry, null, null, null, connectionTtlMillis, TimeUnit.MILLISECONDS);
+        this.statistics = statistics;
+        this.statistics.setConnectionManager(this);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest connectionRequest = super.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                boolean success = false;
+
+                try {
+                    HttpClientConnection connection = connectionRequest.get(timeout, timeUnit);
+                    success = true;
+                    return connection;
+                } finally {
+                    statistics.recordLease(System.nanoTime() - start, success);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return connectionRequest.cancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,193 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * A write against the admin API, which has been planned instead of being sent to keycloak. Serialized as part of a plan
+ * file, derived properties like the type are ignored on read.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PlannedChange {
+    private final String operation;
+    private final String method;
+    private final String uri;
+    private final String endpoint;
+    private final String realm;
+    private final String name;
+    private final JsonNode body;
+    private final List<FieldChange> fieldChanges;
+    private final String createdId;
+    private final String checksum;
+
+    private String stage;
+
+    @JsonCreator
+    @SuppressWarnings({"java:S107"})
+    public PlannedChange(
+            @JsonProperty("operation") String operation,
+            @JsonProperty("method") String method,
+            @JsonProperty("uri") String uri,
+            @JsonProperty("endpoint") String endpoint,
+            @JsonProperty("realm") String realm,
+            @JsonProperty("name") String name,
+            @JsonProperty("body") JsonNode body,
+            @JsonProperty("fieldChanges") List<FieldChange> fieldChanges,
+            @JsonProperty("createdId") String createdId,
+            @JsonProperty("checksum") String checksum
+    ) {
+        this.operation = operation;
+        this.method = method;
+        this.uri = uri;
+        this.endpoint = endpoint;
+        this.realm = realm;
+        this.name = name;
+        this.body = body;
+        this.fieldChanges = fieldChanges;
+        this.createdId = createdId;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return create, update or delete
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the path of the change including the query
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the path of the change with realm names, ids and entity names replaced by placeholders
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getRealm() {
+        return realm;
+    }
+
+    /**
+     * @return the last segment of the endpoint, which is not a placeholder, e.g. clients of /admin/realms/{realm}/clients/{id}
+     */
+    public String getType() {
+        return HttpCallFilter.toType(endpoint);
+    }
+
+    /**
+     * @return the name, client id, username or alias of the changed entity, if known
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the request body, or {@code null} for requests without body
+     */
+    public JsonNode getBody() {
+        return body;
+    }
+
+    /**
+     * @return the changed fields of the body compared to the current entity in keycloak
+     */
+    public List<FieldChange> getFieldChanges() {
+        return fieldChanges;
+    }
+
+    /**
+     * @return the id, which has been returned instead of the id of a created entity. Later changes may refer to it.
+     */
+    public String getCreatedId() {
+        return createdId;
+    }
+
+    /**
+     * @return the checksum of the updated or deleted entity at planning time, or {@code null} if it cannot be read
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public static class FieldChange {
+        private final String path;
+        private final JsonNode before;
+        private final JsonNode after;
+
+        @JsonCreator
+        public FieldChange(
+                @JsonProperty("path") String path,
+                @JsonProperty("before") JsonNode before,
+                @JsonProperty("after") JsonNode after
+        ) {
+            this.path = path;
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * @return the dot separated path of the field, e.g. attributes.display.name
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the current value in keycloak, or {@code null} if the field is not set
+         */
+        public JsonNode getBefore() {
+            return before;
+        }
+
+        public JsonNode getAfter() {
+            return after;
+        }
+
+        @Override
+        public String toString() {
+            return path + ": " + before + " -> " + after;
+        }
+    }
+}
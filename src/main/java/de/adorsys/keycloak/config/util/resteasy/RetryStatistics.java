@@ -0,0 +1,70 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the retries of HTTP requests against keycloak.
+ */
+public class RetryStatistics {
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    void recordRecovered() {
+        recovered.incrementAndGet();
+    }
+
+    void recordExhausted() {
+        exhausted.incrementAndGet();
+    }
+
+    /**
+     * @return the number of retried attempts
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return the number of requests, which succeeded after at least one retry
+     */
+    public long getRecovered() {
+        return recovered.get();
+    }
+
+    /**
+     * @return the number of requests, which failed after all retries
+     */
+    public long getExhausted() {
+        return exhausted.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("retries=%d, recovered=%d, exhausted=%d", getRetries(), getRecovered(), getExhausted());
+    }
+}
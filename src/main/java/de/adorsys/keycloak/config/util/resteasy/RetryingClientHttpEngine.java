@@ -0,0 +1,156 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakRetry;
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.RetryPolicy;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+/**
+ * Retries requests against keycloak, which failed with a connection error or a transient server error, with a jittered
+ * exponential backoff. Only idempotent requests are retried. A create request is retried only if it is sent by
+ * {@link #retryCreate(Supplier)}, whose caller accepts a conflict of an entity created by a lost attempt.
+ */
+public class RetryingClientHttpEngine implements ClientHttpEngine {
+    private static final Logger logger = LoggerFactory.getLogger(RetryingClientHttpEngine.class);
+
+    private static final Set<Integer> TRANSIENT_STATUS_CODES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            429, 502, 503, 504
+    )));
+
+    private static final Set<String> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "GET", "HEAD", "OPTIONS", "PUT", "DELETE"
+    )));
+
+    private static final ThreadLocal<Boolean> RETRIED = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<Boolean> RETRYABLE_CREATE = ThreadLocal.withInitial(() -> false);
+
+    private final ClientHttpEngine delegate;
+    private final RetryPolicy<Response> retryPolicy;
+
+    public RetryingClientHttpEngine(ClientHttpEngine delegate, KeycloakRetry retry, RetryStatistics statistics) {
+        this.delegate = delegate;
+        this.retryPolicy = new RetryPolicy<Response>()
+                .handleIf(RetryingClientHttpEngine::isTransientFailure)
+                .handleResultIf(response -> TRANSIENT_STATUS_CODES.contains(response.getStatus()))
+                .withBackoff(retry.getDelay().toMillis(), retry.getMaxDelay().toMillis(), ChronoUnit.MILLIS)
+                .withJitter(0.25)
+                .withMaxRetries(retry.getMaxRetries())
+                .onRetry(event -> {
+                    statistics.recordRetry();
+
+                    Response response = event.getLastResult();
+                    if (response != null) {
+                        logger.debug("Attempt #{} failed with status {}, retrying ...", event.getAttemptCount(), response.getStatus());
+                        // release the connection
+                        response.close();
+                    } else {
+                        logger.debug("Attempt #{} failed: {}, retrying ...", event.getAttemptCount(), event.getLastFailure().getMessage());
+                    }
+                })
+                .onRetriesExceeded(event -> statistics.recordExhausted())
+                .onSuccess(event -> {
+                    if (event.getAttemptCount() > 1) statistics.recordRecovered();
+                });
+    }
+
+    /**
+     * @return {@code true}, if the last request of the current thread has been sent more than once
+     */
+    public static boolean isRetried() {
+        return RETRIED.get();
+    }
+
+    /**
+     * Sends a create request, which may be retried on a transient failure. The caller must accept a conflict after a retry,
+     * if the entity exists, e.g. by {@link de.adorsys.keycloak.config.util.ResponseUtil#validate(Response, BooleanSupplier)}.
+     */
+    public static Response retryCreate(Supplier<Response> create) {
+        RETRYABLE_CREATE.set(true);
+
+        try {
+            return create.get();
+        } finally {
+            RETRYABLE_CREATE.set(false);
+        }
+    }
+
+    private static boolean isTransientFailure(Throwable failure) {
+        return failure instanceof ProcessingException && failure.getCause() instanceof IOException;
+    }
+
+    private static boolean isRetryable(Invocation request) {
+        String method = ((ClientInvocation) request).getMethod();
+
+        return IDEMPOTENT_METHODS.contains(method) || ("POST".equals(method) && RETRYABLE_CREATE.get());
+    }
+
+    @Override
+    public Response invoke(Invocation request) {
+        RETRIED.set(false);
+
+        // a lost response of a create request would create the entity twice or fail with a conflict
+        if (!isRetryable(request)) {
+            return delegate.invoke(request);
+        }
+
+        return Failsafe.with(retryPolicy).get(context -> {
+            if (context.getAttemptCount() > 0) {
+                RETRIED.set(true);
+            }
+
+            return delegate.invoke(request);
+        });
+    }
+
+    @Override
+    public SSLContext getSslContext() {
+        return delegate.getSslContext();
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return delegate.getHostnameVerifier();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
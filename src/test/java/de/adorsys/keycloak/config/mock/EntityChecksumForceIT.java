@@ -0,0 +1,107 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.resource.ClientsResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestPropertySource(properties = {
+        "import.skip-unchanged-entities=true",
+        "import.force=true",
+})
+class EntityChecksumForceIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+
+    private static final String REALM_NAME = "realmWithEntityChecksums";
+
+    @Autowired
+    public KeycloakImportProvider keycloakImportProvider;
+    @Autowired
+    public RealmImportService realmImportService;
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @Test
+    void shouldImportUnchangedEntityIfForced() throws IOException {
+        RealmImport realmImport = getRealmImport("import-files/entity-checksums/0_create_realm.json");
+        realmImportService.doImport(realmImport);
+
+        ClientsResource clients = keycloakProvider.getInstance().realm(REALM_NAME).clients();
+        ClientRepresentation client = clients.findByClientId("client-a").get(0);
+        client.setDescription("out-of-band");
+        clients.get(client.getId()).update(client);
+
+        realmImportService.doImport(realmImport);
+
+        assertThat(clients.findByClientId("client-a").get(0).getDescription(), is("imported"));
+    }
+
+    private RealmImport getRealmImport(String file) throws IOException {
+        File realmImportFile = new ClassPathResource(file).getFile();
+
+        return keycloakImportProvider
+                .readRealmImportFromFile(realmImportFile)
+                .getRealmImports()
+                .get(realmImportFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,169 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.resource.ClientsResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Entities which are unchanged since the last successful import are skipped. An out-of-band change of a skipped entity
+ * is kept, which shows whether an entity has been imported or not.
+ */
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestPropertySource(properties = {
+        "import.skip-unchanged-entities=true",
+        "import.state-store=file",
+        "import.state-store-path=${java.io.tmpdir}/keycloak-config-cli-entity-checksum-it",
+})
+class EntityChecksumIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+
+    private static final String REALM_NAME = "realmWithEntityChecksums";
+
+    @Autowired
+    public KeycloakImportProvider keycloakImportProvider;
+    @Autowired
+    public RealmImportService realmImportService;
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @BeforeEach
+    void reset() throws IOException {
+        FAKE_KEYCLOAK.reset();
+        FileUtils.deleteDirectory(new File(System.getProperty("java.io.tmpdir"), "keycloak-config-cli-entity-checksum-it"));
+    }
+
+    @Test
+    void shouldSkipUnchangedEntity() throws IOException {
+        doImport("0_create_realm.json");
+        setDescription("client-a", "out-of-band");
+
+        doImport("1_update_client.json");
+
+        assertThat(getDescription("client-a"), is("out-of-band"));
+    }
+
+    @Test
+    void shouldImportChangedEntity() throws IOException {
+        doImport("0_create_realm.json");
+        setDescription("client-b", "out-of-band");
+
+        doImport("1_update_client.json");
+
+        assertThat(getDescription("client-b"), is("changed"));
+    }
+
+    @Test
+    void shouldImportEntitiesOfRecreatedRealm() throws IOException {
+        doImport("0_create_realm.json");
+
+        // deleted outside of keycloak-config-cli, the state file is kept
+        keycloakProvider.getInstance().realm(REALM_NAME).remove();
+
+        doImport("0_create_realm.json");
+
+        assertThat(getDescription("client-a"), is("imported"));
+        assertThat(getDescription("client-b"), is("imported"));
+    }
+
+    @Test
+    void shouldImportEntitiesOfReaddedSection() throws IOException {
+        doImport("0_create_realm.json");
+        doImport("2_remove_clients.json");
+        setDescription("client-a", "out-of-band");
+
+        doImport("0_create_realm.json");
+
+        assertThat(getDescription("client-a"), is("imported"));
+    }
+
+    private void doImport(String file) throws IOException {
+        File realmImportFile = new ClassPathResource("import-files/entity-checksums/" + file).getFile();
+
+        RealmImport realmImport = keycloakImportProvider
+                .readRealmImportFromFile(realmImportFile)
+                .getRealmImports()
+                .get(realmImportFile.getAbsolutePath());
+
+        realmImportService.doImport(realmImport);
+    }
+
+    private String getDescription(String clientId) {
+        return getClient(clientId).getDescription();
+    }
+
+    private void setDescription(String clientId, String description) {
+        ClientRepresentation client = getClient(clientId);
+        client.setDescription(description);
+        getClients().get(client.getId()).update(client);
+    }
+
+    private ClientRepresentation getClient(String clientId) {
+        return getClients().findByClientId(clientId).get(0);
+    }
+
+    private ClientsResource getClients() {
+        return keycloakProvider.getInstance().realm(REALM_NAME).clients();
+    }
+}
@@ -0,0 +1,152 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.ClientScopeRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestPropertySource(properties = {
+        "import.force=true",
+        "import.parallel=true",
+})
+class FakeKeycloakIT {
+    private static final String REALM_NAME = "realmWithParallelImport";
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+
+    @Autowired
+    public KeycloakImportProvider keycloakImportProvider;
+    @Autowired
+    public RealmImportService realmImportService;
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @Test
+    @Order(0)
+    void shouldCreateRealm() throws IOException {
+        realmImportService.doImport(getRealmImport("import-files/parallel/0_create_realm.json"));
+
+        assertRealm();
+        assertThat(FAKE_KEYCLOAK.getCalls(), hasKey("POST /admin/realms/{realm}/clients"));
+    }
+
+    @Test
+    @Order(1)
+    void shouldUpdateRealm() throws IOException {
+        FAKE_KEYCLOAK.resetCalls();
+
+        realmImportService.doImport(getRealmImport("import-files/parallel/1_update_realm.json"));
+
+        assertRealm();
+        assertThat(FAKE_KEYCLOAK.getTotalCalls(), is(greaterThan(0L)));
+    }
+
+    private void assertRealm() {
+        RealmRepresentation createdRealm = keycloakProvider.getInstance().realm(REALM_NAME).partialExport(true, true);
+        assertThat(createdRealm.getRealm(), is(REALM_NAME));
+        assertThat(createdRealm.isEnabled(), is(true));
+
+        List<ClientRepresentation> createdClients = createdRealm.getClients()
+                .stream().filter(client -> client.getClientId().startsWith("client"))
+                .collect(Collectors.toList());
+        assertThat(createdClients, hasSize(10));
+
+        List<ClientScopeRepresentation> createdClientScopes = createdRealm.getClientScopes()
+                .stream().filter(clientScope -> clientScope.getName().startsWith("clientScope"))
+                .collect(Collectors.toList());
+        assertThat(createdClientScopes, hasSize(10));
+
+        assertThat(createdRealm.getGroups(), hasSize(10));
+
+        List<RoleRepresentation> createdRoles = createdRealm.getRoles().getRealm()
+                .stream().filter(role -> role.getName().startsWith("role"))
+                .collect(Collectors.toList());
+        assertThat(createdRoles, hasSize(10));
+
+        List<UserRepresentation> createdUsers = keycloakProvider.getInstance().realm(REALM_NAME).users().list()
+                .stream().filter(user -> user.getUsername().startsWith("user"))
+                .collect(Collectors.toList());
+        assertThat(createdUsers, hasSize(10));
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    private RealmImport getRealmImport(String file) throws IOException {
+        File realmImportFile = new ClassPathResource(file).getFile();
+
+        return keycloakImportProvider
+                .readRealmImportFromFile(realmImportFile)
+                .getRealmImports()
+                .get(realmImportFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,118 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.repository.FileStateStore;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestPropertySource(properties = {
+        "import.state-store=file",
+        "import.state-store-path=${java.io.tmpdir}/keycloak-config-cli-file-state-store-it",
+})
+class FileStateStoreIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+
+    private static final String REALM_NAME = "realmWithStateFile";
+    private static final String STATE_KEY = "de.adorsys.keycloak.config.state-default-";
+
+    @Autowired
+    public KeycloakImportProvider keycloakImportProvider;
+    @Autowired
+    public RealmImportService realmImportService;
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+    @Autowired
+    public FileStateStore stateStore;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @BeforeAll
+    static void clear() throws IOException {
+        FileUtils.deleteDirectory(new File(System.getProperty("java.io.tmpdir"), "keycloak-config-cli-file-state-store-it"));
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @Test
+    void shouldDiscardStateOfDeletedRealm() throws IOException {
+        realmImportService.doImport(getRealmImport("import-files/state-store/0_create_realm.json"));
+        assertThat(stateStore.read(REALM_NAME), hasKey(STATE_KEY + "roles-client-client-a-0"));
+
+        // deleted outside of keycloak-config-cli, the state file is kept
+        keycloakProvider.getInstance().realm(REALM_NAME).remove();
+
+        realmImportService.doImport(getRealmImport("import-files/state-store/1_recreate_realm.json"));
+
+        Map<String, String> state = stateStore.read(REALM_NAME);
+        assertThat(state, hasKey(STATE_KEY + "roles-client-client-b-0"));
+        assertThat(state, not(hasKey(STATE_KEY + "roles-client-client-a-0")));
+    }
+
+    private RealmImport getRealmImport(String file) throws IOException {
+        File realmImportFile = new ClassPathResource(file).getFile();
+
+        return keycloakImportProvider
+                .readRealmImportFromFile(realmImportFile)
+                .getRealmImports()
+                .get(realmImportFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,125 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import de.adorsys.keycloak.config.test.util.HttpCallRecorder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Upper bounds of admin API requests per import scenario, against the {@link FakeKeycloak}. A failing budget prints the
+ * requests by endpoint; raise a budget only if the additional requests are intended.
+ */
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+class HttpCallBudgetIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+
+    // the realm and its import state
+    private static final long NO_OP_BUDGET = 2;
+
+    // each import file has 10 entities per type
+    private static final long ENTITIES = 10;
+    private static final long CALLS_PER_ENTITY_BUDGET = 3;
+
+    @Autowired
+    public KeycloakImportProvider keycloakImportProvider;
+    @Autowired
+    public RealmImportService realmImportService;
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @Test
+    void unchangedReimportOfSimpleRealm() throws IOException {
+        RealmImport realmImport = getRealmImport("import-files/simple-realm/00_create_simple-realm.json");
+        realmImportService.doImport(realmImport);
+
+        try (HttpCallRecorder recorder = HttpCallRecorder.record(keycloakProvider)) {
+            realmImportService.doImport(realmImport);
+
+            assertThat(recorder.toString(), recorder.countWrites(), is(0L));
+            assertThat(recorder.toString(), recorder.count(), is(lessThanOrEqualTo(NO_OP_BUDGET)));
+        }
+    }
+
+    @Test
+    void updateOfRealmWithManyEntities() throws IOException {
+        realmImportService.doImport(getRealmImport("import-files/parallel/0_create_realm.json"));
+
+        try (HttpCallRecorder recorder = HttpCallRecorder.record(keycloakProvider)) {
+            realmImportService.doImport(getRealmImport("import-files/parallel/1_update_realm.json"));
+
+            // catches requests per entity and type of another entity, like role lookups per group and role
+            for (Map.Entry<String, Long> endpoint : recorder.countByEndpoint().entrySet()) {
+                assertThat(recorder.toString(), endpoint.getValue(),
+                        is(lessThanOrEqualTo(ENTITIES * CALLS_PER_ENTITY_BUDGET)));
+            }
+        }
+    }
+
+    private RealmImport getRealmImport(String file) throws IOException {
+        File realmImportFile = new ClassPathResource(file).getFile();
+
+        return keycloakImportProvider
+                .readRealmImportFromFile(realmImportFile)
+                .getRealmImports()
+                .get(realmImportFile.getAbsolutePath());
+    }
+}
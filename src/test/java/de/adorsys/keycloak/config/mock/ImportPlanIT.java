@@ -0,0 +1,253 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.service.plan.ImportApplyService;
+import de.adorsys.keycloak.config.service.plan.ImportPlan;
+import de.adorsys.keycloak.config.service.plan.ImportPlanService;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import de.adorsys.keycloak.config.util.resteasy.PlannedChange;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.ws.rs.client.Entity;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestPropertySource(properties = {
+        "import.plan=true",
+        "import.force=true",
+})
+class ImportPlanIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    public KeycloakImportProvider keycloakImportProvider;
+    @Autowired
+    public RealmImportService realmImportService;
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+    @Autowired
+    public ImportInstrumentation importInstrumentation;
+    @Autowired
+    public ImportPlanService importPlanService;
+    @Autowired
+    public ImportApplyService importApplyService;
+
+    @TempDir
+    Path tempDir;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterEach
+    void reset() {
+        FAKE_KEYCLOAK.reset();
+        keycloakProvider.getDryRunClientFilter().setEnabled(true);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @Test
+    void shouldPlanNewRealm() throws IOException {
+        ImportPlan plan = plan("import-files/simple-realm/00_create_simple-realm.json");
+
+        assertThat(FAKE_KEYCLOAK.hasRealm("simple"), is(false));
+        assertThat(plan.getChanges(), hasSize(1));
+
+        PlannedChange change = plan.getChanges().get(0);
+        assertThat(change.getOperation(), is("create"));
+        assertThat(change.getType(), is("realms"));
+        assertThat(change.getName(), is("simple"));
+    }
+
+    @Test
+    void shouldPlanUpdateWithoutWrites() throws IOException {
+        createParallelRealm();
+
+        FAKE_KEYCLOAK.resetCalls();
+        ImportPlan plan = plan("import-files/parallel/1_update_realm.json");
+
+        assertThat(FAKE_KEYCLOAK.getCalls().toString(), countWrites(), is(0L));
+        assertThat(plan.isEmpty(), is(false));
+        assertThat(plan.count("create") + plan.count("update"), is(greaterThan(0L)));
+
+        for (PlannedChange change : plan.getChanges()) {
+            assertThat(change.getRealm(), is("realmWithParallelImport"));
+            assertThat(change.getStage(), not(ImportInstrumentation.NO_STAGE));
+        }
+    }
+
+    @Test
+    void shouldApplyExactlyThePlan() throws IOException {
+        createParallelRealm();
+        Path planFile = writePlan(plan("import-files/parallel/1_update_realm.json"));
+        ImportPlan plan = importPlanService.getLastPlan();
+
+        keycloakProvider.getDryRunClientFilter().setEnabled(false);
+        FAKE_KEYCLOAK.resetCalls();
+        importApplyService.apply(planFile);
+
+        assertThat(FAKE_KEYCLOAK.getCalls().toString(), countWrites(), is((long) plan.getChanges().size()));
+    }
+
+    @Test
+    void shouldRejectStalePlan() throws IOException {
+        createParallelRealm();
+        ImportPlan plan = plan("import-files/parallel/1_update_realm.json");
+        Path planFile = writePlan(plan);
+
+        PlannedChange touched = plan.getChanges().stream()
+                .filter(change -> change.getChecksum() != null)
+                .findFirst()
+                .orElse(null);
+        assertThat(touched, is(notNullValue()));
+
+        // out-of-band change after planning
+        keycloakProvider.getDryRunClientFilter().setEnabled(false);
+        keycloakProvider.request(touched.getUri()).delete().close();
+        FAKE_KEYCLOAK.resetCalls();
+
+        ImportProcessingException thrown = assertThrows(ImportProcessingException.class, () -> importApplyService.apply(planFile));
+
+        assertThat(thrown.getMessage().startsWith("Plan is stale"), is(true));
+        assertThat(countWrites(), is(0L));
+    }
+
+    @Test
+    void shouldRejectPlanOfEntityCreatedSincePlanning() throws IOException {
+        ImportPlan plan = plan("import-files/simple-realm/00_create_simple-realm.json");
+        Path planFile = writePlan(plan);
+        PlannedChange create = plan.getChanges().get(0);
+
+        // out-of-band create after planning
+        keycloakProvider.getDryRunClientFilter().setEnabled(false);
+        keycloakProvider.request(create.getUri()).post(Entity.json("{\"realm\":\"simple\"}")).close();
+        FAKE_KEYCLOAK.resetCalls();
+
+        ImportProcessingException thrown = assertThrows(ImportProcessingException.class, () -> importApplyService.apply(planFile));
+
+        assertThat(thrown.getMessage(), is("Plan is stale, 1 planned entities have been created since planning: [realms 'simple']"));
+        assertThat(countWrites(), is(0L));
+    }
+
+    @Test
+    void shouldPlanNewClientWithClientRoles() throws IOException {
+        createParallelRealm();
+
+        FAKE_KEYCLOAK.resetCalls();
+        ImportPlan plan = plan("import-files/plan/1_add_client_with_roles.json");
+
+        assertThat(FAKE_KEYCLOAK.getCalls().toString(), countWrites(), is(0L));
+        assertThat(plan.getChanges().stream()
+                .filter(change -> change.getOperation().equals("create") && change.getType().equals("clients"))
+                .map(PlannedChange::getName)
+                .collect(Collectors.toList()), contains("planned-client"));
+
+        // the roles of the planned client cannot be planned, because keycloak does not know the client yet
+        assertThat(plan.getNotes().stream().map(ImportPlan.Note::getStage).collect(Collectors.toList()), hasItem("roles"));
+    }
+
+    private void createParallelRealm() throws IOException {
+        // create the realm with the filter disabled. The plan service is still enabled, so the realm is created at once
+        // and no state is stored
+        keycloakProvider.getDryRunClientFilter().setEnabled(false);
+        realmImportService.doImport(getRealmImport("import-files/parallel/0_create_realm.json"));
+        keycloakProvider.getDryRunClientFilter().setEnabled(true);
+    }
+
+    private Path writePlan(ImportPlan plan) throws IOException {
+        Path planFile = tempDir.resolve("plan.json");
+        OBJECT_MAPPER.writeValue(planFile.toFile(), plan);
+
+        return planFile;
+    }
+
+    private long countWrites() {
+        return FAKE_KEYCLOAK.getCalls().entrySet().stream()
+                .filter(call -> call.getKey().contains("/admin/") && !call.getKey().startsWith("GET "))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    private ImportPlan plan(String file) throws IOException {
+        realmImportService.doImport(getRealmImport(file));
+        importInstrumentation.finishRun();
+
+        return importPlanService.getLastPlan();
+    }
+
+    private RealmImport getRealmImport(String file) throws IOException {
+        File realmImportFile = new ClassPathResource(file).getFile();
+
+        return keycloakImportProvider
+                .readRealmImportFromFile(realmImportFile)
+                .getRealmImports()
+                .get(realmImportFile.getAbsolutePath());
+    }
+}
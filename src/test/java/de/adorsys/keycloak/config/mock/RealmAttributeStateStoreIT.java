@@ -0,0 +1,121 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.repository.RealmAttributeStateStore;
+import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+class RealmAttributeStateStoreIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+
+    private static final String REALM_NAME = "realmWithStateAttributes";
+    private static final String STATE_KEY = "de.adorsys.keycloak.config.state-default-clients-0";
+    private static final String OTHER_ATTRIBUTE = "frontendUrl";
+
+    @Autowired
+    public RealmAttributeStateStore stateStore;
+    @Autowired
+    public RealmRepository realmRepository;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @BeforeEach
+    void createRealm() {
+        FAKE_KEYCLOAK.reset();
+
+        RealmRepresentation realm = new RealmRepresentation();
+        realm.setRealm(REALM_NAME);
+        realm.setAttributes(Collections.singletonMap(OTHER_ATTRIBUTE, "https://example.com"));
+        realmRepository.create(realm);
+    }
+
+    @Test
+    void shouldReadOnlyStateAttributes() {
+        stateStore.write(REALM_NAME, Collections.singletonMap(STATE_KEY, "[\"client\"]"));
+
+        Map<String, String> state = stateStore.read(REALM_NAME);
+        assertThat(state, aMapWithSize(1));
+        assertThat(state, hasEntry(STATE_KEY, "[\"client\"]"));
+    }
+
+    @Test
+    void shouldKeepOtherRealmAttributesOnWrite() {
+        stateStore.write(REALM_NAME, Collections.singletonMap(STATE_KEY, "[\"client\"]"));
+
+        Map<String, String> attributes = realmRepository.get(REALM_NAME).getAttributes();
+        assertThat(attributes, hasEntry(OTHER_ATTRIBUTE, "https://example.com"));
+        assertThat(attributes, hasEntry(STATE_KEY, "[\"client\"]"));
+    }
+
+    @Test
+    void shouldPreserveStateOnRealmUpdate() {
+        Map<String, String> state = Collections.singletonMap(STATE_KEY, "[\"client\"]");
+
+        RealmRepresentation realm = new RealmRepresentation();
+        realm.setAttributes(new HashMap<>());
+        stateStore.preserve(realm, state);
+        assertThat(realm.getAttributes(), hasEntry(STATE_KEY, "[\"client\"]"));
+
+        RealmRepresentation realmWithoutAttributes = new RealmRepresentation();
+        stateStore.preserve(realmWithoutAttributes, state);
+        assertThat(realmWithoutAttributes.getAttributes(), is(nullValue()));
+    }
+}
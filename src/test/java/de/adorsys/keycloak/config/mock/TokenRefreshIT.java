@@ -0,0 +1,114 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.mock;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.provider.TokenRefreshStatistics;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * The fake issues tokens, which expire in 60 seconds, so a min validity of 59 seconds refreshes the token every second.
+ */
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestPropertySource(properties = {
+        "keycloak.token-refresh.enabled=true",
+        "keycloak.token-refresh.min-validity=59s",
+        "keycloak.availability-check.retry-delay=100ms",
+})
+class TokenRefreshIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @Test
+    void shouldRefreshTokenInBackground() throws InterruptedException {
+        keycloakProvider.getInstance();
+
+        TokenRefreshStatistics statistics = keycloakProvider.getTokenRefreshStatistics();
+        long refreshes = statistics.getRefreshes();
+
+        assertThat(statistics.toString(), await(() -> statistics.getRefreshes() > refreshes), is(true));
+    }
+
+    @Test
+    void shouldRetryFailedRefresh() throws InterruptedException {
+        keycloakProvider.getInstance();
+
+        TokenRefreshStatistics statistics = keycloakProvider.getTokenRefreshStatistics();
+        long failures = statistics.getFailures();
+
+        FAKE_KEYCLOAK.failTokenRequests(3);
+
+        // retried after 100ms, 200ms and 400ms
+        assertThat(statistics.toString(), await(() -> statistics.getFailures() >= failures + 3), is(true));
+
+        long refreshes = statistics.getRefreshes();
+        assertThat(statistics.toString(), await(() -> statistics.getRefreshes() > refreshes), is(true));
+    }
+
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) return false;
+
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        return true;
+    }
+}
@@ -30,6 +30,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 
@@ -46,12 +48,30 @@ import static org.hamcrest.core.Is.is;
         "import.var-substitution-prefix=$(",
         "import.var-substitution-suffix=)",
         "import.force=true",
+        "import.skip-unchanged-entities=true",
+        "import.incremental=true",
+        "import.manifest-path=/tmp/manifest.json",
+        "import.watch=true",
+        "import.watch-debounce=2s",
+        "import.drift-detection=true",
+        "import.drift-detection-interval=1m",
+        "import.drift-detection-path=/tmp/fingerprints.json",
+        "import.plan=true",
+        "import.plan-path=/tmp/plan.json",
+        "import.apply-path=/tmp/apply.json",
+        "import.report-path=/tmp/report.json",
+        "import.metrics-path=/tmp/metrics.prom",
+        "import.metrics-port=9090",
         "import.path=other",
         "import.state=false",
         "import.state-encryption-key=password",
         "import.state-encryption-salt=0123456789ABCDEFabcdef",
+        "import.state-compression=true",
+        "import.state-store=file",
+        "import.state-store-path=/tmp/state",
         "import.file-type=yaml",
         "import.parallel=true",
+        "import.authorization-bulk-threshold=5",
         "import.managed.authentication-flow=no-delete",
         "import.managed.group=no-delete",
         "import.managed.required-action=no-delete",
@@ -83,12 +103,30 @@ class ImportConfigPropertiesTest {
         assertThat(properties.getVarSubstitutionPrefix(), is("$("));
         assertThat(properties.getVarSubstitutionSuffix(), is(")"));
         assertThat(properties.isForce(), is(true));
+        assertThat(properties.isSkipUnchangedEntities(), is(true));
+        assertThat(properties.isIncremental(), is(true));
+        assertThat(properties.getManifestPath(), is("/tmp/manifest.json"));
+        assertThat(properties.isWatch(), is(true));
+        assertThat(properties.getWatchDebounce(), is(Duration.ofSeconds(2)));
+        assertThat(properties.isDriftDetection(), is(true));
+        assertThat(properties.getDriftDetectionInterval(), is(Duration.ofMinutes(1)));
+        assertThat(properties.getDriftDetectionPath(), is("/tmp/fingerprints.json"));
+        assertThat(properties.isPlan(), is(true));
+        assertThat(properties.getPlanPath(), is("/tmp/plan.json"));
+        assertThat(properties.getApplyPath(), is("/tmp/apply.json"));
+        assertThat(properties.getReportPath(), is("/tmp/report.json"));
+        assertThat(properties.getMetricsPath(), is("/tmp/metrics.prom"));
+        assertThat(properties.getMetricsPort(), is(9090));
         assertThat(properties.getCacheKey(), is("custom"));
         assertThat(properties.isState(), is(false));
         assertThat(properties.getStateEncryptionKey(), is("password"));
         assertThat(properties.getStateEncryptionSalt(), is("0123456789ABCDEFabcdef"));
+        assertThat(properties.isStateCompression(), is(true));
+        assertThat(properties.getStateStore(), is(ImportConfigProperties.StateStoreType.FILE));
+        assertThat(properties.getStateStorePath(), is("/tmp/state"));
         assertThat(properties.getFileType(), is(ImportConfigProperties.ImportFileType.YAML));
         assertThat(properties.isParallel(), is(true));
+        assertThat(properties.getAuthorizationBulkThreshold(), is(5));
         assertThat(properties.getManaged().getAuthenticationFlow(), is(ImportManagedPropertiesValues.NO_DELETE));
         assertThat(properties.getManaged().getGroup(), is(ImportManagedPropertiesValues.NO_DELETE));
         assertThat(properties.getManaged().getRequiredAction(), is(ImportManagedPropertiesValues.NO_DELETE));
@@ -52,7 +52,27 @@ import static org.hamcrest.core.Is.is;
         "keycloak.http-proxy=http://localhost:8080",
         "keycloak.availability-check.enabled=true",
         "keycloak.availability-check.timeout=60s",
-        "keycloak.availability-check.retry-delay=10s"
+        "keycloak.availability-check.retry-delay=10s",
+        "keycloak.token-refresh.enabled=false",
+        "keycloak.token-refresh.min-validity=10s",
+        "keycloak.http-client.pool-size=20",
+        "keycloak.http-client.max-per-route=15",
+        "keycloak.http-client.connect-timeout=1s",
+        "keycloak.http-client.read-timeout=2s",
+        "keycloak.http-client.connection-request-timeout=3s",
+        "keycloak.http-client.keep-alive=4s",
+        "keycloak.http-client.connection-ttl=5m",
+        "keycloak.http-client.idle-timeout=6s",
+        "keycloak.retry.enabled=false",
+        "keycloak.retry.max-retries=5",
+        "keycloak.retry.delay=1s",
+        "keycloak.retry.max-delay=10s",
+        "keycloak.concurrency-limit.enabled=true",
+        "keycloak.concurrency-limit.initial-limit=2",
+        "keycloak.concurrency-limit.min-limit=2",
+        "keycloak.concurrency-limit.max-limit=20",
+        "keycloak.concurrency-limit.backoff-ratio=0.5",
+        "keycloak.concurrency-limit.latency-threshold=1s"
 })
 class KeycloakConfigPropertiesTest {
 
@@ -71,6 +91,26 @@ class KeycloakConfigPropertiesTest {
         assertThat(properties.getAvailabilityCheck().isEnabled(), is(true));
         assertThat(properties.getAvailabilityCheck().getTimeout(), is(Duration.ofSeconds(60L)));
         assertThat(properties.getAvailabilityCheck().getRetryDelay(), is(Duration.ofSeconds(10L)));
+        assertThat(properties.getTokenRefresh().isEnabled(), is(false));
+        assertThat(properties.getTokenRefresh().getMinValidity(), is(Duration.ofSeconds(10L)));
+        assertThat(properties.getHttpClient().getPoolSize(), is(20));
+        assertThat(properties.getHttpClient().getMaxPerRoute(), is(15));
+        assertThat(properties.getHttpClient().getConnectTimeout(), is(Duration.ofSeconds(1L)));
+        assertThat(properties.getHttpClient().getReadTimeout(), is(Duration.ofSeconds(2L)));
+        assertThat(properties.getHttpClient().getConnectionRequestTimeout(), is(Duration.ofSeconds(3L)));
+        assertThat(properties.getHttpClient().getKeepAlive(), is(Duration.ofSeconds(4L)));
+        assertThat(properties.getHttpClient().getConnectionTtl(), is(Duration.ofMinutes(5L)));
+        assertThat(properties.getHttpClient().getIdleTimeout(), is(Duration.ofSeconds(6L)));
+        assertThat(properties.getRetry().isEnabled(), is(false));
+        assertThat(properties.getRetry().getMaxRetries(), is(5));
+        assertThat(properties.getRetry().getDelay(), is(Duration.ofSeconds(1L)));
+        assertThat(properties.getRetry().getMaxDelay(), is(Duration.ofSeconds(10L)));
+        assertThat(properties.getConcurrencyLimit().isEnabled(), is(true));
+        assertThat(properties.getConcurrencyLimit().getInitialLimit(), is(2));
+        assertThat(properties.getConcurrencyLimit().getMinLimit(), is(2));
+        assertThat(properties.getConcurrencyLimit().getMaxLimit(), is(20));
+        assertThat(properties.getConcurrencyLimit().getBackoffRatio(), is(0.5));
+        assertThat(properties.getConcurrencyLimit().getLatencyThreshold(), is(Duration.ofSeconds(1L)));
     }
 
     @EnableConfigurationProperties(KeycloakConfigProperties.class)
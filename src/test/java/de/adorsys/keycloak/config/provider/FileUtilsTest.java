@@ -34,6 +34,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Collection;
+import java.util.Map;
 import java.util.function.Predicate;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -83,6 +84,20 @@ class FileUtilsTest {
         Assertions.assertTrue(files.stream().anyMatch(evilNamePredicate));
     }
 
+    @Test
+    void shouldIdentifyZipEntriesByLocation() throws Exception {
+        // Given
+        File zip = new ClassPathResource("/import-files/import-zip/realm-import.zip").getFile();
+
+        // When
+        Map<String, File> files = FileUtils.extractFile(zip, "https://example.com/realm-import.zip");
+
+        // Then
+        Assertions.assertEquals(6, files.size());
+        Assertions.assertTrue(files.containsKey("https://example.com/realm-import.zip!/realm-import/0_create_realm.json"));
+        Assertions.assertTrue(files.keySet().stream().allMatch(location -> location.startsWith("https://example.com/realm-import.zip!/")));
+    }
+
     @Test
     void shouldThrowInvalidZip() throws Exception {
         // Given
@@ -0,0 +1,217 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.exception.InvalidImportException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@SpringBootTest(classes = {ImportManifestTest.TestConfiguration.class})
+@TestPropertySource(properties = {
+        "spring.main.log-startup-info=false",
+        "import.incremental=true",
+        "import.manifest-path=${java.io.tmpdir}/keycloak-config-cli-import-manifest-test.json",
+})
+class ImportManifestTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private ImportConfigProperties importConfigProperties;
+
+    @TempDir
+    Path importDirectory;
+
+    @BeforeEach
+    void deleteManifest() throws IOException {
+        Files.deleteIfExists(getManifestFile());
+    }
+
+    @Test
+    void shouldSkipUnchangedEntriesOfZipFile() throws IOException {
+        String zipFile = new ClassPathResource("import-files/import-zip/realm-import.zip").getFile().getAbsolutePath();
+
+        ImportManifest importManifest = new ImportManifest(importConfigProperties);
+        assertThat(readFromPath(importManifest, zipFile), is(6));
+        importManifest.save();
+
+        // the entries are extracted to new temp files in every run
+        assertThat(readFromPath(new ImportManifest(importConfigProperties), zipFile), is(0));
+        assertThat(readManifest().keySet(), everyItem(startsWith(zipFile + "!/realm-import/")));
+    }
+
+    @Test
+    void shouldImportChangedFile() throws IOException {
+        Path importFile = writeImportFile("0_create_realm.json", "{\"realm\": \"realm\"}");
+
+        ImportManifest importManifest = new ImportManifest(importConfigProperties);
+        assertThat(readFromPath(importManifest, importDirectory.toString()), is(1));
+        importManifest.save();
+
+        assertThat(readFromPath(new ImportManifest(importConfigProperties), importDirectory.toString()), is(0));
+
+        writeImportFile("0_create_realm.json", "{\"realm\": \"realm\", \"enabled\": true}");
+        assertThat(readFromPath(new ImportManifest(importConfigProperties), importDirectory.toString()), is(1));
+        assertThat(readManifest(), hasKey(importFile.toAbsolutePath().toString()));
+    }
+
+    @Test
+    void shouldRemoveDeletedFileFromManifest() throws IOException {
+        writeImportFile("0_create_realm.json", "{\"realm\": \"realm\"}");
+        Path deletedFile = writeImportFile("1_create_realm.json", "{\"realm\": \"other-realm\"}");
+
+        ImportManifest importManifest = new ImportManifest(importConfigProperties);
+        readFromPath(importManifest, importDirectory.toString());
+        importManifest.save();
+
+        Files.delete(deletedFile);
+
+        importManifest = new ImportManifest(importConfigProperties);
+        readFromPath(importManifest, importDirectory.toString());
+        importManifest.save();
+
+        assertThat(readManifest(), aMapWithSize(1));
+        assertThat(readManifest(), not(hasKey(deletedFile.toAbsolutePath().toString())));
+    }
+
+    @Test
+    void shouldRemoveDeletedEntryOfZipFile() throws IOException {
+        String zipFile = new ClassPathResource("import-files/import-zip/realm-import.zip").getFile().getAbsolutePath();
+
+        ImportManifest importManifest = new ImportManifest(importConfigProperties);
+        importManifest.record(zipFile + "!/realm.json", "checksum");
+        importManifest.record(zipFile + "!/deleted-realm.json", "checksum");
+        importManifest.save();
+
+        importManifest = new ImportManifest(importConfigProperties);
+        importManifest.record(zipFile + "!/realm.json", "checksum");
+        importManifest.save();
+
+        assertThat(readManifest(), aMapWithSize(1));
+        assertThat(readManifest(), hasKey(zipFile + "!/realm.json"));
+    }
+
+    @Test
+    void shouldKeepRemoteFiles() throws IOException {
+        String url = "https://example.com/realm.json";
+
+        ImportManifest importManifest = new ImportManifest(importConfigProperties);
+        assertThat(importManifest.isUnchanged(url, "checksum"), is(false));
+        importManifest.record(url, "checksum");
+        importManifest.save();
+
+        importManifest = new ImportManifest(importConfigProperties);
+        importManifest.save();
+
+        assertThat(readManifest(), hasKey(url));
+        assertThat(new ImportManifest(importConfigProperties).isUnchanged(url, "checksum"), is(true));
+    }
+
+    @Test
+    void shouldNotSaveDiscardedChecksums() throws IOException {
+        Path importFile = writeImportFile("0_create_realm.json", "{\"realm\": \"realm\"}");
+
+        ImportManifest importManifest = new ImportManifest(importConfigProperties);
+        assertThat(readFromPath(importManifest, importDirectory.toString()), is(1));
+        // the import failed
+        importManifest.discard();
+        importManifest.save();
+
+        assertThat(readManifest(), not(hasKey(importFile.toAbsolutePath().toString())));
+        assertThat(readFromPath(new ImportManifest(importConfigProperties), importDirectory.toString()), is(1));
+    }
+
+    @Test
+    void shouldNotRecordInvalidFile() throws IOException {
+        writeImportFile("0_create_realm.json", "{\"realm\": \"realm\"}");
+        Path invalidFile = writeImportFile("1_create_realm.json", "{\"realm\": ");
+
+        ImportManifest importManifest = new ImportManifest(importConfigProperties);
+        KeycloakImportProvider keycloakImportProvider = createKeycloakImportProvider(importManifest);
+
+        assertThrows(InvalidImportException.class, () -> keycloakImportProvider.readRealmImportFromFile(invalidFile.toFile()));
+        importManifest.save();
+
+        assertThat(readManifest(), not(hasKey(invalidFile.toAbsolutePath().toString())));
+    }
+
+    private int readFromPath(ImportManifest importManifest, String path) {
+        return createKeycloakImportProvider(importManifest).readFromPath(path).getRealmImports().size();
+    }
+
+    private KeycloakImportProvider createKeycloakImportProvider(ImportManifest importManifest) {
+        return new KeycloakImportProvider(
+                new DefaultResourceLoader(),
+                Arrays.asList(new FileResourceExtractor(), new DirectoryResourceExtractor(), new UrlResourceExtractor()),
+                importConfigProperties,
+                importManifest
+        );
+    }
+
+    private Path writeImportFile(String name, String content) throws IOException {
+        return Files.write(importDirectory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, String> readManifest() throws IOException {
+        return OBJECT_MAPPER.readValue(getManifestFile().toFile(), new TypeReference<Map<String, String>>() {
+        });
+    }
+
+    private Path getManifestFile() {
+        return Paths.get(importConfigProperties.getManifestPath());
+    }
+
+    @EnableConfigurationProperties(ImportConfigProperties.class)
+    public static class TestConfiguration {
+        // nothing
+    }
+}
@@ -0,0 +1,57 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class KeycloakProviderTest {
+    @Test
+    void shouldRefreshTokenBeforeMinValidity() {
+        assertThat(KeycloakProvider.getTokenRefreshDelay(300, 30), is(270L));
+    }
+
+    @Test
+    void shouldRefreshShortLivedTokenAfterHalfOfItsLifetime() {
+        assertThat(KeycloakProvider.getTokenRefreshDelay(20, 30), is(10L));
+        assertThat(KeycloakProvider.getTokenRefreshDelay(1, 30), is(1L));
+    }
+
+    @Test
+    void shouldDoubleRetryDelayAfterEveryFailure() {
+        assertThat(KeycloakProvider.getTokenRefreshRetryDelay(2000, 30000, 1), is(2000L));
+        assertThat(KeycloakProvider.getTokenRefreshRetryDelay(2000, 30000, 2), is(4000L));
+        assertThat(KeycloakProvider.getTokenRefreshRetryDelay(2000, 30000, 4), is(16000L));
+    }
+
+    @Test
+    void shouldLimitRetryDelay() {
+        assertThat(KeycloakProvider.getTokenRefreshRetryDelay(2000, 30000, 5), is(30000L));
+        assertThat(KeycloakProvider.getTokenRefreshRetryDelay(2000, 30000, 1000), is(30000L));
+        // the retry delay is never shortened by a smaller min validity
+        assertThat(KeycloakProvider.getTokenRefreshRetryDelay(2000, 1000, 3), is(2000L));
+    }
+}
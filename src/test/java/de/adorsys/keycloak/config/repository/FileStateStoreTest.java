@@ -0,0 +1,119 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.repository;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@SpringBootTest(classes = {FileStateStoreTest.TestConfiguration.class})
+@TestPropertySource(properties = {
+        "spring.main.log-startup-info=false",
+        "import.state-store=file",
+        "import.state-store-path=${java.io.tmpdir}/keycloak-config-cli-file-state-store-test",
+})
+class FileStateStoreTest {
+    private static final String REALM_NAME = "realm";
+
+    @Autowired
+    private FileStateStore stateStore;
+
+    @Value("${import.state-store-path}")
+    private File stateStorePath;
+
+    @BeforeEach
+    void clear() throws IOException {
+        FileUtils.deleteDirectory(stateStorePath);
+    }
+
+    @Test
+    void shouldReadEmptyStateIfFileIsMissing() {
+        assertThat(stateStore.read(REALM_NAME), aMapWithSize(0));
+    }
+
+    @Test
+    void shouldWriteAndReadState() {
+        Map<String, String> state = new HashMap<>();
+        state.put("de.adorsys.keycloak.config.state-default-clients-0", "[\"client\"]");
+        state.put("de.adorsys.keycloak.config.state-default-clients-count", "1");
+
+        stateStore.write(REALM_NAME, state);
+
+        assertThat(stateStore.read(REALM_NAME), is(state));
+        assertThat(stateStorePath.list(), arrayContaining(REALM_NAME + ".json"));
+    }
+
+    @Test
+    void shouldReplaceState() {
+        Map<String, String> state = new HashMap<>();
+        state.put("de.adorsys.keycloak.config.state-default-clients-0", "[\"client\",");
+        state.put("de.adorsys.keycloak.config.state-default-clients-1", "\"other-client\"]");
+        stateStore.write(REALM_NAME, state);
+
+        Map<String, String> shorterState = new HashMap<>();
+        shorterState.put("de.adorsys.keycloak.config.state-default-clients-0", "[\"client\"]");
+        stateStore.write(REALM_NAME, shorterState);
+
+        Map<String, String> storedState = stateStore.read(REALM_NAME);
+        assertThat(storedState, aMapWithSize(1));
+        assertThat(storedState, hasEntry("de.adorsys.keycloak.config.state-default-clients-0", "[\"client\"]"));
+    }
+
+    @Test
+    void shouldFailOnInvalidStateFile() throws IOException {
+        FileUtils.writeStringToFile(new File(stateStorePath, REALM_NAME + ".json"), "{", StandardCharsets.UTF_8);
+
+        ImportProcessingException exception = assertThrows(ImportProcessingException.class, () -> stateStore.read(REALM_NAME));
+        assertThat(exception.getMessage(), is("Cannot read state file '" + new File(stateStorePath, REALM_NAME + ".json") + "'"));
+    }
+
+    @EnableConfigurationProperties(ImportConfigProperties.class)
+    @Import(FileStateStore.class)
+    public static class TestConfiguration {
+        // nothing
+    }
+}
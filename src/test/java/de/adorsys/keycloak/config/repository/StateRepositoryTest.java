@@ -0,0 +1,183 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.repository;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@SpringBootTest(classes = {StateRepositoryTest.TestConfiguration.class})
+@TestPropertySource(properties = {
+        "spring.main.log-startup-info=false",
+        "import.cache-key=default",
+        "import.state-compression=false",
+})
+class StateRepositoryTest {
+    private static final String REALM_NAME = "realm";
+    private static final String STATE_KEY = "de.adorsys.keycloak.config.state-default-";
+
+    @Autowired
+    private StateRepository stateRepository;
+
+    @Autowired
+    private InMemoryStateStore stateStore;
+
+    @BeforeEach
+    void clear() {
+        stateStore.attributes.clear();
+    }
+
+    @Test
+    void shouldSplitLongStateIntoChunks() {
+        List<Object> clients = longState("client");
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        stateRepository.setState("clients", clients);
+        stateRepository.update(realmImport());
+
+        assertThat(stateStore.attributes, hasEntry(STATE_KEY + "clients-count", "3"));
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        assertThat(stateRepository.getState("clients"), is(clients));
+    }
+
+    @Test
+    void shouldIgnoreLeftOverChunksOfLongerState() {
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        stateRepository.setState("clients", longState("client"));
+        stateRepository.update(realmImport());
+        Map<String, String> longerState = new HashMap<>(stateStore.attributes);
+
+        stateRepository.setState("clients", Collections.singletonList("client"));
+        stateRepository.update(realmImport());
+
+        // a store which does not remove attributes keeps the chunks 1 and 2 of the longer state
+        longerState.putAll(stateStore.attributes);
+        stateStore.attributes.putAll(longerState);
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        assertThat(stateRepository.getState("clients"), contains("client"));
+    }
+
+    @Test
+    void shouldReadStateWithoutChunkCount() {
+        stateStore.attributes.put(STATE_KEY + "clients-0", "[\"client-a\",");
+        stateStore.attributes.put(STATE_KEY + "clients-1", "\"client-b\"]");
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        assertThat(stateRepository.getState("clients"), contains("client-a", "client-b"));
+    }
+
+    @Test
+    void shouldIndexStateByEntity() {
+        stateStore.attributes.put(STATE_KEY + "roles-client-my-client-0", "[\"role\"]");
+        stateStore.attributes.put(STATE_KEY + "roles-client-my-client-count", "1");
+        stateStore.attributes.put(STATE_KEY + "roles-client-my-client-2-0", "[\"other-role\"]");
+        stateStore.attributes.put("de.adorsys.keycloak.config.state-other-roles-client-my-client-0", "[\"other-cache-key\"]");
+        stateStore.attributes.put(STATE_KEY + "roles-client-my-client-x", "[\"no-chunk\"]");
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        assertThat(stateRepository.getState("roles-client-my-client"), contains("role"));
+        assertThat(stateRepository.getState("roles-client-my-client-2"), contains("other-role"));
+        assertThat(stateRepository.getState("clients"), is(empty()));
+    }
+
+    @Test
+    void shouldSkipUnchangedState() {
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        stateRepository.setState("clients", Arrays.asList("client-a", "client-b"));
+        assertThat(stateRepository.update(realmImport()), is(true));
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        stateRepository.setState("clients", Arrays.asList("client-a", "client-b"));
+        assertThat(stateRepository.update(realmImport()), is(false));
+    }
+
+    private static List<Object> longState(String prefix) {
+        // about 600 characters of JSON, which are 3 chunks of 250 characters
+        return IntStream.range(0, 50)
+                .mapToObj(index -> prefix + "-" + index)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static RealmImport realmImport() {
+        RealmImport realmImport = new RealmImport();
+        realmImport.setRealm(REALM_NAME);
+        return realmImport;
+    }
+
+    static class InMemoryStateStore implements StateStore {
+        private final Map<String, String> attributes = new HashMap<>();
+
+        @Override
+        public Map<String, String> read(String realmName) {
+            return new HashMap<>(attributes);
+        }
+
+        @Override
+        public void write(String realmName, Map<String, String> stateAttributes) {
+            attributes.clear();
+            attributes.putAll(stateAttributes);
+        }
+
+        @Override
+        public void preserve(RealmRepresentation realm, Map<String, String> stateAttributes) {
+            // nothing
+        }
+    }
+
+    @EnableConfigurationProperties(ImportConfigProperties.class)
+    @Import(StateRepository.class)
+    public static class TestConfiguration {
+        @Bean
+        public InMemoryStateStore stateStore() {
+            return new InMemoryStateStore();
+        }
+    }
+}
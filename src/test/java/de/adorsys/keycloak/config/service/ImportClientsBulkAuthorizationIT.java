@@ -0,0 +1,191 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service;
+
+import de.adorsys.keycloak.config.AbstractImportTest;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.keycloak.representations.idm.authorization.DecisionStrategy;
+import org.keycloak.representations.idm.authorization.PolicyEnforcementMode;
+import org.keycloak.representations.idm.authorization.PolicyRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceServerRepresentation;
+import org.keycloak.representations.idm.authorization.ScopeRepresentation;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.core.Is.is;
+
+@TestPropertySource(properties = {
+        "import.force=true",
+        "import.authorization-bulk-threshold=1",
+})
+class ImportClientsBulkAuthorizationIT extends AbstractImportTest {
+    private static final String REALM_NAME = "realmWithBulkAuthorization";
+
+    ImportClientsBulkAuthorizationIT() {
+        this.resourcePath = "import-files/clients-bulk-authorization";
+    }
+
+    @Test
+    @Order(0)
+    void shouldCreateRealmWithAuthorization() throws IOException {
+        doImport("0_create_realm__with_authorization.json");
+
+        ResourceServerRepresentation authorizationSettings = getAuthorizationSettings();
+        assertThat(authorizationSettings.getDecisionStrategy(), is(DecisionStrategy.UNANIMOUS));
+        assertThat(getResourceNames(authorizationSettings), containsInAnyOrder(
+                "Admin Resource", "Protected Resource", "Main Page"
+        ));
+        assertThat(getScopeNames(authorizationSettings), containsInAnyOrder(
+                "urn:servlet-authz:protected:admin:access",
+                "urn:servlet-authz:protected:resource:access",
+                "urn:servlet-authz:page:main:actionForAdmin",
+                "urn:servlet-authz:page:main:actionForUser"
+        ));
+        assertThat(getPolicyNames(authorizationSettings), containsInAnyOrder(
+                "Any Admin Policy",
+                "Any User Policy",
+                "All Users Policy",
+                "Administrative Resource Permission",
+                "User Action Scope Permission",
+                "Administrator Action Scope Permission",
+                "Protected Resource Permission"
+        ));
+    }
+
+    @Test
+    @Order(1)
+    void shouldUpdateAuthorization() throws IOException {
+        doImport("1_update_realm__update_authorization.json");
+
+        ResourceServerRepresentation authorizationSettings = getAuthorizationSettings();
+        assertThat(authorizationSettings.getPolicyEnforcementMode(), is(PolicyEnforcementMode.PERMISSIVE));
+        assertThat(getResourceNames(authorizationSettings), containsInAnyOrder(
+                "Admin Resource", "Protected Resource", "Premium Resource", "Main Page"
+        ));
+        assertThat(getScopeNames(authorizationSettings), containsInAnyOrder(
+                "urn:servlet-authz:protected:admin:access",
+                "urn:servlet-authz:protected:resource:access",
+                "urn:servlet-authz:protected:premium:access",
+                "urn:servlet-authz:page:main:actionForPremiumUser",
+                "urn:servlet-authz:page:main:actionForAdmin",
+                "urn:servlet-authz:page:main:actionForUser"
+        ));
+        assertThat(getPolicyNames(authorizationSettings), containsInAnyOrder(
+                "Any Admin Policy",
+                "Any User Policy",
+                "Only Premium User Policy",
+                "All Users Policy",
+                "Administrative Resource Permission",
+                "Premium User Scope Permission",
+                "User Action Scope Permission",
+                "Administrator Action Scope Permission",
+                "Protected Resource Permission"
+        ));
+    }
+
+    @Test
+    @Order(2)
+    void shouldRemoveAuthorization() throws IOException {
+        doImport("2_update_realm__remove_authorization.json");
+
+        ResourceServerRepresentation authorizationSettings = getAuthorizationSettings();
+        assertThat(getResourceNames(authorizationSettings), containsInAnyOrder(
+                "Admin Resource", "Premium Resource", "Main Page"
+        ));
+        assertThat(getScopeNames(authorizationSettings), containsInAnyOrder(
+                "urn:servlet-authz:protected:admin:access",
+                "urn:servlet-authz:protected:premium:access",
+                "urn:servlet-authz:page:main:actionForPremiumUser",
+                "urn:servlet-authz:page:main:actionForAdmin"
+        ));
+        assertThat(getPolicyNames(authorizationSettings), containsInAnyOrder(
+                "Any Admin Policy",
+                "Only Premium User Policy",
+                "All Users Policy",
+                "Administrative Resource Permission",
+                "Premium User Scope Permission",
+                "Administrator Action Scope Permission"
+        ));
+    }
+
+    @Test
+    @Order(3)
+    void shouldImportAuthorizationOneByOneOnDuplicateResourceNames() throws IOException {
+        RealmResource realm = keycloakProvider.getInstance().realm(REALM_NAME);
+
+        UserRepresentation owner = new UserRepresentation();
+        owner.setUsername("resource-owner");
+        owner.setEnabled(true);
+        realm.users().create(owner).close();
+
+        // resource names are unique per owner only
+        ResourceRepresentation userResource = new ResourceRepresentation("Main Page");
+        userResource.setOwner(realm.users().search("resource-owner", true).get(0).getId());
+        userResource.setOwnerManagedAccess(true);
+        String clientId = realm.clients().findByClientId("auth-moped-client").get(0).getId();
+        realm.clients().get(clientId).authorization().resources().create(userResource).close();
+
+        doImport("1_update_realm__update_authorization.json");
+
+        ResourceServerRepresentation authorizationSettings = getAuthorizationSettings();
+        assertThat(getResourceNames(authorizationSettings), containsInAnyOrder(
+                "Admin Resource", "Protected Resource", "Premium Resource", "Main Page", "Main Page"
+        ));
+        assertThat(getPolicyNames(authorizationSettings), hasItem("Protected Resource Permission"));
+    }
+
+    private ResourceServerRepresentation getAuthorizationSettings() {
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).partialExport(false, true);
+
+        ClientRepresentation client = realm.getClients()
+                .stream()
+                .filter(c -> Objects.equals(c.getClientId(), "auth-moped-client"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("client auth-moped-client not found"));
+
+        return client.getAuthorizationSettings();
+    }
+
+    private static List<String> getResourceNames(ResourceServerRepresentation authorizationSettings) {
+        return authorizationSettings.getResources().stream().map(ResourceRepresentation::getName).collect(Collectors.toList());
+    }
+
+    private static List<String> getScopeNames(ResourceServerRepresentation authorizationSettings) {
+        return authorizationSettings.getScopes().stream().map(ScopeRepresentation::getName).collect(Collectors.toList());
+    }
+
+    private static List<String> getPolicyNames(ResourceServerRepresentation authorizationSettings) {
+        return authorizationSettings.getPolicies().stream().map(PolicyRepresentation::getName).collect(Collectors.toList());
+    }
+}
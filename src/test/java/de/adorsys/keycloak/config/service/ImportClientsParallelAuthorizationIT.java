@@ -0,0 +1,110 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service;
+
+import de.adorsys.keycloak.config.AbstractImportTest;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.authorization.PolicyRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceRepresentation;
+import org.keycloak.representations.idm.authorization.ResourceServerRepresentation;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItems;
+
+@TestPropertySource(properties = {
+        "import.force=true",
+        "import.parallel=true",
+})
+class ImportClientsParallelAuthorizationIT extends AbstractImportTest {
+    private static final String REALM_NAME = "realmWithParallelAuthorization";
+
+    ImportClientsParallelAuthorizationIT() {
+        this.resourcePath = "import-files/clients-parallel-authorization";
+    }
+
+    @Test
+    @Order(0)
+    void shouldCreateClientsWithAuthorization() throws IOException {
+        doImport("0_create_realm.json");
+
+        Map<String, ResourceServerRepresentation> authorizationSettings = getAuthorizationSettings();
+        assertThat(authorizationSettings.keySet(), containsInAnyOrder("auth-client-1", "auth-client-2", "auth-client-3", "auth-client-4"));
+
+        for (ResourceServerRepresentation clientAuthorizationSettings : authorizationSettings.values()) {
+            assertThat(getResourceNames(clientAuthorizationSettings), containsInAnyOrder(
+                    "Admin Resource", "Protected Resource", "Main Page"
+            ));
+        }
+    }
+
+    @Test
+    @Order(1)
+    void shouldUpdateAndCreateClientsWithAuthorization() throws IOException {
+        doImport("1_update_realm.json");
+
+        Map<String, ResourceServerRepresentation> authorizationSettings = getAuthorizationSettings();
+        assertThat(authorizationSettings.keySet(), containsInAnyOrder(
+                "auth-client-1", "auth-client-2", "auth-client-3", "auth-client-4", "auth-client-5"
+        ));
+
+        for (Map.Entry<String, ResourceServerRepresentation> client : authorizationSettings.entrySet()) {
+            if (client.getKey().equals("auth-client-5")) {
+                assertThat(getResourceNames(client.getValue()), containsInAnyOrder(
+                        "Admin Resource", "Protected Resource", "Main Page"
+                ));
+            } else {
+                assertThat(getResourceNames(client.getValue()), containsInAnyOrder(
+                        "Admin Resource", "Protected Resource", "Premium Resource", "Main Page"
+                ));
+                assertThat(getPolicyNames(client.getValue()), hasItems(
+                        "Only Premium User Policy", "Premium User Scope Permission"
+                ));
+            }
+        }
+    }
+
+    private Map<String, ResourceServerRepresentation> getAuthorizationSettings() {
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).partialExport(false, true);
+
+        return realm.getClients()
+                .stream()
+                .filter(client -> client.getClientId().startsWith("auth-client-"))
+                .collect(Collectors.toMap(ClientRepresentation::getClientId, ClientRepresentation::getAuthorizationSettings));
+    }
+
+    private static List<String> getResourceNames(ResourceServerRepresentation authorizationSettings) {
+        return authorizationSettings.getResources().stream().map(ResourceRepresentation::getName).collect(Collectors.toList());
+    }
+
+    private static List<String> getPolicyNames(ResourceServerRepresentation authorizationSettings) {
+        return authorizationSettings.getPolicies().stream().map(PolicyRepresentation::getName).collect(Collectors.toList());
+    }
+}
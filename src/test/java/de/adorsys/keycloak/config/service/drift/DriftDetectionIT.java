@@ -0,0 +1,197 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.drift;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.service.RealmImportService;
+import de.adorsys.keycloak.config.service.instrumentation.ImportInstrumentation;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak;
+import de.adorsys.keycloak.config.test.util.HttpCallRecorder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.resource.ClientsResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Every test starts a new drift detection, like a restart of keycloak-config-cli, which reads the fingerprints of the previous one.
+ */
+@ActiveProfiles("IT")
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestPropertySource(properties = {
+        "import.drift-detection=true",
+        "import.drift-detection-path=${java.io.tmpdir}/keycloak-config-cli-drift-detection-it/fingerprints.json",
+})
+class DriftDetectionIT {
+    private static final FakeKeycloak FAKE_KEYCLOAK = new FakeKeycloak();
+    private static final String REALM_NAME = "realmWithDriftDetection";
+
+    @Autowired
+    public KeycloakImportProvider keycloakImportProvider;
+    @Autowired
+    public RealmImportService realmImportService;
+    @Autowired
+    public RealmRepository realmRepository;
+    @Autowired
+    public ImportInstrumentation importInstrumentation;
+    @Autowired
+    public ImportConfigProperties importConfigProperties;
+    @Autowired
+    public KeycloakProvider keycloakProvider;
+
+    @DynamicPropertySource
+    static void keycloakProperties(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.url", FAKE_KEYCLOAK::getUrl);
+    }
+
+    @AfterAll
+    static void stop() {
+        FAKE_KEYCLOAK.close();
+    }
+
+    @BeforeEach
+    void reset() throws IOException {
+        FAKE_KEYCLOAK.reset();
+        Files.deleteIfExists(Paths.get(importConfigProperties.getDriftDetectionPath()));
+    }
+
+    @Test
+    void shouldReconcileDriftedSection() throws IOException {
+        RealmImport realmImport = getRealmImport();
+        DriftDetectionService driftDetectionService = startDriftDetection(realmImport);
+
+        try (HttpCallRecorder recorder = HttpCallRecorder.record(keycloakProvider)) {
+            driftDetectionService.detect();
+            assertThat(recorder.toString(), recorder.countWrites(), is(0L));
+
+            changeClientDescription("changed in keycloak");
+            recorder.reset();
+
+            driftDetectionService.detect();
+            assertThat(recorder.toString(), recorder.countWrites(), greaterThan(0L));
+            assertThat(getClient().getDescription(), is("imported"));
+
+            recorder.reset();
+
+            driftDetectionService.detect();
+            assertThat(recorder.toString(), recorder.countWrites(), is(0L));
+        }
+    }
+
+    @Test
+    void shouldDetectDriftWhileNotRunning() throws IOException {
+        RealmImport realmImport = getRealmImport();
+        startDriftDetection(realmImport);
+
+        changeClientDescription("changed in keycloak");
+
+        // the import of the unchanged realm is skipped after the restart
+        DriftDetectionService driftDetectionService = startDriftDetection(realmImport);
+        assertThat(getClient().getDescription(), is("changed in keycloak"));
+
+        driftDetectionService.detect();
+        assertThat(getClient().getDescription(), is("imported"));
+    }
+
+    @Test
+    void shouldTakeFingerprintsOfRecreatedRealm() throws IOException {
+        RealmImport realmImport = getRealmImport();
+        startDriftDetection(realmImport);
+
+        FAKE_KEYCLOAK.reset();
+
+        // the realm is created with new ids, the fingerprints of the deleted realm are not compared
+        DriftDetectionService driftDetectionService = startDriftDetection(realmImport);
+
+        try (HttpCallRecorder recorder = HttpCallRecorder.record(keycloakProvider)) {
+            driftDetectionService.detect();
+            assertThat(recorder.toString(), recorder.countWrites(), is(0L));
+        }
+    }
+
+    private DriftDetectionService startDriftDetection(RealmImport realmImport) {
+        DriftDetectionService driftDetectionService = new DriftDetectionService(
+                realmRepository,
+                realmImportService,
+                importConfigProperties,
+                importInstrumentation
+        );
+
+        boolean imported = realmImportService.doImport(realmImport);
+        driftDetectionService.record(realmImport, imported);
+
+        return driftDetectionService;
+    }
+
+    private void changeClientDescription(String description) {
+        ClientRepresentation client = getClient();
+        client.setDescription(description);
+
+        getClients().get(client.getId()).update(client);
+    }
+
+    private ClientRepresentation getClient() {
+        return getClients().findByClientId("client-a").get(0);
+    }
+
+    private ClientsResource getClients() {
+        return keycloakProvider.getInstance().realm(REALM_NAME).clients();
+    }
+
+    private RealmImport getRealmImport() throws IOException {
+        File realmImportFile = new ClassPathResource("import-files/drift-detection/0_create_realm.json").getFile();
+
+        return keycloakImportProvider
+                .readRealmImportFromFile(realmImportFile)
+                .getRealmImports()
+                .get(realmImportFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,109 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import de.adorsys.keycloak.config.configuration.TestConfiguration;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.util.resteasy.HttpCall;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static de.adorsys.keycloak.config.service.instrumentation.MetricsService.PREFIX;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@ContextConfiguration(
+        classes = {TestConfiguration.class},
+        initializers = {ConfigDataApplicationContextInitializer.class}
+)
+@TestPropertySource(properties = {
+        "spring.main.log-startup-info=false",
+        "keycloak.url=http://localhost:8080",
+})
+class MetricsServiceTest {
+    @Autowired
+    private MetricsService metricsService;
+
+    private static HttpCall call(String method, String endpoint, int status, String stage) {
+        HttpCall call = new HttpCall(method, endpoint, endpoint, "metrics", status, TimeUnit.MILLISECONDS.toNanos(5), 0);
+        call.setStage(stage);
+        return call;
+    }
+
+    @Test
+    void shouldRecordRealmAndStageDurations() {
+        metricsService.onRealmEnd("metrics", TimeUnit.MILLISECONDS.toNanos(20), true);
+        metricsService.onStageEnd("metrics", "durations", TimeUnit.MILLISECONDS.toNanos(10), false);
+
+        PrometheusMeterRegistry registry = metricsService.getRegistry();
+
+        assertThat(registry.get(PREFIX + "realm").tag("realm", "metrics").tag("outcome", "success").timer().count(), is(1L));
+        assertThat(registry.get(PREFIX + "stage").tag("stage", "durations").tag("outcome", "failure").timer().count(), is(1L));
+    }
+
+    @Test
+    void shouldCountSuccessfulWritesAsEntityOperations() {
+        metricsService.onHttpCall(call("POST", "/admin/realms/{realm}/clients", 201, "writes"));
+        metricsService.onHttpCall(call("PUT", "/admin/realms/{realm}/clients/{id}", 204, "writes"));
+        metricsService.onHttpCall(call("POST", "/admin/realms/{realm}/clients", 409, "writes"));
+        metricsService.onHttpCall(call("GET", "/admin/realms/{realm}/clients", 200, "writes"));
+
+        PrometheusMeterRegistry registry = metricsService.getRegistry();
+
+        assertThat(registry.get(PREFIX + "entities").tag("stage", "writes").tag("operation", "created").counter().count(), is(1.0));
+        assertThat(registry.get(PREFIX + "entities").tag("stage", "writes").tag("operation", "updated").counter().count(), is(1.0));
+        assertThat(registry.find(PREFIX + "entities").tag("stage", "writes").tag("operation", "deleted").counters(), is(empty()));
+        assertThat(registry.get(PREFIX + "http.requests").tag("stage", "writes").timers().size(), is(3));
+    }
+
+    @Test
+    void shouldCountProcessedAndSkippedEntities() {
+        metricsService.onEntities("metrics", "checksums", "clients", 5, 3);
+
+        PrometheusMeterRegistry registry = metricsService.getRegistry();
+
+        assertThat(registry.get(PREFIX + "entities").tag("stage", "checksums").tag("operation", "processed").counter().count(), is(5.0));
+        assertThat(registry.get(PREFIX + "entities").tag("stage", "checksums").tag("operation", "skipped").counter().count(), is(3.0));
+    }
+
+    @Test
+    void shouldExportTokenRefreshes() {
+        String scrape = metricsService.getRegistry().scrape();
+
+        assertThat(scrape, containsString("keycloak_config_cli_token_refreshes_total"));
+        assertThat(scrape, containsString("keycloak_config_cli_token_refresh_failures_total"));
+        assertThat(scrape, containsString("keycloak_config_cli_token_refresh_seconds_count"));
+        assertThat(scrape, containsString("keycloak_config_cli_token_refresh_seconds_sum"));
+        assertThat(scrape, containsString("keycloak_config_cli_token_refresh_max_seconds"));
+    }
+}
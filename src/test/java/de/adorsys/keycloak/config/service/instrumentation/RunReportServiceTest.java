@@ -0,0 +1,141 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.instrumentation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@SpringBootTest(classes = {RunReportServiceTest.TestConfiguration.class})
+@TestPropertySource(properties = {
+        "spring.main.log-startup-info=false",
+        "keycloak.url=http://localhost:8080",
+        "import.report-path=${java.io.tmpdir}/keycloak-config-cli-run-report-test/report.json",
+})
+class RunReportServiceTest {
+    @Autowired
+    private ImportInstrumentation importInstrumentation;
+
+    @Autowired
+    private ImportConfigProperties importConfigProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void deleteReport() throws IOException {
+        Files.deleteIfExists(Paths.get(importConfigProperties.getReportPath()));
+    }
+
+    @Test
+    void shouldReportSlowestEntities() throws IOException {
+        importInstrumentation.run(() -> importInstrumentation.realm("realm", () -> importInstrumentation.stage("clients", () -> {
+            importInstrumentation.entity("clients", "fast-client", () -> {
+            });
+            importInstrumentation.entity("clients", "slow-client", () -> sleep(50));
+
+            assertThrows(ImportProcessingException.class, () -> importInstrumentation.entity("clients", "failing-client", () -> {
+                throw new ImportProcessingException("failed");
+            }));
+        })));
+
+        JsonNode slowestEntities = readReport().get("slowestEntities");
+
+        assertThat(slowestEntities.size(), is(3));
+        assertThat(slowestEntities.get(0).get("realm").asText(), is("realm"));
+        assertThat(slowestEntities.get(0).get("stage").asText(), is("clients"));
+        assertThat(slowestEntities.get(0).get("type").asText(), is("clients"));
+        assertThat(slowestEntities.get(0).get("name").asText(), is("slow-client"));
+        assertThat(slowestEntities.get(0).get("durationMillis").asDouble(), greaterThanOrEqualTo(50.0));
+        assertThat(slowestEntities.get(0).get("success").asBoolean(), is(true));
+
+        for (JsonNode entity : slowestEntities) {
+            assertThat(entity.get("success").asBoolean(), is(!entity.get("name").asText().equals("failing-client")));
+        }
+    }
+
+    @Test
+    void shouldRestoreOuterStage() throws IOException {
+        importInstrumentation.run(() -> importInstrumentation.realm("realm", () -> importInstrumentation.stage("clients", () -> {
+            importInstrumentation.stage("authorization", () -> importInstrumentation.entity("clients", "inner-client", () -> {
+            }));
+            importInstrumentation.entity("clients", "outer-client", () -> {
+            });
+        })));
+
+        JsonNode report = readReport();
+
+        assertThat(report.get("slowestEntities").size(), is(2));
+
+        for (JsonNode entity : report.get("slowestEntities")) {
+            String expectedStage = entity.get("name").asText().equals("inner-client") ? "authorization" : "clients";
+            assertThat(entity.get("stage").asText(), is(expectedStage));
+        }
+
+        assertThat(report.get("stages").size(), is(2));
+        assertThat(report.get("stages").get(0).get("stage").asText(), is("authorization"));
+        assertThat(report.get("stages").get(1).get("stage").asText(), is("clients"));
+    }
+
+    private JsonNode readReport() throws IOException {
+        Path reportPath = Paths.get(importConfigProperties.getReportPath());
+        return objectMapper.readTree(reportPath.toFile());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EnableConfigurationProperties({KeycloakConfigProperties.class, ImportConfigProperties.class})
+    @Import({KeycloakProvider.class, ImportInstrumentation.class, RunReportService.class})
+    public static class TestConfiguration {
+        // nothing
+    }
+}
@@ -0,0 +1,137 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.plan;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.util.resteasy.PlannedChange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class ImportApplyServiceTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String PARENT_ID = "0b5e1d1c-0d40-4b8a-9c3a-7b51b2d0f6c1";
+    private static final String CREATED_ID = "8f14e45f-ceea-4e7a-8c5b-2f5b1e6d0a11";
+
+    @Test
+    void shouldBatchCreatesOfSameCollection() throws IOException {
+        List<List<PlannedChange>> batches = ImportApplyService.toBatches(Arrays.asList(
+                create("/admin/realms/my-realm/users", "{\"username\":\"a\"}", null),
+                create("/admin/realms/my-realm/users", "{\"username\":\"b\"}", null),
+                create("/admin/realms/my-realm/groups", "{\"name\":\"c\"}", null)
+        ));
+
+        assertThat(batches, hasSize(2));
+        assertThat(batches.get(0), hasSize(2));
+    }
+
+    @Test
+    void shouldNotBatchChangesOfCreatedEntity() throws IOException {
+        List<List<PlannedChange>> batches = ImportApplyService.toBatches(Arrays.asList(
+                create("/admin/realms/my-realm/groups/" + PARENT_ID + "/children", "{\"name\":\"a\"}", CREATED_ID),
+                create("/admin/realms/my-realm/groups/" + CREATED_ID + "/children", "{\"name\":\"b\"}", null)
+        ));
+
+        assertThat(batches, hasSize(2));
+    }
+
+    @Test
+    void shouldNotBatchUpdatesOfSameEntity() throws IOException {
+        List<List<PlannedChange>> batches = ImportApplyService.toBatches(Arrays.asList(
+                change("update", "PUT", "/admin/realms/my-realm/clients/" + PARENT_ID, "{\"enabled\":true}", null),
+                change("update", "PUT", "/admin/realms/my-realm/clients/" + PARENT_ID, "{\"enabled\":false}", null),
+                change("update", "PUT", "/admin/realms/my-realm/clients/" + CREATED_ID, "{\"enabled\":false}", null)
+        ));
+
+        assertThat(batches, hasSize(2));
+        assertThat(batches.get(1), hasSize(2));
+    }
+
+    @Test
+    void shouldNeverBatchAuthenticationFlows() throws IOException {
+        List<List<PlannedChange>> batches = ImportApplyService.toBatches(Arrays.asList(
+                create("/admin/realms/my-realm/authentication/flows/my-flow/executions/execution", "{\"provider\":\"a\"}", null),
+                create("/admin/realms/my-realm/authentication/flows/my-flow/executions/execution", "{\"provider\":\"b\"}", null)
+        ));
+
+        assertThat(batches, hasSize(2));
+    }
+
+    @Test
+    void shouldReplaceCreatedIds() {
+        Map<String, String> createdIds = Collections.singletonMap(CREATED_ID, PARENT_ID);
+
+        assertThat(
+                ImportApplyService.replaceCreatedIds("/admin/realms/my-realm/groups/" + CREATED_ID + "/children", createdIds),
+                is("/admin/realms/my-realm/groups/" + PARENT_ID + "/children")
+        );
+        assertThat(
+                ImportApplyService.replaceCreatedIds("{\"parentId\":\"" + PARENT_ID + "\"}", createdIds),
+                is("{\"parentId\":\"" + PARENT_ID + "\"}")
+        );
+    }
+
+    @Test
+    void shouldDescribeAppliedChanges() {
+        Path planPath = Paths.get("plan.json");
+
+        assertThat(
+                ImportApplyService.describePartialApply(planPath, 5, Collections.emptySet()),
+                is("Plan 'plan.json' has been applied partially, changes 1 to 0 of 5 have been applied: ")
+        );
+        assertThat(
+                ImportApplyService.describePartialApply(planPath, 5, new HashSet<>(Arrays.asList(1, 2, 4))),
+                is("Plan 'plan.json' has been applied partially, changes 1 to 2 of 5 have been applied and changes [4]: ")
+        );
+    }
+
+    private static PlannedChange create(String uri, String body, String createdId) throws IOException {
+        return change("create", "POST", uri, body, createdId != null ? createdId : UUID.randomUUID().toString());
+    }
+
+    private static PlannedChange change(String operation, String method, String uri, String body, String createdId) throws IOException {
+        JsonNode json = OBJECT_MAPPER.readTree(body);
+        String endpoint = uri.replace(PARENT_ID, "{id}").replace(CREATED_ID, "{id}").replace("/my-realm", "/{realm}").replace("/my-flow", "/{name}");
+
+        PlannedChange change = new PlannedChange(operation, method, uri, endpoint, "my-realm", null, json,
+                Collections.emptyList(), createdId, null);
+        change.setStage("stage");
+
+        return change;
+    }
+}
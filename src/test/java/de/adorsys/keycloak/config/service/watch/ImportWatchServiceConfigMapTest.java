@@ -0,0 +1,136 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.watch;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.KeycloakImport;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Watches a single import file mounted from a kubernetes ConfigMap: {@code realm.json} links to {@code ..data/realm.json}
+ * and an update swaps the {@code ..data} symlink to a new timestamped directory.
+ */
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@SpringBootTest(classes = {ImportWatchServiceConfigMapTest.TestConfiguration.class})
+@TestPropertySource(properties = {
+        "spring.main.log-startup-info=false",
+        "import.path=${java.io.tmpdir}/keycloak-config-cli-import-watch-configmap-test/files/realm.json",
+        "import.watch-debounce=50ms",
+})
+class ImportWatchServiceConfigMapTest {
+    private static final String REALM_IMPORT = "{\"realm\": \"%s\"}";
+
+    @Autowired
+    private ImportWatchService importWatchService;
+
+    @Autowired
+    private ImportConfigProperties importConfigProperties;
+
+    private final BlockingQueue<KeycloakImport> importedFiles = new LinkedBlockingQueue<>();
+
+    private Thread watchThread;
+
+    @BeforeEach
+    void startWatching() throws IOException, InterruptedException {
+        Path importPath = Paths.get(importConfigProperties.getPath());
+        Path mountPath = importPath.getParent();
+        FileSystemUtils.deleteRecursively(mountPath);
+        Files.createDirectories(mountPath);
+
+        Files.createSymbolicLink(mountPath.resolve("..data"), writeVersion(mountPath, "..2026_10_19_10_00_00.1", "realm").getFileName());
+        Files.createSymbolicLink(importPath, Paths.get("..data").resolve(importPath.getFileName()));
+
+        watchThread = new Thread(() -> importWatchService.watch(importedFiles::add));
+        watchThread.start();
+
+        // the watch service registers the directory asynchronously
+        TimeUnit.MILLISECONDS.sleep(500);
+    }
+
+    @AfterEach
+    void stopWatching() throws InterruptedException {
+        watchThread.interrupt();
+        watchThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Test
+    void shouldImportFileOfSwappedSymlink() throws Exception {
+        Path mountPath = Paths.get(importConfigProperties.getPath()).getParent();
+        Path version = writeVersion(mountPath, "..2026_10_19_10_05_00.2", "updated");
+
+        // the kubelet creates a temporary symlink and renames it to ..data
+        Path dataTmp = Files.createSymbolicLink(mountPath.resolve("..data_tmp"), version.getFileName());
+        Files.move(dataTmp, mountPath.resolve("..data"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        KeycloakImport keycloakImport = importedFiles.poll(10, TimeUnit.SECONDS);
+
+        assertThat(keycloakImport, notNullValue());
+        assertThat(keycloakImport.getRealmImports().values().stream().map(RealmImport::getRealm).anyMatch("updated"::equals), is(true));
+    }
+
+    private static Path writeVersion(Path mountPath, String name, String realm) throws IOException {
+        Path version = Files.createDirectories(mountPath.resolve(name));
+        Files.write(version.resolve("realm.json"), String.format(REALM_IMPORT, realm).getBytes(StandardCharsets.UTF_8));
+
+        return version;
+    }
+
+    @EnableConfigurationProperties(ImportConfigProperties.class)
+    @ComponentScan(
+            basePackageClasses = KeycloakImportProvider.class,
+            useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*(ResourceExtractor|ImportManifest|KeycloakImportProvider)")
+    )
+    @Import(ImportWatchService.class)
+    public static class TestConfiguration {
+        // nothing
+    }
+}
@@ -0,0 +1,160 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.service.watch;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.KeycloakImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.ImportManifest;
+import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(SpringExtension.class)
+@ExtendWith(GithubActionsExtension.class)
+@SpringBootTest(classes = {ImportWatchServiceTest.TestConfiguration.class})
+@TestPropertySource(properties = {
+        "spring.main.log-startup-info=false",
+        "import.path=${java.io.tmpdir}/keycloak-config-cli-import-watch-test/files",
+        "import.incremental=true",
+        "import.manifest-path=${java.io.tmpdir}/keycloak-config-cli-import-watch-test/manifest.json",
+        "import.watch-debounce=50ms",
+})
+class ImportWatchServiceTest {
+    private static final String REALM_IMPORT = "{\"realm\": \"%s\"}";
+
+    @Autowired
+    private ImportWatchService importWatchService;
+
+    @Autowired
+    private ImportManifest importManifest;
+
+    @Autowired
+    private ImportConfigProperties importConfigProperties;
+
+    private final BlockingQueue<KeycloakImport> importedFiles = new LinkedBlockingQueue<>();
+
+    private Thread watchThread;
+
+    @BeforeEach
+    void startWatching() throws IOException, InterruptedException {
+        Path importPath = Paths.get(importConfigProperties.getPath());
+        FileSystemUtils.deleteRecursively(importPath.getParent());
+        Files.createDirectories(importPath);
+
+        watchThread = new Thread(() -> importWatchService.watch(keycloakImport -> {
+            importedFiles.add(keycloakImport);
+
+            if (keycloakImport.getRealmImports().values().stream().anyMatch(realmImport -> realmImport.getRealm().equals("failing"))) {
+                throw new ImportProcessingException("Import failed");
+            }
+
+            importManifest.save();
+        }));
+        watchThread.start();
+
+        // the watch service registers the directory asynchronously
+        TimeUnit.MILLISECONDS.sleep(500);
+    }
+
+    @AfterEach
+    void stopWatching() throws InterruptedException {
+        watchThread.interrupt();
+        watchThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Test
+    void shouldImportChangedFile() throws Exception {
+        Path importFile = writeImportFile("0_create_realm.json", "realm");
+
+        KeycloakImport keycloakImport = importedFiles.poll(10, TimeUnit.SECONDS);
+
+        assertThat(keycloakImport, notNullValue());
+        assertThat(keycloakImport.getRealmImports(), hasKey(importFile.toString()));
+        assertThat(readManifest(), containsString(importFile.toString()));
+    }
+
+    @Test
+    void shouldNotRecordFailedImport() throws Exception {
+        Path importFile = writeImportFile("0_create_realm.json", "failing");
+
+        assertThat(importedFiles.poll(10, TimeUnit.SECONDS), notNullValue());
+
+        // a successful import of another file saves the manifest
+        Path otherImportFile = writeImportFile("1_create_realm.json", "realm");
+
+        KeycloakImport keycloakImport = importedFiles.poll(10, TimeUnit.SECONDS);
+
+        assertThat(keycloakImport, notNullValue());
+        assertThat(keycloakImport.getRealmImports(), not(hasKey(importFile.toString())));
+        assertThat(readManifest(), containsString(otherImportFile.toString()));
+        assertThat(readManifest(), not(containsString(importFile.toString())));
+        assertThat(watchThread.isAlive(), is(true));
+    }
+
+    private Path writeImportFile(String name, String realm) throws IOException {
+        Path importFile = Paths.get(importConfigProperties.getPath()).resolve(name).toAbsolutePath();
+        return Files.write(importFile, String.format(REALM_IMPORT, realm).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readManifest() throws IOException {
+        return new String(Files.readAllBytes(Paths.get(importConfigProperties.getManifestPath())), StandardCharsets.UTF_8);
+    }
+
+    @EnableConfigurationProperties(ImportConfigProperties.class)
+    @ComponentScan(
+            basePackageClasses = KeycloakImportProvider.class,
+            useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*(ResourceExtractor|ImportManifest|KeycloakImportProvider)")
+    )
+    @Import(ImportWatchService.class)
+    public static class TestConfiguration {
+        // nothing
+    }
+}
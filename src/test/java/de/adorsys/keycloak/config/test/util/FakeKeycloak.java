@@ -0,0 +1,478 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.test.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory stand-in for the parts of the Keycloak admin REST API keycloak-config-cli uses: realms, clients, client scopes,
+ * roles, composites, role and scope mappings, users, groups, components, identity providers, authentication flows and
+ * required actions. It runs in-process on a random port, needs neither Docker nor a database, and injects a configurable
+ * latency into every request, so that the import can be tested and benchmarked offline and reproducibly.
+ * <p>
+ * The fake models the behavior keycloak-config-cli relies on, not Keycloak itself: validation, permissions, tokens,
+ * policy evaluation and most representation defaults are not implemented.
+ */
+public class FakeKeycloak implements Closeable {
+    public static final String DEFAULT_VERSION = "15.0.2";
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String TOKEN = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.eyJzdWIiOiJhZG1pbiJ9.ZmFrZQ";
+    private static final Set<String> NAMED_COLLECTIONS = new HashSet<>(Arrays.asList(
+            "roles", "instances", "flows", "required-actions"
+    ));
+    private static final Pattern UUID_SEGMENT = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final Map<String, FakeKeycloakRealm> realms = new LinkedHashMap<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final LongAdder totalCalls = new LongAdder();
+    private final AtomicInteger tokenFailures = new AtomicInteger();
+    private final String version;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile Duration readLatency = Duration.ZERO;
+    private volatile Duration writeLatency = Duration.ZERO;
+    private volatile double jitter;
+
+    public FakeKeycloak() {
+        this(DEFAULT_VERSION);
+    }
+
+    public FakeKeycloak(String version) {
+        this.version = version;
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to start fake keycloak", e);
+        }
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-keycloak");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        reset();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Latency added to every GET request, e.g. to simulate a remote keycloak.
+     */
+    public FakeKeycloak withReadLatency(Duration readLatency) {
+        this.readLatency = readLatency;
+        return this;
+    }
+
+    /**
+     * Latency added to every POST, PUT and DELETE request.
+     */
+    public FakeKeycloak withWriteLatency(Duration writeLatency) {
+        this.writeLatency = writeLatency;
+        return this;
+    }
+
+    public FakeKeycloak withLatency(Duration latency) {
+        return withReadLatency(latency).withWriteLatency(latency);
+    }
+
+    /**
+     * Random variation of the latency, e.g. 0.2 for +/- 20%.
+     */
+    public FakeKeycloak withJitter(double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Rejects the next token requests, e.g. to test the retry of a failed token refresh.
+     */
+    public void failTokenRequests(int count) {
+        tokenFailures.set(count);
+    }
+
+    /**
+     * Removes all realms except master and resets the call counts.
+     */
+    public synchronized void reset() {
+        tokenFailures.set(0);
+        realms.clear();
+        realms.put("master", new FakeKeycloakRealm("master", OBJECT_MAPPER.createObjectNode()));
+        resetCalls();
+    }
+
+    public void resetCalls() {
+        calls.clear();
+        totalCalls.reset();
+    }
+
+    public long getTotalCalls() {
+        return totalCalls.sum();
+    }
+
+    /**
+     * Number of requests per method and endpoint, where realm names and ids are replaced by placeholders,
+     * e.g. {@code GET /admin/realms/{realm}/clients/{id}}.
+     */
+    public Map<String, Long> getCalls() {
+        Map<String, Long> result = new TreeMap<>();
+        calls.forEach((endpoint, count) -> result.put(endpoint, count.sum()));
+        return result;
+    }
+
+    public synchronized boolean hasRealm(String realm) {
+        return realms.containsKey(realm);
+    }
+
+    /**
+     * The realm as it would be returned by a partial export including groups, roles and clients.
+     */
+    public synchronized JsonNode exportRealm(String realm) {
+        FakeKeycloakRealm fakeRealm = realms.get(realm);
+        return fakeRealm == null ? null : fakeRealm.partialExport(true, true);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            List<String> path = segments(exchange.getRequestURI().getRawPath());
+            if (!path.isEmpty() && path.get(0).equals("auth")) {
+                path = path.subList(1, path.size());
+            }
+
+            count(method, path);
+            sleep(method.equals("GET") ? readLatency : writeLatency);
+
+            JsonNode body = readBody(exchange.getRequestBody());
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+
+            Response response;
+            synchronized (this) {
+                response = route(method, path, query, body);
+            }
+
+            if (response.status == 201 && response.location != null) {
+                String requestUrl = getUrl() + exchange.getRequestURI().getRawPath();
+                exchange.getResponseHeaders().add("Location", resolveLocation(requestUrl, response.location));
+            }
+
+            send(exchange, response);
+        } catch (RuntimeException e) {
+            send(exchange, Response.error(500, e.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response route(String method, List<String> path, Map<String, String> query, JsonNode body) {
+        if (path.size() >= 2 && path.get(0).equals("realms")) {
+            if (path.size() == 5 && path.get(2).equals("protocol") && path.get(3).equals("openid-connect")) {
+                return path.get(4).equals("token") ? token() : Response.noContent();
+            }
+            return Response.notFound();
+        }
+
+        if (path.size() < 2 || !path.get(0).equals("admin")) {
+            return Response.notFound();
+        }
+
+        if (path.get(1).equals("serverinfo")) {
+            ObjectNode serverInfo = OBJECT_MAPPER.createObjectNode();
+            serverInfo.putObject("systemInfo").put("version", version);
+            return Response.ok(serverInfo);
+        }
+
+        if (!path.get(1).equals("realms")) {
+            return Response.notFound();
+        }
+
+        if (path.size() == 2) {
+            if (method.equals("POST")) {
+                return createRealm(body);
+            }
+
+            ArrayNode list = OBJECT_MAPPER.createArrayNode();
+            realms.values().forEach(realm -> list.add(realm.toRepresentation()));
+            return Response.ok(list);
+        }
+
+        FakeKeycloakRealm realm = realms.get(path.get(2));
+        if (realm == null) {
+            return Response.notFound("Realm not found.");
+        }
+
+        if (path.size() == 3 && method.equals("DELETE")) {
+            realms.remove(path.get(2));
+            return Response.noContent();
+        }
+
+        return realm.handle(method, path.subList(3, path.size()), query, body);
+    }
+
+    private Response createRealm(JsonNode body) {
+        String name = body.path("realm").asText(null);
+        if (name == null || name.isEmpty()) {
+            return Response.error(400, "Realm name is missing");
+        }
+
+        if (realms.containsKey(name)) {
+            return Response.error(409, "Conflict detected. See logs for details");
+        }
+
+        realms.put(name, new FakeKeycloakRealm(name, (ObjectNode) body));
+        return Response.created(name);
+    }
+
+    private Response token() {
+        if (tokenFailures.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            return Response.error(401, "invalid_grant");
+        }
+
+        ObjectNode token = OBJECT_MAPPER.createObjectNode();
+        token.put("access_token", TOKEN);
+        token.put("expires_in", 60);
+        token.put("refresh_expires_in", 1800);
+        token.put("refresh_token", TOKEN);
+        token.put("token_type", "Bearer");
+        token.put("not-before-policy", 0);
+        token.put("scope", "profile email");
+        return Response.ok(token);
+    }
+
+    private void count(String method, List<String> path) {
+        StringBuilder endpoint = new StringBuilder(method).append(' ');
+        for (int i = 0; i < path.size(); i++) {
+            String segment = path.get(i);
+            String previous = i > 0 ? path.get(i - 1) : "";
+            endpoint.append('/');
+
+            if (previous.equals("realms")) {
+                endpoint.append("{realm}");
+            } else if (previous.equals("group-by-path")) {
+                endpoint.append("{path}");
+                break;
+            } else if (NAMED_COLLECTIONS.contains(previous) && !UUID_SEGMENT.matcher(segment).matches()) {
+                endpoint.append("{name}");
+            } else if (UUID_SEGMENT.matcher(segment).matches()) {
+                endpoint.append("{id}");
+            } else {
+                endpoint.append(segment);
+            }
+        }
+
+        calls.computeIfAbsent(endpoint.toString(), key -> new LongAdder()).increment();
+        totalCalls.increment();
+    }
+
+    private void sleep(Duration latency) {
+        long nanos = latency.toNanos();
+        if (nanos <= 0) {
+            return;
+        }
+
+        if (jitter > 0) {
+            nanos += (long) (nanos * jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String resolveLocation(String requestUrl, String location) {
+        String base = requestUrl.endsWith("/") ? requestUrl.substring(0, requestUrl.length() - 1) : requestUrl;
+        return base + "/" + location;
+    }
+
+    private static List<String> segments(String rawPath) {
+        List<String> segments = new ArrayList<>();
+
+        for (String segment : rawPath.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(decode(segment));
+            }
+        }
+
+        return segments;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> query = new LinkedHashMap<>();
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator < 0) {
+                query.put(decode(parameter), "");
+            } else {
+                query.put(decode(parameter.substring(0, separator)), decode(parameter.substring(separator + 1)));
+            }
+        }
+
+        return query;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static JsonNode readBody(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = inputStream.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+
+        if (buffer.size() == 0) {
+            return OBJECT_MAPPER.missingNode();
+        }
+
+        String content = new String(buffer.toByteArray(), StandardCharsets.UTF_8).trim();
+        if (!content.startsWith("{") && !content.startsWith("[")) {
+            // form encoded token requests
+            return OBJECT_MAPPER.missingNode();
+        }
+
+        return OBJECT_MAPPER.readTree(content);
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        if (response.body == null) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+
+        byte[] bytes = OBJECT_MAPPER.writeValueAsBytes(response.body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, bytes.length);
+
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    static final class Response {
+        final int status;
+        final JsonNode body;
+        final String location;
+
+        private Response(int status, JsonNode body, String location) {
+            this.status = status;
+            this.body = body;
+            this.location = location;
+        }
+
+        static Response ok(JsonNode body) {
+            return new Response(200, body, null);
+        }
+
+        /**
+         * The location header is the request url with the id appended, which is all the admin client evaluates.
+         */
+        static Response created(String id) {
+            return new Response(201, null, id);
+        }
+
+        static Response noContent() {
+            return new Response(204, null, null);
+        }
+
+        static Response notFound() {
+            return notFound("HTTP 404 Not Found");
+        }
+
+        static Response notFound(String message) {
+            return new Response(404, OBJECT_MAPPER.createObjectNode().put("error", message), null);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, OBJECT_MAPPER.createObjectNode().put("errorMessage", message), null);
+        }
+
+        static Response conflict(String message) {
+            return error(409, message);
+        }
+    }
+}
@@ -0,0 +1,1893 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.test.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.adorsys.keycloak.config.test.util.FakeKeycloak.Response;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+import static de.adorsys.keycloak.config.test.util.FakeKeycloak.OBJECT_MAPPER;
+
+/**
+ * State and admin endpoints of a single realm of the {@link FakeKeycloak}.
+ * <p>
+ * Most entities live in generic collections, which are addressed by their path relative to the realm, e.g. {@code clients}
+ * or {@code clients/{id}/protocol-mappers/models}. Assignments without an own representation, like role mappings,
+ * composites or default client scopes, are kept as links from a path to the assigned entities. Groups and the
+ * authentication management have their own models because their endpoints don't follow the collection pattern.
+ * <p>
+ * Not thread-safe, all calls are serialized by the {@link FakeKeycloak}.
+ */
+class FakeKeycloakRealm {
+    private static final Set<String> COLLECTIONS = new HashSet<>(Arrays.asList(
+            "clients", "roles", "users", "client-scopes", "components", "instances", "mappers", "models",
+            "resource", "scope", "policy", "permission"
+    ));
+
+    private static final Set<String> REALM_SECTIONS = new HashSet<>(Arrays.asList(
+            "clients", "clientScopes", "roles", "users", "groups", "components", "authenticationFlows",
+            "authenticatorConfig", "requiredActions", "identityProviders", "identityProviderMappers", "scopeMappings",
+            "clientScopeMappings", "defaultDefaultClientScopes", "defaultOptionalClientScopes", "defaultGroups",
+            "defaultRole", "defaultRoles", "federatedUsers", "protocolMappers", "applications", "oauthClients",
+            "clientTemplates", "id", "realm"
+    ));
+
+    private static final List<String> BUILT_IN_FLOWS = Arrays.asList(
+            "browser", "direct grant", "registration", "reset credentials", "clients", "first broker login",
+            "docker auth", "http challenge"
+    );
+
+    private static final List<String> REQUIRED_ACTIONS = Arrays.asList(
+            "CONFIGURE_TOTP", "terms_and_conditions", "UPDATE_PASSWORD", "UPDATE_PROFILE", "VERIFY_EMAIL",
+            "delete_account", "update_user_locale"
+    );
+
+    private final String name;
+    private final ObjectNode realm;
+
+    private final Map<String, Map<String, ObjectNode>> collections = new HashMap<>();
+    private final Map<String, Map<String, ObjectNode>> links = new HashMap<>();
+    private final Map<String, ObjectNode> resourceServers = new HashMap<>();
+
+    private final Map<String, ObjectNode> groups = new LinkedHashMap<>();
+    private final Map<String, String> groupParents = new HashMap<>();
+
+    private final Map<String, ObjectNode> flows = new LinkedHashMap<>();
+    private final Map<String, ObjectNode> executions = new LinkedHashMap<>();
+    private final Map<String, ObjectNode> authenticatorConfigs = new LinkedHashMap<>();
+    private final Map<String, ObjectNode> requiredActions = new LinkedHashMap<>();
+
+    FakeKeycloakRealm(String name, ObjectNode representation) {
+        this.name = name;
+        this.realm = OBJECT_MAPPER.createObjectNode();
+
+        realm.put("id", representation.path("id").asText(name));
+        realm.put("realm", name);
+        realm.put("enabled", true);
+        realm.putObject("attributes");
+        for (String flow : Arrays.asList("browser", "registration", "direct grant", "reset credentials", "clients",
+                "docker auth")) {
+            realm.put(flowBinding(flow), flow);
+        }
+        representation.fields().forEachRemaining(field -> {
+            if (!REALM_SECTIONS.contains(field.getKey())) {
+                realm.set(field.getKey(), field.getValue().deepCopy());
+            }
+        });
+
+        seed();
+    }
+
+    ObjectNode toRepresentation() {
+        ObjectNode representation = realm.deepCopy();
+
+        ObjectNode defaultRole = find("roles", "default-roles-" + name);
+        if (defaultRole != null) {
+            representation.set("defaultRole", renderRole(defaultRole));
+        }
+
+        representation.set("identityProviders", list("identity-provider/instances"));
+        representation.set("identityProviderMappers", identityProviderMappers());
+        return representation;
+    }
+
+    Response handle(String method, List<String> path, Map<String, String> query, JsonNode body) {
+        if (path.isEmpty()) {
+            if (method.equals("PUT")) {
+                updateRealm(body);
+                return Response.noContent();
+            }
+
+            return Response.ok(toRepresentation());
+        }
+
+        switch (path.get(0)) {
+            case "partial-export":
+                return Response.ok(partialExport(
+                        Boolean.parseBoolean(query.get("exportGroupsAndRoles")),
+                        Boolean.parseBoolean(query.get("exportClients"))
+                ));
+            case "default-default-client-scopes":
+            case "default-optional-client-scopes":
+                return link(method, path, this::findClientScope, this::renderReference);
+            case "default-groups":
+                return link(method, path, groups::get, this::renderGroupReference);
+            case "group-by-path":
+                return groupByPath(String.join("/", path.subList(1, path.size())));
+            case "authentication":
+                return authentication(method, path.subList(1, path.size()), body);
+            default:
+                break;
+        }
+
+        List<String> canonical = canonical(path);
+        if (canonical == null) {
+            return Response.notFound();
+        }
+
+        int mapping = indexOfAny(canonical, "role-mappings", "scope-mappings");
+        if (mapping > 0) {
+            return mappings(method, canonical.subList(0, mapping + 1), canonical.subList(mapping + 1, canonical.size()), body);
+        }
+
+        int composites = canonical.indexOf("composites");
+        if (composites > 0) {
+            ObjectNode role = canonical.get(0).equals("roles-by-id")
+                    ? findRole(canonical.get(1))
+                    : entity(canonical.subList(0, composites));
+            if (role == null) {
+                return Response.notFound("Could not find role");
+            }
+
+            return composites(method, role, canonical.subList(composites + 1, canonical.size()), body);
+        }
+
+        switch (canonical.get(0)) {
+            case "groups":
+                return groups(method, canonical, query, body);
+            case "roles-by-id":
+                return rolesById(method, canonical, body);
+            case "clients":
+                if (canonical.size() >= 3) {
+                    Response response = client(method, canonical, body);
+                    if (response != null) {
+                        return response;
+                    }
+                }
+                break;
+            case "users":
+                if (canonical.size() >= 3) {
+                    return user(method, canonical);
+                }
+                break;
+            default:
+                break;
+        }
+
+        if (canonical.size() >= 4 && canonical.get(canonical.size() - 1).equals("add-models")) {
+            String models = String.join("/", canonical.subList(0, canonical.size() - 1)) + "/models";
+            body.forEach(mapper -> add(models, (ObjectNode) mapper.deepCopy()));
+            return Response.noContent();
+        }
+
+        return generic(method, canonical, query, body);
+    }
+
+    /*
+     * realm
+     */
+
+    private void updateRealm(JsonNode body) {
+        body.fields().forEachRemaining(field -> {
+            String key = field.getKey();
+            if (REALM_SECTIONS.contains(key)) {
+                return;
+            }
+
+            if (key.equals("attributes") && field.getValue().isObject()) {
+                ObjectNode attributes = (ObjectNode) realm.get("attributes");
+                field.getValue().fields().forEachRemaining(attribute -> {
+                    if (attribute.getValue().isNull()) {
+                        attributes.remove(attribute.getKey());
+                    } else {
+                        attributes.set(attribute.getKey(), attribute.getValue());
+                    }
+                });
+                return;
+            }
+
+            realm.set(key, field.getValue().deepCopy());
+        });
+    }
+
+    ObjectNode partialExport(boolean exportGroupsAndRoles, boolean exportClients) {
+        ObjectNode export = toRepresentation();
+
+        export.set("clientScopes", list("client-scopes"));
+        export.set("defaultDefaultClientScopes", names(links("default-default-client-scopes")));
+        export.set("defaultOptionalClientScopes", names(links("default-optional-client-scopes")));
+        export.set("authenticationFlows", flows.values().stream().map(this::renderFlow).collect(toArray()));
+        export.set("authenticatorConfig", authenticatorConfigs.values().stream().map(ObjectNode::deepCopy).collect(toArray()));
+        export.set("requiredActions", requiredActionList());
+        export.set("components", exportComponents(realm.get("id").asText()));
+
+        if (exportGroupsAndRoles) {
+            ObjectNode roles = export.putObject("roles");
+            roles.set("realm", collection("roles").values().stream().map(this::exportRole).collect(toArray()));
+            ObjectNode clientRoles = roles.putObject("client");
+            for (ObjectNode client : collection("clients").values()) {
+                clientRoles.set(client.get("clientId").asText(), collection(clientPath(client) + "/roles").values()
+                        .stream().map(this::exportRole).collect(toArray()));
+            }
+
+            export.set("groups", topLevelGroups().stream().map(this::renderGroup).collect(toArray()));
+            export.set("defaultGroups", links("default-groups").stream()
+                    .map(group -> OBJECT_MAPPER.getNodeFactory().textNode(groupPath(group.get("id").asText())))
+                    .collect(toArray()));
+        }
+
+        if (exportClients) {
+            ArrayNode clients = export.putArray("clients");
+            ArrayNode scopeMappings = export.putArray("scopeMappings");
+            ObjectNode clientScopeMappings = export.putObject("clientScopeMappings");
+
+            for (ObjectNode client : collection("clients").values()) {
+                ObjectNode rendered = renderClient(client);
+                if (rendered.has("secret")) {
+                    rendered.put("secret", "**********");
+                }
+                clients.add(rendered);
+                exportScopeMappings("client", client.get("clientId").asText(), clientPath(client), scopeMappings,
+                        clientScopeMappings);
+            }
+
+            for (ObjectNode clientScope : collection("client-scopes").values()) {
+                exportScopeMappings("clientScope", clientScope.get("name").asText(),
+                        "client-scopes/" + clientScope.get("id").asText(), scopeMappings, clientScopeMappings);
+            }
+        }
+
+        return export;
+    }
+
+    private void exportScopeMappings(String ownerField, String owner, String ownerPath, ArrayNode scopeMappings,
+                                     ObjectNode clientScopeMappings) {
+        String prefix = ownerPath + "/scope-mappings/";
+
+        List<ObjectNode> realmRoles = links(prefix + "realm");
+        if (!realmRoles.isEmpty()) {
+            ObjectNode mapping = scopeMappings.addObject();
+            mapping.put(ownerField, owner);
+            mapping.set("roles", names(realmRoles));
+        }
+
+        for (ObjectNode client : collection("clients").values()) {
+            List<ObjectNode> clientRoles = links(prefix + "clients/" + client.get("id").asText());
+            if (clientRoles.isEmpty()) {
+                continue;
+            }
+
+            String clientId = client.get("clientId").asText();
+            if (!clientScopeMappings.has(clientId)) {
+                clientScopeMappings.putArray(clientId);
+            }
+
+            ObjectNode mapping = ((ArrayNode) clientScopeMappings.get(clientId)).addObject();
+            mapping.put(ownerField, owner);
+            mapping.set("roles", names(clientRoles));
+        }
+    }
+
+    private ObjectNode exportRole(ObjectNode role) {
+        ObjectNode exported = renderRole(role);
+        List<ObjectNode> composites = links("composites/" + role.get("id").asText());
+
+        if (!composites.isEmpty()) {
+            ObjectNode compositeNode = exported.putObject("composites");
+            List<ObjectNode> realmComposites = composites.stream()
+                    .filter(composite -> !composite.path("clientRole").asBoolean())
+                    .collect(Collectors.toList());
+            if (!realmComposites.isEmpty()) {
+                compositeNode.set("realm", names(realmComposites));
+            }
+
+            Map<String, List<ObjectNode>> clientComposites = composites.stream()
+                    .filter(composite -> composite.path("clientRole").asBoolean())
+                    .collect(Collectors.groupingBy(composite -> clientIdOf(composite.get("containerId").asText()),
+                            LinkedHashMap::new, Collectors.toList()));
+            if (!clientComposites.isEmpty()) {
+                ObjectNode client = compositeNode.putObject("client");
+                clientComposites.forEach((clientId, roles) -> client.set(clientId, names(roles)));
+            }
+        }
+
+        return exported;
+    }
+
+    private ObjectNode exportComponents(String parentId) {
+        ObjectNode export = OBJECT_MAPPER.createObjectNode();
+
+        for (ObjectNode component : collection("components").values()) {
+            if (!parentId.equals(component.path("parentId").asText())) {
+                continue;
+            }
+
+            String providerType = component.path("providerType").asText();
+            if (!export.has(providerType)) {
+                export.putArray(providerType);
+            }
+
+            ObjectNode exported = component.deepCopy();
+            exported.remove("parentId");
+            exported.remove("providerType");
+
+            ObjectNode subComponents = exportComponents(component.get("id").asText());
+            exported.set("subComponents", subComponents);
+            ((ArrayNode) export.get(providerType)).add(exported);
+        }
+
+        return export;
+    }
+
+    private ArrayNode identityProviderMappers() {
+        ArrayNode mappers = OBJECT_MAPPER.createArrayNode();
+
+        collections.forEach((path, collection) -> {
+            if (path.startsWith("identity-provider/instances/") && path.endsWith("/mappers")) {
+                collection.values().forEach(mapper -> mappers.add(mapper.deepCopy()));
+            }
+        });
+
+        return mappers;
+    }
+
+    /*
+     * generic collections
+     */
+
+    private Response generic(String method, List<String> path, Map<String, String> query, JsonNode body) {
+        String last = path.get(path.size() - 1);
+
+        if (COLLECTIONS.contains(last)) {
+            String collectionPath = String.join("/", path);
+            if (!ownerExists(path)) {
+                return Response.notFound();
+            }
+
+            switch (method) {
+                case "GET":
+                    return Response.ok(filter(collectionPath, query));
+                case "POST":
+                    return create(collectionPath, body);
+                default:
+                    return Response.error(405, "Method not allowed");
+            }
+        }
+
+        if (path.size() < 2 || !COLLECTIONS.contains(path.get(path.size() - 2))) {
+            return Response.notFound();
+        }
+
+        String collectionPath = String.join("/", path.subList(0, path.size() - 1));
+        ObjectNode entity = find(collectionPath, last);
+        if (entity == null) {
+            return Response.notFound("Could not find " + type(collectionPath));
+        }
+
+        switch (method) {
+            case "GET":
+                return Response.ok(render(collectionPath, entity));
+            case "PUT":
+                update(collectionPath, entity, body);
+                return Response.noContent();
+            case "DELETE":
+                remove(collectionPath, entity);
+                return Response.noContent();
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+    }
+
+    private Response create(String collectionPath, JsonNode body) {
+        if (!body.isObject()) {
+            return Response.error(400, "Invalid representation");
+        }
+
+        String uniqueField = uniqueField(type(collectionPath));
+        if (uniqueField != null && body.hasNonNull(uniqueField)) {
+            String value = body.get(uniqueField).asText();
+            boolean exists = collection(collectionPath).values().stream()
+                    .anyMatch(entity -> value.equals(entity.path(uniqueField).asText(null)));
+
+            if (exists) {
+                return Response.conflict(type(collectionPath) + " with " + uniqueField + " " + value + " already exists");
+            }
+        }
+
+        ObjectNode entity = add(collectionPath, (ObjectNode) body.deepCopy());
+        return Response.created(entity.get(idField(collectionPath)).asText());
+    }
+
+    private ObjectNode add(String collectionPath, ObjectNode entity) {
+        String idField = idField(collectionPath);
+        if (!entity.hasNonNull(idField)) {
+            entity.put(idField, UUID.randomUUID().toString());
+        }
+
+        String id = entity.get(idField).asText();
+        collection(collectionPath).put(id, entity);
+
+        String path = collectionPath + "/" + id;
+        switch (type(collectionPath)) {
+            case "clients":
+                addProtocolMappers(path, entity);
+                addClientScopes(path, entity, "defaultClientScopes", "default-client-scopes", "default-default-client-scopes");
+                addClientScopes(path, entity, "optionalClientScopes", "optional-client-scopes", "default-optional-client-scopes");
+                entity.remove("authorizationSettings");
+                entity.remove("access");
+                if (entity.path("serviceAccountsEnabled").asBoolean()) {
+                    addServiceAccount(entity);
+                }
+                if (entity.path("authorizationServicesEnabled").asBoolean()) {
+                    addResourceServer(entity);
+                }
+                break;
+            case "client-scopes":
+                addProtocolMappers(path, entity);
+                break;
+            case "roles":
+                entity.remove("composites");
+                entity.put("composite", false);
+                entity.put("clientRole", !collectionPath.equals("roles"));
+                entity.put("containerId", collectionPath.equals("roles")
+                        ? realm.get("id").asText()
+                        : collectionPath.split("/")[1]);
+                if (!entity.has("attributes")) {
+                    entity.putObject("attributes");
+                }
+                break;
+            case "users":
+                entity.remove("credentials");
+                entity.put("createdTimestamp", System.currentTimeMillis());
+                JsonNode userGroups = entity.remove("groups");
+                if (userGroups != null) {
+                    userGroups.forEach(groupPath -> {
+                        ObjectNode group = findGroupByPath(groupPath.asText());
+                        if (group != null) {
+                            linkMap(path + "/groups").put(group.get("id").asText(), group);
+                        }
+                    });
+                }
+                break;
+            case "components":
+                if (!entity.hasNonNull("parentId")) {
+                    entity.put("parentId", realm.get("id").asText());
+                }
+                break;
+            default:
+                break;
+        }
+
+        return entity;
+    }
+
+    private void update(String collectionPath, ObjectNode entity, JsonNode body) {
+        String type = type(collectionPath);
+        Set<String> ignored = new HashSet<>(Arrays.asList(idField(collectionPath), "protocolMappers",
+                "defaultClientScopes", "optionalClientScopes", "authorizationSettings", "access", "composites",
+                "composite", "clientRole", "containerId", "credentials", "groups", "realmRoles", "clientRoles"));
+
+        body.fields().forEachRemaining(field -> {
+            if (!ignored.contains(field.getKey())) {
+                entity.set(field.getKey(), field.getValue().deepCopy());
+            }
+        });
+
+        if (type.equals("clients")) {
+            if (entity.path("serviceAccountsEnabled").asBoolean() && findServiceAccount(entity) == null) {
+                addServiceAccount(entity);
+            }
+            if (entity.path("authorizationServicesEnabled").asBoolean()) {
+                addResourceServer(entity);
+            }
+        }
+    }
+
+    private void remove(String collectionPath, ObjectNode entity) {
+        String id = entity.get(idField(collectionPath)).asText();
+        String path = collectionPath + "/" + id;
+
+        if (type(collectionPath).equals("clients")) {
+            ObjectNode serviceAccount = findServiceAccount(entity);
+            if (serviceAccount != null) {
+                remove("users", serviceAccount);
+            }
+            resourceServers.remove(id);
+        }
+
+        collection(collectionPath).remove(id);
+        collections.keySet().removeIf(key -> key.startsWith(path + "/"));
+        links.keySet().removeIf(key -> key.startsWith(path + "/") || key.startsWith("composites/" + id));
+        links.values().forEach(link -> link.remove(id));
+    }
+
+    private ArrayNode filter(String collectionPath, Map<String, String> query) {
+        Predicate<ObjectNode> filter = entity -> true;
+
+        if (query.containsKey("clientId")) {
+            filter = filter.and(matches("clientId", query.get("clientId"), Boolean.parseBoolean(query.get("search"))));
+        }
+        if (query.containsKey("username")) {
+            filter = filter.and(matches("username", query.get("username"), !Boolean.parseBoolean(query.get("exact"))));
+        }
+        if (query.containsKey("search") && !query.containsKey("clientId")) {
+            String search = query.get("search").replace("*", "");
+            filter = filter.and(matches("username", search, true)
+                    .or(matches("email", search, true))
+                    .or(matches("name", search, true)));
+        }
+        if (query.containsKey("parent")) {
+            filter = filter.and(matches("parentId", query.get("parent"), false));
+        }
+        if (query.containsKey("type")) {
+            filter = filter.and(matches("providerType", query.get("type"), false));
+        }
+        if (query.containsKey("name") && type(collectionPath).equals("components")) {
+            filter = filter.and(matches("name", query.get("name"), false));
+        }
+
+        int first = Integer.parseInt(query.getOrDefault("first", "0"));
+        int max = Integer.parseInt(query.getOrDefault("max", String.valueOf(Integer.MAX_VALUE)));
+
+        return collection(collectionPath).values().stream()
+                .filter(filter)
+                .skip(first)
+                .limit(max)
+                .map(entity -> render(collectionPath, entity))
+                .collect(toArray());
+    }
+
+    private static Predicate<ObjectNode> matches(String field, String value, boolean partial) {
+        return entity -> {
+            String actual = entity.path(field).asText(null);
+            if (actual == null) {
+                return false;
+            }
+
+            return partial
+                    ? actual.toLowerCase().contains(value.toLowerCase())
+                    : actual.equalsIgnoreCase(value);
+        };
+    }
+
+    private ArrayNode list(String collectionPath) {
+        return collection(collectionPath).values().stream()
+                .map(entity -> render(collectionPath, entity))
+                .collect(toArray());
+    }
+
+    private ObjectNode render(String collectionPath, ObjectNode entity) {
+        switch (type(collectionPath)) {
+            case "clients":
+                return renderClient(entity);
+            case "client-scopes":
+                return withProtocolMappers(collectionPath + "/" + entity.get("id").asText(), entity);
+            case "roles":
+                return renderRole(entity);
+            default:
+                return entity.deepCopy();
+        }
+    }
+
+    private ObjectNode renderClient(ObjectNode client) {
+        String path = clientPath(client);
+
+        ObjectNode rendered = withProtocolMappers(path, client);
+        rendered.set("defaultClientScopes", names(links(path + "/default-client-scopes")));
+        rendered.set("optionalClientScopes", names(links(path + "/optional-client-scopes")));
+        return rendered;
+    }
+
+    private ObjectNode renderRole(ObjectNode role) {
+        ObjectNode rendered = role.deepCopy();
+        rendered.put("composite", !links("composites/" + role.get("id").asText()).isEmpty());
+        return rendered;
+    }
+
+    private ObjectNode withProtocolMappers(String path, ObjectNode entity) {
+        ObjectNode rendered = entity.deepCopy();
+
+        Map<String, ObjectNode> protocolMappers = collection(path + "/protocol-mappers/models");
+        if (!protocolMappers.isEmpty()) {
+            rendered.set("protocolMappers", protocolMappers.values().stream().map(ObjectNode::deepCopy).collect(toArray()));
+        }
+
+        return rendered;
+    }
+
+    private void addProtocolMappers(String path, ObjectNode entity) {
+        JsonNode protocolMappers = entity.remove("protocolMappers");
+        if (protocolMappers != null) {
+            protocolMappers.forEach(mapper -> add(path + "/protocol-mappers/models", (ObjectNode) mapper.deepCopy()));
+        }
+    }
+
+    private void addClientScopes(String path, ObjectNode client, String field, String link, String realmDefaults) {
+        JsonNode scopeNames = client.remove(field);
+        Map<String, ObjectNode> clientScopes = linkMap(path + "/" + link);
+
+        if (scopeNames == null) {
+            // like keycloak, new clients get the realm default scopes of their protocol
+            String protocol = client.path("protocol").asText("openid-connect");
+            links(realmDefaults).stream()
+                    .filter(scope -> protocol.equals(scope.path("protocol").asText("openid-connect")))
+                    .forEach(scope -> clientScopes.put(scope.get("id").asText(), scope));
+            return;
+        }
+
+        scopeNames.forEach(scopeName -> {
+            ObjectNode scope = findBy("client-scopes", "name", scopeName.asText());
+            if (scope != null) {
+                clientScopes.put(scope.get("id").asText(), scope);
+            }
+        });
+    }
+
+    private void addServiceAccount(ObjectNode client) {
+        ObjectNode user = OBJECT_MAPPER.createObjectNode();
+        user.put("username", "service-account-" + client.get("clientId").asText().toLowerCase());
+        user.put("enabled", true);
+        user.put("serviceAccountClientId", client.get("id").asText());
+        add("users", user);
+    }
+
+    private ObjectNode findServiceAccount(ObjectNode client) {
+        return findBy("users", "serviceAccountClientId", client.get("id").asText());
+    }
+
+    private void addResourceServer(ObjectNode client) {
+        resourceServers.computeIfAbsent(client.get("id").asText(), id -> {
+            ObjectNode resourceServer = OBJECT_MAPPER.createObjectNode();
+            resourceServer.put("id", id);
+            resourceServer.put("clientId", id);
+            resourceServer.put("name", client.get("clientId").asText());
+            resourceServer.put("allowRemoteResourceManagement", false);
+            resourceServer.put("policyEnforcementMode", "ENFORCING");
+            resourceServer.put("decisionStrategy", "UNANIMOUS");
+            return resourceServer;
+        });
+    }
+
+    /*
+     * clients, users and roles
+     */
+
+    private Response client(String method, List<String> path, JsonNode body) {
+        ObjectNode client = find("clients", path.get(1));
+        if (client == null) {
+            return Response.notFound("Could not find client");
+        }
+
+        String clientPath = clientPath(client);
+        String clientUuid = client.get("id").asText();
+
+        switch (path.get(2)) {
+            case "client-secret":
+                if (method.equals("POST") || !client.hasNonNull("secret")) {
+                    client.put("secret", UUID.randomUUID().toString());
+                }
+
+                ObjectNode secret = OBJECT_MAPPER.createObjectNode();
+                secret.put("type", "secret");
+                secret.put("value", client.get("secret").asText());
+                return Response.ok(secret);
+            case "service-account-user":
+                ObjectNode serviceAccount = findServiceAccount(client);
+                if (serviceAccount == null) {
+                    return Response.error(400, "Service account not enabled for the client");
+                }
+
+                return Response.ok(serviceAccount.deepCopy());
+            case "default-client-scopes":
+            case "optional-client-scopes":
+                return link(method, path.subList(2, path.size()), clientPath + "/" + path.get(2),
+                        this::findClientScope, this::renderReference);
+            case "authorization":
+                if (path.size() < 4 || !path.get(3).equals("resource-server")) {
+                    return Response.notFound();
+                }
+
+                ObjectNode resourceServer = resourceServers.get(clientUuid);
+                if (resourceServer == null) {
+                    return Response.notFound("Authorization not enabled for the client");
+                }
+
+                if (path.size() == 4) {
+                    if (method.equals("PUT")) {
+                        for (String field : Arrays.asList("allowRemoteResourceManagement", "policyEnforcementMode",
+                                "decisionStrategy")) {
+                            if (body.has(field)) {
+                                resourceServer.set(field, body.get(field));
+                            }
+                        }
+                        return Response.noContent();
+                    }
+
+                    return Response.ok(resourceServer.deepCopy());
+                }
+
+                if (path.size() == 5 && path.get(4).equals("settings")) {
+                    String base = clientPath + "/authorization/resource-server/";
+                    ObjectNode settings = resourceServer.deepCopy();
+                    settings.set("resources", list(base + "resource"));
+                    settings.set("policies", list(base + "policy"));
+                    settings.set("scopes", list(base + "scope"));
+                    return Response.ok(settings);
+                }
+
+                if (path.size() == 5 && path.get(4).equals("import") && method.equals("POST")) {
+                    importResourceServer(clientPath + "/authorization/resource-server/", resourceServer, body);
+                    return Response.noContent();
+                }
+
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * like keycloak, entities are matched by name and entities missing in the import are kept
+     */
+    private void importResourceServer(String base, ObjectNode resourceServer, JsonNode body) {
+        for (String field : Arrays.asList("allowRemoteResourceManagement", "policyEnforcementMode", "decisionStrategy")) {
+            if (body.has(field)) {
+                resourceServer.set(field, body.get(field));
+            }
+        }
+
+        importByName(base + "scope", body.path("scopes"));
+        importByName(base + "resource", body.path("resources"));
+        importByName(base + "policy", body.path("policies"));
+    }
+
+    private void importByName(String collectionPath, JsonNode entities) {
+        for (JsonNode entity : entities) {
+            String name = entity.path("name").asText();
+            ObjectNode existing = collection(collectionPath).values().stream()
+                    .filter(candidate -> name.equals(candidate.path("name").asText(null)))
+                    .findFirst()
+                    .orElse(null);
+
+            if (existing != null) {
+                update(collectionPath, existing, entity);
+            } else {
+                ObjectNode created = (ObjectNode) entity.deepCopy();
+                created.remove(idField(collectionPath));
+                add(collectionPath, created);
+            }
+        }
+    }
+
+    private Response user(String method, List<String> path) {
+        ObjectNode user = find("users", path.get(1));
+        if (user == null) {
+            return Response.notFound("User not found");
+        }
+
+        String userPath = "users/" + user.get("id").asText();
+        switch (path.get(2)) {
+            case "groups":
+                return link(method, path.subList(2, path.size()), userPath + "/groups", groups::get,
+                        this::renderGroupReference);
+            case "reset-password":
+            case "execute-actions-email":
+            case "send-verify-email":
+            case "logout":
+                return Response.noContent();
+            default:
+                return Response.notFound();
+        }
+    }
+
+    private Response rolesById(String method, List<String> path, JsonNode body) {
+        ObjectNode role = path.size() == 2 ? findRole(path.get(1)) : null;
+        if (role == null) {
+            return Response.notFound("Could not find role");
+        }
+
+        String collectionPath = rolePath(role);
+        switch (method) {
+            case "GET":
+                return Response.ok(renderRole(role));
+            case "PUT":
+                update(collectionPath, role, body);
+                return Response.noContent();
+            case "DELETE":
+                remove(collectionPath, role);
+                return Response.noContent();
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+    }
+
+    private Response composites(String method, ObjectNode role, List<String> path, JsonNode body) {
+        String key = "composites/" + role.get("id").asText();
+
+        switch (method) {
+            case "GET":
+                Predicate<ObjectNode> filter = roleFilter(path);
+                if (filter == null) {
+                    return Response.notFound();
+                }
+
+                return Response.ok(links(key).stream().filter(filter).map(this::renderRole).collect(toArray()));
+            case "POST":
+                body.forEach(composite -> {
+                    ObjectNode compositeRole = resolveRole(composite);
+                    if (compositeRole != null) {
+                        linkMap(key).put(compositeRole.get("id").asText(), compositeRole);
+                    }
+                });
+                return Response.noContent();
+            case "DELETE":
+                body.forEach(composite -> {
+                    ObjectNode compositeRole = resolveRole(composite);
+                    if (compositeRole != null) {
+                        linkMap(key).remove(compositeRole.get("id").asText());
+                    }
+                });
+                return Response.noContent();
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+    }
+
+    /**
+     * role-mappings of users and groups, scope-mappings of clients and client scopes
+     */
+    private Response mappings(String method, List<String> owner, List<String> path, JsonNode body) {
+        boolean ownerExists = owner.get(0).equals("groups")
+                ? groups.containsKey(owner.get(1))
+                : entity(owner.subList(0, owner.size() - 1)) != null;
+        if (!ownerExists) {
+            return Response.notFound();
+        }
+
+        String base = String.join("/", owner);
+        if (path.isEmpty()) {
+            if (!method.equals("GET")) {
+                return Response.error(405, "Method not allowed");
+            }
+
+            ObjectNode mappings = OBJECT_MAPPER.createObjectNode();
+            List<ObjectNode> realmMappings = links(base + "/realm");
+            if (!realmMappings.isEmpty()) {
+                mappings.set("realmMappings", realmMappings.stream().map(this::renderRole).collect(toArray()));
+            }
+
+            ObjectNode clientMappings = OBJECT_MAPPER.createObjectNode();
+            for (ObjectNode client : collection("clients").values()) {
+                List<ObjectNode> roles = links(base + "/clients/" + client.get("id").asText());
+                if (!roles.isEmpty()) {
+                    ObjectNode clientMapping = clientMappings.putObject(client.get("clientId").asText());
+                    clientMapping.put("id", client.get("id").asText());
+                    clientMapping.put("client", client.get("clientId").asText());
+                    clientMapping.set("mappings", roles.stream().map(this::renderRole).collect(toArray()));
+                }
+            }
+            if (clientMappings.size() > 0) {
+                mappings.set("clientMappings", clientMappings);
+            }
+
+            return Response.ok(mappings);
+        }
+
+        String key;
+        List<String> rest;
+        if (path.get(0).equals("realm")) {
+            key = base + "/realm";
+            rest = path.subList(1, path.size());
+        } else if (path.get(0).equals("clients") && path.size() >= 2) {
+            ObjectNode client = find("clients", path.get(1));
+            if (client == null) {
+                return Response.notFound("Could not find client");
+            }
+            key = base + "/clients/" + client.get("id").asText();
+            rest = path.subList(2, path.size());
+        } else {
+            return Response.notFound();
+        }
+
+        if (!rest.isEmpty()) {
+            if (rest.get(0).equals("available")) {
+                return Response.ok(OBJECT_MAPPER.createArrayNode());
+            }
+
+            // composite: the effective roles
+            Set<ObjectNode> effective = new LinkedHashSet<>();
+            links(key).forEach(role -> expand(role, effective));
+            return Response.ok(effective.stream().map(this::renderRole).collect(toArray()));
+        }
+
+        switch (method) {
+            case "GET":
+                return Response.ok(links(key).stream().map(this::renderRole).collect(toArray()));
+            case "POST":
+            case "DELETE":
+                for (JsonNode roleNode : body) {
+                    ObjectNode role = resolveRole(roleNode);
+                    if (role == null) {
+                        return Response.notFound("Could not find role");
+                    }
+
+                    if (method.equals("POST")) {
+                        linkMap(key).put(role.get("id").asText(), role);
+                    } else {
+                        linkMap(key).remove(role.get("id").asText());
+                    }
+                }
+                return Response.noContent();
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+    }
+
+    private void expand(ObjectNode role, Set<ObjectNode> effective) {
+        if (effective.add(role)) {
+            links("composites/" + role.get("id").asText()).forEach(composite -> expand(composite, effective));
+        }
+    }
+
+    private Predicate<ObjectNode> roleFilter(List<String> path) {
+        if (path.isEmpty()) {
+            return role -> true;
+        }
+
+        if (path.get(0).equals("realm")) {
+            return role -> !role.path("clientRole").asBoolean();
+        }
+
+        if (path.get(0).equals("clients") && path.size() == 2) {
+            ObjectNode client = find("clients", path.get(1));
+            String clientUuid = client == null ? path.get(1) : client.get("id").asText();
+            return role -> clientUuid.equals(role.path("containerId").asText());
+        }
+
+        return null;
+    }
+
+    private ObjectNode resolveRole(JsonNode representation) {
+        if (representation.hasNonNull("id")) {
+            ObjectNode role = findRole(representation.get("id").asText());
+            if (role != null) {
+                return role;
+            }
+        }
+
+        String roleName = representation.path("name").asText();
+        if (representation.path("clientRole").asBoolean() && representation.hasNonNull("containerId")) {
+            return find("clients/" + representation.get("containerId").asText() + "/roles", roleName);
+        }
+
+        return find("roles", roleName);
+    }
+
+    private ObjectNode findRole(String id) {
+        for (Map.Entry<String, Map<String, ObjectNode>> collection : collections.entrySet()) {
+            if (type(collection.getKey()).equals("roles") && collection.getValue().containsKey(id)) {
+                return collection.getValue().get(id);
+            }
+        }
+
+        return null;
+    }
+
+    private String rolePath(ObjectNode role) {
+        return role.path("clientRole").asBoolean()
+                ? "clients/" + role.get("containerId").asText() + "/roles"
+                : "roles";
+    }
+
+    /*
+     * links
+     */
+
+    private Response link(String method, List<String> path, Function<String, ObjectNode> resolver,
+                          Function<ObjectNode, ObjectNode> renderer) {
+        return link(method, path, path.get(0), resolver, renderer);
+    }
+
+    private Response link(String method, List<String> path, String key, Function<String, ObjectNode> resolver,
+                          Function<ObjectNode, ObjectNode> renderer) {
+        if (path.size() == 1 && method.equals("GET")) {
+            return Response.ok(links(key).stream().map(renderer).collect(toArray()));
+        }
+
+        if (path.size() != 2) {
+            return Response.notFound();
+        }
+
+        ObjectNode target = resolver.apply(path.get(1));
+        if (target == null) {
+            return Response.notFound();
+        }
+
+        String id = target.get("id").asText();
+        switch (method) {
+            case "PUT":
+                linkMap(key).put(id, target);
+                return Response.noContent();
+            case "DELETE":
+                linkMap(key).remove(id);
+                return Response.noContent();
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+    }
+
+    private List<ObjectNode> links(String key) {
+        Map<String, ObjectNode> link = links.get(key);
+        return link == null ? Collections.emptyList() : new ArrayList<>(link.values());
+    }
+
+    private Map<String, ObjectNode> linkMap(String key) {
+        return links.computeIfAbsent(key, k -> new LinkedHashMap<>());
+    }
+
+    private ObjectNode renderReference(ObjectNode entity) {
+        ObjectNode reference = OBJECT_MAPPER.createObjectNode();
+        reference.put("id", entity.get("id").asText());
+        reference.put("name", entity.path("name").asText());
+        return reference;
+    }
+
+    private ObjectNode findClientScope(String id) {
+        return find("client-scopes", id);
+    }
+
+    /*
+     * groups
+     */
+
+    private Response groups(String method, List<String> path, Map<String, String> query, JsonNode body) {
+        if (path.size() == 1) {
+            if (method.equals("POST")) {
+                return createGroup(null, body);
+            }
+
+            String search = query.get("search");
+            int first = Integer.parseInt(query.getOrDefault("first", "0"));
+            int max = Integer.parseInt(query.getOrDefault("max", String.valueOf(Integer.MAX_VALUE)));
+
+            return Response.ok(topLevelGroups().stream()
+                    .filter(group -> search == null || groupMatches(group.get("id").asText(), search))
+                    .skip(first)
+                    .limit(max)
+                    .map(this::renderGroup)
+                    .collect(toArray()));
+        }
+
+        if (path.size() == 2 && path.get(1).equals("count")) {
+            return Response.ok(OBJECT_MAPPER.createObjectNode().put("count", groups.size()));
+        }
+
+        ObjectNode group = groups.get(path.get(1));
+        if (group == null) {
+            return Response.notFound("Could not find group by id");
+        }
+
+        String groupId = group.get("id").asText();
+        if (path.size() == 2) {
+            switch (method) {
+                case "GET":
+                    return Response.ok(renderGroup(group));
+                case "PUT":
+                    if (body.has("name")) {
+                        group.set("name", body.get("name"));
+                    }
+                    if (body.has("attributes")) {
+                        group.set("attributes", body.get("attributes"));
+                    }
+                    return Response.noContent();
+                case "DELETE":
+                    removeGroup(groupId);
+                    return Response.noContent();
+                default:
+                    return Response.error(405, "Method not allowed");
+            }
+        }
+
+        if (path.size() == 3 && path.get(2).equals("children")) {
+            if (method.equals("POST")) {
+                return createGroup(groupId, body);
+            }
+
+            return Response.ok(children(groupId).stream().map(this::renderGroup).collect(toArray()));
+        }
+
+        if (path.size() == 3 && path.get(2).equals("members")) {
+            return Response.ok(links.entrySet().stream()
+                    .filter(link -> link.getKey().startsWith("users/") && link.getKey().endsWith("/groups"))
+                    .filter(link -> link.getValue().containsKey(groupId))
+                    .map(link -> find("users", link.getKey().split("/")[1]))
+                    .filter(Objects::nonNull)
+                    .map(ObjectNode::deepCopy)
+                    .collect(toArray()));
+        }
+
+        return Response.notFound();
+    }
+
+    private Response createGroup(String parentId, JsonNode body) {
+        String groupName = body.path("name").asText();
+
+        if (body.hasNonNull("id") && groups.containsKey(body.get("id").asText())) {
+            // moves an existing group
+            groupParents.put(body.get("id").asText(), parentId);
+            return Response.noContent();
+        }
+
+        boolean exists = groups.values().stream()
+                .filter(group -> Objects.equals(groupParents.get(group.get("id").asText()), parentId))
+                .anyMatch(group -> group.get("name").asText().equals(groupName));
+        if (exists) {
+            return Response.conflict("Top level group named '" + groupName + "' already exists.");
+        }
+
+        ObjectNode group = OBJECT_MAPPER.createObjectNode();
+        String id = body.path("id").asText(UUID.randomUUID().toString());
+        group.put("id", id);
+        group.put("name", groupName);
+        group.set("attributes", body.has("attributes") ? body.get("attributes").deepCopy() : OBJECT_MAPPER.createObjectNode());
+
+        groups.put(id, group);
+        groupParents.put(id, parentId);
+        return Response.created(id);
+    }
+
+    private void removeGroup(String id) {
+        children(id).forEach(child -> removeGroup(child.get("id").asText()));
+
+        groups.remove(id);
+        groupParents.remove(id);
+        links.keySet().removeIf(key -> key.startsWith("groups/" + id + "/"));
+        links.values().forEach(link -> link.remove(id));
+    }
+
+    private List<ObjectNode> topLevelGroups() {
+        return children(null);
+    }
+
+    private List<ObjectNode> children(String parentId) {
+        return groups.values().stream()
+                .filter(group -> Objects.equals(groupParents.get(group.get("id").asText()), parentId))
+                .collect(Collectors.toList());
+    }
+
+    private boolean groupMatches(String id, String search) {
+        if (groups.get(id).get("name").asText().toLowerCase().contains(search.toLowerCase())) {
+            return true;
+        }
+
+        return children(id).stream().anyMatch(child -> groupMatches(child.get("id").asText(), search));
+    }
+
+    private String groupPath(String id) {
+        String parentId = groupParents.get(id);
+        String parentPath = parentId == null ? "" : groupPath(parentId);
+        return parentPath + "/" + groups.get(id).get("name").asText();
+    }
+
+    private ObjectNode findGroupByPath(String path) {
+        String normalized = path.startsWith("/") ? path : "/" + path;
+
+        return groups.keySet().stream()
+                .filter(id -> groupPath(id).equals(normalized))
+                .findFirst()
+                .map(groups::get)
+                .orElse(null);
+    }
+
+    private Response groupByPath(String path) {
+        ObjectNode group = findGroupByPath(path);
+        return group == null ? Response.notFound("Group path does not exist") : Response.ok(renderGroup(group));
+    }
+
+    private ObjectNode renderGroup(ObjectNode group) {
+        String id = group.get("id").asText();
+
+        ObjectNode rendered = group.deepCopy();
+        rendered.put("path", groupPath(id));
+        rendered.set("realmRoles", names(links("groups/" + id + "/role-mappings/realm")));
+
+        ObjectNode clientRoles = rendered.putObject("clientRoles");
+        for (ObjectNode client : collection("clients").values()) {
+            List<ObjectNode> roles = links("groups/" + id + "/role-mappings/clients/" + client.get("id").asText());
+            if (!roles.isEmpty()) {
+                clientRoles.set(client.get("clientId").asText(), names(roles));
+            }
+        }
+
+        rendered.set("subGroups", children(id).stream().map(this::renderGroup).collect(toArray()));
+        return rendered;
+    }
+
+    private ObjectNode renderGroupReference(ObjectNode group) {
+        ObjectNode reference = OBJECT_MAPPER.createObjectNode();
+        reference.put("id", group.get("id").asText());
+        reference.put("name", group.get("name").asText());
+        reference.put("path", groupPath(group.get("id").asText()));
+        return reference;
+    }
+
+    /*
+     * authentication management
+     */
+
+    private Response authentication(String method, List<String> path, JsonNode body) {
+        if (path.isEmpty()) {
+            return Response.notFound();
+        }
+
+        switch (path.get(0)) {
+            case "flows":
+                return authenticationFlows(method, path, body);
+            case "executions":
+                return executions(method, path, body);
+            case "config":
+                return authenticatorConfig(method, path, body);
+            case "required-actions":
+                return requiredActions(method, path, body);
+            case "register-required-action":
+                String providerId = body.path("providerId").asText();
+                if (!requiredActions.containsKey(providerId)) {
+                    addRequiredAction(providerId, body.path("name").asText(providerId), true);
+                }
+                return Response.noContent();
+            case "unregistered-required-actions":
+            case "authenticator-providers":
+            case "client-authenticator-providers":
+            case "form-action-providers":
+            case "form-providers":
+                return Response.ok(OBJECT_MAPPER.createArrayNode());
+            default:
+                return Response.notFound();
+        }
+    }
+
+    private Response authenticationFlows(String method, List<String> path, JsonNode body) {
+        if (path.size() == 1) {
+            if (method.equals("POST")) {
+                String alias = body.path("alias").asText();
+                if (findFlow(alias) != null) {
+                    return Response.conflict("Flow " + alias + " already exists");
+                }
+
+                ObjectNode flow = addFlow(alias, body.path("providerId").asText("basic-flow"),
+                        body.path("topLevel").asBoolean(true), false);
+                flow.put("description", body.path("description").asText(""));
+                return Response.created(flow.get("id").asText());
+            }
+
+            return Response.ok(flows.values().stream()
+                    .filter(flow -> flow.path("topLevel").asBoolean())
+                    .map(this::renderFlow)
+                    .collect(toArray()));
+        }
+
+        if (path.size() == 2) {
+            ObjectNode flow = flows.get(path.get(1));
+            if (flow == null) {
+                return Response.notFound("Could not find flow with id");
+            }
+
+            switch (method) {
+                case "GET":
+                    return Response.ok(renderFlow(flow));
+                case "PUT":
+                    for (String field : Arrays.asList("alias", "description", "providerId")) {
+                        if (body.has(field)) {
+                            flow.set(field, body.get(field));
+                        }
+                    }
+                    return Response.noContent();
+                case "DELETE":
+                    if (flow.path("builtIn").asBoolean()) {
+                        return Response.error(400, "Can't delete built in flow");
+                    }
+                    removeFlow(flow.get("id").asText());
+                    return Response.noContent();
+                default:
+                    return Response.error(405, "Method not allowed");
+            }
+        }
+
+        ObjectNode flow = findFlow(path.get(1));
+        if (flow == null || !path.get(2).equals("executions")) {
+            return Response.notFound("Flow not found");
+        }
+
+        String flowId = flow.get("id").asText();
+        if (path.size() == 3) {
+            if (method.equals("PUT")) {
+                ObjectNode execution = executions.get(body.path("id").asText());
+                if (execution == null) {
+                    return Response.notFound("Illegal execution");
+                }
+
+                execution.put("requirement", body.path("requirement").asText(execution.path("requirement").asText()));
+                return Response.noContent();
+            }
+
+            ArrayNode infos = OBJECT_MAPPER.createArrayNode();
+            addExecutionInfos(infos, flowId, 0);
+            return Response.ok(infos);
+        }
+
+        if (path.size() == 4 && path.get(3).equals("execution")) {
+            ObjectNode execution = addExecution(flowId, body.path("provider").asText(), null);
+            return Response.created(execution.get("id").asText());
+        }
+
+        if (path.size() == 4 && path.get(3).equals("flow")) {
+            String alias = body.path("alias").asText();
+            if (findFlow(alias) != null) {
+                return Response.conflict("New flow alias name already exists");
+            }
+
+            String type = body.path("type").asText("basic-flow");
+            ObjectNode subFlow = addFlow(alias, type, false, false);
+            subFlow.put("description", body.path("description").asText(""));
+            addExecution(flowId, type.equals("form-flow") ? body.path("provider").asText(null) : null,
+                    subFlow.get("id").asText());
+            return Response.created(subFlow.get("id").asText());
+        }
+
+        return Response.notFound();
+    }
+
+    private Response executions(String method, List<String> path, JsonNode body) {
+        if (path.size() == 1 && method.equals("POST")) {
+            String parentFlow = body.path("parentFlow").asText();
+            if (!flows.containsKey(parentFlow)) {
+                return Response.error(400, "Parent flow doesn't exist");
+            }
+
+            ObjectNode execution = addExecution(parentFlow, body.path("authenticator").asText(null),
+                    body.path("authenticatorFlow").asBoolean() ? body.path("flowId").asText(null) : null);
+            execution.put("requirement", body.path("requirement").asText("DISABLED"));
+            if (body.path("priority").asInt() > 0) {
+                execution.put("priority", body.path("priority").asInt());
+            }
+            if (body.hasNonNull("authenticatorConfig")) {
+                execution.put("authenticatorConfig", body.get("authenticatorConfig").asText());
+            }
+            return Response.created(execution.get("id").asText());
+        }
+
+        ObjectNode execution = path.size() >= 2 ? executions.get(path.get(1)) : null;
+        if (execution == null) {
+            return Response.notFound("Illegal execution");
+        }
+
+        if (path.size() == 2) {
+            switch (method) {
+                case "GET":
+                    return Response.ok(execution.deepCopy());
+                case "DELETE":
+                    removeExecution(execution);
+                    return Response.noContent();
+                default:
+                    return Response.error(405, "Method not allowed");
+            }
+        }
+
+        switch (path.get(2)) {
+            case "raise-priority":
+                movePriority(execution, -1);
+                return Response.noContent();
+            case "lower-priority":
+                movePriority(execution, 1);
+                return Response.noContent();
+            case "config":
+                ObjectNode config = OBJECT_MAPPER.createObjectNode();
+                String configId = UUID.randomUUID().toString();
+                config.put("id", configId);
+                config.put("alias", body.path("alias").asText());
+                config.set("config", body.has("config") ? body.get("config").deepCopy() : OBJECT_MAPPER.createObjectNode());
+                authenticatorConfigs.put(configId, config);
+                execution.put("authenticatorConfig", configId);
+                return Response.created(configId);
+            default:
+                return Response.notFound();
+        }
+    }
+
+    private Response authenticatorConfig(String method, List<String> path, JsonNode body) {
+        ObjectNode config = path.size() == 2 ? authenticatorConfigs.get(path.get(1)) : null;
+        if (config == null) {
+            return Response.notFound("Could not find authenticator config");
+        }
+
+        switch (method) {
+            case "GET":
+                return Response.ok(config.deepCopy());
+            case "PUT":
+                if (body.has("alias")) {
+                    config.set("alias", body.get("alias"));
+                }
+                if (body.has("config")) {
+                    config.set("config", body.get("config").deepCopy());
+                }
+                return Response.noContent();
+            case "DELETE":
+                authenticatorConfigs.remove(config.get("id").asText());
+                executions.values().stream()
+                        .filter(execution -> config.get("id").asText().equals(execution.path("authenticatorConfig").asText()))
+                        .forEach(execution -> execution.remove("authenticatorConfig"));
+                return Response.noContent();
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+    }
+
+    private Response requiredActions(String method, List<String> path, JsonNode body) {
+        if (path.size() == 1) {
+            return Response.ok(requiredActionList());
+        }
+
+        ObjectNode requiredAction = requiredActions.get(path.get(1));
+        if (requiredAction == null) {
+            return Response.notFound("Failed to find required action");
+        }
+
+        if (path.size() == 3) {
+            List<ObjectNode> sorted = sortedByPriority(requiredActions.values());
+            int index = sorted.indexOf(requiredAction);
+            int neighbour = path.get(2).equals("raise-priority") ? index - 1 : index + 1;
+            if (neighbour >= 0 && neighbour < sorted.size()) {
+                swapPriority(requiredAction, sorted.get(neighbour));
+            }
+            return Response.noContent();
+        }
+
+        switch (method) {
+            case "GET":
+                return Response.ok(requiredAction.deepCopy());
+            case "PUT":
+                for (String field : Arrays.asList("name", "enabled", "defaultAction", "priority", "config")) {
+                    if (body.has(field)) {
+                        requiredAction.set(field, body.get(field).deepCopy());
+                    }
+                }
+                return Response.noContent();
+            case "DELETE":
+                requiredActions.remove(path.get(1));
+                return Response.noContent();
+            default:
+                return Response.error(405, "Method not allowed");
+        }
+    }
+
+    private ArrayNode requiredActionList() {
+        return sortedByPriority(requiredActions.values()).stream().map(ObjectNode::deepCopy).collect(toArray());
+    }
+
+    private void addRequiredAction(String alias, String actionName, boolean enabled) {
+        ObjectNode requiredAction = OBJECT_MAPPER.createObjectNode();
+        requiredAction.put("alias", alias);
+        requiredAction.put("name", actionName);
+        requiredAction.put("providerId", alias);
+        requiredAction.put("enabled", enabled);
+        requiredAction.put("defaultAction", false);
+        requiredAction.put("priority", (requiredActions.size() + 1) * 10);
+        requiredAction.putObject("config");
+        requiredActions.put(alias, requiredAction);
+    }
+
+    private ObjectNode addFlow(String alias, String providerId, boolean topLevel, boolean builtIn) {
+        ObjectNode flow = OBJECT_MAPPER.createObjectNode();
+        String id = UUID.randomUUID().toString();
+        flow.put("id", id);
+        flow.put("alias", alias);
+        flow.put("description", "");
+        flow.put("providerId", providerId);
+        flow.put("topLevel", topLevel);
+        flow.put("builtIn", builtIn);
+        flows.put(id, flow);
+        return flow;
+    }
+
+    private ObjectNode findFlow(String alias) {
+        return flows.values().stream()
+                .filter(flow -> alias.equals(flow.get("alias").asText()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void removeFlow(String flowId) {
+        new ArrayList<>(executions.values()).stream()
+                .filter(execution -> flowId.equals(execution.get("parentFlow").asText()))
+                .forEach(this::removeExecution);
+        flows.remove(flowId);
+    }
+
+    private ObjectNode addExecution(String parentFlow, String authenticator, String subFlowId) {
+        int priority = executionsOf(parentFlow).stream()
+                .mapToInt(execution -> execution.get("priority").asInt())
+                .max()
+                .orElse(0) + 10;
+
+        ObjectNode execution = OBJECT_MAPPER.createObjectNode();
+        execution.put("id", UUID.randomUUID().toString());
+        execution.put("parentFlow", parentFlow);
+        execution.put("authenticator", authenticator);
+        execution.put("authenticatorFlow", subFlowId != null);
+        if (subFlowId != null) {
+            execution.put("flowId", subFlowId);
+        }
+        execution.put("requirement", "DISABLED");
+        execution.put("priority", priority);
+        executions.put(execution.get("id").asText(), execution);
+        return execution;
+    }
+
+    private void removeExecution(ObjectNode execution) {
+        executions.remove(execution.get("id").asText());
+
+        if (execution.path("authenticatorFlow").asBoolean() && execution.hasNonNull("flowId")) {
+            removeFlow(execution.get("flowId").asText());
+        }
+    }
+
+    private List<ObjectNode> executionsOf(String flowId) {
+        return sortedByPriority(executions.values().stream()
+                .filter(execution -> flowId.equals(execution.get("parentFlow").asText()))
+                .collect(Collectors.toList()));
+    }
+
+    private void movePriority(ObjectNode execution, int direction) {
+        List<ObjectNode> siblings = executionsOf(execution.get("parentFlow").asText());
+        int neighbour = siblings.indexOf(execution) + direction;
+
+        if (neighbour >= 0 && neighbour < siblings.size()) {
+            swapPriority(execution, siblings.get(neighbour));
+        }
+    }
+
+    private static void swapPriority(ObjectNode a, ObjectNode b) {
+        int priority = a.get("priority").asInt();
+        a.put("priority", b.get("priority").asInt());
+        b.put("priority", priority);
+
+        if (a.get("priority").asInt() == b.get("priority").asInt()) {
+            b.put("priority", priority + 1);
+        }
+    }
+
+    private static List<ObjectNode> sortedByPriority(Collection<ObjectNode> nodes) {
+        List<ObjectNode> sorted = new ArrayList<>(nodes);
+        sorted.sort(Comparator.comparingInt(node -> node.path("priority").asInt()));
+        return sorted;
+    }
+
+    private void addExecutionInfos(ArrayNode infos, String flowId, int level) {
+        int index = 0;
+
+        for (ObjectNode execution : executionsOf(flowId)) {
+            ObjectNode info = infos.addObject();
+            info.put("id", execution.get("id").asText());
+            info.put("requirement", execution.get("requirement").asText());
+            info.put("level", level);
+            info.put("index", index++);
+            info.put("priority", execution.get("priority").asInt());
+            info.putArray("requirementChoices").add("REQUIRED").add("ALTERNATIVE").add("DISABLED");
+
+            if (execution.path("authenticatorFlow").asBoolean()) {
+                ObjectNode subFlow = flows.get(execution.get("flowId").asText());
+                info.put("displayName", subFlow.get("alias").asText());
+                info.put("description", subFlow.path("description").asText());
+                info.put("configurable", false);
+                info.put("authenticationFlow", true);
+                info.put("flowId", subFlow.get("id").asText());
+                addExecutionInfos(infos, subFlow.get("id").asText(), level + 1);
+            } else {
+                info.put("displayName", execution.path("authenticator").asText());
+                info.put("configurable", true);
+                info.put("providerId", execution.path("authenticator").asText());
+                if (execution.hasNonNull("authenticatorConfig")) {
+                    info.put("authenticationConfig", execution.get("authenticatorConfig").asText());
+                }
+            }
+        }
+    }
+
+    private ObjectNode renderFlow(ObjectNode flow) {
+        ObjectNode rendered = flow.deepCopy();
+        ArrayNode authenticationExecutions = rendered.putArray("authenticationExecutions");
+
+        for (ObjectNode execution : executionsOf(flow.get("id").asText())) {
+            ObjectNode exported = authenticationExecutions.addObject();
+            if (execution.hasNonNull("authenticatorConfig")) {
+                ObjectNode config = authenticatorConfigs.get(execution.get("authenticatorConfig").asText());
+                if (config != null) {
+                    exported.put("authenticatorConfig", config.get("alias").asText());
+                }
+            }
+            if (execution.hasNonNull("authenticator")) {
+                exported.put("authenticator", execution.get("authenticator").asText());
+            }
+            boolean authenticatorFlow = execution.path("authenticatorFlow").asBoolean();
+            exported.put("authenticatorFlow", authenticatorFlow);
+            if (authenticatorFlow) {
+                exported.put("flowAlias", flows.get(execution.get("flowId").asText()).get("alias").asText());
+            }
+            exported.put("requirement", execution.get("requirement").asText());
+            exported.put("priority", execution.get("priority").asInt());
+            exported.put("userSetupAllowed", false);
+            exported.put("autheticatorFlow", authenticatorFlow);
+        }
+
+        return rendered;
+    }
+
+    /*
+     * defaults of a new realm
+     */
+
+    private void seed() {
+        ObjectNode offlineAccess = addRole("roles", "offline_access");
+        ObjectNode umaAuthorization = addRole("roles", "uma_authorization");
+        ObjectNode defaultRoles = addRole("roles", "default-roles-" + name);
+
+        addClient("account", "view-profile", "manage-account", "manage-account-links", "view-applications",
+                "view-consent", "manage-consent", "delete-account");
+        addClient("account-console");
+        addClient("admin-cli");
+        addClient("broker", "read-token");
+        addClient("realm-management", "realm-admin", "create-client", "impersonation", "manage-authorization",
+                "manage-clients", "manage-events", "manage-identity-providers", "manage-realm", "manage-users",
+                "query-clients", "query-groups", "query-realms", "query-users", "view-authorization", "view-clients",
+                "view-events", "view-identity-providers", "view-realm", "view-users");
+        addClient("security-admin-console");
+
+        Map<String, ObjectNode> defaultRoleComposites = linkMap("composites/" + defaultRoles.get("id").asText());
+        for (ObjectNode role : Arrays.asList(offlineAccess, umaAuthorization,
+                find(clientPath(findBy("clients", "clientId", "account")) + "/roles", "view-profile"),
+                find(clientPath(findBy("clients", "clientId", "account")) + "/roles", "manage-account"))) {
+            defaultRoleComposites.put(role.get("id").asText(), role);
+        }
+
+        for (String scope : Arrays.asList("profile", "email", "roles", "web-origins")) {
+            ObjectNode clientScope = addClientScope(scope, "openid-connect");
+            linkMap("default-default-client-scopes").put(clientScope.get("id").asText(), clientScope);
+        }
+        for (String scope : Arrays.asList("offline_access", "address", "phone", "microprofile-jwt")) {
+            ObjectNode clientScope = addClientScope(scope, "openid-connect");
+            linkMap("default-optional-client-scopes").put(clientScope.get("id").asText(), clientScope);
+        }
+        addClientScope("role_list", "saml");
+
+        for (String flow : BUILT_IN_FLOWS) {
+            addFlow(flow, flow.equals("clients") ? "client-flow" : "basic-flow", true, true);
+        }
+
+        for (String requiredAction : REQUIRED_ACTIONS) {
+            addRequiredAction(requiredAction, requiredAction, !requiredAction.equals("terms_and_conditions")
+                    && !requiredAction.equals("delete_account"));
+        }
+    }
+
+    private ObjectNode addRole(String collectionPath, String roleName) {
+        ObjectNode role = OBJECT_MAPPER.createObjectNode();
+        role.put("name", roleName);
+        return add(collectionPath, role);
+    }
+
+    private void addClient(String clientId, String... roles) {
+        ObjectNode client = OBJECT_MAPPER.createObjectNode();
+        client.put("clientId", clientId);
+        client.put("enabled", true);
+        client.put("protocol", "openid-connect");
+        client.putArray("defaultClientScopes");
+        client.putArray("optionalClientScopes");
+        add("clients", client);
+
+        for (String role : roles) {
+            addRole(clientPath(client) + "/roles", role);
+        }
+    }
+
+    private ObjectNode addClientScope(String scopeName, String protocol) {
+        ObjectNode clientScope = OBJECT_MAPPER.createObjectNode();
+        clientScope.put("name", scopeName);
+        clientScope.put("protocol", protocol);
+        clientScope.putObject("attributes");
+        return add("client-scopes", clientScope);
+    }
+
+    /*
+     * helpers
+     */
+
+    /**
+     * Replaces the keys of entities in a path, e.g. role names or identity provider aliases, by their ids.
+     */
+    private List<String> canonical(List<String> path) {
+        List<String> canonical = new ArrayList<>(path);
+
+        for (int i = 0; i < canonical.size() - 1; i++) {
+            if (!COLLECTIONS.contains(canonical.get(i))) {
+                continue;
+            }
+
+            String collectionPath = String.join("/", canonical.subList(0, i + 1));
+            ObjectNode entity = find(collectionPath, canonical.get(i + 1));
+            if (entity != null) {
+                canonical.set(i + 1, entity.get(idField(collectionPath)).asText());
+            }
+            i++;
+        }
+
+        return canonical;
+    }
+
+    private boolean ownerExists(List<String> path) {
+        for (int i = 0; i < path.size() - 2; i++) {
+            if (COLLECTIONS.contains(path.get(i))) {
+                return entity(path.subList(0, i + 2)) != null;
+            }
+        }
+
+        return true;
+    }
+
+    private ObjectNode entity(List<String> path) {
+        if (path.size() < 2) {
+            return null;
+        }
+
+        return find(String.join("/", path.subList(0, path.size() - 1)), path.get(path.size() - 1));
+    }
+
+    private ObjectNode find(String collectionPath, String key) {
+        Map<String, ObjectNode> collection = collections.get(collectionPath);
+        if (collection == null) {
+            return null;
+        }
+
+        ObjectNode entity = collection.get(key);
+        if (entity != null) {
+            return entity;
+        }
+
+        switch (type(collectionPath)) {
+            case "roles":
+                return findBy(collectionPath, "name", key);
+            case "instances":
+                return findBy(collectionPath, "alias", key);
+            default:
+                return null;
+        }
+    }
+
+    private ObjectNode findBy(String collectionPath, String field, String value) {
+        return collection(collectionPath).values().stream()
+                .filter(entity -> value.equals(entity.path(field).asText(null)))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Map<String, ObjectNode> collection(String collectionPath) {
+        return collections.computeIfAbsent(collectionPath, path -> new LinkedHashMap<>());
+    }
+
+    private static String type(String collectionPath) {
+        return collectionPath.substring(collectionPath.lastIndexOf('/') + 1);
+    }
+
+    private static String idField(String collectionPath) {
+        return type(collectionPath).equals("instances") ? "internalId" : "id";
+    }
+
+    private static String uniqueField(String type) {
+        switch (type) {
+            case "clients":
+                return "clientId";
+            case "users":
+                return "username";
+            case "instances":
+                return "alias";
+            case "components":
+                return null;
+            default:
+                return "name";
+        }
+    }
+
+    private static int indexOfAny(List<String> path, String... segments) {
+        for (int i = 0; i < path.size(); i++) {
+            if (Arrays.asList(segments).contains(path.get(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String clientPath(ObjectNode client) {
+        return "clients/" + client.get("id").asText();
+    }
+
+    private String clientIdOf(String clientUuid) {
+        ObjectNode client = find("clients", clientUuid);
+        return client == null ? clientUuid : client.get("clientId").asText();
+    }
+
+    private static String flowBinding(String flow) {
+        switch (flow) {
+            case "direct grant":
+                return "directGrantFlow";
+            case "reset credentials":
+                return "resetCredentialsFlow";
+            case "clients":
+                return "clientAuthenticationFlow";
+            case "docker auth":
+                return "dockerAuthenticationFlow";
+            default:
+                return flow + "Flow";
+        }
+    }
+
+    private static ArrayNode names(Collection<ObjectNode> entities) {
+        return entities.stream()
+                .map(entity -> OBJECT_MAPPER.getNodeFactory().textNode(entity.path("name").asText()))
+                .collect(toArray());
+    }
+
+    private static <T extends JsonNode> Collector<T, ArrayNode, ArrayNode> toArray() {
+        return Collector.of(OBJECT_MAPPER::createArrayNode, ArrayNode::add, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+}
@@ -0,0 +1,124 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.test.util;
+
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.util.resteasy.HttpCall;
+import de.adorsys.keycloak.config.util.resteasy.HttpCallFilter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Records the admin API requests of the keycloak client, as seen by the {@link HttpCallFilter} of the {@link KeycloakProvider},
+ * to assert upper bounds of requests per import scenario.
+ * <pre>
+ * try (HttpCallRecorder recorder = HttpCallRecorder.record(keycloakProvider)) {
+ *     realmImportService.doImport(realmImport);
+ *
+ *     assertThat(recorder.toString(), recorder.count(), is(lessThanOrEqualTo(5L)));
+ * }
+ * </pre>
+ */
+public class HttpCallRecorder implements Consumer<HttpCall>, AutoCloseable {
+    private static final List<String> WRITE_METHODS = Arrays.asList("POST", "PUT", "DELETE");
+
+    private final HttpCallFilter httpCallFilter;
+    private final Queue<HttpCall> calls = new ConcurrentLinkedQueue<>();
+
+    private HttpCallRecorder(HttpCallFilter httpCallFilter) {
+        this.httpCallFilter = httpCallFilter;
+    }
+
+    public static HttpCallRecorder record(KeycloakProvider keycloakProvider) {
+        HttpCallRecorder recorder = new HttpCallRecorder(keycloakProvider.getHttpCallFilter());
+        recorder.httpCallFilter.addListener(recorder);
+        return recorder;
+    }
+
+    @Override
+    public void accept(HttpCall call) {
+        calls.add(call);
+    }
+
+    /**
+     * Number of admin API requests, i.e. without token requests.
+     */
+    public long count() {
+        return count(this::isAdminCall);
+    }
+
+    public long count(String method, String endpoint) {
+        return count(call -> call.getMethod().equals(method) && call.getEndpoint().equals(endpoint));
+    }
+
+    /**
+     * Number of admin API requests which create, update or delete something.
+     */
+    public long countWrites() {
+        return count(call -> isAdminCall(call) && WRITE_METHODS.contains(call.getMethod()));
+    }
+
+    /**
+     * Number of requests by method and endpoint, e.g. {@code GET /admin/realms/{realm}/roles/{name}}.
+     */
+    public Map<String, Long> countByEndpoint() {
+        return calls.stream().collect(Collectors.groupingBy(
+                call -> call.getMethod() + " " + call.getEndpoint(),
+                TreeMap::new,
+                Collectors.counting()
+        ));
+    }
+
+    public void reset() {
+        calls.clear();
+    }
+
+    @Override
+    public void close() {
+        httpCallFilter.removeListener(this);
+    }
+
+    /**
+     * The requests by endpoint, as assertion message.
+     */
+    @Override
+    public String toString() {
+        return countByEndpoint().entrySet().stream()
+                .map(entry -> entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining("\n", "HTTP calls:\n", ""));
+    }
+
+    private long count(Predicate<HttpCall> predicate) {
+        return calls.stream().filter(predicate).count();
+    }
+
+    private boolean isAdminCall(HttpCall call) {
+        return call.getEndpoint().contains("/admin/");
+    }
+}
@@ -456,6 +456,84 @@ class CloneUtilTest {
         assertFalse(CloneUtil.deepEquals(origin, other));
     }
 
+    @Test
+    void shouldDeepDiff() {
+        TestObject origin = new TestObject(
+                "my string",
+                1234,
+                123.123,
+                1234L,
+                null,
+                null,
+                new TestObject.InnerTestObject(
+                        "my other string",
+                        4321,
+                        52.72,
+                        null,
+                        null
+                ),
+                null
+        );
+
+        TestObject other = new TestObject(
+                "my string",
+                1234,
+                321.321,
+                1235L,
+                null,
+                null,
+                new TestObject.InnerTestObject(
+                        "my other string",
+                        4321,
+                        52.72,
+                        null,
+                        null
+                ),
+                null
+        );
+
+        TestObject diff = CloneUtil.deepDiff(origin, other, "longProperty");
+
+        assertThat(diff.getStringProperty(), nullValue());
+        assertThat(diff.getIntegerProperty(), nullValue());
+        assertThat(diff.getDoubleProperty(), is(123.123));
+        assertThat(diff.getLongProperty(), nullValue());
+        assertThat(diff.getInnerTestObjectProperty(), nullValue());
+    }
+
+    @Test
+    void shouldNotDeepDiff() {
+        TestObject origin = new TestObject(
+                "my string",
+                1234,
+                123.123,
+                1234L,
+                null,
+                null,
+                null,
+                null
+        );
+
+        TestObject other = new TestObject(
+                "my string",
+                1234,
+                123.123,
+                1234L,
+                null,
+                null,
+                new TestObject.InnerTestObject(
+                        "my other string",
+                        4321,
+                        52.72,
+                        null,
+                        null
+                ),
+                null
+        );
+
+        assertThat(CloneUtil.deepDiff(origin, other), nullValue());
+    }
+
     @Test
     @SuppressWarnings("ConstantConditions")
     void shouldReturnNull() {
@@ -476,5 +554,8 @@ class CloneUtilTest {
 
         boolean deepEquals = CloneUtil.deepEquals(null, null);
         assertThat(deepEquals, is(true));
+
+        Object deepDiff = CloneUtil.deepDiff(null, null);
+        assertThat(deepDiff, nullValue());
     }
 }
@@ -0,0 +1,69 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class CompressionUtilTest {
+    @Test
+    void shouldThrowOnNew() {
+        assertThrows(IllegalStateException.class, CompressionUtil::new);
+    }
+
+    @Test
+    void compressDecompress() {
+        String data = "[\"role-1\",\"role-2\",\"role-3\"]";
+
+        String compressedData = CompressionUtil.compress(data);
+        assertThat(CompressionUtil.decompress(compressedData), is(data));
+    }
+
+    @Test
+    void compressShrinksRepetitiveData() {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add("client-role-" + i);
+        }
+
+        String data = JsonUtil.toJson(values);
+        String compressedData = CompressionUtil.compress(data);
+
+        assertThat(compressedData.length(), lessThan(data.length() / 3));
+        assertThat(CompressionUtil.decompress(compressedData), is(data));
+    }
+
+    @Test
+    void decompressInvalid() {
+        assertThrows(ImportProcessingException.class, () -> CompressionUtil.decompress("not-compressed"));
+    }
+}
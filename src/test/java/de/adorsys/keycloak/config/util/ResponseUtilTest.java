@@ -24,6 +24,10 @@ import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(GithubActionsExtension.class)
@@ -32,4 +36,18 @@ class ResponseUtilTest {
     void shouldThrowOnNew() {
         assertThrows(IllegalStateException.class, ResponseUtil::new);
     }
+
+    @Test
+    void shouldAcceptCreated() {
+        Response response = Response.status(Response.Status.CREATED).build();
+
+        assertDoesNotThrow(() -> ResponseUtil.validate(response, () -> false));
+    }
+
+    @Test
+    void shouldThrowOnConflictWithoutRetry() {
+        Response response = Response.status(Response.Status.CONFLICT).build();
+
+        assertThrows(WebApplicationException.class, () -> ResponseUtil.validate(response, () -> true));
+    }
 }
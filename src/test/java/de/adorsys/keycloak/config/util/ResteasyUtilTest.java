@@ -21,9 +21,19 @@
 package de.adorsys.keycloak.config.util;
 
 import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpClient;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakRetry;
+import de.adorsys.keycloak.config.util.resteasy.ConnectionPoolStatistics;
+import de.adorsys.keycloak.config.util.resteasy.RetryStatistics;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(GithubActionsExtension.class)
@@ -32,4 +42,24 @@ class ResteasyUtilTest {
     void shouldThrowOnNew() {
         assertThrows(IllegalStateException.class, ResteasyUtil::new);
     }
+
+    @Test
+    void shouldCreateClientWithConfiguredPool() {
+        KeycloakHttpClient httpClient = new KeycloakHttpClient(
+                5, 3,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(1),
+                Duration.ofSeconds(30), Duration.ZERO, Duration.ofSeconds(30)
+        );
+        KeycloakRetry retry = new KeycloakRetry(true, 3, Duration.ofMillis(100), Duration.ofSeconds(1));
+        ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+
+        ResteasyClient client = ResteasyUtil.getClient(false, null, httpClient, retry, statistics, new RetryStatistics(), null);
+
+        assertThat(client, notNullValue());
+        assertThat(statistics.getPoolStats().getMax(), is(5));
+        assertThat(statistics.getPoolStats().getLeased(), is(0));
+        assertThat(statistics.getLeases(), is(0L));
+
+        client.close();
+    }
 }
@@ -0,0 +1,124 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class SingleFlightTest {
+    @Test
+    void shouldCoalesceConcurrentCalls() throws Exception {
+        SingleFlight<String, List<String>> singleFlight = new SingleFlight<>(ArrayList::new);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<List<String>> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+
+                List<String> result = new ArrayList<>();
+                result.add("value");
+                return result;
+            }));
+            started.await(10, TimeUnit.SECONDS);
+
+            List<Future<List<String>>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                    calls.incrementAndGet();
+                    return new ArrayList<>();
+                })));
+            }
+
+            // followers register themselves before the leader completes
+            Thread.sleep(200);
+            release.countDown();
+
+            List<String> leaderResult = leader.get(10, TimeUnit.SECONDS);
+            for (Future<List<String>> follower : followers) {
+                List<String> followerResult = follower.get(10, TimeUnit.SECONDS);
+
+                assertThat(followerResult, is(leaderResult));
+                assertThat(followerResult, not(sameInstance(leaderResult)));
+            }
+
+            assertThat(calls.get(), is(1));
+            assertThat(singleFlight.getExecuted(), is(1L));
+            assertThat(singleFlight.getShared(), is(3L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldCallAgainAfterCompletion() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(value -> value);
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("key", () -> "value-" + calls.incrementAndGet());
+        String result = singleFlight.execute("key", () -> "value-" + calls.incrementAndGet());
+
+        assertThat(result, is("value-2"));
+        assertThat(calls.get(), is(2));
+        assertThat(singleFlight.getExecuted(), is(2L));
+        assertThat(singleFlight.getShared(), is(0L));
+    }
+
+    @Test
+    void shouldPropagateException() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(value -> value);
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        assertThat(singleFlight.execute("key", () -> "value"), is("value"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
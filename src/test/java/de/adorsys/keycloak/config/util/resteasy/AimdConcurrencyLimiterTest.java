@@ -0,0 +1,161 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class AimdConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AimdConcurrencyLimiter limiter() {
+        return new AimdConcurrencyLimiter(new KeycloakConcurrencyLimit(true, 4, 1, 8, 0.5, Duration.ofSeconds(1)), clock::get);
+    }
+
+    @Test
+    void shouldIncreaseLimitWhileUtilized() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = limiter();
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < limiter.getLimit(); j++) limiter.acquire();
+            while (limiter.getInFlight() > 0) limiter.release(FAST, false);
+        }
+
+        assertThat(limiter.getLimit(), is(8));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    void shouldNotIncreaseLimitWhileIdle() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = limiter();
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.release(FAST, false);
+        }
+
+        assertThat(limiter.getLimit(), is(4));
+    }
+
+    @Test
+    void shouldDecreaseLimitOnOverload() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = limiter();
+
+        limiter.acquire();
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit(), is(2));
+
+        clock.addAndGet(SLOW * 2);
+        limiter.acquire();
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit(), is(1));
+
+        clock.addAndGet(SLOW * 2);
+        limiter.acquire();
+        limiter.release(FAST, true);
+        assertThat(limiter.getLimit(), is(1));
+        assertThat(limiter.getDecreases(), is(3L));
+    }
+
+    @Test
+    void shouldDecreaseLimitOncePerBurst() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(
+                new KeycloakConcurrencyLimit(true, 8, 1, 8, 0.5, Duration.ofSeconds(1)), clock::get
+        );
+
+        // all requests are in flight, when keycloak starts to reject them
+        for (int i = 0; i < 8; i++) limiter.acquire();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    limiter.release(FAST, true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(limiter.getLimit(), is(4));
+        assertThat(limiter.getDecreases(), is(1L));
+
+        // a request sent after the decrease is overloaded as well
+        clock.addAndGet(FAST * 2);
+        limiter.acquire();
+        limiter.release(FAST, true);
+
+        assertThat(limiter.getLimit(), is(2));
+        assertThat(limiter.getDecreases(), is(2L));
+    }
+
+    @Test
+    void shouldBlockAboveLimit() throws InterruptedException {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(new KeycloakConcurrencyLimit(true, 1, 1, 1, 0.5, Duration.ofSeconds(1)));
+        limiter.acquire();
+
+        Thread waiting = new Thread(() -> {
+            try {
+                limiter.acquire();
+                limiter.release(FAST, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+
+        while (limiter.getThrottled() == 0) {
+            Thread.sleep(10);
+        }
+        assertThat(limiter.getInFlight(), is(1));
+
+        limiter.release(FAST, false);
+        waiting.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(limiter.getInFlight(), is(0));
+        assertThat(limiter.getThrottled(), greaterThan(0L));
+    }
+}
@@ -0,0 +1,167 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class DryRunClientFilterTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void shouldPlanWritesOfAdminApiOnly() {
+        assertThat(DryRunClientFilter.isWrite("POST", "/admin/realms/my-realm/clients"), is(true));
+        assertThat(DryRunClientFilter.isWrite("PUT", "/auth/admin/realms/my-realm"), is(true));
+        assertThat(DryRunClientFilter.isWrite("DELETE", "/admin/realms/my-realm/roles/my-role"), is(true));
+        assertThat(DryRunClientFilter.isWrite("GET", "/admin/realms/my-realm/clients"), is(false));
+        assertThat(DryRunClientFilter.isWrite("POST", "/admin/realms/my-realm/partial-export"), is(false));
+        assertThat(DryRunClientFilter.isWrite("POST", "/realms/master/protocol/openid-connect/token"), is(false));
+    }
+
+    @Test
+    void shouldDiffChangedFieldsOnly() throws IOException {
+        JsonNode current = json("{\"clientId\":\"my-client\",\"enabled\":true,\"secret\":\"s\",\"attributes\":{\"a\":\"1\",\"b\":\"2\"}}");
+        JsonNode changed = json("{\"clientId\":\"my-client\",\"enabled\":false,\"attributes\":{\"a\":\"1\",\"b\":\"3\",\"c\":\"4\"}}");
+
+        List<PlannedChange.FieldChange> fieldChanges = DryRunClientFilter.diff(current, changed);
+
+        assertThat(fieldChanges, hasSize(3));
+        assertThat(fieldChanges.get(0).toString(), is("enabled: true -> false"));
+        assertThat(fieldChanges.get(1).toString(), is("attributes.b: \"2\" -> \"3\""));
+        assertThat(fieldChanges.get(2).toString(), is("attributes.c: null -> \"4\""));
+    }
+
+    @Test
+    void shouldIgnoreOrderOfArrays() throws IOException {
+        JsonNode current = json("{\"redirectUris\":[\"a\",\"b\"],\"webOrigins\":[\"a\"]}");
+        JsonNode changed = json("{\"redirectUris\":[\"b\",\"a\"],\"webOrigins\":[\"a\",\"b\"]}");
+
+        List<PlannedChange.FieldChange> fieldChanges = DryRunClientFilter.diff(current, changed);
+
+        assertThat(fieldChanges, hasSize(1));
+        assertThat(fieldChanges.get(0).getPath(), is("webOrigins"));
+    }
+
+    @Test
+    void shouldTreatMissingAndNullAsEqual() throws IOException {
+        assertThat(DryRunClientFilter.diff(json("{}"), json("{\"description\":null}")), is(empty()));
+        assertThat(DryRunClientFilter.diff(json("{\"enabled\":true}"), null), is(empty()));
+    }
+
+    @Test
+    void shouldDiffAllFieldsOfCreatedEntity() throws IOException {
+        List<PlannedChange.FieldChange> fieldChanges = DryRunClientFilter.diff(null, json("{\"name\":\"my-role\",\"composite\":false}"));
+
+        assertThat(fieldChanges, hasSize(2));
+        assertThat(fieldChanges.get(0).getBefore(), is(nullValue()));
+    }
+
+    @Test
+    void shouldFindName() throws IOException {
+        assertThat(DryRunClientFilter.toName(json("{\"id\":\"1\",\"clientId\":\"my-client\"}"), URI.create("/admin/realms/my-realm/clients")),
+                is("my-client"));
+        assertThat(DryRunClientFilter.toName(null, URI.create("/admin/realms/my-realm/roles/my-role")), is("my-role"));
+        assertThat(DryRunClientFilter.toName(null, URI.create("/admin/realms/my-realm/users/0b5e1d1c-0d40-4b8a-9c3a-7b51b2d0f6c1")),
+                is(nullValue()));
+    }
+
+    @Test
+    void shouldAnswerRequestsOfPlannedEntitiesWithNotFound() {
+        DryRunClientFilter filter = new DryRunClientFilter(() -> "token");
+        filter.setEnabled(true);
+
+        // every request is answered by the filter, nothing is sent to the unreachable url
+        Client client = new ResteasyClientBuilderImpl().build().register(filter);
+
+        try {
+            WebTarget clients = client.target("http://localhost:1/admin/realms/my-realm/clients");
+            Response created = clients.request().post(Entity.json(Collections.singletonMap("clientId", "my-client")));
+            String location = created.getLocation().toString();
+            created.close();
+
+            NotFoundException plannedEntityNotFound = assertThrows(NotFoundException.class,
+                    () -> client.target(location + "/authz/resource-server").request().get(String.class));
+            NotFoundException otherNotFound = new NotFoundException(Response.status(Response.Status.NOT_FOUND).build());
+
+            assertThat(DryRunClientFilter.isPlannedEntityNotFound(plannedEntityNotFound), is(true));
+            assertThat(DryRunClientFilter.isPlannedEntityNotFound(new ImportProcessingException("wrapped", plannedEntityNotFound)), is(true));
+            assertThat(DryRunClientFilter.isPlannedEntityNotFound(otherNotFound), is(false));
+            assertThat(DryRunClientFilter.isPlannedEntityNotFound(new ImportProcessingException("other")), is(false));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void shouldAnswerNameLookupsOfPlannedEntitiesWithNotFound() {
+        DryRunClientFilter filter = new DryRunClientFilter(() -> "token");
+        filter.setEnabled(true);
+
+        Client client = new ResteasyClientBuilderImpl().build().register(filter);
+
+        try {
+            WebTarget realm = client.target("http://localhost:1/admin/realms/my-realm");
+            realm.path("clients").request().post(Entity.json(Collections.singletonMap("clientId", "my client"))).close();
+            realm.path("roles").request().post(Entity.json(Collections.singletonMap("name", "my-role"))).close();
+            realm.path("groups").request().post(Entity.json(Collections.singletonMap("name", "my-group"))).close();
+
+            NotFoundException client404 = assertThrows(NotFoundException.class,
+                    () -> realm.path("clients").queryParam("clientId", "my client").request().get(String.class));
+            NotFoundException role404 = assertThrows(NotFoundException.class,
+                    () -> realm.path("roles/my-role").request().get(String.class));
+            NotFoundException group404 = assertThrows(NotFoundException.class,
+                    () -> realm.path("group-by-path/my-group/sub-group").request().get(String.class));
+
+            assertThat(client404.getResponse().getHeaderString(DryRunClientFilter.PLANNED_ENTITY_HEADER), is("my client"));
+            assertThat(role404.getResponse().getHeaderString(DryRunClientFilter.PLANNED_ENTITY_HEADER), is("my-role"));
+            assertThat(group404.getResponse().getHeaderString(DryRunClientFilter.PLANNED_ENTITY_HEADER), is("my-group"));
+        } finally {
+            client.close();
+        }
+    }
+
+    private static JsonNode json(String value) throws IOException {
+        return OBJECT_MAPPER.readTree(value);
+    }
+}
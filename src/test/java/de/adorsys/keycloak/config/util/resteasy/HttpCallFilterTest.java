@@ -0,0 +1,68 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class HttpCallFilterTest {
+    @Test
+    void shouldReplaceRealmAndIds() {
+        assertThat(
+                HttpCallFilter.toEndpoint("/auth/admin/realms/my-realm/clients/0b5e1d1c-0d40-4b8a-9c3a-7b51b2d0f6c1/protocol-mappers/models"),
+                is("/auth/admin/realms/{realm}/clients/{id}/protocol-mappers/models")
+        );
+    }
+
+    @Test
+    void shouldReplaceNames() {
+        assertThat(
+                HttpCallFilter.toEndpoint("/admin/realms/my-realm/roles/my-role/composites"),
+                is("/admin/realms/{realm}/roles/{name}/composites")
+        );
+        assertThat(
+                HttpCallFilter.toEndpoint("/admin/realms/my-realm/authentication/flows/my-flow/executions"),
+                is("/admin/realms/{realm}/authentication/flows/{name}/executions")
+        );
+        assertThat(
+                HttpCallFilter.toEndpoint("/admin/realms/my-realm/identity-provider/instances/my-idp/mappers"),
+                is("/admin/realms/{realm}/identity-provider/instances/{name}/mappers")
+        );
+    }
+
+    @Test
+    void shouldKeepCollections() {
+        assertThat(HttpCallFilter.toEndpoint("/admin/realms/my-realm/roles"), is("/admin/realms/{realm}/roles"));
+        assertThat(HttpCallFilter.toEndpoint("/admin/realms"), is("/admin/realms"));
+    }
+
+    @Test
+    void shouldExtractRealm() {
+        assertThat(HttpCallFilter.toRealm("/admin/realms/my-realm/clients"), is("my-realm"));
+        assertThat(HttpCallFilter.toRealm("/admin/serverinfo"), is(nullValue()));
+    }
+}
@@ -0,0 +1,57 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class HttpCallTest {
+    private static HttpCall call(String method, String endpoint, int status) {
+        return new HttpCall(method, endpoint, endpoint, "realm", status, 0, 0);
+    }
+
+    @Test
+    void shouldCountSuccessfulWritesAsOperations() {
+        assertThat(call("POST", "/admin/realms/{realm}/clients", 201).getOperation(), is("created"));
+        assertThat(call("PUT", "/admin/realms/{realm}/clients/{id}", 204).getOperation(), is("updated"));
+        assertThat(call("DELETE", "/admin/realms/{realm}/clients/{id}", 204).getOperation(), is("deleted"));
+    }
+
+    @Test
+    void shouldNotCountReadsFailuresAndTokenRequests() {
+        assertThat(call("GET", "/admin/realms/{realm}/clients", 200).getOperation(), is(nullValue()));
+        assertThat(call("POST", "/admin/realms/{realm}/clients", 409).getOperation(), is(nullValue()));
+        assertThat(call("POST", "/realms/{realm}/protocol/openid-connect/token", 200).getOperation(), is(nullValue()));
+    }
+
+    @Test
+    void shouldUseLastNamedSegmentAsType() {
+        assertThat(call("GET", "/admin/realms/{realm}/clients/{id}", 200).getType(), is("clients"));
+        assertThat(call("GET", "/admin/realms/{realm}/roles/{name}/composites", 200).getType(), is("composites"));
+        assertThat(call("GET", "/{id}", 200).getType(), is(""));
+    }
+}
@@ -0,0 +1,196 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakRetry;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class RetryingClientHttpEngineTest {
+    private static final KeycloakRetry RETRY = new KeycloakRetry(true, 3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    private final ResteasyClient client = new ResteasyClientBuilderImpl().build();
+    private final RetryStatistics statistics = new RetryStatistics();
+
+    @AfterEach
+    void close() {
+        client.close();
+    }
+
+    @Test
+    void shouldRetryIdempotentRequest() {
+        StubHttpEngine stub = new StubHttpEngine(503, 502, 200);
+        RetryingClientHttpEngine engine = new RetryingClientHttpEngine(stub, RETRY, statistics);
+
+        Response response = engine.invoke(request("GET"));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(stub.calls, is(3));
+        assertThat(RetryingClientHttpEngine.isRetried(), is(true));
+        assertThat(statistics.getRetries(), is(2L));
+        assertThat(statistics.getRecovered(), is(1L));
+    }
+
+    @Test
+    void shouldRetryConnectionError() {
+        StubHttpEngine stub = new StubHttpEngine(new ProcessingException(new IOException("Connection reset")), 204);
+        RetryingClientHttpEngine engine = new RetryingClientHttpEngine(stub, RETRY, statistics);
+
+        Response response = engine.invoke(request("PUT"));
+
+        assertThat(response.getStatus(), is(204));
+        assertThat(stub.calls, is(2));
+    }
+
+    @Test
+    void shouldNotRetryCreate() {
+        StubHttpEngine stub = new StubHttpEngine(503, 201);
+        RetryingClientHttpEngine engine = new RetryingClientHttpEngine(stub, RETRY, statistics);
+
+        Response response = engine.invoke(request("POST"));
+
+        assertThat(response.getStatus(), is(503));
+        assertThat(stub.calls, is(1));
+        assertThat(RetryingClientHttpEngine.isRetried(), is(false));
+        assertThat(statistics.getRetries(), is(0L));
+    }
+
+    @Test
+    void shouldNotRetryCreateOnConnectionError() {
+        StubHttpEngine stub = new StubHttpEngine(new ProcessingException(new IOException("Read timed out")), 201);
+        RetryingClientHttpEngine engine = new RetryingClientHttpEngine(stub, RETRY, statistics);
+
+        Invocation request = request("POST");
+
+        // the request may have been processed, but the response got lost
+        assertThrows(ProcessingException.class, () -> engine.invoke(request));
+        assertThat(stub.calls, is(1));
+    }
+
+    @Test
+    void shouldRetryAcceptedCreate() {
+        StubHttpEngine stub = new StubHttpEngine(503, 409);
+        RetryingClientHttpEngine engine = new RetryingClientHttpEngine(stub, RETRY, statistics);
+
+        Invocation request = request("POST");
+        Response response = RetryingClientHttpEngine.retryCreate(() -> engine.invoke(request));
+
+        assertThat(response.getStatus(), is(409));
+        assertThat(stub.calls, is(2));
+        assertThat(RetryingClientHttpEngine.isRetried(), is(true));
+
+        // the next create is not retried
+        stub.statuses.addAll(Arrays.asList(503, 201));
+        assertThat(engine.invoke(request).getStatus(), is(503));
+        assertThat(stub.calls, is(3));
+    }
+
+    @Test
+    void shouldNotRetryClientError() {
+        StubHttpEngine stub = new StubHttpEngine(409, 204);
+        RetryingClientHttpEngine engine = new RetryingClientHttpEngine(stub, RETRY, statistics);
+
+        Response response = engine.invoke(request("PUT"));
+
+        assertThat(response.getStatus(), is(409));
+        assertThat(stub.calls, is(1));
+    }
+
+    @Test
+    void shouldStopAfterMaxRetries() {
+        StubHttpEngine stub = new StubHttpEngine(503, 503, 503, 503, 200);
+        RetryingClientHttpEngine engine = new RetryingClientHttpEngine(stub, RETRY, statistics);
+
+        Response response = engine.invoke(request("DELETE"));
+
+        assertThat(response.getStatus(), is(503));
+        assertThat(stub.calls, is(4));
+        assertThat(statistics.getExhausted(), is(1L));
+    }
+
+    private Invocation request(String method) {
+        Invocation.Builder builder = client.target("http://localhost/admin/realms/my-realm/clients").request();
+
+        return method.equals("POST") || method.equals("PUT")
+                ? builder.build(method, Entity.json("{}"))
+                : builder.build(method);
+    }
+
+    private static class StubHttpEngine implements ClientHttpEngine {
+        private final Deque<Object> statuses = new ArrayDeque<>();
+        private int calls;
+
+        StubHttpEngine(Object... statuses) {
+            this.statuses.addAll(Arrays.asList(statuses));
+        }
+
+        @Override
+        public Response invoke(Invocation request) {
+            assertThat(request instanceof ClientInvocation, is(true));
+            calls++;
+
+            Object status = statuses.poll();
+            if (status instanceof RuntimeException) {
+                throw (RuntimeException) status;
+            }
+
+            return Response.status((Integer) status).build();
+        }
+
+        @Override
+        public SSLContext getSslContext() {
+            return null;
+        }
+
+        @Override
+        public HostnameVerifier getHostnameVerifier() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            // nothing
+        }
+    }
+}